@@ -61,6 +61,53 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 
 	private final KernelFunction k;
 
+	/**
+	 * The maximum number of grid cells used by {@link #precomputeGrid(double)}
+	 */
+	public static final int MAX_GRID_CELLS = 1 << 13;
+	private static final int MIN_GRID_CELLS = 1 << 6;
+
+	/**
+	 * The maximum error that was passed to {@link #precomputeGrid(double)} or 0 if pdf and cdf are evaluated exactly
+	 */
+	private double gridError;
+	/**
+	 * The grid for {@link #gridError}. It is not serialized, because it is much larger than the samples, and computed again when it is first needed.
+	 */
+	private transient volatile Grid grid;
+
+	/**
+	 * The pdf and cdf values on an equidistant grid starting at min.
+	 */
+	private static final class Grid {
+		final double min;
+		final double step;
+		final double[] pdf;
+		final double[] cdf;
+
+		Grid(double min, double step, double[] pdf, double[] cdf) {
+			this.min = min;
+			this.step = step;
+			this.pdf = pdf;
+			this.cdf = cdf;
+		}
+
+		/**
+		 * Linearly interpolates the given grid values at x
+		 * 
+		 * @return the interpolated value or NaN if x is not covered by the grid
+		 */
+		double interpolate(double[] values, double x) {
+			final double pos = (x - min) / step;
+			if (pos < 0 || pos > values.length - 1) {
+				return Double.NaN;
+			}
+			final int i = Math.min((int) pos, values.length - 2);
+			final double frac = pos - i;
+			return values[i] + frac * (values[i + 1] - values[i]);
+		}
+	}
+
 	public static double BandwithGuassEstimate(Vec X) {
 		if (X.length() == 1) {
 			return 1;
@@ -125,6 +172,108 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 		this.weights = Arrays.copyOf(weights, weights.length);
 	}
 
+	/**
+	 * Precomputes the density on an equidistant grid covering all values with non zero density. Afterwards {@link #pdf(double)} and {@link #cdf(double)}
+	 * are answered in constant time by linear interpolation between the grid points. Values outside the grid are still evaluated exactly, which is cheap
+	 * because no sample is within the kernel cutoff there.<br>
+	 * The grid is refined until the interpolation error at the centers of all grid cells is at most {@code maxError} times the maximum density. If this is
+	 * not possible with {@link #MAX_GRID_CELLS} cells, no grid is used.
+	 * 
+	 * @param maxError
+	 *            the maximum error of the interpolated pdf relative to the maximum density
+	 * @return true if the grid is used for evaluation
+	 */
+	public boolean precomputeGrid(double maxError) {
+		clearGrid();
+		if (maxError <= 0) {
+			throw new IllegalArgumentException("The maximum error must be greater than zero, not " + maxError);
+		}
+		final Grid result = computeGrid(maxError);
+		if (result == null) {
+			return false;
+		}
+		grid = result;
+		gridError = maxError;
+		return true;
+	}
+
+	/**
+	 * @return the grid or null if pdf and cdf are evaluated exactly
+	 */
+	private Grid getGrid() {
+		Grid result = grid;
+		if (result == null && gridError > 0) {
+			// after deserialization
+			result = computeGrid(gridError);
+			if (result == null) {
+				gridError = 0;
+			}
+			grid = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the grid for the given error or null if it would need more than {@link #MAX_GRID_CELLS} cells
+	 */
+	private Grid computeGrid(double maxError) {
+		if (weights.length == 0 && k instanceof UniformKF) {
+			// pdf is already computed with two binary searches and is not continuous
+			return null;
+		}
+		final double from = X[0] - h * k.cutOff();
+		final double to = X[X.length - 1] + h * k.cutOff();
+		int cells = MIN_GRID_CELLS;
+		double step = (to - from) / cells;
+		double[] values = new double[cells + 1];
+		for (int i = 0; i <= cells; i++) {
+			values[i] = pdf(from + i * step, -1);
+		}
+		while (true) {
+			// the centers of the cells are the new grid points if the grid has to be refined
+			final double[] centers = new double[cells];
+			double maxDiff = 0;
+			double maxPdf = 0;
+			for (int i = 0; i < cells; i++) {
+				centers[i] = pdf(from + (i + 0.5) * step, -1);
+				maxDiff = Math.max(maxDiff, Math.abs(centers[i] - (values[i] + values[i + 1]) * 0.5));
+				maxPdf = Math.max(maxPdf, Math.max(values[i], centers[i]));
+			}
+			if (maxDiff <= maxError * maxPdf) {
+				break;
+			}
+			if (cells * 2 > MAX_GRID_CELLS) {
+				return null;
+			}
+			final double[] refined = new double[cells * 2 + 1];
+			for (int i = 0; i < cells; i++) {
+				refined[2 * i] = values[i];
+				refined[2 * i + 1] = centers[i];
+			}
+			refined[cells * 2] = values[cells];
+			values = refined;
+			cells *= 2;
+			step = (to - from) / cells;
+		}
+		final double[] cdfValues = new double[cells + 1];
+		for (int i = 0; i <= cells; i++) {
+			cdfValues[i] = exactCdf(from + i * step);
+		}
+		return new Grid(from, step, values, cdfValues);
+	}
+
+	/**
+	 * @return true if pdf and cdf are interpolated from a grid computed by {@link #precomputeGrid(double)}
+	 */
+	public boolean isGridEvaluated() {
+		return gridError > 0;
+	}
+
+	private void clearGrid() {
+		grid = null;
+		gridError = 0;
+	}
+
 	private void setUpX(Vec S) {
 		Xmean = S.mean();
 		Xvar = S.variance();
@@ -182,6 +331,13 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 
 	@Override
 	public double pdf(double x) {
+		final Grid g = getGrid();
+		if (g != null) {
+			final double result = g.interpolate(g.pdf, x);
+			if (!Double.isNaN(result)) {
+				return result;
+			}
+		}
 		return pdf(x, -1);
 	}
 
@@ -223,6 +379,17 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 
 	@Override
 	public double cdf(double x) {
+		final Grid g = getGrid();
+		if (g != null) {
+			final double result = g.interpolate(g.cdf, x);
+			if (!Double.isNaN(result)) {
+				return result;
+			}
+		}
+		return exactCdf(x);
+	}
+
+	private double exactCdf(double x) {
 		// Only values within a certain range will have an effect on the result, so we will skip to that range!
 		int from = Arrays.binarySearch(X, x - h * k.cutOff());
 		int to = Arrays.binarySearch(X, x + h * k.cutOff());
@@ -338,6 +505,7 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 		}
 
 		this.h = val;
+		clearGrid();
 	}
 
 	/**
@@ -357,13 +525,18 @@ public class MyKernelDensityEstimator extends ContinuousDistribution
 
 	@Override
 	public MyKernelDensityEstimator clone() {
-		return new MyKernelDensityEstimator(X, h, Xmean, Xvar, Xskew, k, sumOFWeights, weights);
+		final MyKernelDensityEstimator result = new MyKernelDensityEstimator(X, h, Xmean, Xvar, Xskew, k, sumOFWeights, weights);
+		// the grid is never changed, only replaced
+		result.grid = grid;
+		result.gridError = gridError;
+		return result;
 	}
 
 	@Override
 	public void setUsingData(Vec data) {
 		setUpX(data);
 		this.h = BandwithGuassEstimate(data);
+		clearGrid();
 	}
 
 	@Override
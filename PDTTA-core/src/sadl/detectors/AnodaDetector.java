@@ -13,9 +13,6 @@ package sadl.detectors;
 import gnu.trove.list.TDoubleList;
 import sadl.input.TimedWord;
 import sadl.models.pdta.PDTA;
-import sadl.models.pdta.PDTAState;
-import sadl.models.pdta.PDTATransition;
-import sadl.models.pta.SubEvent;
 
 public class AnodaDetector extends AnomalyDetector {
 
@@ -28,38 +25,22 @@ public class AnodaDetector extends AnomalyDetector {
 
 		final PDTA pdta = (PDTA) super.model;
 
-		PDTAState currentState = pdta.getRoot();
-
-		for (int i = 0; i < word.length(); i++) {
-			final String eventSymbol = word.getSymbol(i);
-			final double time = word.getTimeValue(i);
-
-			final PDTATransition transition = currentState.getTransition(eventSymbol, time);
-
-			if (transition == null) {
-				// System.out.println("ERROR: (" + currentState.getId() + ")");
-				return true;
-			}
-
-			final SubEvent event = transition.getEvent();
-
-			if (event.hasWarning(time)) {
-				// System.out.println("WARNING: time in warning arrea. (" + currentState.getId() + ")");
-			}
+		return pdta.hasAnomaly(word);
+	}
 
-			if (event.isInCriticalArea(time)) {
-				// System.out.println("WARNING: time in critical area. Wrong decision possible. (" + currentState.getId() + ")");
-			}
+	@Override
+	public boolean isAnomaly(SequenceScorer scorer) {
 
-			currentState = transition.getTarget();
+		if (!scorer.isFinished()) {
+			throw new IllegalStateException("The scorer must be finished before deciding");
 		}
-
-		if (!currentState.isFinalState()) {
-			// System.out.println("ERROR: ended not in final state. (" + currentState.getId() + ")");
+		if (scorer.isStopped()) {
+			// there was no transition for an event
 			return true;
 		}
-
-		return false;
+		// the last event likelihood is the end probability of the reached state
+		final TDoubleList eventLikelihoods = scorer.getEventLikelihoods();
+		return eventLikelihoods.get(eventLikelihoods.size() - 1) <= 0.0d;
 	}
 
 	@Override
@@ -17,6 +17,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
@@ -43,7 +44,7 @@ public abstract class AnomalyDetector {
 	public static final int ILLEGAL_VALUE = -1;
 
 	protected ProbabilityAggregationMethod aggType;
-	ProbabilisticModel model;
+	protected ProbabilisticModel model;
 
 	public boolean isAnomaly(ProbabilisticModel newModel, TimedWord s) {
 		setModel(newModel);
@@ -89,28 +90,62 @@ public abstract class AnomalyDetector {
 	}
 
 	public Pair<TDoubleList, TDoubleList> computeAggregatedTrendLikelihood(TDoubleList eventLHs, TDoubleList timeLHs) {
-		final TDoubleList partialEventLHs = new TDoubleArrayList();
-		final TDoubleList partialTimeLHs = new TDoubleArrayList();
-		for (int i = 1; i <= eventLHs.size(); i++) {
-			final TDoubleList subList = eventLHs.subList(0, i);
-			partialEventLHs.add(aggregate(subList, aggType));
-		}
-		for (int i = 1; i <= timeLHs.size(); i++) {
-			final TDoubleList subList = timeLHs.subList(0, i);
-			partialTimeLHs.add(aggregate(subList, aggType));
+		return Pair.create(aggregatePrefixes(eventLHs), aggregatePrefixes(timeLHs));
+	}
+
+	/**
+	 * Aggregates all prefixes of the given list in one pass.
+	 */
+	private TDoubleList aggregatePrefixes(TDoubleList likelihoods) {
+		final TDoubleList result = new TDoubleArrayList(likelihoods.size());
+		final ProbabilityAggregator aggregator = new ProbabilityAggregator();
+		for (int i = 0; i < likelihoods.size(); i++) {
+			aggregator.add(likelihoods.get(i));
+			result.add(aggregator.get(aggType));
 		}
-		return Pair.create(partialEventLHs, partialTimeLHs);
+		return result;
 	}
 
 	public boolean isAnomaly(TimedWord s) {
 		final Pair<TDoubleList, TDoubleList> p = model.calculateProbabilities(s);
-		final TDoubleList eventLikelihoods = p.getKey();
-		final TDoubleList timeLikelihoods = p.getValue();
+		return checkAndDecide(p.getKey(), p.getValue());
+	}
+
+	/**
+	 * Creates a scorer for a word that is observed event by event, e.g. a running session. The scorer already flags zero probabilities and threshold breaches
+	 * while the word is fed; the decision of this detector is made with {@link #isAnomaly(SequenceScorer)} once the scorer is finished.
+	 * 
+	 * @return a new scorer of the current model
+	 */
+	public SequenceScorer newScorer() {
+		return model.newScorer();
+	}
+
+	/**
+	 * Decides whether the word that was fed to the given scorer is an anomaly. The result is the same as the one of {@link #isAnomaly(TimedWord)} for the
+	 * whole word.
+	 * 
+	 * @param scorer
+	 *            a finished scorer created by {@link #newScorer()}
+	 * @return true for anomaly, false otherwise
+	 */
+	public boolean isAnomaly(SequenceScorer scorer) {
+		if (!scorer.isFinished()) {
+			throw new IllegalStateException("The scorer must be finished before deciding");
+		}
+		return checkAndDecide(scorer.getEventLikelihoods(), scorer.getTimeLikelihoods());
+	}
+
+	private boolean checkAndDecide(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods) {
+		checkSizes(eventLikelihoods, timeLikelihoods);
+		return decide(eventLikelihoods, timeLikelihoods);
+	}
+
+	private static void checkSizes(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods) {
 		if (eventLikelihoods.size() < timeLikelihoods.size()) {
 			throw new IllegalStateException("There must be at least as many event likelihoods as time likelihoods, but there are not: "
 					+ eventLikelihoods.size() + "(events) vs. " + timeLikelihoods.size() + "(time values)");
 		}
-		return decide(eventLikelihoods, timeLikelihoods);
 	}
 
 	/**
@@ -140,6 +175,17 @@ public abstract class AnomalyDetector {
 				logger.error("Unexpected exception occured", e);
 			}
 		}
+		return decideAll(testSequences);
+	}
+
+	/**
+	 * Decides for every word of the input whether it is an anomaly. Detectors that can decide many words faster at once than one by one override this.
+	 * 
+	 * @param testSequences
+	 *            the words
+	 * @return for every word whether it is an anomaly
+	 */
+	protected boolean[] decideAll(TimedInput testSequences) {
 		final boolean[] result = new boolean[testSequences.size()];
 
 		// parallelism does not destroy determinism
@@ -155,6 +201,30 @@ public abstract class AnomalyDetector {
 		return result;
 	}
 
+	/**
+	 * Computes the event and time likelihoods of every word of the input (in parallel if enabled) and checks that there are at least as many event
+	 * likelihoods as time likelihoods.
+	 * 
+	 * @param input
+	 *            the words
+	 * @return the likelihoods in the order of the words
+	 */
+	protected List<Pair<TDoubleList, TDoubleList>> computeLikelihoods(TimedInput input) {
+		@SuppressWarnings("unchecked")
+		final Pair<TDoubleList, TDoubleList>[] result = new Pair[input.size()];
+		final IntConsumer f = (i -> {
+			final Pair<TDoubleList, TDoubleList> p = model.calculateProbabilities(input.get(i));
+			checkSizes(p.getKey(), p.getValue());
+			result[i] = p;
+		});
+		if (Settings.isParallel()) {
+			IntStream.range(0, input.size()).parallel().forEach(f);
+		} else {
+			IntStream.range(0, input.size()).forEach(f);
+		}
+		return Arrays.asList(result);
+	}
+
 	public void setModel(ProbabilisticModel model) {
 		this.model = model;
 	}
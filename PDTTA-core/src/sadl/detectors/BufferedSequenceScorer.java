@@ -0,0 +1,58 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.detectors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.util.Pair;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import sadl.constants.ClassLabel;
+import sadl.input.TimedWord;
+import sadl.interfaces.ProbabilisticModel;
+
+/**
+ * {@link SequenceScorer} for models that can only score whole words. Buffers all events and computes the likelihoods with
+ * {@link ProbabilisticModel#calculateProbabilities(TimedWord)} when the word is finished, so anomalies are not flagged before {@link #finish()}.
+ */
+public class BufferedSequenceScorer extends SequenceScorer {
+
+	private final ProbabilisticModel model;
+	private final List<String> symbols = new ArrayList<>();
+	private final TIntList timeValues = new TIntArrayList();
+
+	public BufferedSequenceScorer(ProbabilisticModel model) {
+		this.model = model;
+	}
+
+	@Override
+	protected void step(String symbol, int timeDelay) {
+		symbols.add(symbol);
+		timeValues.add(timeDelay);
+	}
+
+	@Override
+	protected void end() {
+		final Pair<TDoubleList, TDoubleList> p = model.calculateProbabilities(new TimedWord(symbols, timeValues, ClassLabel.NORMAL));
+		final TDoubleList eventLikelihoods = p.getKey();
+		for (int i = 0; i < eventLikelihoods.size(); i++) {
+			addEventLikelihood(eventLikelihoods.get(i));
+		}
+		final TDoubleList timeLikelihoods = p.getValue();
+		for (int i = 0; i < timeLikelihoods.size(); i++) {
+			addTimeLikelihood(timeLikelihoods.get(i));
+		}
+	}
+
+}
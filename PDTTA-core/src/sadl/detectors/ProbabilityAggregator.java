@@ -0,0 +1,118 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.detectors;
+
+import gnu.trove.list.TDoubleList;
+import sadl.constants.ProbabilityAggregationMethod;
+
+/**
+ * Aggregates probabilities one at a time with all {@link ProbabilityAggregationMethod}s at once. After adding the probabilities of a list,
+ * {@link #get(ProbabilityAggregationMethod)} returns exactly the same value as {@link AnomalyDetector#aggregate(TDoubleList, ProbabilityAggregationMethod)}
+ * for that list, so the aggregate of every prefix of a list is available in constant time.
+ */
+public class ProbabilityAggregator {
+
+	private int size = 0;
+	// MULTIPLY and NORMALIZED_MULTIPLY
+	private double logSum = 0;
+	// NORMALIZED_MULTIPLY_UNSTABLE
+	private double product = 1;
+	private double lukT = 0;
+	private double lukStrongDisjunction = 0;
+	private int firstNegative = -1;
+
+	/**
+	 * Adds the next probability.
+	 *
+	 * @param probability
+	 *            the probability
+	 */
+	public void add(double probability) {
+		if (size == 0) {
+			lukT = probability;
+			lukStrongDisjunction = probability;
+		} else {
+			lukT = Math.max(0, probability + lukT - 1);
+			lukStrongDisjunction = Math.min(1, probability + lukStrongDisjunction);
+		}
+		logSum += Math.log(probability);
+		product *= probability;
+		if (probability < 0 && firstNegative < 0) {
+			firstNegative = size;
+		}
+		size++;
+	}
+
+	/**
+	 * Adds all probabilities of the given list.
+	 *
+	 * @param probabilities
+	 *            the probabilities
+	 */
+	public void addAll(TDoubleList probabilities) {
+		for (int i = 0; i < probabilities.size(); i++) {
+			add(probabilities.get(i));
+		}
+	}
+
+	/**
+	 * Returns the aggregate of all probabilities added so far.
+	 *
+	 * @param aggType
+	 *            the aggregation method
+	 * @return the aggregate or {@link AnomalyDetector#ILLEGAL_VALUE} if no probability was added
+	 */
+	public double get(ProbabilityAggregationMethod aggType) {
+		if (size == 0) {
+			return AnomalyDetector.ILLEGAL_VALUE;
+		}
+		double result = -1;
+		if (aggType == ProbabilityAggregationMethod.MULTIPLY) {
+			result = logSum;
+		} else if (aggType == ProbabilityAggregationMethod.LUK_T) {
+			result = lukT;
+		} else if (aggType == ProbabilityAggregationMethod.LUK_STRONG_DISJUNCTION) {
+			result = lukStrongDisjunction;
+		} else if (aggType == ProbabilityAggregationMethod.NORMALIZED_MULTIPLY) {
+			if (firstNegative >= 0) {
+				throw new IllegalStateException("Probability for index " + firstNegative + " is negative.");
+			}
+			result = logSum / size;
+			result = Math.exp(result);
+		} else if (aggType == ProbabilityAggregationMethod.NORMALIZED_MULTIPLY_UNSTABLE) {
+			result = Math.pow(product, 1.0 / size);
+		}
+		if (Double.isNaN(result)) {
+			throw new IllegalStateException("Result of probability aggregation must not be NaN");
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of probabilities added so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all probabilities.
+	 */
+	public void clear() {
+		size = 0;
+		logSum = 0;
+		product = 1;
+		lukT = 0;
+		lukStrongDisjunction = 0;
+		firstNegative = -1;
+	}
+
+}
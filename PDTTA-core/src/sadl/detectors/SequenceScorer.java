@@ -0,0 +1,238 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.detectors;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import sadl.constants.ProbabilityAggregationMethod;
+import sadl.input.TimedWord;
+import sadl.interfaces.ProbabilisticModel;
+
+/**
+ * Scores a single word event by event while it is being observed, e.g. a session of a monitored system. A scorer is obtained from
+ * {@link ProbabilisticModel#newScorer()}, fed with {@link #accept(String, int)} for every event and closed with {@link #finish()}. After {@link #finish()}
+ * the likelihoods are the same as the ones {@link ProbabilisticModel#calculateProbabilities(TimedWord)} returns for the whole word.
+ *
+ * While the word is being scored, the aggregated likelihoods of the prefix seen so far are available for every {@link ProbabilityAggregationMethod}. A
+ * scorer flags the word as anomalous as soon as an event has a likelihood of zero or (if set with {@link #setThreshold(ProbabilityAggregationMethod, double, double)})
+ * an aggregated likelihood of the prefix falls to or below its threshold.
+ *
+ * A scorer is not thread-safe; use one scorer per word.
+ */
+public abstract class SequenceScorer {
+
+	private final TDoubleList eventLikelihoods = new TDoubleArrayList();
+	private final TDoubleList timeLikelihoods = new TDoubleArrayList();
+	private final ProbabilityAggregator eventAggregator = new ProbabilityAggregator();
+	private final ProbabilityAggregator timeAggregator = new ProbabilityAggregator();
+
+	private ProbabilityAggregationMethod thresholdAggType = null;
+	private double eventThreshold;
+	private double timeThreshold;
+
+	private int length = 0;
+	private boolean stopped = false;
+	private boolean finished = false;
+	private boolean zeroProbability = false;
+	private boolean thresholdBreached = false;
+
+	/**
+	 * Feeds the next event of the word.
+	 *
+	 * @param symbol
+	 *            the symbol of the event
+	 * @param timeDelay
+	 *            the time delay of the event
+	 * @return whether the word is anomalous (see {@link #isAnomalous()})
+	 */
+	public final boolean accept(String symbol, int timeDelay) {
+		if (finished) {
+			throw new IllegalStateException("The scorer is already finished");
+		}
+		length++;
+		if (!stopped) {
+			step(symbol, timeDelay);
+		}
+		return isAnomalous();
+	}
+
+	/**
+	 * Ends the word. No more events can be fed afterwards.
+	 *
+	 * @return whether the word is anomalous (see {@link #isAnomalous()})
+	 */
+	public final boolean finish() {
+		if (finished) {
+			throw new IllegalStateException("The scorer is already finished");
+		}
+		finished = true;
+		if (!stopped) {
+			end();
+		}
+		return isAnomalous();
+	}
+
+	/**
+	 * Advances the model with the next event and adds the likelihoods of the event. Is not called anymore after {@link #stop()}.
+	 *
+	 * @param symbol
+	 *            the symbol of the event
+	 * @param timeDelay
+	 *            the time delay of the event
+	 */
+	protected abstract void step(String symbol, int timeDelay);
+
+	/**
+	 * Adds the likelihoods of ending the word in the current state of the model. Is not called if the scorer was stopped.
+	 */
+	protected abstract void end();
+
+	/**
+	 * Adds the next event likelihood.
+	 *
+	 * @param likelihood
+	 *            the likelihood
+	 */
+	protected final void addEventLikelihood(double likelihood) {
+		eventLikelihoods.add(likelihood);
+		eventAggregator.add(likelihood);
+		if (likelihood == 0) {
+			zeroProbability = true;
+		}
+		if (thresholdAggType != null && eventAggregator.get(thresholdAggType) <= eventThreshold) {
+			thresholdBreached = true;
+		}
+	}
+
+	/**
+	 * Adds the next time likelihood.
+	 *
+	 * @param likelihood
+	 *            the likelihood
+	 */
+	protected final void addTimeLikelihood(double likelihood) {
+		timeLikelihoods.add(likelihood);
+		timeAggregator.add(likelihood);
+		if (thresholdAggType != null && timeAggregator.get(thresholdAggType) <= timeThreshold) {
+			thresholdBreached = true;
+		}
+	}
+
+	/**
+	 * Removes all likelihoods added so far, e.g. if a model only reports a single likelihood for words it cannot process. Does not reset whether the word
+	 * was already flagged as anomalous.
+	 */
+	protected final void clearLikelihoods() {
+		eventLikelihoods.clear();
+		timeLikelihoods.clear();
+		eventAggregator.clear();
+		timeAggregator.clear();
+	}
+
+	/**
+	 * Marks that the model cannot follow the word any further. The remaining events are counted, but no more likelihoods are added.
+	 */
+	protected final void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Flags the word as anomalous as soon as the aggregate of the event or of the time likelihoods seen so far is lower than or equal to the given threshold.
+	 * This corresponds to checking all prefixes of the word with the given thresholds.
+	 *
+	 * @param aggType
+	 *            the aggregation method
+	 * @param aggregatedEventThreshold
+	 *            the threshold for the aggregated event likelihoods
+	 * @param aggregatedTimeThreshold
+	 *            the threshold for the aggregated time likelihoods
+	 */
+	public void setThreshold(ProbabilityAggregationMethod aggType, double aggregatedEventThreshold, double aggregatedTimeThreshold) {
+		if (length > 0) {
+			throw new IllegalStateException("The threshold must be set before the first event");
+		}
+		this.thresholdAggType = aggType;
+		this.eventThreshold = aggregatedEventThreshold;
+		this.timeThreshold = aggregatedTimeThreshold;
+	}
+
+	/**
+	 * @return whether an event had a likelihood of zero or a threshold was breached so far
+	 */
+	public boolean isAnomalous() {
+		return zeroProbability || thresholdBreached;
+	}
+
+	/**
+	 * @return whether an event had a likelihood of zero so far, e.g. because the model has no transition for it
+	 */
+	public boolean hasZeroProbability() {
+		return zeroProbability;
+	}
+
+	/**
+	 * @return whether an aggregated likelihood fell to or below its threshold so far
+	 */
+	public boolean isThresholdBreached() {
+		return thresholdBreached;
+	}
+
+	/**
+	 * @return whether the model could not follow the word up to its current end
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return the number of events fed so far
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @return the event likelihoods so far; must not be modified
+	 */
+	public TDoubleList getEventLikelihoods() {
+		return eventLikelihoods;
+	}
+
+	/**
+	 * @return the time likelihoods so far; must not be modified
+	 */
+	public TDoubleList getTimeLikelihoods() {
+		return timeLikelihoods;
+	}
+
+	/**
+	 * @param aggType
+	 *            the aggregation method
+	 * @return the aggregate of the event likelihoods so far, the same as {@link AnomalyDetector#aggregate(TDoubleList, ProbabilityAggregationMethod)}
+	 */
+	public double getAggregatedEventLikelihood(ProbabilityAggregationMethod aggType) {
+		return eventAggregator.get(aggType);
+	}
+
+	/**
+	 * @param aggType
+	 *            the aggregation method
+	 * @return the aggregate of the time likelihoods so far, the same as {@link AnomalyDetector#aggregate(TDoubleList, ProbabilityAggregationMethod)}
+	 */
+	public double getAggregatedTimeLikelihood(ProbabilityAggregationMethod aggType) {
+		return timeAggregator.get(aggType);
+	}
+
+}
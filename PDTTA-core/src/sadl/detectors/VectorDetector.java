@@ -11,6 +11,7 @@
 package sadl.detectors;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.math3.util.Pair;
@@ -49,39 +50,46 @@ public class VectorDetector extends AnomalyDetector implements TrainableDetector
 	protected boolean decide(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods) {
 		if (aggSublists) {
 			// do sublists over timelikelihoods because the time list is shorter than the event list
-			for (int i = 1; i <= timeLikelihoods.size(); i++) {
-				final TDoubleList eventSubList = eventLikelihoods.subList(0, i);
-				final TDoubleList timeSubList = timeLikelihoods.subList(0, i);
-				final double[] vector = fc.createFeatures(eventSubList, timeSubList, aggType);
-				if (c.isOutlier(vector)) {
-					return true;
-				}
-			}
-			return false;
+			final boolean[] outlier = { false };
+			fc.createPrefixFeatures(eventLikelihoods, timeLikelihoods, aggType, vector -> {
+				outlier[0] = c.isOutlier(vector);
+				return !outlier[0];
+			});
+			return outlier[0];
 		} else {
 			final double[] vector = fc.createFeatures(eventLikelihoods, timeLikelihoods, aggType);
 			return c.isOutlier(vector);
 		}
 	}
 
+	/**
+	 * Without sublists, creates the feature vectors of all words in one matrix and classifies them in bulk.
+	 */
+	@Override
+	protected boolean[] decideAll(TimedInput testSequences) {
+		if (aggSublists) {
+			return super.decideAll(testSequences);
+		}
+		return c.areOutliers(createFeatures(testSequences));
+	}
+
+	private double[][] createFeatures(TimedInput input) {
+		final double[][] vectors = new double[input.size()][];
+		fc.createFeatures(computeLikelihoods(input), aggType, vectors);
+		return vectors;
+	}
+
 	@Override
 	public void train(TimedInput trainingInput) {
-		final List<double[]> trainingSet = new ArrayList<>(trainingInput.size());
-		for (final TimedWord s : trainingInput) {
-			final Pair<TDoubleList, TDoubleList> p = model.calculateProbabilities(s);
-			if (aggSublists) {
-				final TDoubleList eventLikelihoods = p.getKey();
-				final TDoubleList timeLikelihoods = p.getValue();
-				for (int i = 1; i <= timeLikelihoods.size(); i++) {
-					final TDoubleList eventSubList = eventLikelihoods.subList(0, i);
-					final TDoubleList timeSubList = timeLikelihoods.subList(0, i);
-					final double[] vector = fc.createFeatures(eventSubList, timeSubList, aggType);
-					trainingSet.add(vector);
-				}
-			} else {
-				trainingSet.add(fc.createFeatures(p.getKey(), p.getValue(), aggType));
+		if (aggSublists) {
+			final List<double[]> trainingSet = new ArrayList<>(trainingInput.size());
+			for (final TimedWord s : trainingInput) {
+				final Pair<TDoubleList, TDoubleList> p = model.calculateProbabilities(s);
+				fc.createPrefixFeatures(p.getKey(), p.getValue(), aggType, vector -> trainingSet.add(vector.clone()));
 			}
+			c.train(trainingSet);
+		} else {
+			c.train(Arrays.asList(createFeatures(trainingInput)));
 		}
-		c.train(trainingSet);
 	}
 }
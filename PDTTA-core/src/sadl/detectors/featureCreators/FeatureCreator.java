@@ -10,6 +10,11 @@
  */
 package sadl.detectors.featureCreators;
 
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.commons.math3.util.Pair;
+
 import gnu.trove.list.TDoubleList;
 import sadl.constants.ProbabilityAggregationMethod;
 
@@ -22,4 +27,50 @@ public interface FeatureCreator {
 	public double[] createFeatures(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods);
 
 	double[] createFeatures(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods, ProbabilityAggregationMethod aggType);
+
+	/**
+	 * Creates the features of many words at once and writes them into the rows of the given matrix. Row {@code i} gets the same features as
+	 * {@link #createFeatures(TDoubleList, TDoubleList, ProbabilityAggregationMethod)} for the likelihoods of word {@code i}. This default implementation
+	 * replaces every row by a new array. Feature creators that can create their features without temporary arrays only replace rows that are {@code null}
+	 * or do not have the length of the feature vector and overwrite the others, so the matrix can be reused for the next batch.
+	 *
+	 * @param likelihoods
+	 *            the event and time likelihoods of every word
+	 * @param aggType
+	 *            the aggregation method
+	 * @param out
+	 *            the matrix for the features; must have at least as many rows as there are words
+	 */
+	default void createFeatures(List<Pair<TDoubleList, TDoubleList>> likelihoods, ProbabilityAggregationMethod aggType, double[][] out) {
+		for (int i = 0; i < likelihoods.size(); i++) {
+			final Pair<TDoubleList, TDoubleList> p = likelihoods.get(i);
+			out[i] = createFeatures(p.getKey(), p.getValue(), aggType);
+		}
+	}
+
+	/**
+	 * Creates the features of all prefixes of a word, i.e. of {@code subList(0, i)} of both likelihood lists for {@code i = 1} up to the size of the shorter
+	 * list, in order of increasing length. The features are the same as the ones of {@link #createFeatures(TDoubleList, TDoubleList, ProbabilityAggregationMethod)}
+	 * for every prefix. This default implementation creates each prefix from scratch; feature creators that can update their features event by event
+	 * override it to create all prefixes in one linear pass.
+	 *
+	 * @param eventLikelihoods
+	 *            the event likelihoods of the word
+	 * @param timeLikelihoods
+	 *            the time likelihoods of the word
+	 * @param aggType
+	 *            the aggregation method
+	 * @param procedure
+	 *            gets the features of each prefix and returns whether to continue with the next prefix; the array may be reused for the next prefix, so it
+	 *            has to be copied to be kept
+	 */
+	default void createPrefixFeatures(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods, ProbabilityAggregationMethod aggType,
+			Predicate<double[]> procedure) {
+		final int prefixCount = Math.min(eventLikelihoods.size(), timeLikelihoods.size());
+		for (int i = 1; i <= prefixCount; i++) {
+			if (!procedure.test(createFeatures(eventLikelihoods.subList(0, i), timeLikelihoods.subList(0, i), aggType))) {
+				return;
+			}
+		}
+	}
 }
@@ -39,4 +39,18 @@ public class FullFeatureCreator extends SmallFeatureCreator {
 		}
 		return new double[] { superCall[0], superCall[1], superCall[2], eventMean, superCall[3], superCall[4], superCall[5], timeMean };
 	}
+
+	@Override
+	protected int getFeatureCount() {
+		return 8;
+	}
+
+	@Override
+	protected void fillFeatures(LikelihoodStatistics eventStats, LikelihoodStatistics timeStats, ProbabilityAggregationMethod aggType,
+			double[] features) {
+		super.fillFeatures(eventStats, timeStats, aggType, features);
+		System.arraycopy(features, 3, features, 4, 3);
+		features[3] = eventStats.mean();
+		features[7] = timeStats.mean();
+	}
 }
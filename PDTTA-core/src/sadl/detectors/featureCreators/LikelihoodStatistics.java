@@ -0,0 +1,152 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.detectors.featureCreators;
+
+import gnu.trove.list.TDoubleList;
+import jsat.math.OnLineStatistics;
+import sadl.constants.ProbabilityAggregationMethod;
+import sadl.detectors.AnomalyDetector;
+import sadl.detectors.ProbabilityAggregator;
+
+/**
+ * Running statistics of a growing list of likelihoods that the {@link FeatureCreator}s use to create the features of all prefixes of a word in one pass
+ * and the features of many words without temporary lists. Every statistic is computed in the same order as the corresponding method of {@link TDoubleList}
+ * does for the whole list, so the values are exactly the same.
+ */
+public class LikelihoodStatistics {
+
+	private final ProbabilityAggregator aggregator = new ProbabilityAggregator();
+	private OnLineStatistics statistics = new OnLineStatistics();
+	private double max = Double.NEGATIVE_INFINITY;
+	private double min = Double.POSITIVE_INFINITY;
+	private double sum = 0;
+	private double last;
+	private double diffMax = Double.NEGATIVE_INFINITY;
+	private double diffMin = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Adds the next likelihood.
+	 *
+	 * @param likelihood
+	 *            the likelihood
+	 */
+	public void add(double likelihood) {
+		if (size() > 0) {
+			final double diff = Math.abs(likelihood - last);
+			if (diff > diffMax) {
+				diffMax = diff;
+			}
+			if (diff < diffMin) {
+				diffMin = diff;
+			}
+		}
+		if (likelihood > max) {
+			max = likelihood;
+		}
+		if (likelihood < min) {
+			min = likelihood;
+		}
+		sum += likelihood;
+		last = likelihood;
+		statistics.add(likelihood);
+		aggregator.add(likelihood);
+	}
+
+	/**
+	 * Adds all likelihoods of the given list.
+	 *
+	 * @param likelihoods
+	 *            the likelihoods
+	 */
+	public void addAll(TDoubleList likelihoods) {
+		for (int i = 0; i < likelihoods.size(); i++) {
+			add(likelihoods.get(i));
+		}
+	}
+
+	/**
+	 * Removes all likelihoods, so that the statistics can be reused for the next word.
+	 */
+	public void clear() {
+		aggregator.clear();
+		statistics = new OnLineStatistics();
+		max = Double.NEGATIVE_INFINITY;
+		min = Double.POSITIVE_INFINITY;
+		sum = 0;
+		diffMax = Double.NEGATIVE_INFINITY;
+		diffMin = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the number of likelihoods added so far
+	 */
+	public int size() {
+		return aggregator.size();
+	}
+
+	/**
+	 * @param aggType
+	 *            the aggregation method
+	 * @return the same as {@link AnomalyDetector#aggregate(TDoubleList, ProbabilityAggregationMethod)}
+	 */
+	public double aggregate(ProbabilityAggregationMethod aggType) {
+		return aggregator.get(aggType);
+	}
+
+	/**
+	 * @return the maximum or {@link AnomalyDetector#ILLEGAL_VALUE} if no likelihood was added
+	 */
+	public double max() {
+		return size() == 0 ? AnomalyDetector.ILLEGAL_VALUE : max;
+	}
+
+	/**
+	 * @return the minimum or {@link AnomalyDetector#ILLEGAL_VALUE} if no likelihood was added
+	 */
+	public double min() {
+		return size() == 0 ? AnomalyDetector.ILLEGAL_VALUE : min;
+	}
+
+	/**
+	 * @return the mean or {@link AnomalyDetector#ILLEGAL_VALUE} if no likelihood was added
+	 */
+	public double mean() {
+		return size() == 0 ? AnomalyDetector.ILLEGAL_VALUE : sum / size();
+	}
+
+	/**
+	 * @return the standard deviation or {@link AnomalyDetector#ILLEGAL_VALUE} if it is not defined
+	 */
+	public double standardDeviation() {
+		final double stdDev = statistics.getStandardDeviation();
+		if (Double.isNaN(stdDev) || Double.isInfinite(stdDev)) {
+			return AnomalyDetector.ILLEGAL_VALUE;
+		}
+		return stdDev;
+	}
+
+	/**
+	 * @return the maximum absolute difference of two consecutive likelihoods or {@link AnomalyDetector#ILLEGAL_VALUE} if less than two likelihoods were
+	 *         added
+	 */
+	public double diffMax() {
+		return size() <= 1 ? AnomalyDetector.ILLEGAL_VALUE : diffMax;
+	}
+
+	/**
+	 * @return the minimum absolute difference of two consecutive likelihoods or {@link AnomalyDetector#ILLEGAL_VALUE} if less than two likelihoods were
+	 *         added
+	 */
+	public double diffMin() {
+		return size() <= 1 ? AnomalyDetector.ILLEGAL_VALUE : diffMin;
+	}
+
+}
@@ -10,6 +10,11 @@
  */
 package sadl.detectors.featureCreators;
 
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.commons.math3.util.Pair;
+
 import gnu.trove.list.TDoubleList;
 import sadl.constants.ProbabilityAggregationMethod;
 import sadl.detectors.AnomalyDetector;
@@ -30,4 +35,65 @@ public class MinimalFeatureCreator implements FeatureCreator {
 		return createFeatures(eventLikelihoods, timeLikelihoods, ProbabilityAggregationMethod.NORMALIZED_MULTIPLY);
 	}
 
+	/**
+	 * Creates the features of all words with the same two statistics and without temporary arrays by filling the rows with
+	 * {@link #fillFeatures(LikelihoodStatistics, LikelihoodStatistics, ProbabilityAggregationMethod, double[])}.
+	 */
+	@Override
+	public void createFeatures(List<Pair<TDoubleList, TDoubleList>> likelihoods, ProbabilityAggregationMethod aggType, double[][] out) {
+		final LikelihoodStatistics eventStats = new LikelihoodStatistics();
+		final LikelihoodStatistics timeStats = new LikelihoodStatistics();
+		final int featureCount = getFeatureCount();
+		for (int i = 0; i < likelihoods.size(); i++) {
+			final Pair<TDoubleList, TDoubleList> p = likelihoods.get(i);
+			eventStats.clear();
+			timeStats.clear();
+			eventStats.addAll(p.getKey());
+			timeStats.addAll(p.getValue());
+			if (out[i] == null || out[i].length != featureCount) {
+				out[i] = new double[featureCount];
+			}
+			fillFeatures(eventStats, timeStats, aggType, out[i]);
+		}
+	}
+
+	/**
+	 * Creates the features of all prefixes in one pass by updating the statistics of both lists event by event and filling one reused array with
+	 * {@link #fillFeatures(LikelihoodStatistics, LikelihoodStatistics, ProbabilityAggregationMethod, double[])}.
+	 */
+	@Override
+	public void createPrefixFeatures(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods, ProbabilityAggregationMethod aggType,
+			Predicate<double[]> procedure) {
+		final int prefixCount = Math.min(eventLikelihoods.size(), timeLikelihoods.size());
+		final LikelihoodStatistics eventStats = new LikelihoodStatistics();
+		final LikelihoodStatistics timeStats = new LikelihoodStatistics();
+		final double[] features = new double[getFeatureCount()];
+		for (int i = 0; i < prefixCount; i++) {
+			eventStats.add(eventLikelihoods.get(i));
+			timeStats.add(timeLikelihoods.get(i));
+			fillFeatures(eventStats, timeStats, aggType, features);
+			if (!procedure.test(features)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of features; subclasses that add features must override this together with
+	 *         {@link #fillFeatures(LikelihoodStatistics, LikelihoodStatistics, ProbabilityAggregationMethod, double[])}
+	 */
+	protected int getFeatureCount() {
+		return 2;
+	}
+
+	/**
+	 * Writes the features of the likelihoods described by the given statistics in the same layout as
+	 * {@link #createFeatures(TDoubleList, TDoubleList, ProbabilityAggregationMethod)}.
+	 */
+	protected void fillFeatures(LikelihoodStatistics eventStats, LikelihoodStatistics timeStats, ProbabilityAggregationMethod aggType,
+			double[] features) {
+		features[0] = eventStats.aggregate(aggType);
+		features[1] = timeStats.aggregate(aggType);
+	}
+
 }
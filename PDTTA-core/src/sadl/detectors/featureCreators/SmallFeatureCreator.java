@@ -40,6 +40,23 @@ public class SmallFeatureCreator extends MinimalFeatureCreator {
 		return new double[] { eventMax, eventMin, superCall[0], timeMax, timeMin, superCall[1] };
 	}
 
+	@Override
+	protected int getFeatureCount() {
+		return 6;
+	}
+
+	@Override
+	protected void fillFeatures(LikelihoodStatistics eventStats, LikelihoodStatistics timeStats, ProbabilityAggregationMethod aggType,
+			double[] features) {
+		super.fillFeatures(eventStats, timeStats, aggType, features);
+		features[5] = features[1];
+		features[2] = features[0];
+		features[0] = eventStats.max();
+		features[1] = eventStats.min();
+		features[3] = timeStats.max();
+		features[4] = timeStats.min();
+	}
+
 
 
 }
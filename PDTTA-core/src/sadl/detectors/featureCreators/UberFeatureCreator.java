@@ -53,6 +53,25 @@ public class UberFeatureCreator extends FullFeatureCreator {
 		return result.toArray();
 	}
 
+	@Override
+	protected int getFeatureCount() {
+		return 16;
+	}
+
+	@Override
+	protected void fillFeatures(LikelihoodStatistics eventStats, LikelihoodStatistics timeStats, ProbabilityAggregationMethod aggType,
+			double[] features) {
+		super.fillFeatures(eventStats, timeStats, aggType, features);
+		features[8] = eventStats.standardDeviation();
+		features[9] = eventStats.size();
+		features[10] = eventStats.diffMin();
+		features[11] = eventStats.diffMax();
+		features[12] = timeStats.standardDeviation();
+		features[13] = timeStats.size();
+		features[14] = timeStats.diffMin();
+		features[15] = timeStats.diffMax();
+	}
+
 	private TDoubleList calcDiffs(TDoubleList likelihoods) {
 		if (likelihoods.size() <= 1) {
 			return new TDoubleArrayList(new double[] { AnomalyDetector.ILLEGAL_VALUE });
@@ -17,6 +17,9 @@ import org.slf4j.LoggerFactory;
 import gnu.trove.list.TDoubleList;
 import sadl.constants.ProbabilityAggregationMethod;
 import sadl.detectors.AnomalyDetector;
+import sadl.detectors.SequenceScorer;
+import sadl.input.TimedWord;
+import sadl.models.PDFA;
 
 /**
  * 
@@ -43,6 +46,34 @@ public class AggregatedThresholdDetector extends AnomalyDetector {
 		this(ProbabilityAggregationMethod.NORMALIZED_MULTIPLY, aggregatedEventThreshold, aggregatedTimeThreshold, false);
 	}
 
+	/**
+	 * If sublists are aggregated, the returned scorer already flags a word as soon as one of its prefixes breaches a threshold.
+	 */
+	@Override
+	public SequenceScorer newScorer() {
+		final SequenceScorer scorer = super.newScorer();
+		if (aggregateSublists) {
+			scorer.setThreshold(aggType, aggregatedEventThreshold, aggregatedTimeThreshold);
+		}
+		return scorer;
+	}
+
+	/**
+	 * Untimed automata with a prefix cache are scored with their cached event log-likelihoods if the likelihoods are multiplied and not aggregated per
+	 * prefix. The decision is the same as the one on the likelihood lists.
+	 */
+	@Override
+	public boolean isAnomaly(TimedWord s) {
+		if (!aggregateSublists && aggType == ProbabilityAggregationMethod.MULTIPLY && model instanceof PDFA) {
+			final PDFA pdfa = (PDFA) model;
+			if (pdfa.getPrefixCache() != null && !pdfa.hasTimeLikelihoods()) {
+				// there are no time likelihoods to aggregate
+				return pdfa.computeEventLogLikelihood(s) <= aggregatedEventThreshold || ILLEGAL_VALUE <= aggregatedTimeThreshold;
+			}
+		}
+		return super.isAnomaly(s);
+	}
+
 	@Override
 	protected boolean decide(TDoubleList eventLikelihoods, TDoubleList timeLikelihoods) {
 		if(aggregateSublists){
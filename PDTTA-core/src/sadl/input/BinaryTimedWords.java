@@ -0,0 +1,312 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import sadl.constants.ClassLabel;
+
+/**
+ * The {@link TimedWord}s of a {@link TimedInput} that was stored in the binary format (see {@link TimedInput#toBinary(Path)}). The file is memory mapped and
+ * the symbol ids, time delays and labels are read directly from the mapped buffer. A {@link TimedWord} object is only created (and then kept) when it is
+ * requested with {@link #get(int)}.
+ *
+ * The binary format consists of
+ * <ul>
+ * <li>a header with the magic number, the version, the alphabet size, the number of words and the number of events (all ints),</li>
+ * <li>the alphabet, every symbol as the length of its UTF-8 encoding followed by the bytes, padded to a multiple of four bytes,</li>
+ * <li>the offsets of the words into the event arrays ({@code wordCount + 1} ints),</li>
+ * <li>the symbol ids and the time delays of all events ({@code eventCount} ints each) and</li>
+ * <li>the class labels of the words (one byte each).</li>
+ * </ul>
+ * All values are stored in big endian byte order.
+ */
+final class BinaryTimedWords extends AbstractList<TimedWord> implements RandomAccess, Serializable {
+
+	private static final long serialVersionUID = -3079447718290567316L;
+
+	private static final int MAGIC = 0x5341444C;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+	private final transient TimedInput alphabet;
+	private final transient IntBuffer offsets;
+	private final transient IntBuffer symbolIds;
+	private final transient IntBuffer timeDelays;
+	private final transient ByteBuffer labels;
+	private final transient AtomicReferenceArray<TimedWord> words;
+
+	private BinaryTimedWords(TimedInput alphabet, IntBuffer offsets, IntBuffer symbolIds, IntBuffer timeDelays, ByteBuffer labels) {
+		this.alphabet = alphabet;
+		this.offsets = offsets;
+		this.symbolIds = symbolIds;
+		this.timeDelays = timeDelays;
+		this.labels = labels;
+		this.words = new AtomicReferenceArray<>(labels.limit());
+	}
+
+	/**
+	 * Writes the given {@link TimedInput} in the binary format.
+	 *
+	 * @param input
+	 *            the input to write
+	 * @param out
+	 *            the file to write to
+	 */
+	static void write(TimedInput input, Path out) throws IOException {
+		// symbols of words that are not part of the alphabet (e.g. of subclasses of TimedWord) are appended to it
+		final List<String> symbols = new ArrayList<>();
+		final TObjectIntMap<String> symbolIndex = new TObjectIntHashMap<>(11, 0.5f, -1);
+		for (int i = 0; i < input.getAlphSize(); i++) {
+			symbols.add(input.getSymbol(i));
+			symbolIndex.put(input.getSymbol(i), i);
+		}
+		final int wordCount = input.size();
+		final int[] wordOffsets = new int[wordCount + 1];
+		for (int i = 0; i < wordCount; i++) {
+			final long end = (long) wordOffsets[i] + input.getWord(i).length();
+			if (end > Integer.MAX_VALUE) {
+				throw new IOException("The input contains too many events for the binary format");
+			}
+			wordOffsets[i + 1] = (int) end;
+		}
+		final int[] ids = new int[wordOffsets[wordCount]];
+		for (int i = 0; i < wordCount; i++) {
+			final TimedWord w = input.getWord(i);
+			for (int j = 0; j < w.length(); j++) {
+				int id = input.getAlphIndex(w, j);
+				if (id < 0) {
+					id = symbolIndex.get(w.getSymbol(j));
+					if (id < 0) {
+						id = symbols.size();
+						symbols.add(w.getSymbol(j));
+						symbolIndex.put(w.getSymbol(j), id);
+					}
+				}
+				ids[wordOffsets[i] + j] = id;
+			}
+		}
+
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out)))) {
+			dos.writeInt(MAGIC);
+			dos.writeInt(VERSION);
+			dos.writeInt(symbols.size());
+			dos.writeInt(wordCount);
+			dos.writeInt(ids.length);
+			for (final String symbol : symbols) {
+				final byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+				dos.writeInt(bytes.length);
+				dos.write(bytes);
+			}
+			while (dos.size() % Integer.BYTES != 0) {
+				dos.writeByte(0);
+			}
+			for (final int offset : wordOffsets) {
+				dos.writeInt(offset);
+			}
+			for (final int id : ids) {
+				dos.writeInt(id);
+			}
+			for (int i = 0; i < wordCount; i++) {
+				final TimedWord w = input.getWord(i);
+				for (int j = 0; j < w.length(); j++) {
+					dos.writeInt(w.getTimeValue(j));
+				}
+			}
+			for (int i = 0; i < wordCount; i++) {
+				dos.writeByte(input.getWord(i).getLabel().getClassLabel());
+			}
+		}
+	}
+
+	/**
+	 * Maps a file in the binary format into memory.
+	 *
+	 * @param in
+	 *            the file to read
+	 * @return the {@link TimedInput} with the alphabet of the file whose words are backed by the mapped file
+	 * @throws IOException
+	 *             if the file cannot be read or is not in the binary format
+	 */
+	static TimedInput read(Path in) throws IOException {
+		final ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("The file " + in + " is too large to be mapped");
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("The file " + in + " is not in the binary format");
+		}
+		if (buffer.getInt(Integer.BYTES) != VERSION) {
+			throw new IOException("The file " + in + " has the unsupported version " + buffer.getInt(Integer.BYTES));
+		}
+		final int alphSize = buffer.getInt(2 * Integer.BYTES);
+		final int wordCount = buffer.getInt(3 * Integer.BYTES);
+		final int eventCount = buffer.getInt(4 * Integer.BYTES);
+		if (alphSize < 0 || wordCount < 0 || eventCount < 0) {
+			throw new IOException("The file " + in + " has a corrupt header");
+		}
+		try {
+			final String[] symbols = new String[alphSize];
+			int position = HEADER_SIZE;
+			for (int i = 0; i < alphSize; i++) {
+				final int length = buffer.getInt(position);
+				if (length < 0 || length > buffer.limit()) {
+					throw new IOException("The file " + in + " contains a symbol of corrupt length " + length);
+				}
+				final byte[] bytes = new byte[length];
+				((ByteBuffer) buffer.duplicate().position(position + Integer.BYTES)).get(bytes);
+				symbols[i] = new String(bytes, StandardCharsets.UTF_8);
+				position += Integer.BYTES + length;
+			}
+			position = (position + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+			final long expectedSize = position + (long) Integer.BYTES * (wordCount + 1 + 2L * eventCount) + wordCount;
+			if (expectedSize != buffer.limit()) {
+				throw new IOException("The file " + in + " has " + buffer.limit() + " bytes but " + expectedSize + " were expected");
+			}
+			final IntBuffer offsets = slice(buffer, position, wordCount + 1).asIntBuffer();
+			position += Integer.BYTES * (wordCount + 1);
+			final IntBuffer symbolIds = slice(buffer, position, eventCount).asIntBuffer();
+			position += Integer.BYTES * eventCount;
+			final IntBuffer timeDelays = slice(buffer, position, eventCount).asIntBuffer();
+			position += Integer.BYTES * eventCount;
+			final ByteBuffer labels = ((ByteBuffer) buffer.duplicate().position(position)).slice();
+
+			final TimedInput result = new TimedInput(symbols);
+			result.setWords(new BinaryTimedWords(result, offsets, symbolIds, timeDelays, labels));
+			return result;
+		} catch (final IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("The file " + in + " is corrupt", e);
+		}
+	}
+
+	/**
+	 * @return whether the given file starts with the magic number of the binary format
+	 */
+	static boolean isBinary(Path in) throws IOException {
+		try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+				// read until the magic number is complete or the file ends
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int position, int intCount) {
+		final ByteBuffer result = buffer.duplicate();
+		result.position(position).limit(position + intCount * Integer.BYTES);
+		return result.slice();
+	}
+
+	/**
+	 * @return the number of events of the word with the given index
+	 */
+	int getWordLength(int word) {
+		checkIndex(word);
+		return offsets.get(word + 1) - offsets.get(word);
+	}
+
+	/**
+	 * @return the symbol id (with respect to the alphabet of the file) of the event at index {@code i} of the given word
+	 */
+	int getSymbolId(int word, int i) {
+		return symbolIds.get(eventIndex(word, i));
+	}
+
+	/**
+	 * @return the time delay of the event at index {@code i} of the given word
+	 */
+	int getTimeValue(int word, int i) {
+		return timeDelays.get(eventIndex(word, i));
+	}
+
+	/**
+	 * @return the label of the given word; reflects changes of the label if the word was requested as {@link TimedWord} before
+	 */
+	ClassLabel getLabel(int word) {
+		checkIndex(word);
+		final TimedWord w = words.get(word);
+		if (w != null) {
+			return w.getLabel();
+		}
+		return readLabel(word);
+	}
+
+	private ClassLabel readLabel(int word) {
+		return labels.get(word) == ClassLabel.ANOMALY.getClassLabel() ? ClassLabel.ANOMALY : ClassLabel.NORMAL;
+	}
+
+	private int eventIndex(int word, int i) {
+		final int length = getWordLength(word);
+		if (i < 0 || i >= length) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Length: " + length);
+		}
+		return offsets.get(word) + i;
+	}
+
+	private void checkIndex(int word) {
+		if (word < 0 || word >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + word + ", Size: " + size());
+		}
+	}
+
+	@Override
+	public TimedWord get(int index) {
+		checkIndex(index);
+		final TimedWord w = words.get(index);
+		if (w != null) {
+			return w;
+		}
+		final int start = offsets.get(index);
+		final int length = offsets.get(index + 1) - start;
+		final int[] ids = new int[length];
+		final int[] delays = new int[length];
+		((IntBuffer) symbolIds.duplicate().position(start)).get(ids);
+		((IntBuffer) timeDelays.duplicate().position(start)).get(delays);
+		words.compareAndSet(index, null, new TimedWord(alphabet, ids, new TIntArrayList(delays), readLabel(index)));
+		return words.get(index);
+	}
+
+	@Override
+	public int size() {
+		return words.length();
+	}
+
+	/**
+	 * The mapped buffers cannot be serialized, so the words are serialized as a plain list.
+	 */
+	private Object writeReplace() {
+		return new ArrayList<>(this);
+	}
+
+}
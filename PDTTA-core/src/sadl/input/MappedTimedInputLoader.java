@@ -0,0 +1,381 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import sadl.utils.Settings;
+
+/**
+ * Loads {@link TimedInput}s in the default or alternative format from a memory mapped file. The file is split at line boundaries into chunks, which are
+ * parsed in parallel (if {@link Settings#isParallel()}) into {@link TimedInput}s of their own. Afterwards the chunks are merged in file order, so the symbol
+ * ids are the same as if the file was parsed sequentially.
+ */
+final class MappedTimedInputLoader {
+
+	private static Logger logger = LoggerFactory.getLogger(MappedTimedInputLoader.class);
+
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+	private static final long MAX_CHUNK_SIZE = 1 << 28;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final FileChannel channel;
+	private final long size;
+	private final boolean alternativeFormat;
+	private final boolean skipFirstElement;
+	private final long maxChunkSize;
+
+	/**
+	 * A chunk of the file that starts at the beginning of a line and ends after a line terminator (or at the end of the file).
+	 */
+	private static final class Chunk {
+		final long start;
+		final long end;
+
+		Chunk(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	private MappedTimedInputLoader(FileChannel channel, boolean alternativeFormat, boolean skipFirstElement, long maxChunkSize) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.alternativeFormat = alternativeFormat;
+		this.skipFirstElement = skipFirstElement;
+		this.maxChunkSize = maxChunkSize;
+	}
+
+	/**
+	 * Parses the given file.
+	 *
+	 * @param in
+	 *            the file to parse
+	 * @param lineOffset
+	 *            the number of lines that will be skipped at the beginning of the file
+	 * @param alternativeFormat
+	 *            whether the file is in the alternative format
+	 * @param skipFirstElement
+	 *            whether to skip the first pair of each line
+	 * @return the parsed sequences
+	 */
+	static TimedInput parse(Path in, int lineOffset, boolean alternativeFormat, boolean skipFirstElement) throws IOException {
+		return parse(in, lineOffset, alternativeFormat, skipFirstElement, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Parses the given file like {@link #parse(Path, int, boolean, boolean)}, but with chunks of at most the given size (in bytes, extended to the end of
+	 * the line). Small chunks are only useful for testing.
+	 */
+	static TimedInput parse(Path in, int lineOffset, boolean alternativeFormat, boolean skipFirstElement, long maxChunkSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			final MappedTimedInputLoader loader = new MappedTimedInputLoader(channel, alternativeFormat, skipFirstElement, maxChunkSize);
+			long start = 0;
+			for (int i = 0; i < lineOffset && start < loader.size; i++) {
+				start = loader.nextLineStart(start);
+			}
+			return loader.parse(start, loader.size);
+		}
+	}
+
+	/**
+	 * Parses a file that contains a train and a test set, which are separated by a line that starts with the given separator.
+	 *
+	 * @param in
+	 *            the file to parse
+	 * @param separator
+	 *            the beginning of the line that separates train and test set
+	 * @param skipFirstElement
+	 *            whether to skip the first pair of each line
+	 * @return the train and the test set
+	 * @throws IOException
+	 *             if the file cannot be read or does not contain the separator
+	 */
+	static Pair<TimedInput, TimedInput> parseTrainTest(Path in, String separator, boolean skipFirstElement) throws IOException {
+		return parseTrainTest(in, separator, skipFirstElement, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Parses the given file like {@link #parseTrainTest(Path, String, boolean)}, but with chunks of at most the given size (in bytes, extended to the end of
+	 * the line). Small chunks are only useful for testing.
+	 */
+	static Pair<TimedInput, TimedInput> parseTrainTest(Path in, String separator, boolean skipFirstElement, long maxChunkSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			final MappedTimedInputLoader loader = new MappedTimedInputLoader(channel, false, skipFirstElement, maxChunkSize);
+			final long separatorStart = loader.findLine(separator.getBytes(StandardCharsets.UTF_8));
+			if (separatorStart < 0) {
+				throw new IOException("The provided file " + in + " does not contain the separator " + separator);
+			}
+			final TimedInput train = loader.parse(0, separatorStart);
+			final TimedInput test = loader.parse(loader.nextLineStart(separatorStart), loader.size);
+			return Pair.of(train, test);
+		}
+	}
+
+	private long findLine(byte[] prefix) throws IOException {
+		final List<Chunk> chunks = split(0, size);
+		final List<Long> positions = forEachChunk(chunks, chunk -> Long.valueOf(findLine(chunk, prefix)));
+		for (final Long position : positions) {
+			if (position.longValue() >= 0) {
+				return position.longValue();
+			}
+		}
+		return -1;
+	}
+
+	private long findLine(Chunk chunk, byte[] prefix) throws IOException {
+		final ByteBuffer buffer = map(chunk);
+		final int length = buffer.limit();
+		int lineStart = 0;
+		while (lineStart < length) {
+			if (lineStart + prefix.length <= length) {
+				boolean matches = true;
+				for (int i = 0; i < prefix.length && matches; i++) {
+					matches = buffer.get(lineStart + i) == prefix[i];
+				}
+				if (matches) {
+					return chunk.start + lineStart;
+				}
+			}
+			lineStart = nextLineStart(buffer, lineStart);
+		}
+		return -1;
+	}
+
+	private TimedInput parse(long start, long end) throws IOException {
+		final List<TimedInput> parsedChunks = forEachChunk(split(start, end), this::parse);
+		final TimedInput result = parsedChunks.get(0);
+		for (int i = 1; i < parsedChunks.size(); i++) {
+			result.appendAll(parsedChunks.get(i));
+		}
+		return result;
+	}
+
+	private interface ChunkFunction<R> {
+		R apply(Chunk chunk) throws IOException;
+	}
+
+	/**
+	 * Applies the function to all chunks (in parallel if {@link Settings#isParallel()}).
+	 *
+	 * @return the results in the order of the chunks
+	 */
+	private static <R> List<R> forEachChunk(List<Chunk> chunks, ChunkFunction<R> f) throws IOException {
+		final IntStream indices = IntStream.range(0, chunks.size());
+		try {
+			return (Settings.isParallel() ? indices.parallel() : indices).mapToObj(i -> {
+				try {
+					return f.apply(chunks.get(i));
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).collect(Collectors.toList());
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private TimedInput parse(Chunk chunk) throws IOException {
+		final ByteBuffer buffer = map(chunk);
+		final TimedInput result = new TimedInput(new ArrayList<>());
+		final TIntList symbolIds = new TIntArrayList();
+		final TIntList timeDelays = new TIntArrayList();
+		final TimedWordTokenizer tokenizer = new TimedWordTokenizer(result, alternativeFormat, skipFirstElement, symbolIds, timeDelays);
+		final AsciiLine line = new AsciiLine(buffer);
+		final int length = buffer.limit();
+		int lineStart = 0;
+		int lineCount = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			boolean ascii = true;
+			byte b;
+			while (lineEnd < length && (b = buffer.get(lineEnd)) != '\n' && b != '\r') {
+				ascii &= b >= 0;
+				lineEnd++;
+			}
+			if (lineEnd > lineStart) {
+				line.set(lineStart, lineEnd);
+				result.appendLine(ascii ? line : decode(buffer, lineStart, lineEnd), lineCount, tokenizer, alternativeFormat, skipFirstElement, symbolIds,
+						timeDelays);
+				lineCount++;
+			}
+			lineStart = nextLineStart(buffer, lineEnd);
+		}
+		logger.debug("Parsed {} sequences from bytes {} to {}", lineCount, chunk.start, chunk.end);
+		return result;
+	}
+
+	private static String decode(ByteBuffer buffer, int start, int end) throws IOException {
+		final ByteBuffer line = buffer.duplicate();
+		line.limit(end).position(start);
+		// reports malformed input like the reader does
+		return StandardCharsets.UTF_8.newDecoder().decode(line).toString();
+	}
+
+	/**
+	 * Splits the given region into chunks that start at the beginning of a line.
+	 */
+	private List<Chunk> split(long start, long end) throws IOException {
+		final List<Chunk> result = new ArrayList<>();
+		final int threads = Settings.isParallel() ? Runtime.getRuntime().availableProcessors() : 1;
+		final long chunkSize = Math.min(maxChunkSize, Math.max(MIN_CHUNK_SIZE, (end - start) / (threads * CHUNKS_PER_THREAD) + 1));
+		long chunkStart = start;
+		while (chunkStart < end) {
+			long chunkEnd = chunkStart + chunkSize;
+			if (chunkEnd >= end) {
+				chunkEnd = end;
+			} else {
+				chunkEnd = Math.min(end, nextLineFeed(chunkEnd - 1) + 1);
+			}
+			result.add(new Chunk(chunkStart, chunkEnd));
+			chunkStart = chunkEnd;
+		}
+		if (result.isEmpty()) {
+			result.add(new Chunk(start, start));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the position of the next '\n' at or after the given position or the size of the file if there is none
+	 */
+	private long nextLineFeed(long position) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long current = position;
+		while (current < size) {
+			buffer.clear();
+			final int read = channel.read(buffer, current);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return current + i;
+				}
+			}
+			current += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the start of the line after the line that contains the given position. Lines are terminated by '\n', '\r' or "\r\n" like in
+	 * {@link java.io.BufferedReader#readLine()}.
+	 */
+	private long nextLineStart(long position) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long current = position;
+		while (current < size) {
+			buffer.clear();
+			final int read = channel.read(buffer, current);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				final byte b = buffer.get(i);
+				if (b == '\n') {
+					return current + i + 1;
+				} else if (b == '\r') {
+					final ByteBuffer next = ByteBuffer.allocate(1);
+					if (channel.read(next, current + i + 1) == 1 && next.get(0) == '\n') {
+						return current + i + 2;
+					}
+					return current + i + 1;
+				}
+			}
+			current += read;
+		}
+		return size;
+	}
+
+	private static int nextLineStart(ByteBuffer buffer, int position) {
+		final int length = buffer.limit();
+		int i = position;
+		while (i < length) {
+			final byte b = buffer.get(i);
+			i++;
+			if (b == '\n') {
+				return i;
+			} else if (b == '\r') {
+				if (i < length && buffer.get(i) == '\n') {
+					i++;
+				}
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private MappedByteBuffer map(Chunk chunk) throws IOException {
+		return channel.map(MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+	}
+
+	/**
+	 * View on a line of ASCII bytes, so that the tokenizer does not need a {@link String} per line.
+	 */
+	private static final class AsciiLine implements CharSequence {
+		private final ByteBuffer buffer;
+		private int start;
+		private int length;
+
+		AsciiLine(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		void set(int lineStart, int lineEnd) {
+			this.start = lineStart;
+			this.length = lineEnd - lineStart;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) buffer.get(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int subStart, int subEnd) {
+			final byte[] bytes = new byte[subEnd - subStart];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(start + subStart + i);
+			}
+			return new String(bytes, StandardCharsets.US_ASCII);
+		}
+
+		@Override
+		public String toString() {
+			return subSequence(0, length).toString();
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of symbols that only stores the indices of the symbols in the alphabet of a {@link TimedInput}. It is used for the {@link TimedWord}s that are parsed
+ * by a {@link TimedInput}, so that the words do not need a reference per event and consumers can work on the symbol ids directly. A symbol that is set or
+ * added but is not part of the alphabet (e.g. an anomaly inserted into a word) is stored as a {@link String} with a negative id, so that the list accepts
+ * any symbol like an {@link ArrayList} does.
+ */
+final class SymbolList extends AbstractList<String> implements RandomAccess, Serializable {
+
+	private static final long serialVersionUID = -1740155926536937094L;
+
+	private TimedInput alphabet;
+	// ids >= 0 are indices into the alphabet, an id < 0 is the index -id - 1 into the foreign symbols
+	private int[] ids;
+	private int size;
+	private List<String> foreignSymbols = null;
+
+	SymbolList(TimedInput alphabet, int[] ids) {
+		this.alphabet = alphabet;
+		this.ids = ids;
+		this.size = ids.length;
+	}
+
+	TimedInput getAlphabet() {
+		return alphabet;
+	}
+
+	/**
+	 * @return the index of the symbol in the alphabet or {@code -1} if the symbol is not part of it
+	 */
+	int getId(int index) {
+		rangeCheck(index);
+		final int id = ids[index];
+		if (id >= 0) {
+			return id;
+		}
+		// the alphabet may have grown since the symbol was stored
+		return alphabet.getAlphIndex(foreignSymbols.get(-id - 1));
+	}
+
+	/**
+	 * Maps the symbol indices to the given alphabet.
+	 */
+	void reencode(TimedInput newAlphabet, int[] mapping) {
+		for (int i = 0; i < size; i++) {
+			if (ids[i] >= 0) {
+				ids[i] = mapping[ids[i]];
+			}
+		}
+		alphabet = newAlphabet;
+	}
+
+	@Override
+	public String get(int index) {
+		rangeCheck(index);
+		final int id = ids[index];
+		if (id >= 0) {
+			return alphabet.getSymbol(id);
+		}
+		return foreignSymbols.get(-id - 1);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String set(int index, String symbol) {
+		rangeCheck(index);
+		final String old = get(index);
+		ids[index] = idOf(symbol);
+		return old;
+	}
+
+	@Override
+	public void add(int index, String symbol) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		final int id = idOf(symbol);
+		if (size == ids.length) {
+			final int[] newIds = new int[Math.max(4, size + (size >> 1))];
+			System.arraycopy(ids, 0, newIds, 0, size);
+			ids = newIds;
+		}
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		ids[index] = id;
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public String remove(int index) {
+		final String old = get(index);
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		size--;
+		modCount++;
+		return old;
+	}
+
+	private int idOf(String symbol) {
+		final int id = alphabet.getAlphIndex(symbol);
+		if (id >= 0) {
+			return id;
+		}
+		if (foreignSymbols == null) {
+			foreignSymbols = new ArrayList<>(1);
+		}
+		int foreignIndex = foreignSymbols.indexOf(symbol);
+		if (foreignIndex < 0) {
+			foreignIndex = foreignSymbols.size();
+			foreignSymbols.add(symbol);
+		}
+		return -foreignIndex - 1;
+	}
+
+	private void rangeCheck(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * Words are serialized with a plain {@link ArrayList} of symbols, so that the serialized form of {@link TimedWord} does not change.
+	 */
+	private Object writeReplace() {
+		return new ArrayList<>(this);
+	}
+
+}
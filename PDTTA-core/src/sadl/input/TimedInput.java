@@ -28,6 +28,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -102,9 +103,13 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 	 *            A {@link Path} that contains timed sequences in the appropriate format
 	 * @return A {@link TimedInput} that represents the timed sequences parsed
 	 * @throws IOException
-	 * @implNote The {@link #parse(Path)} and {@link #parseAlt(Path)} methods are called.
+	 * @implNote Files in the binary format are read with {@link #fromBinary(Path)}, otherwise the {@link #parse(Path)} and {@link #parseAlt(Path)} methods are
+	 *           called.
 	 */
 	public static TimedInput tryParse(Path in) throws IOException {
+		if (BinaryTimedWords.isBinary(in)) {
+			return fromBinary(in);
+		}
 		try {
 			return parse(in);
 		} catch (final IOException | IllegalArgumentException e) {
@@ -129,7 +134,7 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 	 * @throws IOException
 	 */
 	public static TimedInput parse(Path in) throws IOException {
-		return parseCustom(in, parseStart, parseSymbols[0], parseSymbols[1], parseSymbols[2], parseSymbols[3], parseSymbols[4]);
+		return parseMapped(in, parseStart, false);
 	}
 
 	/**
@@ -227,7 +232,60 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 	 * @throws IOException
 	 */
 	public static TimedInput parseAlt(Path in, int lineOffset) throws IOException {
-		return parseCustom(in, lineOffset, parseSymbolsAlt[0], parseSymbolsAlt[1], parseSymbolsAlt[2], parseSymbolsAlt[3], parseSymbolsAlt[4]);
+		return parseMapped(in, lineOffset, true);
+	}
+
+	/**
+	 * Parses a file in the default or alternative format by memory mapping it and parsing chunks of it in parallel. If a line cannot be parsed, the file is
+	 * parsed again sequentially, so that the error is reported in the same way as by {@link #parseCustom(Path, int, String, String, String, String,
+	 * String)} (e.g. with the line number within the file). I/O errors are not retried.
+	 */
+	private static TimedInput parseMapped(Path in, int lineOffset, boolean alternativeFormat) throws IOException {
+		final String[] separators = alternativeFormat ? parseSymbolsAlt : parseSymbols;
+		if (Files.exists(in)) {
+			try {
+				return MappedTimedInputLoader.parse(in, lineOffset, alternativeFormat, false);
+			} catch (final IllegalArgumentException e) {
+				final TimedInput result = parseCustom(in, lineOffset, separators[0], separators[1], separators[2], separators[3], separators[4]);
+				// the sequential parser rejects the same lines, so getting here means that the chunks were not parsed correctly
+				logger.warn("Parsing the mapped file {} failed, but parsing it sequentially succeeded", in, e);
+				return result;
+			}
+		}
+		return parseCustom(in, lineOffset, separators[0], separators[1], separators[2], separators[3], separators[4]);
+	}
+
+	/**
+	 * Parses a file in the default format that contains a training set and a test set. The sets are separated by a line that begins with the given
+	 * separator. The file is memory mapped and parsed in parallel chunks.
+	 * 
+	 * @param in
+	 *            A {@link Path} that contains timed sequences in the default format
+	 * @param separator
+	 *            The beginning of the line that separates the training set from the test set
+	 * @param skipFirstElement
+	 *            Whether the first pair of every sequence is skipped
+	 * @return The training set and the test set
+	 * @throws IOException
+	 *             if the file cannot be read or does not contain the separator
+	 */
+	public static Pair<TimedInput, TimedInput> parseTrainTest(Path in, String separator, boolean skipFirstElement) throws IOException {
+		return MappedTimedInputLoader.parseTrainTest(in, separator, skipFirstElement);
+	}
+
+	/**
+	 * Reads timed sequences from a file that was written with {@link #toBinary(Path)}. The file is memory mapped and the {@link TimedWord}s are only created
+	 * when they are accessed. The symbols, time delays and labels can also be accessed without creating {@link TimedWord}s (see
+	 * {@link #getWordLength(int)}, {@link #getSymbolId(int, int)}, {@link #getTimeValue(int, int)} and {@link #getLabel(int)}).
+	 * 
+	 * @param in
+	 *            A {@link Path} that contains timed sequences in the binary format
+	 * @return A {@link TimedInput} that represents the timed sequences of the file
+	 * @throws IOException
+	 *             if the file cannot be read or is not in the binary format
+	 */
+	public static TimedInput fromBinary(Path in) throws IOException {
+		return BinaryTimedWords.read(in);
 	}
 
 	/**
@@ -312,6 +370,8 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 	 *            {@code pairSep}
 	 * @return A {@link TimedInput} that represents the timed sequences parsed
 	 * @throws IOException
+	 * @implNote If the regular expressions are the ones of {@link #parse(Reader)} or {@link #parseAlt(Reader)}, well-formed lines are tokenized without
+	 *           regular expressions.
 	 */
 	public static TimedInput parseCustom(Reader br, int lineOffset, String seqPrefix, String seqPostfix, String pairSep, String valueSep, String classSep)
 			throws IOException {
@@ -343,86 +403,165 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 				counter++;
 			}
 
-			TimedWord word;
-			String symbol;
-			int timeDelay;
 			String line;
-			String[] splitWord;
-			String[] splitPair;
 			int lineCount = 0;
+			final TIntList symbolIds = new TIntArrayList();
+			final TIntList timeDelays = new TIntArrayList();
+			final TimedWordTokenizer tokenizer = createTokenizer(seqPrefix, seqPostfix, pairSep, valueSep, classSep, skipFirstElement, symbolIds, timeDelays);
 			while ((line = in.readLine()) != null) {
 				if (line.isEmpty()) {
 					continue;
 				}
-				word = new TimedWord();
-
-				// Split and parse class label (if it exists)
-				splitWord = line.split(classSep, 2);
-				line = splitWord[0];
-				ClassLabel label;
-				if (splitWord.length == 2) {
-					switch (splitWord[1]) {
-						case "0":
-							label = ClassLabel.NORMAL;
-							break;
-						case "1":
-							label = ClassLabel.ANOMALY;
-							break;
-						default:
-							label = ClassLabel.NORMAL;
-							break;
-					}
-					word.setLabel(label);
-				}
-				line = line.trim();
-				// Remove sequence prefix
-				line = line.replaceAll(seqPrefix, "");
-
-				// Remove sequence postfix
-				line = line.replaceAll(seqPostfix, "");
-				if (!line.isEmpty()) {
-					// Parse sequence
-					splitWord = line.split(pairSep);
-					int i = 0;
-					if (skipFirstElement) {
-						i = 1;
-					}
-					for (; i < splitWord.length; i++) {
-						splitPair = splitWord[i].split(valueSep, 2);
-						if (splitPair.length < 2) {
-							final String errorMessage = "Pair \"" + splitWord[i] + "\" in line " + lineCount + " is in the wrong format. Separator \""
-									+ valueSep + "\" not found!";
-							final IllegalArgumentException e = new IllegalArgumentException(errorMessage);
-							logger.error(errorMessage, e);
-							throw e;
-						}
-						symbol = splitPair[0];
-						if (symbol.matches("\\W")) {
-							// Only characters, digits and underscores are allowed for
-							// event names ([a-zA-Z_0-9])
-							final String errorMessage = "Event name \"" + symbol + "\" in line " + lineCount + " contains forbidden characters. "
-									+ "Only [a-zA-Z_0-9] are allowed.";
-							final IllegalArgumentException e = new IllegalArgumentException(errorMessage);
-							logger.error(errorMessage, e);
-							throw e;
-						}
-						timeDelay = Integer.parseInt(splitPair[1].trim());
-						if (!alphabet.containsKey(symbol)) {
-							alphabet.put(symbol, alphabet.size());
-							alphabetRev.add(symbol);
-						}
-						// Use String in alphabet to avoid redundant event name
-						// instances in input
-						word.appendPair(alphabetRev.get(alphabet.get(symbol)), timeDelay);
-					}
-				}
-				words.add(word);
+				appendLine(line, lineCount, tokenizer, seqPrefix, seqPostfix, pairSep, valueSep, classSep, skipFirstElement, symbolIds, timeDelays);
 				lineCount++;
 			}
 			br.close();
 		}
 	}
 
+	/**
+	 * Parses a non-empty line in the default or alternative format and appends the resulting word.
+	 */
+	void appendLine(CharSequence line, int lineCount, TimedWordTokenizer tokenizer, boolean alternativeFormat, boolean skipFirstElement,
+			TIntList symbolIds, TIntList timeDelays) {
+		final String[] separators = alternativeFormat ? parseSymbolsAlt : parseSymbols;
+		appendLine(line, lineCount, tokenizer, separators[0], separators[1], separators[2], separators[3], separators[4], skipFirstElement, symbolIds,
+				timeDelays);
+	}
+
+	private void appendLine(CharSequence line, int lineCount, TimedWordTokenizer tokenizer, String seqPrefix, String seqPostfix, String pairSep,
+			String valueSep, String classSep, boolean skipFirstElement, TIntList symbolIds, TIntList timeDelays) {
+		symbolIds.clear();
+		timeDelays.clear();
+		final ClassLabel label;
+		if (tokenizer != null && tokenizer.tokenize(line)) {
+			label = tokenizer.getLabel();
+		} else {
+			if (tokenizer != null) {
+				// the tokenizer stops at the first unexpected character, so the buffers may already contain the pairs before it
+				symbolIds.clear();
+				timeDelays.clear();
+			}
+			label = parseLine(line.toString(), lineCount, seqPrefix, seqPostfix, pairSep, valueSep, classSep, skipFirstElement, symbolIds, timeDelays);
+		}
+		words.add(new TimedWord(this, symbolIds.toArray(), new TIntArrayList(timeDelays), label));
+	}
+
+	/**
+	 * Appends all words of the given {@link TimedInput}, which must have been parsed by this class, and merges its alphabet into this alphabet. Symbols
+	 * that are new to this alphabet are added in the order of the other alphabet, so merging consecutive parts of a file gives the same symbol ids as
+	 * parsing the file at once. The words are moved, i.e. they are encoded with this {@link TimedInput} afterwards.
+	 */
+	void appendAll(TimedInput other) {
+		final int[] mapping = new int[other.alphabetRev.size()];
+		for (int i = 0; i < mapping.length; i++) {
+			mapping[i] = addSymbol(other.alphabetRev.get(i));
+		}
+		for (final TimedWord w : other.words) {
+			w.reencode(other, this, mapping);
+			words.add(w);
+		}
+	}
+
+	/**
+	 * Creates a tokenizer if the separators are the ones of {@link #parse(Path)} or {@link #parseAlt(Path)}.
+	 * 
+	 * @return the tokenizer or {@code null} if the lines have to be parsed with the regular expressions
+	 */
+	private TimedWordTokenizer createTokenizer(String seqPrefix, String seqPostfix, String pairSep, String valueSep, String classSep,
+			boolean skipFirstElement, TIntList symbolIds, TIntList timeDelays) {
+		final String[] separators = new String[] { seqPrefix, seqPostfix, pairSep, valueSep, classSep };
+		if (Arrays.equals(separators, parseSymbols)) {
+			return new TimedWordTokenizer(this, false, skipFirstElement, symbolIds, timeDelays);
+		} else if (Arrays.equals(separators, parseSymbolsAlt)) {
+			return new TimedWordTokenizer(this, true, skipFirstElement, symbolIds, timeDelays);
+		}
+		return null;
+	}
+
+	/**
+	 * Parses a line with the given regular expressions and appends its symbol ids and time delays to the given lists.
+	 * 
+	 * @return the class label of the line
+	 */
+	private ClassLabel parseLine(String line, int lineCount, String seqPrefix, String seqPostfix, String pairSep, String valueSep, String classSep,
+			boolean skipFirstElement, TIntList symbolIds, TIntList timeDelays) {
+		ClassLabel label = ClassLabel.NORMAL;
+		String symbol;
+		int timeDelay;
+		String[] splitWord;
+		String[] splitPair;
+
+		// Split and parse class label (if it exists)
+		splitWord = line.split(classSep, 2);
+		line = splitWord[0];
+		if (splitWord.length == 2) {
+			switch (splitWord[1]) {
+				case "0":
+					label = ClassLabel.NORMAL;
+					break;
+				case "1":
+					label = ClassLabel.ANOMALY;
+					break;
+				default:
+					label = ClassLabel.NORMAL;
+					break;
+			}
+		}
+		line = line.trim();
+		// Remove sequence prefix
+		line = line.replaceAll(seqPrefix, "");
+
+		// Remove sequence postfix
+		line = line.replaceAll(seqPostfix, "");
+		if (!line.isEmpty()) {
+			// Parse sequence
+			splitWord = line.split(pairSep);
+			int i = 0;
+			if (skipFirstElement) {
+				i = 1;
+			}
+			for (; i < splitWord.length; i++) {
+				splitPair = splitWord[i].split(valueSep, 2);
+				if (splitPair.length < 2) {
+					final String errorMessage = "Pair \"" + splitWord[i] + "\" in line " + lineCount + " is in the wrong format. Separator \"" + valueSep
+							+ "\" not found!";
+					final IllegalArgumentException e = new IllegalArgumentException(errorMessage);
+					logger.error(errorMessage, e);
+					throw e;
+				}
+				symbol = splitPair[0];
+				if (symbol.matches("\\W")) {
+					// Only characters, digits and underscores are allowed for
+					// event names ([a-zA-Z_0-9])
+					final String errorMessage = "Event name \"" + symbol + "\" in line " + lineCount + " contains forbidden characters. "
+							+ "Only [a-zA-Z_0-9] are allowed.";
+					final IllegalArgumentException e = new IllegalArgumentException(errorMessage);
+					logger.error(errorMessage, e);
+					throw e;
+				}
+				timeDelay = Integer.parseInt(splitPair[1].trim());
+				// Only store the index of the symbol to avoid redundant event name instances in input
+				symbolIds.add(addSymbol(symbol));
+				timeDelays.add(timeDelay);
+			}
+		}
+		return label;
+	}
+
+	/**
+	 * Adds the given symbol to the alphabet if it is not contained yet.
+	 * 
+	 * @return the index of the symbol in the alphabet
+	 */
+	int addSymbol(String symbol) {
+		if (!alphabet.containsKey(symbol)) {
+			alphabet.put(symbol, alphabet.size());
+			alphabetRev.add(symbol);
+		}
+		return alphabet.get(symbol);
+	}
+
 	/**
 	 * States whether the {@link TimedInput} contains any timed sequences or not.
 	 * 
@@ -438,7 +577,7 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 	 * Removes all {@link TimedWord}s from the {@link TimedInput} to reduce memory consumption.
 	 */
 	public void clearWords() {
-		words.clear();
+		words = new ArrayList<>();
 		cleared = true;
 	}
 
@@ -465,6 +604,75 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 		return words.get(i);
 	}
 
+	/**
+	 * Returns the length of the {@link TimedWord} at the given index without creating it if the {@link TimedInput} was read with
+	 * {@link #fromBinary(Path)}.
+	 * 
+	 * @param word
+	 *            The index of the {@link TimedWord}
+	 * @return The length of the {@link TimedWord}
+	 */
+	public int getWordLength(int word) {
+		checkCleared();
+		if (words instanceof BinaryTimedWords) {
+			return ((BinaryTimedWords) words).getWordLength(word);
+		}
+		return words.get(word).length();
+	}
+
+	/**
+	 * Returns the index of the symbol at index {@code i} of the {@link TimedWord} at the given index (see {@link #getAlphIndex(TimedWord, int)}).
+	 * 
+	 * @param word
+	 *            The index of the {@link TimedWord}
+	 * @param i
+	 *            The index of the symbol in the {@link TimedWord}
+	 * @return The index of the symbol in the alphabet or {@code -1} if the symbol is not contained in the {@link TimedInput}
+	 */
+	public int getSymbolId(int word, int i) {
+		checkCleared();
+		if (words instanceof BinaryTimedWords) {
+			return ((BinaryTimedWords) words).getSymbolId(word, i);
+		}
+		return getAlphIndex(words.get(word), i);
+	}
+
+	/**
+	 * Returns the time delay at index {@code i} of the {@link TimedWord} at the given index.
+	 * 
+	 * @param word
+	 *            The index of the {@link TimedWord}
+	 * @param i
+	 *            The index of the time delay in the {@link TimedWord}
+	 * @return The time delay
+	 */
+	public int getTimeValue(int word, int i) {
+		checkCleared();
+		if (words instanceof BinaryTimedWords) {
+			return ((BinaryTimedWords) words).getTimeValue(word, i);
+		}
+		return words.get(word).getTimeValue(i);
+	}
+
+	/**
+	 * Returns the {@link ClassLabel} of the {@link TimedWord} at the given index.
+	 * 
+	 * @param word
+	 *            The index of the {@link TimedWord}
+	 * @return The {@link ClassLabel} of the {@link TimedWord}
+	 */
+	public ClassLabel getLabel(int word) {
+		checkCleared();
+		if (words instanceof BinaryTimedWords) {
+			return ((BinaryTimedWords) words).getLabel(word);
+		}
+		return words.get(word).getLabel();
+	}
+
+	void setWords(List<TimedWord> words) {
+		this.words = words;
+	}
+
 	/**
 	 * Returns the number of timed sequences contained in the {@link TimedInput} .
 	 * 
@@ -509,6 +717,23 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 		return -1;
 	}
 
+	/**
+	 * Returns the index of the symbol at the given index of a {@link TimedWord}. This avoids the lookup of the symbol {@link String} if the word was parsed
+	 * with this {@link TimedInput}.
+	 * 
+	 * @param w
+	 *            The word that contains the symbol
+	 * @param i
+	 *            The index of the symbol in the word
+	 * @return The index for the symbol or {@code -1} if the symbol is not contained in the {@link TimedInput}
+	 */
+	public int getAlphIndex(TimedWord w, int i) {
+		if (w.isEncodedWith(this)) {
+			return w.getSymbolId(i);
+		}
+		return getAlphIndex(w.getSymbol(i));
+	}
+
 	public String[] getSymbols() {
 		final String[] result = alphabet.keys(new String[0]);
 		Arrays.sort(result);
@@ -548,6 +773,18 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 		toFile(bw, word -> word.toString(withClassLabel));
 	}
 
+	/**
+	 * Writes the {@link TimedInput} in a compact binary format that can be read with {@link #fromBinary(Path)} without parsing.
+	 * 
+	 * @param out
+	 *            The file to write to
+	 * @throws IOException
+	 */
+	public void toBinary(Path out) throws IOException {
+		checkCleared();
+		BinaryTimedWords.write(this, out);
+	}
+
 	private void toFile(Appendable a, Function<TimedWord, String> f) throws IOException {
 		checkCleared();
 		for (int i = 0; i < words.size(); i++) {
@@ -754,7 +991,7 @@ public class TimedInput implements Iterable<TimedWord>, Serializable {
 		boolean choseFinalState = false;
 		int currentState = 0;
 		while (!choseFinalState) {
-			final List<Transition> possibleTransitions = automaton.getOutTransitions(currentState, true);
+			final List<Transition> possibleTransitions = automaton.getOutTransitionsInSetOrder(currentState, true);
 			Collections.sort(possibleTransitions, (o1, o2) -> Double.compare(o1.getProbability(), o2.getProbability()));
 			final List<Transition> topThree = possibleTransitions.stream().filter(t -> t.getProbability() > 0).limit(3).collect(Collectors.toList());
 			final double randomValue = mutation.nextDouble();
@@ -56,6 +56,30 @@ public class TimedWord implements Serializable{
 		this.label = label;
 	}
 
+	/**
+	 * Creates a {@link TimedWord} whose symbols are stored as indices into the alphabet of the given {@link TimedInput}.
+	 */
+	TimedWord(TimedInput alphabet, int[] symbolIds, TIntList timeValues, ClassLabel label) {
+		this(new SymbolList(alphabet, symbolIds), timeValues, label);
+	}
+
+	/**
+	 * Moves this word from one alphabet to another.
+	 * 
+	 * @param from
+	 *            the {@link TimedInput} that this word is encoded with
+	 * @param to
+	 *            the new {@link TimedInput}
+	 * @param mapping
+	 *            the index in the new alphabet for every index in the old one
+	 */
+	void reencode(TimedInput from, TimedInput to, int[] mapping) {
+		if (!isEncodedWith(from)) {
+			throw new IllegalStateException("Word is not encoded with the given alphabet");
+		}
+		((SymbolList) symbols).reencode(to, mapping);
+	}
+
 	void appendPair(String symbol, int timeDelay) {
 		symbols.add(symbol);
 		timeValues.add(timeDelay);
@@ -83,6 +107,47 @@ public class TimedWord implements Serializable{
 	}
 
 
+	/**
+	 * Returns the index of the symbol at the given index of the {@link TimedWord} in the alphabet of the {@link TimedInput} that this word was parsed with.
+	 * 
+	 * @param i
+	 *            The index to get the symbol index for
+	 * @return The index of the symbol in the alphabet or {@code -1} if the symbols of this word are not stored as indices or the symbol is not part of the
+	 *         alphabet
+	 * @see #isEncodedWith(TimedInput)
+	 */
+	public int getSymbolId(int i) {
+		if (symbols instanceof SymbolList) {
+			return ((SymbolList) symbols).getId(i);
+		}
+		return -1;
+	}
+
+	/**
+	 * States whether the symbols of the {@link TimedWord} are stored as indices into the alphabet of the given {@link TimedInput}, i.e. whether
+	 * {@link #getSymbolId(int)} returns the same value as {@link TimedInput#getAlphIndex(String)} for the symbol.
+	 * 
+	 * @param input
+	 *            The {@link TimedInput} that defines the alphabet
+	 * @return {@code true} if and only if the word was parsed with the given {@link TimedInput}
+	 */
+	public boolean isEncodedWith(TimedInput input) {
+		return symbols instanceof SymbolList && ((SymbolList) symbols).getAlphabet() == input;
+	}
+
+	/**
+	 * Returns the {@link TimedInput} whose alphabet the symbols of the {@link TimedWord} are stored as indices of.
+	 * 
+	 * @return The {@link TimedInput} that this word was parsed with or {@code null} if the symbols of this word are not stored as indices
+	 * @see #getSymbolId(int)
+	 */
+	public TimedInput getAlphabet() {
+		if (symbols instanceof SymbolList) {
+			return ((SymbolList) symbols).getAlphabet();
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the time delay at the given index of the {@link TimedWord}.
 	 * 
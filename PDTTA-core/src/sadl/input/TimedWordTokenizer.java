@@ -0,0 +1,298 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import sadl.constants.ClassLabel;
+
+/**
+ * Single pass tokenizer for the two default formats of {@link TimedInput} (see {@link TimedInput#parse(java.nio.file.Path)} and
+ * {@link TimedInput#parseAlt(java.nio.file.Path)}). It scans the characters of a line directly instead of using regular expressions and appends the symbol ids
+ * and time delays into the given buffers.
+ *
+ * The tokenizer only accepts well-formed lines with symbols consisting of {@code [a-zA-Z_0-9]}. For every other line {@link #tokenize(CharSequence)} returns
+ * {@code false} and the line has to be parsed with the regular expressions of the format, so that the behavior (and the error messages) for unusual lines
+ * stay the same.
+ */
+final class TimedWordTokenizer {
+
+	private static final int NO_SYMBOL = -1;
+
+	private final TimedInput input;
+	private final boolean alternativeFormat;
+	private final boolean skipFirstElement;
+	private final TIntList symbolIds;
+	private final TIntList timeDelays;
+	// maps the hash code of a symbol to its id, so that known symbols can be looked up without creating a String
+	private final TIntIntMap symbolHashes = new TIntIntHashMap(11, 0.5f, 0, NO_SYMBOL);
+	private ClassLabel label;
+
+	TimedWordTokenizer(TimedInput input, boolean alternativeFormat, boolean skipFirstElement, TIntList symbolIds, TIntList timeDelays) {
+		this.input = input;
+		this.alternativeFormat = alternativeFormat;
+		this.skipFirstElement = skipFirstElement;
+		this.symbolIds = symbolIds;
+		this.timeDelays = timeDelays;
+	}
+
+	/**
+	 * @return the class label of the line that was tokenized last
+	 */
+	ClassLabel getLabel() {
+		return label;
+	}
+
+	/**
+	 * Tokenizes the given line and appends its symbol ids and time delays to the buffers.
+	 *
+	 * @param line
+	 *            the line without line terminator
+	 * @return {@code true} if the line was tokenized, {@code false} if the line is not in the expected layout; the buffers may contain parts of the line in
+	 *         that case
+	 */
+	boolean tokenize(CharSequence line) {
+		final int length = line.length();
+		int end = length;
+		label = ClassLabel.NORMAL;
+		for (int i = 0; i < length; i++) {
+			if (line.charAt(i) == ':') {
+				end = i;
+				int labelStart = i + 1;
+				while (labelStart < length && isWhitespace(line.charAt(labelStart))) {
+					labelStart++;
+				}
+				if (labelStart == length - 1 && line.charAt(labelStart) == '1') {
+					label = ClassLabel.ANOMALY;
+				}
+				break;
+			}
+		}
+		int start = 0;
+		while (start < end && isWhitespace(line.charAt(start))) {
+			start++;
+		}
+		while (end > start && isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+		if (start == end) {
+			return true;
+		}
+		if (alternativeFormat) {
+			return tokenizeAlt(line, start, end);
+		} else {
+			return tokenizeDefault(line, start, end);
+		}
+	}
+
+	/**
+	 * Tokenizes {@code (s_1,t_1) (s_2,t_2) ... (s_n,t_n)}
+	 */
+	private boolean tokenizeDefault(CharSequence line, int start, int end) {
+		if (line.charAt(start) != '(' || line.charAt(end - 1) != ')') {
+			return false;
+		}
+		int pos = start + 1;
+		end--;
+		if (skipFirstElement && pos < end) {
+			pos = skipPair(line, pos, end);
+		}
+		while (pos < end) {
+			final int symbolStart = pos;
+			while (pos < end && isSymbolChar(line.charAt(pos))) {
+				pos++;
+			}
+			final int symbolEnd = pos;
+			pos = skipWhitespace(line, pos, end);
+			if (symbolEnd == symbolStart || pos == end || line.charAt(pos) != ',') {
+				return false;
+			}
+			pos = skipWhitespace(line, pos + 1, end);
+			pos = parseInt(line, pos, end);
+			if (pos < 0) {
+				return false;
+			}
+			pos = skipWhitespace(line, pos, end);
+			if (pos < end) {
+				// the next pair has to be separated by ")\s+("
+				if (line.charAt(pos) != ')' || pos + 1 == end || !isWhitespace(line.charAt(pos + 1))) {
+					return false;
+				}
+				pos = skipWhitespace(line, pos + 1, end);
+				if (pos == end || line.charAt(pos) != '(') {
+					return false;
+				}
+				pos++;
+			}
+			symbolIds.add(getSymbolId(line, symbolStart, symbolEnd));
+		}
+		return true;
+	}
+
+	/**
+	 * Tokenizes {@code n s_1 t_1  s_2 t_2 ... s_n t_n}
+	 */
+	private boolean tokenizeAlt(CharSequence line, int start, int end) {
+		int pos = start;
+		while (pos < end && isDigit(line.charAt(pos))) {
+			pos++;
+		}
+		if (pos == start || pos == end || line.charAt(pos) != ' ') {
+			return false;
+		}
+		pos++;
+		if (skipFirstElement) {
+			pos = skipPairAlt(line, pos, end);
+		}
+		while (pos < end) {
+			final int symbolStart = pos;
+			while (pos < end && isSymbolChar(line.charAt(pos))) {
+				pos++;
+			}
+			final int symbolEnd = pos;
+			if (symbolEnd == symbolStart || pos == end || !isWhitespace(line.charAt(pos))) {
+				return false;
+			}
+			pos = parseInt(line, pos + 1, end);
+			if (pos < 0) {
+				return false;
+			}
+			if (pos < end) {
+				// the next pair has to be separated by exactly two whitespaces
+				if (pos + 2 >= end || !isWhitespace(line.charAt(pos)) || !isWhitespace(line.charAt(pos + 1)) || !isSymbolChar(line.charAt(pos + 2))) {
+					return false;
+				}
+				pos += 2;
+			}
+			symbolIds.add(getSymbolId(line, symbolStart, symbolEnd));
+		}
+		return true;
+	}
+
+	/**
+	 * Skips the first pair like the regular expression {@code \)\s+\(} does when splitting the pairs.
+	 *
+	 * @return the position after the separator or {@code end} if there is no separator
+	 */
+	private static int skipPair(CharSequence line, int pos, int end) {
+		for (int i = pos; i < end; i++) {
+			if (line.charAt(i) == ')' && i + 1 < end && isWhitespace(line.charAt(i + 1))) {
+				final int next = skipWhitespace(line, i + 1, end);
+				if (next < end && line.charAt(next) == '(') {
+					return next + 1;
+				}
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Skips the first pair like the regular expression {@code \s{2}} does when splitting the pairs.
+	 *
+	 * @return the position after the separator or {@code end} if there is no separator
+	 */
+	private static int skipPairAlt(CharSequence line, int pos, int end) {
+		for (int i = pos; i + 1 < end; i++) {
+			if (isWhitespace(line.charAt(i)) && isWhitespace(line.charAt(i + 1))) {
+				return i + 2;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Parses an int starting at the given position and appends it to the time delays.
+	 *
+	 * @return the position after the int or {@code -1} if there is no int at the given position or it does not fit into an int
+	 */
+	private int parseInt(CharSequence line, int pos, int end) {
+		boolean negative = false;
+		if (pos < end && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+			negative = line.charAt(pos) == '-';
+			pos++;
+		}
+		final int digitStart = pos;
+		long value = 0;
+		while (pos < end && isDigit(line.charAt(pos))) {
+			value = value * 10 + (line.charAt(pos) - '0');
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				return -1;
+			}
+			pos++;
+		}
+		if (pos == digitStart) {
+			return -1;
+		}
+		if (negative) {
+			value = -value;
+		}
+		if (value > Integer.MAX_VALUE) {
+			return -1;
+		}
+		timeDelays.add((int) value);
+		return pos;
+	}
+
+	private int getSymbolId(CharSequence line, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + line.charAt(i);
+		}
+		int id = symbolHashes.get(hash);
+		if (id != NO_SYMBOL && regionEquals(input.getSymbol(id), line, start, end)) {
+			return id;
+		}
+		id = input.addSymbol(line.subSequence(start, end).toString());
+		if (!symbolHashes.containsKey(hash)) {
+			symbolHashes.put(hash, id);
+		}
+		return id;
+	}
+
+	private static boolean regionEquals(String symbol, CharSequence line, int start, int end) {
+		if (symbol.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < symbol.length(); i++) {
+			if (symbol.charAt(i) != line.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int skipWhitespace(CharSequence line, int pos, int end) {
+		while (pos < end && isWhitespace(line.charAt(pos))) {
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * @return whether the char is matched by {@code \s}
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * @return whether the char is matched by {@code \w}
+	 */
+	private static boolean isSymbolChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+	}
+
+}
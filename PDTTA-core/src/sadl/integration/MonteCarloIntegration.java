@@ -21,15 +21,18 @@ import org.slf4j.LoggerFactory;
 
 import jsat.distributions.ContinuousDistribution;
 import jsat.distributions.SingleValueDistribution;
-import sadl.integration.MonteCarloPoint.MonteCarloPointComparator;
 import sadl.utils.MasterSeed;
 import sadl.utils.Settings;
 
 public class MonteCarloIntegration implements Serializable {
-	private static final long serialVersionUID = -7798039596284260123L;
+	private static final long serialVersionUID = 2312245286120539437L;
 	private static Logger logger = LoggerFactory.getLogger(MonteCarloIntegration.class);
+	private static final double[] SINGLE_VALUE = new double[0];
 	int pointsToStore;
-	MonteCarloPoint[] integral;
+	/**
+	 * The pdf values of the accepted points in ascending order. The x values of the points are not needed for integrating.
+	 */
+	double[] pdfValues;
 	boolean preprocessed = false;
 	private boolean singleValueDis = false;
 	final Random xRandom;
@@ -60,14 +63,14 @@ public class MonteCarloIntegration implements Serializable {
 
 		int pointsFound = 0;
 		int pointsRejected = 0;
-		integral = new MonteCarloPoint[pointsToStore];
+		pdfValues = new double[pointsToStore];
 		while (pointsFound < pointsToStore) {
 			final double xSampled = xMin + (xDiff * xRandom.nextDouble());
 			final double ySampled = yMin + (yDiff * yRandom.nextDouble());
 			final double pdfValue = d.pdf(xSampled);
 			if (pdfValue > 0 && ySampled <= pdfValue) {
 				// store the point because the sampled y value is smaller than the pdf value at the x value
-				integral[pointsFound] = new MonteCarloPoint(xSampled, pdfValue);
+				pdfValues[pointsFound] = pdfValue;
 				pointsFound++;
 			} else {
 				pointsRejected++;
@@ -76,13 +79,10 @@ public class MonteCarloIntegration implements Serializable {
 		logger.debug("Rejected {} points", pointsRejected);
 		logger.debug("Accepted {} points", pointsFound);
 		if (Settings.isParallel()) {
-			Arrays.parallelSort(integral, new MonteCarloPointComparator());
+			Arrays.parallelSort(pdfValues);
 		} else {
-			Arrays.sort(integral, new MonteCarloPointComparator());
+			Arrays.sort(pdfValues);
 		}
-
-		// Collections.sort(integral2);
-		// integral2.sort((m1, m2) -> Double.compare(m1.getX(), m2.getX()));
 		preprocessed = true;
 	}
 
@@ -90,6 +90,18 @@ public class MonteCarloIntegration implements Serializable {
 		return preprocessed;
 	}
 
+	/**
+	 * Returns the table that is used by {@link #integrate(double[], double)}. The returned array must not be modified.
+	 * 
+	 * @return the sorted pdf values of the stored points or an empty array if the distribution is single valued
+	 */
+	public double[] getSortedPdfValues() {
+		if (!isPreprocessed()) {
+			throw new IllegalStateException("Preprocess before integrating!");
+		}
+		return singleValueDis ? SINGLE_VALUE : pdfValues;
+	}
+
 	public void preprocess(ContinuousDistribution d, int numberOfSteps, double xMin, double xMax) {
 		preprocess(d, (xMax - xMin) / numberOfSteps, xMin, xMax);
 	}
@@ -112,10 +124,22 @@ public class MonteCarloIntegration implements Serializable {
 	 * @return the proportion of the area with smaller pdf values
 	 */
 	public double integrate(double pdfValue) {
-		if (!isPreprocessed()) {
-			throw new IllegalStateException("Preprocess before integrating!");
-		}
-		if (singleValueDis) {
+		return integrate(getSortedPdfValues(), pdfValue);
+	}
+
+	/**
+	 * Computes the proportion of the pdf where the function's density values are smaller than the given value. Same as {@link #integrate(double)} but works
+	 * directly on the table returned by {@link #getSortedPdfValues()}, so it does not allocate anything.
+	 * 
+	 * @param sortedPdfValues
+	 *            the table returned by {@link #getSortedPdfValues()}
+	 * @param pdfValue
+	 *            the density value
+	 * 
+	 * @return the proportion of the area with smaller pdf values
+	 */
+	public static double integrate(double[] sortedPdfValues, double pdfValue) {
+		if (sortedPdfValues.length == 0) {
 			// There is only zero and one possible if the distribution is single value
 			if (Precision.equals(pdfValue, 1)) {
 				return 1;
@@ -123,11 +147,10 @@ public class MonteCarloIntegration implements Serializable {
 				return 0;
 			}
 		}
-		// x value of monte carlo point does not matter, we search for the pdf value
-		int foundIndex = Arrays.binarySearch(integral, new MonteCarloPoint(0, pdfValue));
+		int foundIndex = Arrays.binarySearch(sortedPdfValues, pdfValue);
 		if (foundIndex > 0) {
 			// Check whether there are the same pdf values right to the found one (is just done because of binary search)
-			while (foundIndex + 1 < integral.length && Precision.equals(pdfValue, integral[foundIndex + 1].getPdfValue())) {
+			while (foundIndex + 1 < sortedPdfValues.length && Precision.equals(pdfValue, sortedPdfValues[foundIndex + 1])) {
 				foundIndex++;
 			}
 		} else if (foundIndex < 0) {
@@ -137,19 +160,7 @@ public class MonteCarloIntegration implements Serializable {
 				foundIndex--;
 			}
 		}
-		logger.debug("FoundIndex={}", foundIndex);
-		if (foundIndex - 1 >= 0) {
-			logger.debug("Pdf value one index before={}", integral[foundIndex - 1].getPdfValue());
-		}
-		logger.debug("Pdf value to look for={}", pdfValue);
-		logger.debug("Pdf value at index={}", integral[foundIndex].getPdfValue());
-		if (foundIndex + 1 < integral.length) {
-			logger.debug("Pdf value one index after={}", integral[foundIndex + 1].getPdfValue());
-		}
-		final int numberOfPoints = foundIndex;
-
-		logger.debug("number of Points found={}", numberOfPoints);
-		return numberOfPoints / (double) pointsToStore;
+		return foundIndex / (double) sortedPdfValues.length;
 	}
 
 	private Pair<Double, Double> findExtreme(ContinuousDistribution d, double xMin, double xMax, double stepResolution) {
@@ -167,7 +178,7 @@ public class MonteCarloIntegration implements Serializable {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.hashCode(integral);
+		result = prime * result + Arrays.hashCode(pdfValues);
 		result = prime * result + pointsToStore;
 		result = prime * result + (preprocessed ? 1231 : 1237);
 		return result;
@@ -185,7 +196,7 @@ public class MonteCarloIntegration implements Serializable {
 			return false;
 		}
 		final MonteCarloIntegration other = (MonteCarloIntegration) obj;
-		if (!Arrays.equals(integral, other.integral)) {
+		if (!Arrays.equals(pdfValues, other.pdfValues)) {
 			return false;
 		}
 		if (pointsToStore != other.pointsToStore) {
@@ -17,6 +17,8 @@ import java.util.function.Function;
 import org.apache.commons.math3.util.Pair;
 
 import gnu.trove.list.TDoubleList;
+import sadl.detectors.BufferedSequenceScorer;
+import sadl.detectors.SequenceScorer;
 import sadl.input.TimedWord;
 
 /**
@@ -33,6 +35,16 @@ public interface ProbabilisticModel extends Model {
 	 */
 	Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord s);
 
+	/**
+	 * Creates a scorer that computes the same probabilities as {@link #calculateProbabilities(TimedWord)}, but event by event while a word is observed. The
+	 * default implementation buffers the whole word; models that can be traversed incrementally override it.
+	 * 
+	 * @return a new scorer for a single word
+	 */
+	default SequenceScorer newScorer() {
+		return new BufferedSequenceScorer(this);
+	}
+
 	default Map<String, Function<TimedWord, Pair<TDoubleList, TDoubleList>>> getAvailableCalcMethods() {
 		final Map<String, Function<TimedWord, Pair<TDoubleList, TDoubleList>>> m = new HashMap<>();
 		m.put("default", this::calculateProbabilities);
@@ -10,6 +10,7 @@
  */
 package sadl.interfaces;
 
+import java.util.Collections;
 import java.util.List;
 
 public interface Scaling {
@@ -29,4 +30,13 @@ public interface Scaling {
 	 * train must have been called before.
 	 */
 	public List<double[]> scale(List<double[]> input);
+
+	/**
+	 * Scales a single vector with the values from the training phase without creating a list. Input and output may be the same array to scale in place.
+	 * train must have been called before.
+	 */
+	public default void scale(double[] input, double[] output) {
+		final double[] scaled = scale(Collections.singletonList(input)).get(0);
+		System.arraycopy(scaled, 0, output, 0, scaled.length);
+	}
 }
@@ -18,4 +18,51 @@ public interface TauEstimator {
 	public double estimateTau(ContinuousDistribution d, double timeValue);
 
 	public void preprocess(Collection<ContinuousDistribution> values);
+
+	/**
+	 * Creates a lookup table for the given distribution after preprocessing. The table is meant to be stored together with the distribution (e.g. per
+	 * transition) and passed to {@link #estimateTau(ContinuousDistribution, double[], double)}, so that the distribution does not need to be looked up again.
+	 * 
+	 * @param d
+	 *            the preprocessed distribution
+	 * @return the table or {@code null} if the estimator does not need one
+	 */
+	public default double[] createTable(ContinuousDistribution d) {
+		return null;
+	}
+
+	/**
+	 * Same as {@link #estimateTau(ContinuousDistribution, double)} but uses the table created by {@link #createTable(ContinuousDistribution)}.
+	 * 
+	 * @param d
+	 *            the distribution
+	 * @param table
+	 *            the table of the distribution or {@code null}
+	 * @param timeValue
+	 *            the time value
+	 * @return the estimated tau
+	 */
+	public default double estimateTau(ContinuousDistribution d, double[] table, double timeValue) {
+		return estimateTau(d, timeValue);
+	}
+
+	/**
+	 * Estimates tau for many time values at once. For every {@code i < length} the result is {@code estimateTau(distributions[i], tables[i], timeValues[i])}.
+	 * 
+	 * @param distributions
+	 *            the distributions
+	 * @param tables
+	 *            the tables of the distributions (entries may be {@code null})
+	 * @param timeValues
+	 *            the time values
+	 * @param result
+	 *            the array the estimated taus are written to
+	 * @param length
+	 *            the number of time values
+	 */
+	public default void estimateTau(ContinuousDistribution[] distributions, double[][] tables, double[] timeValues, double[] result, int length) {
+		for (int i = 0; i < length; i++) {
+			result[i] = estimateTau(distributions[i], tables[i], timeValues[i]);
+		}
+	}
 }
@@ -13,14 +13,11 @@ package sadl.modellearner;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Set;
 import java.util.function.IntBinaryOperator;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import gnu.trove.map.TObjectIntMap;
 import gnu.trove.set.hash.TIntHashSet;
 import sadl.constants.MergeMethod;
 import sadl.constants.PTAOrdering;
@@ -180,9 +177,9 @@ public class Alergia implements PdfaLearner {
 		double f1, n1, f2, n2;
 		double gamma, bound;
 		f1 = pta.getFinalStateCount(qu);
-		n1 = totalFreq(pta.getTransitionCount(), qu);
+		n1 = pta.getStateFrequency(qu);
 		f2 = pta.getFinalStateCount(qv);
-		n2 = totalFreq(pta.getTransitionCount(), qv);
+		n2 = pta.getStateFrequency(qv);
 		if (n1 < mergeT0 || n2 < mergeT0) {
 			return 0;
 		}
@@ -192,13 +189,11 @@ public class Alergia implements PdfaLearner {
 			return 0;
 		}
 
-		for (final String a : pta.getAlphabet().getSymbols()) {
-			f1 = symbolFreq(pta.getTransitionCount(), qu, a);
-			n1 = totalFreq(pta.getTransitionCount(), qu);
-			f2 = symbolFreq(pta.getTransitionCount(), qv, a);
-			n2 = totalFreq(pta.getTransitionCount(), qv);
+		// the frequencies of the states are the same for every symbol, so is the bound
+		for (int a = 0; a < pta.getAlphabet().getAlphSize(); a++) {
+			f1 = pta.getSymbolFrequency(qu, a);
+			f2 = pta.getSymbolFrequency(qv, a);
 			gamma = Math.abs((f1) / (n1) - (f2) / (n2));
-			bound = ((Math.sqrt(1.0 / n1) + Math.sqrt(1.0 / n2)) * Math.sqrt(Math.log(2.0 / alpha))) / 1.41421356237309504880;
 			if (gamma > bound) {
 				return 0;
 			}
@@ -206,33 +201,6 @@ public class Alergia implements PdfaLearner {
 		return 1;
 	}
 
-	/**
-	 * frequency of transitions arriving at state qu
-	 * 
-	 * @param transitionCount
-	 * @param qu
-	 * @return
-	 */
-	private int totalFreq(TObjectIntMap<Transition> transitionCount, int qu) {
-		int result = 0;
-		final Set<Transition> incoming = pta.getAllTransitions().stream().filter(t -> t.getFromState() == qu).collect(Collectors.toSet());
-		for (final Transition t : incoming) {
-			result += transitionCount.get(t);
-		}
-		result += pta.getFinalStateCount(qu);
-		return result;
-	}
-
-	private int symbolFreq(TObjectIntMap<Transition> transitionCount, int fromState, String event) {
-		int result = 0;
-		final Set<Transition> incoming = pta.getAllTransitions().stream().filter(t -> (t.getFromState() == fromState && t.getSymbol().equals(event)))
-				.collect(Collectors.toSet());
-		for (final Transition t : incoming) {
-			result += transitionCount.get(t);
-		}
-		return result;
-	}
-
 	public int getMergeT0() {
 		return mergeT0;
 	}
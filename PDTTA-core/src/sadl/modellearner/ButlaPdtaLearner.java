@@ -12,7 +12,6 @@ package sadl.modellearner;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -25,6 +24,8 @@ import org.slf4j.LoggerFactory;
 import gnu.trove.list.TDoubleList;
 import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import sadl.constants.EventsCreationStrategy;
 import sadl.constants.IntervalCreationStrategy;
 import sadl.constants.KDEFormelVariant;
@@ -39,6 +40,7 @@ import sadl.models.pta.Event;
 import sadl.models.pta.EventGenerator;
 import sadl.models.pta.PTA;
 import sadl.models.pta.PTAState;
+import sadl.models.pta.PTATransition;
 import sadl.models.pta.SubEvent;
 
 public class ButlaPdtaLearner implements ProbabilisticModelLearner, CompatibilityChecker {
@@ -327,96 +329,161 @@ public class ButlaPdtaLearner implements ProbabilisticModelLearner, Compatibilit
 			return true;
 		}
 
-		if (mergeStrategy == PTAOrdering.BottomUp && PTAState.compatibilityIsChecking(stateV, stateW)) {
-			return true;
-		}
-
-		final int inTransitionCountV = stateV.getInTransitionsCount();
-		final int inTransitionCountW = stateW.getInTransitionsCount();
-		final int outTransitionCountV = stateV.getOutTransitionsCount();
-		final int outTransitionCountW = stateW.getOutTransitionsCount();
-		final int endTansitionCountV = inTransitionCountV - outTransitionCountV;
-		final int endTansitionCountW = inTransitionCountW - outTransitionCountW;
-
-		if (fractionDifferent(inTransitionCountV, endTansitionCountV, inTransitionCountW, endTansitionCountW)) {
+		final PTA pta = stateV.getPTA();
+		if (pta.isMarkedIncompatible(stateV, stateW)) {
 			return false;
 		}
 
-		if (mergeStrategy == PTAOrdering.BottomUp) {
-			PTAState.setCompatibilityChecking(stateV, stateW);
+		final double bound = hoeffdingBound();
+		if (endFractionDifferent(stateV, stateW, bound)) {
+			pta.markIncompatible(stateV, stateW);
+			return false;
 		}
 
-		final Set<String> usedEvents = new HashSet<>();
-
-		if (transitionsToCheck == TransitionsType.Incoming || transitionsToCheck == TransitionsType.Both) {
-			usedEvents.addAll(stateV.getEventSymbolsInTransitions());
-			usedEvents.addAll(stateW.getEventSymbolsInTransitions());
-		}
+		// Depth-first search over the pairs of successor states with an explicit stack. The states are incompatible iff the check of one of the reachable
+		// pairs fails. A pair that was visited before is either compatible or on the stack (and checked there), so it is not checked again.
+		final TLongSet visited = new TLongHashSet();
+		final List<PTAState> stackV = new ArrayList<>();
+		final List<PTAState> stackW = new ArrayList<>();
+		// the next symbol slots of the states on the stack
+		final TIntArrayList slotsV = new TIntArrayList();
+		final TIntArrayList slotsW = new TIntArrayList();
+
+		visited.add(PTA.getPairKey(stateV, stateW));
+		stackV.add(stateV);
+		stackW.add(stateW);
+		slotsV.add(0);
+		slotsW.add(0);
+
+		while (!stackV.isEmpty()) {
+			final int top = stackV.size() - 1;
+			final PTAState v = stackV.get(top);
+			final PTAState w = stackW.get(top);
+			int i = slotsV.get(top);
+			int j = slotsW.get(top);
+
+			// Find the next symbol that is used by one of the states. The slots of both states are sorted by symbol id.
+			int slotV = -1;
+			int slotW = -1;
+			while (i < v.getSymbolSlots() || j < w.getSymbolSlots()) {
+				final int idV = i < v.getSymbolSlots() ? v.getSlotSymbolId(i) : Integer.MAX_VALUE;
+				final int idW = j < w.getSymbolSlots() ? w.getSlotSymbolId(j) : Integer.MAX_VALUE;
+				slotV = idV <= idW ? i++ : -1;
+				slotW = idW <= idV ? j++ : -1;
+				if ((slotV >= 0 && isUsed(v, slotV)) || (slotW >= 0 && isUsed(w, slotW))) {
+					break;
+				}
+				slotV = -1;
+				slotW = -1;
+			}
 
-		if (transitionsToCheck == TransitionsType.Outgoing || transitionsToCheck == TransitionsType.Both) {
-			usedEvents.addAll(stateV.getEventSymbolsOutTransitions());
-			usedEvents.addAll(stateW.getEventSymbolsOutTransitions());
-		}
+			if (slotV < 0 && slotW < 0) {
+				// all symbols checked
+				stackV.remove(top);
+				stackW.remove(top);
+				slotsV.removeAt(top);
+				slotsW.removeAt(top);
+				continue;
+			}
+			slotsV.set(top, i);
+			slotsW.set(top, j);
 
-		// for (final Event event : stateV.getPTA().getEvents().values()) {
-		// for (final SubEvent subEvent : event) {
-		// final String eventSymbol = subEvent.getSymbol();
-		for (final String eventSymbol : usedEvents) {
-			final PTAState nextV = stateV.getNextState(eventSymbol);
-			final PTAState nextW = stateW.getNextState(eventSymbol);
+			final int inTransitionCountV = v.getInTransitionsCount();
+			final int inTransitionCountW = w.getInTransitionsCount();
 
 			if (transitionsToCheck == TransitionsType.Incoming || transitionsToCheck == TransitionsType.Both) {
-				final int inTransitionEventCountV = stateV.getInTransitionsCount(eventSymbol);
-				final int inTransitionEventCountW = stateW.getInTransitionsCount(eventSymbol);
+				final int inTransitionEventCountV = slotV >= 0 ? v.getSlotInTransitionsCount(slotV) : 0;
+				final int inTransitionEventCountW = slotW >= 0 ? w.getSlotInTransitionsCount(slotW) : 0;
 
-				if (fractionDifferent(inTransitionCountV, inTransitionEventCountV, inTransitionCountW, inTransitionEventCountW)) {
-					if (mergeStrategy == PTAOrdering.BottomUp) {
-						PTAState.unsetCompatibilityChecking(stateV, stateW);
-					}
-					return false;
+				if (fractionDifferent(inTransitionCountV, inTransitionEventCountV, inTransitionCountW, inTransitionEventCountW, bound)) {
+					return markIncompatible(pta, stackV, stackW);
 				}
 			}
 
-			if (nextV == null && nextW == null) {
+			final PTATransition transitionV = slotV >= 0 ? v.getSlotOutTransition(slotV) : null;
+			final PTATransition transitionW = slotW >= 0 ? w.getSlotOutTransition(slotW) : null;
+
+			if (transitionV == null && transitionW == null) {
 				continue;
 			}
 
 			if (transitionsToCheck == TransitionsType.Outgoing || transitionsToCheck == TransitionsType.Both) {
-				final int outTransitionEventCountV = stateV.getOutTransitionsCount(eventSymbol);
-				final int outTransitionEventCountW = stateW.getOutTransitionsCount(eventSymbol);
+				final int outTransitionEventCountV = transitionV == null ? 0 : transitionV.getCount();
+				final int outTransitionEventCountW = transitionW == null ? 0 : transitionW.getCount();
 
-				if (fractionDifferent(inTransitionCountV, outTransitionEventCountV, inTransitionCountW, outTransitionEventCountW)) {
-					if (mergeStrategy == PTAOrdering.BottomUp) {
-						PTAState.unsetCompatibilityChecking(stateV, stateW);
-					}
-					return false;
+				if (fractionDifferent(inTransitionCountV, outTransitionEventCountV, inTransitionCountW, outTransitionEventCountW, bound)) {
+					return markIncompatible(pta, stackV, stackW);
 				}
 			}
 
-			if (nextV == null || nextW == null) {
+			if (transitionV == null || transitionW == null) {
 				continue;
 			}
 
-			if (!compatible(nextV, nextW)) {
-				if (mergeStrategy == PTAOrdering.BottomUp) {
-					PTAState.unsetCompatibilityChecking(stateV, stateW);
-				}
-				return false;
+			final PTAState nextV = transitionV.getTarget();
+			final PTAState nextW = transitionW.getTarget();
+
+			if (nextV.getId() == nextW.getId() || !visited.add(PTA.getPairKey(nextV, nextW))) {
+				continue;
 			}
 
-			// }
-		}
+			stackV.add(nextV);
+			stackW.add(nextW);
+			slotsV.add(0);
+			slotsW.add(0);
 
-		if (mergeStrategy == PTAOrdering.BottomUp) {
-			PTAState.unsetCompatibilityChecking(stateV, stateW);
+			if (pta.isMarkedIncompatible(nextV, nextW) || endFractionDifferent(nextV, nextW, bound)) {
+				return markIncompatible(pta, stackV, stackW);
+			}
 		}
+
 		return true;
+	}
+
+	private boolean isUsed(PTAState state, int slot) {
+
+		if ((transitionsToCheck == TransitionsType.Incoming || transitionsToCheck == TransitionsType.Both) && state.hasSlotInTransitions(slot)) {
+			return true;
+		}
+		return (transitionsToCheck == TransitionsType.Outgoing || transitionsToCheck == TransitionsType.Both) && state.getSlotOutTransition(slot) != null;
+	}
 
+	private boolean endFractionDifferent(PTAState stateV, PTAState stateW, double bound) {
+
+		final int inTransitionCountV = stateV.getInTransitionsCount();
+		final int inTransitionCountW = stateW.getInTransitionsCount();
+		final int endTansitionCountV = inTransitionCountV - stateV.getOutTransitionsCount();
+		final int endTansitionCountW = inTransitionCountW - stateW.getOutTransitionsCount();
+
+		return fractionDifferent(inTransitionCountV, endTansitionCountV, inTransitionCountW, endTansitionCountW, bound);
+	}
+
+	/**
+	 * Marks all pairs on the stack as incompatible, because the failed check is reachable from each of them.
+	 * 
+	 * @return {@code false}
+	 */
+	private static boolean markIncompatible(PTA pta, List<PTAState> stackV, List<PTAState> stackW) {
+
+		for (int i = 0; i < stackV.size(); i++) {
+			pta.markIncompatible(stackV.get(i), stackW.get(i));
+		}
+		return false;
+	}
+
+	private double hoeffdingBound() {
+
+		return Math.sqrt(0.5 * Math.log(2.0 / a));
 	}
 
 	public boolean fractionDifferent(int n0, int f0, int n1, int f1) {
 
-		return Math.abs(((double) f0 / n0) - ((double) f1 / n1)) > (Math.sqrt(0.5 * Math.log(2.0 / a)) * ((1.0 / Math.sqrt(n0)) + (1.0 / Math.sqrt(n1))));
+		return fractionDifferent(n0, f0, n1, f1, hoeffdingBound());
+	}
+
+	private static boolean fractionDifferent(int n0, int f0, int n1, int f1, double bound) {
+
+		return Math.abs(((double) f0 / n0) - ((double) f1 / n1)) > (bound * ((1.0 / Math.sqrt(n0)) + (1.0 / Math.sqrt(n1))));
 	}
 
 }
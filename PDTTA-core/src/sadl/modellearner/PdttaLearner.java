@@ -10,18 +10,23 @@
  */
 package sadl.modellearner;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gnu.trove.list.TDoubleList;
 import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import jsat.distributions.ContinuousDistribution;
 import jsat.distributions.MyDistributionSearch;
 import jsat.distributions.SingleValueDistribution;
@@ -29,6 +34,7 @@ import jsat.distributions.empirical.MyKernelDensityEstimator;
 import jsat.distributions.empirical.kernelfunc.KernelFunction;
 import jsat.linear.DenseVector;
 import jsat.linear.Vec;
+import sadl.constants.KdeEvaluation;
 import sadl.constants.MergeTest;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
@@ -49,6 +55,8 @@ public class PdttaLearner implements ProbabilisticModelLearner {
 	private static Logger logger = LoggerFactory.getLogger(PdttaLearner.class);
 	KernelFunction kdeKernelFunction;
 	double kdeBandwidth;
+	KdeEvaluation kdeEvaluation;
+	double kdeGridError;
 	private final PdfaLearner pdfaLearner;
 	protected final TauEstimator tauEstimator;
 
@@ -69,10 +77,24 @@ public class PdttaLearner implements ProbabilisticModelLearner {
 	}
 
 	public PdttaLearner(PdfaLearner pdfaLearner, KernelFunction kdeKernelFunction, double kdeBandwidth, TauEstimator tauEstimation) {
+		this(pdfaLearner, kdeKernelFunction, kdeBandwidth, tauEstimation, KdeEvaluation.EXACT, 0);
+	}
+
+	/**
+	 * 
+	 * @param kdeEvaluation
+	 *            how the fitted kernel density estimates are evaluated
+	 * @param kdeGridError
+	 *            the maximum interpolation error relative to the maximum density if the estimates are evaluated on a grid
+	 */
+	public PdttaLearner(PdfaLearner pdfaLearner, KernelFunction kdeKernelFunction, double kdeBandwidth, TauEstimator tauEstimation,
+			KdeEvaluation kdeEvaluation, double kdeGridError) {
 		this.kdeKernelFunction = kdeKernelFunction;
 		this.kdeBandwidth = kdeBandwidth;
 		this.pdfaLearner = pdfaLearner;
 		this.tauEstimator = tauEstimation;
+		this.kdeEvaluation = kdeEvaluation;
+		this.kdeGridError = kdeGridError;
 	}
 
 	// public PdttaLearner(double mergeAlpha, boolean recursiveMergeTest, KernelFunction kdeKernelFunction, double kdeBandwidth, MergeTest mergeTest,
@@ -113,88 +135,89 @@ public class PdttaLearner implements ProbabilisticModelLearner {
 	public PDTTA train(TimedInput trainingSequences) {
 
 		final PDFA pdfa = pdfaLearner.train(trainingSequences);
-		// for debugging why the hell parallel execution leads to different and non deterministic results even though the maps (and even the automata) are
-		// the same!
-		// final Map<ZeroProbTransition, TDoubleList> timeValueBucketsPar = fillTimeValueBucketsParallel(pdfa, trainingSequences);
-		final Map<ZeroProbTransition, TDoubleList> timeValueBucketsSeq = fillTimeValueBuckets(pdfa, trainingSequences);
-
-		// timeValueBucketsPar.values().forEach(list -> list.sort());
-		// timeValueBucketsSeq.values().forEach(list -> list.sort());
-		// if (!timeValueBucketsPar.equals(timeValueBucketsSeq)) {
-		// throw new IllegalStateException();
-		// }
-
-		// final Map<ZeroProbTransition, ContinuousDistribution> transitionDistributionsPar = fit(timeValueBucketsPar);
-		final Map<ZeroProbTransition, ContinuousDistribution> transitionDistributionsSeq = fit(timeValueBucketsSeq);
-		// if (!transitionDistributionsPar.equals(transitionDistributionsSeq)) {
-		// throw new IllegalStateException();
-		// }
-
-		// final PDTTA pdttaPar = new PDTTA(pdfa, transitionDistributionsPar, tauEstimator);
-		// pdttaPar.setAlphabet(trainingSequences);
-		// pdttaPar.preprocess();
-		// pdttaPar.makeImmutable();
-
-		final PDTTA pdttaSeq = new PDTTA(pdfa, transitionDistributionsSeq, tauEstimator);
-		pdttaSeq.setAlphabet(trainingSequences);
-		pdttaSeq.preprocess();
-		pdttaSeq.makeImmutable();
-		//
-		// if (!pdttaSeq.equals(pdttaPar)) {
-		// throw new IllegalStateException();
-		// }
+		final Map<ZeroProbTransition, TDoubleList> timeValueBuckets = fillTimeValueBuckets(pdfa, trainingSequences);
+		final Map<ZeroProbTransition, ContinuousDistribution> transitionDistributions = fit(timeValueBuckets);
+
+		final PDTTA pdtta = new PDTTA(pdfa, transitionDistributions, tauEstimator);
+		pdtta.setAlphabet(trainingSequences);
+		pdtta.preprocess();
+		pdtta.makeImmutable();
 
 		logger.info("Learned PDTTA.");
-		return pdttaSeq;
+		return pdtta;
 	}
 
-	@SuppressWarnings("unused")
-	private Map<ZeroProbTransition, TDoubleList> fillTimeValueBucketsParallel(PDFA pdfa, TimedInput trainingSequences) {
-		final Map<ZeroProbTransition, TDoubleList> result = new HashMap<>();
-		// TODO check why parallelism destroys determinism
-		final Lock l = new ReentrantLock();
-		final Consumer<? super TimedWord> f = word -> {
-			int currentState = -1;
-			int followingState = -1;
-			currentState = pdfa.getStartState();
-			for (int i = 0; i < word.length(); i++) {
-				final String symbol = word.getSymbol(i);
-				final int timeValue = word.getTimeValue(i);
-				final Transition t = pdfa.getTransition(currentState, symbol);
-				followingState = t.getToState();
-				l.lock();
-				addTimeValue(result, currentState, followingState, symbol, timeValue);
-				l.unlock();
-				currentState = followingState;
+	/**
+	 * Collects the time values of the training sequences for every transition of the given automaton. If {@link Settings#isParallel()} is set, the
+	 * sequences are split into consecutive chunks that are processed in parallel. The buckets of the chunks are concatenated in chunk order, so the time
+	 * values of every transition are in the same order as in a sequential run.
+	 * 
+	 * @return the time values for every transition that is used by the training sequences
+	 */
+	protected Map<ZeroProbTransition, TDoubleList> fillTimeValueBuckets(PDFA pdfa, TimedInput trainingSequences) {
+
+		// Dense ids for the transitions; transitions that only differ in their probability share an id
+		final TObjectIntMap<Transition> transitionIds = new TObjectIntHashMap<>(pdfa.getTransitionCount() * 2, 0.5f, -1);
+		final TObjectIntMap<ZeroProbTransition> zeroProbIds = new TObjectIntHashMap<>(pdfa.getTransitionCount() * 2, 0.5f, -1);
+		final List<ZeroProbTransition> zeroProbTransitions = new ArrayList<>();
+		for (final Transition t : pdfa.getTransitions()) {
+			final ZeroProbTransition zeroProb = t.toZeroProbTransition();
+			int id = zeroProbIds.get(zeroProb);
+			if (id < 0) {
+				id = zeroProbTransitions.size();
+				zeroProbIds.put(zeroProb, id);
+				zeroProbTransitions.add(zeroProb);
 			}
+			transitionIds.put(t, id);
+		}
+
+		final List<TimedWord> words = trainingSequences.getWords();
+		final int chunkCount = Settings.isParallel() ? Math.max(1, Math.min(words.size(), 4 * ForkJoinPool.getCommonPoolParallelism())) : 1;
+		final TDoubleList[][] chunkBuckets = new TDoubleList[chunkCount][];
+		final IntConsumer fillChunk = c -> {
+			final TDoubleList[] buckets = new TDoubleList[zeroProbTransitions.size()];
+			final int from = (int) ((long) words.size() * c / chunkCount);
+			final int to = (int) ((long) words.size() * (c + 1) / chunkCount);
+			for (int w = from; w < to; w++) {
+				final TimedWord word = words.get(w);
+				int currentState = pdfa.getStartState();
+				for (int i = 0; i < word.length(); i++) {
+					final Transition t = pdfa.getTransition(currentState, word.getSymbol(i));
+					final int id = transitionIds.get(t);
+					if (buckets[id] == null) {
+						buckets[id] = new TDoubleArrayList();
+					}
+					buckets[id].add(word.getTimeValue(i));
+					currentState = t.getToState();
+				}
+			}
+			chunkBuckets[c] = buckets;
 		};
-		if (Settings.isParallel()) {
-			trainingSequences.getWords().parallelStream().forEach(f);
+		if (chunkCount > 1) {
+			IntStream.range(0, chunkCount).parallel().forEach(fillChunk);
 		} else {
-			trainingSequences.getWords().stream().forEach(f);
+			fillChunk.accept(0);
 		}
-		return result;
-	}
 
-	protected Map<ZeroProbTransition, TDoubleList> fillTimeValueBuckets(PDFA pdfa, TimedInput trainingSequences) {
-
-		final Map<ZeroProbTransition, TDoubleList> result2 = new HashMap<>();
-		trainingSequences.getWords().stream().forEach(word -> {
-			int currentState = -1;
-			int followingState = -1;
-			currentState = pdfa.getStartState();
-			for (int i = 0; i < word.length(); i++) {
-				final String symbol = word.getSymbol(i);
-				final int timeValue = word.getTimeValue(i);
-				final Transition t = pdfa.getTransition(currentState, symbol);
-				followingState = t.getToState();
-				addTimeValue(result2, currentState, followingState, symbol, timeValue);
-				currentState = followingState;
+		final Map<ZeroProbTransition, TDoubleList> result = new HashMap<>();
+		for (int id = 0; id < zeroProbTransitions.size(); id++) {
+			TDoubleList bucket = null;
+			for (int c = 0; c < chunkCount; c++) {
+				final TDoubleList chunkBucket = chunkBuckets[c][id];
+				if (chunkBucket == null) {
+					continue;
+				}
+				if (bucket == null) {
+					bucket = chunkBucket;
+				} else {
+					bucket.addAll(chunkBucket);
+				}
 			}
-		});
-
-		// works if done with result2, does not work with result. Even though both maps are the same (except order).
-		return result2;
+			if (bucket != null) {
+				result.put(zeroProbTransitions.get(id), bucket);
+			}
+		}
+		return result;
 	}
 
 	protected static void addTimeValue(Map<ZeroProbTransition, TDoubleList> result, int currentState, int followingState, String event, double timeValue) {
@@ -237,6 +260,9 @@ public class PdttaLearner implements ProbabilisticModelLearner {
 				newKdeBandwidth = MyKernelDensityEstimator.BandwithGuassEstimate(v);
 			}
 			final MyKernelDensityEstimator kde = new MyKernelDensityEstimator(v, newKernelFunction, newKdeBandwidth);
+			if (kdeEvaluation == KdeEvaluation.GRID && !kde.precomputeGrid(kdeGridError)) {
+				logger.debug("Grid for {} does not reach the error bound {}, evaluating it exactly", kde, kdeGridError);
+			}
 			return kde;
 		}
 	}
@@ -26,6 +26,7 @@ import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 import jsat.distributions.ContinuousDistribution;
 import jsat.distributions.empirical.kernelfunc.KernelFunction;
+import sadl.constants.KdeEvaluation;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
 import sadl.interfaces.TauEstimator;
@@ -51,6 +52,11 @@ public class TauPtaLearner extends PdttaLearner {
 		super(null, kdeKernelFunction, kdeBandwidth, tauEstimation);
 	}
 
+	public TauPtaLearner(KernelFunction kdeKernelFunction, double kdeBandwidth, TauEstimator tauEstimation, KdeEvaluation kdeEvaluation,
+			double kdeGridError) {
+		super(null, kdeKernelFunction, kdeBandwidth, tauEstimation, kdeEvaluation, kdeGridError);
+	}
+
 	public TauPtaLearner(KernelFunction kdeKernelFunction) {
 		super(null, kdeKernelFunction, -1);
 	}
@@ -17,6 +17,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,10 @@ public class TrebaPdfaLearner implements PdfaLearner {
 	private static Logger logger = LoggerFactory.getLogger(TrebaPdfaLearner.class);
 	protected double smoothingPrior = 0.00;
 	protected int mergeT0 = 3;
+	/**
+	 * Whether the loaded treba library can learn without temp files. Older builds of the library lack the needed functions.
+	 */
+	private static volatile boolean inMemorySupported = true;
 
 	public TrebaPdfaLearner(double mergeAlpha, boolean recursiveMergeTest) {
 		this.mergeAlpha = mergeAlpha;
@@ -73,8 +78,67 @@ public class TrebaPdfaLearner implements PdfaLearner {
 
 	@Override
 	public PDFA train(TimedInput trainingSequences) {
-		final PDFA pdfa;
 		treba.log1plus_init_wrapper();
+		logger.info("Starting to learn PDFA with treba...");
+		PDFA pdfa = null;
+		if (inMemorySupported) {
+			try {
+				pdfa = trainInMemory(trainingSequences);
+			} catch (final UnsatisfiedLinkError e) {
+				logger.warn("The loaded treba library does not support learning without temp files ({}). Falling back to temp files.", e.getMessage());
+				inMemorySupported = false;
+			}
+		}
+		if (pdfa == null) {
+			pdfa = trainWithFiles(trainingSequences);
+		}
+		treba.log1plus_free_wrapper();
+		if (pdfa == null) {
+			return null;
+		}
+		pdfa.makeImmutable();
+		logger.info("Learned PDFA with treba ({} states).", pdfa.getStateCount());
+		return pdfa;
+	}
+
+	/**
+	 * Passes the training set to treba as int arrays and reads the learned automaton from its transition tables, so no temp files are needed.
+	 */
+	PDFA trainInMemory(TimedInput trainingSequences) {
+		final int[] lengths = new int[trainingSequences.size()];
+		int symbolCount = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			lengths[i] = trainingSequences.get(i).length();
+			symbolCount += lengths[i];
+		}
+		final int[] symbols = new int[symbolCount];
+		int pos = 0;
+		for (final TimedWord ts : trainingSequences) {
+			for (int i = 0; i < ts.length(); i++) {
+				symbols[pos++] = trainingSequences.getAlphIndex(ts, i);
+			}
+		}
+		final observations o = treba.observations_from_arrays(symbols, lengths, lengths.length);
+		if (o == null) {
+			logger.error("Error creating observations from {} words", lengths.length);
+			throw new IllegalStateException("Error creating observations from " + lengths.length + " words");
+		}
+		return trainFsm(o, fsm -> {
+			final int transitionCount = treba.wfsa_transition_count(fsm);
+			final int[] fromStates = new int[transitionCount];
+			final int[] toStates = new int[transitionCount];
+			final int[] transitionSymbols = new int[transitionCount];
+			final double[] probabilities = new double[transitionCount];
+			treba.wfsa_transitions_to_arrays(fsm, fromStates, toStates, transitionSymbols, probabilities);
+			final int finalCount = treba.wfsa_final_count(fsm);
+			final int[] finalStates = new int[finalCount];
+			final double[] finalProbabilities = new double[finalCount];
+			treba.wfsa_finals_to_arrays(fsm, finalStates, finalProbabilities);
+			return new PDFA(trainingSequences, fromStates, toStates, transitionSymbols, probabilities, finalStates, finalProbabilities);
+		});
+	}
+
+	PDFA trainWithFiles(TimedInput trainingSequences) {
 		final Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
 		final long jobNumber = Double.doubleToLongBits(Math.random());
 		String jobName = Long.toString(jobNumber);
@@ -86,22 +150,13 @@ public class TrebaPdfaLearner implements PdfaLearner {
 		try {
 			createTrebaFile(trainingSequences, trebaTrainSetFile);
 			final Path trebaAutomaton = createUniqueFile(Paths.get(tempFilePrefix + "fsm.fsm"));
-			logger.info("Starting to learn PDFA with treba...");
-			final double loglikelihood = trainFsm(trebaTrainSetFile, trebaAutomaton);
-			logger.debug("learned event automaton has loglikelihood of {}", loglikelihood);
-			// compute paths through the automata for the training set and write to
-			// 'trebaResultPathFile'
-			// parse the 'trebaResultPathFile'
-			// compute likelihood on test set for automaton and for time PDFs
-			pdfa = new PDFA(trebaAutomaton, trainingSequences);
-			pdfa.makeImmutable();
+			trainFsm(trebaTrainSetFile, trebaAutomaton);
+			final PDFA pdfa = new PDFA(trebaAutomaton, trainingSequences);
 			if (!Settings.isDebug()) {
 				IoUtils.deleteFiles(new Path[] { trebaTrainSetFile, trebaAutomaton });
 			} else {
 				logger.debug("temp dir: {}", tempDir);
 			}
-			treba.log1plus_free_wrapper();
-			logger.info("Learned PDFA with treba ({} states).", pdfa.getStateCount());
 			return pdfa;
 		} catch (final IOException e) {
 			logger.error("An unexpected error occured", e);
@@ -110,8 +165,6 @@ public class TrebaPdfaLearner implements PdfaLearner {
 		return null;
 	}
 
-
-
 	private Path createUniqueFile(Path path) {
 		Path result = path;
 		while (Files.exists(result)) {
@@ -138,7 +191,7 @@ public class TrebaPdfaLearner implements PdfaLearner {
 	private String getIntString(TimedWord ts, TimedInput timedSequences) {
 		final StringBuilder sb = new StringBuilder();
 		for (int i = 0; i < ts.length(); i++) {
-			sb.append(timedSequences.getAlphIndex(ts.getSymbol(i)));
+			sb.append(timedSequences.getAlphIndex(ts, i));
 			if (i != ts.length() - 1) {
 				sb.append(' ');
 			}
@@ -146,37 +199,48 @@ public class TrebaPdfaLearner implements PdfaLearner {
 		return sb.toString();
 	}
 
-	protected double trainFsm(Path eventTrainFile, Path fsmOutputFile) {
+	protected void trainFsm(Path eventTrainFile, Path fsmOutputFile) {
+		final observations o = treba.observations_read(eventTrainFile.toString());
+		if (o == null) {
+			logger.error("Error reading observations file {}", eventTrainFile);
+			throw new IllegalStateException("Error reading observations file " + eventTrainFile);
+		}
+		trainFsm(o, fsm -> {
+			treba.wfsa_to_file(fsm, fsmOutputFile.toString());
+			return null;
+		});
+	}
+
+	/**
+	 * Learns an automaton from the given observations and passes it to the reader before all native memory is freed.
+	 */
+	private <T> T trainFsm(observations obs, Function<wfsa, T> fsmReader) {
 		int recursive_merge_test = 0;
 		if (recursiveMergeTest) {
 			recursive_merge_test = 1;
 		}
 		treba.setT0(mergeT0);
 		treba.setPrior(smoothingPrior);
-		double ll;
-		observations o = treba.observations_read(eventTrainFile.toString());
-		if (o == null) {
-			logger.error("Error reading observations file {}", eventTrainFile);
-			throw new IllegalStateException("Error reading observations file " + eventTrainFile);
-		}
-		o = treba.observations_sort(o);
+		observations o = treba.observations_sort(obs);
 		o = treba.observations_uniq(o);
-		wfsa fsm;
-		if (mergeTest == MergeTest.MDI) {
-			fsm = treba.dffa_to_wfsa(treba.dffa_mdi(o, mergeAlpha));
-		} else {
-			fsm = treba.dffa_to_wfsa(treba.dffa_state_merge(o, mergeAlpha, mergeTest.getAlgorithm(), recursive_merge_test));
-		}
-		ll = treba.loglikelihood_all_observations_fsm(fsm, o);
-		treba.wfsa_to_file(fsm, fsmOutputFile.toString());
-
-		if (fsm != null) {
-			treba.wfsa_destroy(fsm);
-		}
-		if (o != null) {
-			treba.observations_destroy(o);
+		wfsa fsm = null;
+		try {
+			if (mergeTest == MergeTest.MDI) {
+				fsm = treba.dffa_to_wfsa(treba.dffa_mdi(o, mergeAlpha));
+			} else {
+				fsm = treba.dffa_to_wfsa(treba.dffa_state_merge(o, mergeAlpha, mergeTest.getAlgorithm(), recursive_merge_test));
+			}
+			final double ll = treba.loglikelihood_all_observations_fsm(fsm, o);
+			logger.debug("learned event automaton has loglikelihood of {}", ll);
+			return fsmReader.apply(fsm);
+		} finally {
+			if (fsm != null) {
+				treba.wfsa_destroy(fsm);
+			}
+			if (o != null) {
+				treba.observations_destroy(o);
+			}
 		}
-		return ll;
 	}
 
 }
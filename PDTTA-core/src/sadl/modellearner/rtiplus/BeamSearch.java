@@ -0,0 +1,224 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.modellearner.rtiplus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import sadl.modellearner.rtiplus.SearchingPDRTALearner.SearchMeasure;
+import sadl.modellearner.rtiplus.SimplePDRTALearner.Transition;
+import sadl.models.pdrta.PDRTA;
+
+/**
+ * Beam search over the refinements of RTI+ that is used by the {@link SearchingPDRTALearner}. For the blue transition of the current step the best
+ * splits and merges are applied to copies of the automaton. Each copy is scored by the size or AIC of the automaton that the greedy RTI+ completes from
+ * it and only the best copies are kept in the beam. Up to the lookahead depth the copies in the beam are refined again with their own best operations.
+ * The first operation of the best copy is performed on the automaton.
+ * 
+ * The search respects a time budget for the whole training: once it is exceeded, no more copies are scored. If the budget runs out during the
+ * lookahead, the best operation of the last depth whose copies were all scored is performed, and the learner completes the automaton greedily
+ * afterwards. The budget is a soft limit: a copy whose scoring has started is completed, because an automaton cannot be scored before it is complete.
+ */
+class BeamSearch {
+
+	private final SearchingPDRTALearner learner;
+	private final int operationsToSearch;
+	private final int beamWidth;
+	private final int lookaheadDepth;
+	private final SearchMeasure measure;
+	private final boolean parallel;
+	private final long deadline;
+
+	/**
+	 * A copy of the automaton in the beam
+	 */
+	private static class Node {
+
+		// The operation on the searched automaton that leads to this copy
+		final Refinement first;
+		final PDRTA automaton;
+		final StateColoring coloring;
+		double score = Double.NaN;
+		boolean terminal = false;
+
+		Node(Refinement first, PDRTA automaton, StateColoring coloring) {
+			this.first = first;
+			this.automaton = automaton;
+			this.coloring = coloring;
+		}
+	}
+
+	// Best score first and the best operation first for equal scores like the original search
+	private static final Comparator<Node> ORDER = Comparator.<Node> comparingDouble(n -> n.score).thenComparing(n -> n.first, Comparator.reverseOrder());
+
+	BeamSearch(SearchingPDRTALearner learner, int operationsToSearch, int beamWidth, int lookaheadDepth, SearchMeasure measure, boolean parallel,
+			long timeBudget) {
+
+		if (beamWidth <= 0) {
+			throw new IllegalArgumentException("The beam width must be positive");
+		}
+		if (lookaheadDepth <= 0) {
+			throw new IllegalArgumentException("The lookahead depth must be positive");
+		}
+		this.learner = learner;
+		this.operationsToSearch = operationsToSearch;
+		this.beamWidth = beamWidth;
+		this.lookaheadDepth = lookaheadDepth;
+		this.measure = measure;
+		this.parallel = parallel;
+		this.deadline = timeBudget > 0 ? System.currentTimeMillis() + timeBudget : Long.MAX_VALUE;
+	}
+
+	boolean isExpired() {
+		return System.currentTimeMillis() > deadline;
+	}
+
+	/**
+	 * Searches the operation to perform for the given blue transition
+	 * 
+	 * @param a
+	 *            The automaton
+	 * @param sc
+	 *            The coloring of the automaton
+	 * @param t
+	 *            The blue transition
+	 * @return The operation to perform or nothing if the target of the transition has to be colored red
+	 */
+	Optional<Refinement> select(PDRTA a, StateColoring sc, Transition t) {
+
+		final NavigableSet<Refinement> splits = learner.getSplitRefs(t, sc).descendingSet();
+		final NavigableSet<Refinement> merges = learner.getMergeRefs(t, sc).descendingSet();
+		if (splits.isEmpty() && merges.isEmpty()) {
+			return Optional.empty();
+		}
+		final List<Refinement> candidates = limit(splits, merges);
+		if (candidates.size() == 1 || isExpired()) {
+			// Fall back to the choice of the greedy RTI+
+			return Optional.of(splits.isEmpty() ? merges.first() : splits.first());
+		}
+
+		List<Node> beam = new ArrayList<>();
+		for (final Refinement r : candidates) {
+			beam.add(apply(r, a, sc, r));
+		}
+		// The best operation of the deepest fully scored beam
+		Refinement best = null;
+		for (int depth = 1;; depth++) {
+			final boolean last = depth >= lookaheadDepth;
+			final boolean scored = score(beam, !last);
+			if (!scored && best != null) {
+				// The budget ran out while scoring, so the ranking of this depth is incomplete
+				break;
+			}
+			beam = beam.stream().filter(n -> !Double.isNaN(n.score)).sorted(ORDER).limit(beamWidth).collect(Collectors.toList());
+			if (beam.isEmpty()) {
+				break;
+			}
+			best = beam.get(0).first;
+			if (last || !scored || isExpired()) {
+				break;
+			}
+			beam = expand(beam);
+		}
+		if (best == null) {
+			return Optional.of(splits.isEmpty() ? merges.first() : splits.first());
+		}
+		return Optional.of(best);
+	}
+
+	private List<Refinement> limit(NavigableSet<Refinement> splits, NavigableSet<Refinement> merges) {
+		return Stream.concat(splits.stream().limit(operationsToSearch), merges.stream().limit(operationsToSearch)).collect(Collectors.toList());
+	}
+
+	/**
+	 * Applies an operation to a copy of the given automaton
+	 */
+	private static Node apply(Refinement first, PDRTA a, StateColoring sc, Refinement r) {
+
+		final PDRTA copy = new PDRTA(a);
+		final StateColoring cColoring = new StateColoring(sc, copy);
+		new Refinement(copy, r, cColoring).refine();
+		return new Node(first, copy, cColoring);
+	}
+
+	/**
+	 * Scores the nodes by completing them greedily
+	 * 
+	 * @param keep
+	 *            Whether the nodes are expanded afterwards, then they are completed on a copy
+	 * @return Whether all nodes were scored before the time budget was exceeded
+	 */
+	private boolean score(List<Node> nodes, boolean keep) {
+
+		final Stream<Node> stream = parallel ? nodes.parallelStream() : nodes.stream();
+		final AtomicBoolean skipped = new AtomicBoolean(false);
+		stream.filter(n -> Double.isNaN(n.score)).forEach(n -> {
+			if (isExpired()) {
+				skipped.set(true);
+				return;
+			}
+			PDRTA completed = n.automaton;
+			StateColoring cColoring = n.coloring;
+			if (keep) {
+				completed = new PDRTA(n.automaton);
+				cColoring = new StateColoring(n.coloring, completed);
+			}
+			learner.complete(completed, cColoring);
+			n.score = measure == SearchMeasure.AIC ? learner.calcAIC(completed) : completed.getSize();
+		});
+		return !skipped.get();
+	}
+
+	/**
+	 * Refines every node of the beam with its best operations. Nodes that cannot be refined anymore keep their score.
+	 */
+	private List<Node> expand(List<Node> beam) {
+
+		final List<Node> result = new ArrayList<>();
+		for (final Node n : beam) {
+			if (n.terminal) {
+				result.add(n);
+				continue;
+			}
+			List<Refinement> candidates = null;
+			Transition t;
+			while ((t = learner.nextDecision(n.automaton, n.coloring)) != null) {
+				final NavigableSet<Refinement> splits = learner.getSplitRefs(t, n.coloring).descendingSet();
+				final NavigableSet<Refinement> merges = learner.getMergeRefs(t, n.coloring).descendingSet();
+				if (!splits.isEmpty() || !merges.isEmpty()) {
+					candidates = limit(splits, merges);
+					break;
+				}
+				n.coloring.setRed(t.target);
+			}
+			if (candidates == null) {
+				// The node is complete and keeps its score
+				n.terminal = true;
+				result.add(n);
+			} else {
+				for (int i = 0; i < candidates.size() - 1; i++) {
+					result.add(apply(n.first, n.automaton, n.coloring, candidates.get(i)));
+				}
+				// The node is not needed anymore, so the last operation is performed on its automaton without copying it
+				candidates.get(candidates.size() - 1).refine();
+				result.add(new Node(n.first, n.automaton, n.coloring));
+			}
+		}
+		return result;
+	}
+
+}
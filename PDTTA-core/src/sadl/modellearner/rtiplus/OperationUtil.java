@@ -29,6 +29,7 @@ import sadl.models.pdrta.PDRTA;
 import sadl.models.pdrta.PDRTAState;
 import sadl.models.pdrta.StateStatistic;
 import sadl.models.pdrta.StateStatistic.CalcRatio;
+import sadl.models.pdrta.UndoLog;
 
 /**
  * 
@@ -41,7 +42,7 @@ public class OperationUtil {
 		// Do not use
 	}
 
-	private static void preMerge(PDRTAState s1, PDRTAState s2, StateColoring sc) {
+	private static void preMerge(PDRTAState s1, PDRTAState s2, StateColoring sc, UndoLog log) {
 
 		if (sc.isRed(s1)) {
 			final PDRTA a = s1.getPDRTA();
@@ -53,14 +54,15 @@ public class OperationUtil {
 				for (final Interval in : ins) {
 					final PDRTAState t = in.getTarget();
 					if (t != null && t.equals(s2)) {
-						in.setTarget(s1);
+						in.setTarget(s1, log);
 					}
 				}
 			}
 			// Merge neighbored intervals with same source and target (undo previous splits)
 			for (final PDRTAState s : sc) {
 				for (int i = 0; i < a.getAlphSize(); i++) {
-					final Optional<Iterator<Entry<Integer, Interval>>> it = s.getIntervals(i).map(m -> m.descendingMap().entrySet().iterator());
+					final Optional<NavigableMap<Integer, Interval>> ins = s.getIntervals(i);
+					final Optional<Iterator<Entry<Integer, Interval>>> it = ins.map(m -> m.descendingMap().entrySet().iterator());
 					if (it.isPresent()) {
 						if (it.get().hasNext()) {
 							Interval neighbor = it.get().next().getValue();
@@ -68,8 +70,13 @@ public class OperationUtil {
 								final Interval in = it.get().next().getValue();
 								if (neighbor != null && in != null && neighbor.getTarget().equals(s1) && in.getTarget().equals(s1)) {
 									assert (neighbor.getBegin() - 1 == in.getEnd());
-									neighbor.merge(in);
+									neighbor.merge(in, log);
 									it.get().remove();
+									if (log != null) {
+										final NavigableMap<Integer, Interval> m = ins.get();
+										final Integer key = new Integer(in.getEnd());
+										log.add(() -> m.put(key, in));
+									}
 								} else {
 									neighbor = in;
 								}
@@ -89,10 +96,10 @@ public class OperationUtil {
 						}
 						if (eIn.getKey().intValue() < a.getMaxTimeDelay()) {
 							if (s2.getInterval(i, eIn.getKey().intValue()).isPresent()) {
-								split(s2, i, eIn.getKey().intValue(), sc);
+								split(s2, i, eIn.getKey().intValue(), sc, log);
 							} else {
 								// Remaining interval is empty
-								s2.getIntervals(i).get().put(eIn.getKey(), null);
+								put(s2.getIntervals(i).get(), eIn.getKey(), null, log);
 							}
 						}
 					}
@@ -101,7 +108,27 @@ public class OperationUtil {
 			}
 		}
 		// Merge statistics
-		s1.getStat().merge(s2.getStat());
+		s1.getStat().merge(s2.getStat(), log);
+	}
+
+	/**
+	 * Puts the given {@link Interval} into the map and records the change in the given {@link UndoLog}
+	 */
+	private static void put(NavigableMap<Integer, Interval> ins, Integer key, Interval in, UndoLog log) {
+
+		if (log != null) {
+			final boolean present = ins.containsKey(key);
+			final Interval old = ins.put(key, in);
+			log.add(() -> {
+				if (present) {
+					ins.put(key, old);
+				} else {
+					ins.remove(key);
+				}
+			});
+		} else {
+			ins.put(key, in);
+		}
 	}
 
 	/**
@@ -111,8 +138,23 @@ public class OperationUtil {
 	 * @param s2
 	 * @return LikelihoodValue
 	 */
-	@SuppressWarnings("null")
 	public static LikelihoodValue merge(PDRTAState s1, PDRTAState s2, StateColoring sc, boolean test, boolean advancedPooling, CalcRatio cr) {
+		return merge(s1, s2, sc, test, advancedPooling, cr, null);
+	}
+
+	/**
+	 * Merges the two {@link PDRTAState}s like {@link OperationUtil#merge(PDRTAState, PDRTAState, StateColoring, boolean, boolean, CalcRatio)} and records all
+	 * changes of intervals, targets and statistics in the given {@link UndoLog}. Rolling back the log restores the {@link PDRTA} as it was before the merge.
+	 * The changes of the {@link StateColoring} are not recorded, so a copy of the coloring should be used when the merge is rolled back.
+	 * 
+	 * @param s1
+	 * @param s2
+	 * @param log
+	 *            The {@link UndoLog} for recording the changes or {@code null}
+	 * @return LikelihoodValue
+	 */
+	@SuppressWarnings("null")
+	public static LikelihoodValue merge(PDRTAState s1, PDRTAState s2, StateColoring sc, boolean test, boolean advancedPooling, CalcRatio cr, UndoLog log) {
 
 		final PDRTA a = s1.getPDRTA();
 		assert (a == s2.getPDRTA());
@@ -125,7 +167,7 @@ public class OperationUtil {
 			lv.add(StateStatistic.getLikelihoodRatioTime(s1, s2, advancedPooling, cr));
 		}
 
-		preMerge(s1, s2, sc);
+		preMerge(s1, s2, sc, log);
 
 		// Merge intervals
 		for (int i = 0; i < a.getAlphSize(); i++) {
@@ -133,7 +175,12 @@ public class OperationUtil {
 			final Optional<NavigableMap<Integer, Interval>> ins2 = s2.getIntervals(i);
 			if (!ins1.isPresent()) {
 				// Move interval map from s2 to s1
-				s1.getIntervals().set(i, ins2.orElse(null));
+				final List<NavigableMap<Integer, Interval>> ins = s1.getIntervals();
+				final int idx = i;
+				final NavigableMap<Integer, Interval> old = ins.set(idx, ins2.orElse(null));
+				if (log != null) {
+					log.add(() -> ins.set(idx, old));
+				}
 				if (sc.isRed(s1) && ins2.isPresent()) {
 					// Color all targets blue
 					ins2.get().values().stream().filter(in -> in != null).forEach(in -> sc.setBlue(in.getTarget()));
@@ -157,7 +204,7 @@ public class OperationUtil {
 							assert (in1.getTarget() != null);
 							assert (in1.getBegin() == in2.getBegin());
 							assert (in1.getEnd() == in2.getEnd());
-							in1.getTails().putAll(in2.getTails());
+							in1.addTails(in2, log);
 							if (test) {
 								int out1, out2;
 								out1 = in1.getTarget().getStat().getTotalOutEvents();
@@ -166,15 +213,15 @@ public class OperationUtil {
 								// Abort recursion when s1 is in a subtree (not red) and not enough data is available for testing
 								// Attention: Verwer's implementation stops even if s1 is red and there can be further computations!
 								if (sc.isRed(in1.getTarget()) || !SimplePDRTALearner.bOp[2].eval(out1 < PDRTA.getMinData(), out2 < PDRTA.getMinData())) {
-									lv.add(merge(in1.getTarget(), in2.getTarget(), sc, test, advancedPooling, cr));
+									lv.add(merge(in1.getTarget(), in2.getTarget(), sc, test, advancedPooling, cr, log));
 								}
 							} else {
-								merge(in1.getTarget(), in2.getTarget(), sc, test, advancedPooling, cr);
+								merge(in1.getTarget(), in2.getTarget(), sc, test, advancedPooling, cr, log);
 							}
 						} else {
 							// Move interval from s2 to s1
 							assert (ins1.get().containsKey(new Integer(in2.getEnd())));
-							ins1.get().put(new Integer(in2.getEnd()), in2);
+							put(ins1.get(), new Integer(in2.getEnd()), in2, log);
 							if (sc.isRed(s1)) {
 								sc.setBlue(in2.getTarget());
 							}
@@ -185,12 +232,20 @@ public class OperationUtil {
 			}
 		}
 
-		a.recycleState(s2, sc);
+		a.recycleState(s2, sc, log);
 
 		return lv;
 	}
 
 	public static Pair<Optional<Interval>, Optional<Interval>> split(PDRTAState s, int symAlphIdx, int time, StateColoring sc) {
+		return split(s, symAlphIdx, time, sc, null);
+	}
+
+	/**
+	 * Splits the interval of the {@link PDRTAState} like {@link OperationUtil#split(PDRTAState, int, int, StateColoring)} and records all changes of
+	 * intervals, targets and statistics in the given {@link UndoLog}. The changes of the {@link StateColoring} are not recorded.
+	 */
+	public static Pair<Optional<Interval>, Optional<Interval>> split(PDRTAState s, int symAlphIdx, int time, StateColoring sc, UndoLog log) {
 
 		final PDRTA a = s.getPDRTA();
 
@@ -205,41 +260,47 @@ public class OperationUtil {
 		}
 
 		Interval in = optIn.get();
-		Interval newIn = in.split(time);
+		Interval newIn = in.split(time, log);
 
 		assert (newIn != in);
 		assert (newIn.getTarget() == null);
 		assert (newIn.getEnd() == in.getBegin() - 1);
 
 		if (newIn.isEmpty()) {
-			ins.get().put(new Integer(newIn.getEnd()), null);
+			put(ins.get(), new Integer(newIn.getEnd()), null, log);
 			newIn = null;
 		} else {
-			ins.get().put(new Integer(newIn.getEnd()), newIn);
+			put(ins.get(), new Integer(newIn.getEnd()), newIn, log);
 			if (in.isEmpty()) {
 				// replace in by newIn
 				newIn.setTarget(in.getTarget());
-				ins.get().put(new Integer(in.getEnd()), null);
+				put(ins.get(), new Integer(in.getEnd()), null, log);
 				in = null;
 			} else if (sc != null) {
 				// Recreate sub APTAs for both intervals
 				// Create new sub APTA for first interval
-				final PDRTAState newState = a.acquireState();
+				final PDRTAState newState = a.acquireState(log);
 				newIn.setTarget(newState);
 				if (sc.isRed(s)) {
 					sc.setBlue(newState);
 				}
-				newIn.getTails().entries().forEach(e -> newState.addTail(e.getValue()));
-				a.createSubTAPTA(newState);
+				newIn.getTails().forEach(tail -> {
+					newState.addTail(a.getInput().getNextTail(tail));
+					return true;
+				});
+				a.createSubTAPTA(newState, log);
 				// Create new sub APTA for second interval
-				a.recycleSubAPTA(in.getTarget(), sc);
-				final PDRTAState state = a.acquireState();
-				in.setTarget(state);
+				a.recycleSubAPTA(in.getTarget(), sc, log);
+				final PDRTAState state = a.acquireState(log);
+				in.setTarget(state, log);
 				if (sc.isRed(s)) {
 					sc.setBlue(state);
 				}
-				in.getTails().entries().forEach(e -> state.addTail(e.getValue()));
-				a.createSubTAPTA(state);
+				in.getTails().forEach(tail -> {
+					state.addTail(a.getInput().getNextTail(tail));
+					return true;
+				});
+				a.createSubTAPTA(state, log);
 			}
 		}
 
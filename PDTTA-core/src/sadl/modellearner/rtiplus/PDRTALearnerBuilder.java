@@ -31,6 +31,7 @@ public class PDRTALearnerBuilder {
 	private SplitPosition splitPos = SplitPosition.MIDDLE;
 	private boolean noMergeWithRoot = false;
 	private boolean testPara = false;
+	private int testThreads = 0;
 
 	// IDA
 	private DistributionAnalysis intervalDistriAna = null;
@@ -43,6 +44,9 @@ public class PDRTALearnerBuilder {
 	private int maxOpsToSearch = 10;
 	private boolean searchPara = false;
 	private SearchMeasure measure = SearchMeasure.SIZE;
+	private int beamWidth = 0;
+	private int lookahead = 1;
+	private long searchTimeBudget = 0;
 
 	public PDRTALearnerBuilder(double significance, DistributionAnalysis histoBinDistriAnalysis) {
 
@@ -72,6 +76,12 @@ public class PDRTALearnerBuilder {
 		return setOperationTester(opTester);
 	}
 
+	public PDRTALearnerBuilder setParallelism(int threads) {
+
+		this.testThreads = threads;
+		return this;
+	}
+
 	public PDRTALearnerBuilder activateIDA(DistributionAnalysis intervalDistriAnalysis) {
 
 		this.intervalDistriAna = intervalDistriAnalysis;
@@ -101,15 +111,29 @@ public class PDRTALearnerBuilder {
 		return useSearchingWrapper();
 	}
 
+	public PDRTALearnerBuilder useSearchingWrapper(int maxOperationsToSearch, SearchMeasure searchMeasure, boolean searchParallel, int beamSearchWidth,
+			int lookaheadDepth, long timeBudget) {
+
+		this.beamWidth = beamSearchWidth;
+		this.lookahead = lookaheadDepth;
+		this.searchTimeBudget = timeBudget;
+		return useSearchingWrapper(maxOperationsToSearch, searchMeasure, searchParallel);
+	}
+
 	public SimplePDRTALearner build() {
 
+		final SimplePDRTALearner learner;
 		if (searching) {
-			return new SearchingPDRTALearner(significance, histoBinDistriAnalysis, tester, splitPos, noMergeWithRoot, testPara, intervalDistriAna,
-					remBorderGapsOnly, perfIDAActively, intervalExpRate, maxOpsToSearch, measure, searchPara, bOp, directory);
+			final SearchingPDRTALearner searchingLearner = new SearchingPDRTALearner(significance, histoBinDistriAnalysis, tester, splitPos, noMergeWithRoot,
+					testPara, intervalDistriAna, remBorderGapsOnly, perfIDAActively, intervalExpRate, maxOpsToSearch, measure, searchPara, bOp, directory);
+			searchingLearner.setBeamSearch(beamWidth > 0 ? beamWidth : Math.max(1, 2 * maxOpsToSearch), lookahead, searchTimeBudget);
+			learner = searchingLearner;
 		} else {
-			return new SimplePDRTALearner(significance, histoBinDistriAnalysis, tester, splitPos, noMergeWithRoot, testPara, intervalDistriAna,
+			learner = new SimplePDRTALearner(significance, histoBinDistriAnalysis, tester, splitPos, noMergeWithRoot, testPara, intervalDistriAna,
 					remBorderGapsOnly, perfIDAActively, intervalExpRate, bOp, directory);
 		}
+		learner.setParallelism(testThreads);
+		return learner;
 	}
 
 }
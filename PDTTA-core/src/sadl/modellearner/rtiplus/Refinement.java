@@ -10,12 +10,12 @@
  */
 package sadl.modellearner.rtiplus;
 
-import com.google.common.collect.TreeMultimap;
+import org.apache.commons.lang3.tuple.Pair;
 
+import gnu.trove.list.TIntList;
 import sadl.models.pdrta.Interval;
 import sadl.models.pdrta.PDRTA;
 import sadl.models.pdrta.PDRTAState;
-import sadl.models.pdrta.TimedTail;
 import sadl.utils.Settings;
 
 /**
@@ -109,14 +109,16 @@ class Refinement implements Comparable<Refinement> {
 			if (Settings.isDebug()) {
 				sb.append("  Distr.: [");
 				final Interval in = source.getInterval(symbolAlphIdx, time).get();
-				final TreeMultimap<Integer, TimedTail> t = in.getTails();
+				final Pair<TIntList, TIntList> t = in.getTimeDelayDistribution();
+				int j = 0;
 				for (int i = in.getBegin(); i <= in.getEnd(); i++) {
 					if (i == time + 1) {
 						sb.append(" ][");
 					}
 					sb.append(" ").append(i).append("/");
-					if (t.containsKey(new Integer(i))) {
-						sb.append(t.get(new Integer(i)).size());
+					if (j < t.getLeft().size() && t.getLeft().get(j) == i) {
+						sb.append(t.getRight().get(j));
+						j++;
 					} else {
 						sb.append("0");
 					}
@@ -0,0 +1,192 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.modellearner.rtiplus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sadl.models.pdrta.PDRTAState;
+
+/**
+ * Tests the split and merge candidates of RTI+ concurrently in a dedicated {@link ForkJoinPool}. The tests only read the automaton (merges are tested on
+ * a copy), so all split times and all red states of a blue transition are tested at the same time. A split is always preferred to a merge, so the pending
+ * merge tests are cancelled as soon as the first split passes.
+ */
+class RefinementExecutor {
+
+	private static final Logger logger = LoggerFactory.getLogger(RefinementExecutor.class);
+
+	private final ForkJoinPool pool;
+
+	private int iterations = 0;
+	private long splitNanos = 0;
+	private long mergeNanos = 0;
+	private int cancelledMerges = 0;
+
+	/**
+	 * Creates an executor with its own {@link ForkJoinPool}
+	 * 
+	 * @param parallelism
+	 *            The number of threads that test operations
+	 */
+	RefinementExecutor(int parallelism) {
+
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Tests all candidates concurrently
+	 * 
+	 * @param candidates
+	 *            The candidates to test
+	 * @param test
+	 *            The test that returns the {@link Refinement} for a passing candidate
+	 * @return The {@link Refinement}s of all passing candidates
+	 */
+	<T> NavigableSet<Refinement> testAll(Collection<T> candidates, Function<T, Optional<Refinement>> test) {
+
+		final List<ForkJoinTask<Optional<Refinement>>> tasks = submit(candidates, test);
+		final NavigableSet<Refinement> result = new TreeSet<>();
+		for (final ForkJoinTask<Optional<Refinement>> task : tasks) {
+			task.join().ifPresent(result::add);
+		}
+		return result;
+	}
+
+	/**
+	 * Tests all splits and merges of a blue transition concurrently and selects the refinement to perform like the sequential RTI+ does: the best split if
+	 * any split passes, the best merge otherwise.
+	 * 
+	 * @param iteration
+	 *            The number of the iteration for logging
+	 * @param splitTimes
+	 *            The split times to test
+	 * @param testSplit
+	 *            The split test
+	 * @param redStates
+	 *            The red states to test merges with
+	 * @param testMerge
+	 *            The merge test
+	 * @return The selected {@link Refinement} or nothing if no operation passes
+	 */
+	Optional<Refinement> selectRefinement(int iteration, Collection<Integer> splitTimes, Function<Integer, Optional<Refinement>> testSplit,
+			Collection<PDRTAState> redStates, Function<PDRTAState, Optional<Refinement>> testMerge) {
+
+		final long start = System.nanoTime();
+		final AtomicBoolean splitPassed = new AtomicBoolean(false);
+		final List<ForkJoinTask<Optional<Refinement>>> merges = new ArrayList<>(redStates.size());
+		final Function<Integer, Optional<Refinement>> cancellingSplit = time -> {
+			final Optional<Refinement> r = testSplit.apply(time);
+			if (r.isPresent() && !splitPassed.getAndSet(true)) {
+				for (final ForkJoinTask<Optional<Refinement>> m : merges) {
+					m.cancel(false);
+				}
+			}
+			return r;
+		};
+		// Merge tasks are created first, so that a passing split can cancel them, but they are submitted after the splits
+		for (final PDRTAState red : redStates) {
+			merges.add(ForkJoinTask.adapt(() -> splitPassed.get() ? Optional.<Refinement> empty() : testMerge.apply(red)));
+		}
+		final List<ForkJoinTask<Optional<Refinement>>> splits = submit(splitTimes, cancellingSplit);
+		for (final ForkJoinTask<Optional<Refinement>> m : merges) {
+			pool.execute(m);
+		}
+
+		Refinement best = null;
+		for (final ForkJoinTask<Optional<Refinement>> task : splits) {
+			best = max(best, task.join());
+		}
+		final long splitsDone = System.nanoTime();
+
+		int cancelled = 0;
+		if (best == null) {
+			for (final ForkJoinTask<Optional<Refinement>> task : merges) {
+				best = max(best, task.join());
+			}
+		} else {
+			for (final ForkJoinTask<Optional<Refinement>> task : merges) {
+				// Wait for merges that were already running to leave the automaton untouched for the refinement
+				if (task.isCancelled()) {
+					cancelled++;
+				} else {
+					task.quietlyJoin();
+				}
+			}
+		}
+		final long end = System.nanoTime();
+
+		synchronized (this) {
+			iterations++;
+			splitNanos += splitsDone - start;
+			mergeNanos += end - splitsDone;
+			cancelledMerges += cancelled;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("#{} Tested {} splits and {} merges in {} ms (splits done after {} ms, {} merges cancelled)", iteration, splitTimes.size(),
+					redStates.size(), toMillis(end - start), toMillis(splitsDone - start), cancelled);
+		}
+		return Optional.ofNullable(best);
+	}
+
+	private <T> List<ForkJoinTask<Optional<Refinement>>> submit(Collection<T> candidates, Function<T, Optional<Refinement>> test) {
+
+		final List<ForkJoinTask<Optional<Refinement>>> tasks = new ArrayList<>(candidates.size());
+		for (final T c : candidates) {
+			tasks.add(pool.submit(() -> test.apply(c)));
+		}
+		return tasks;
+	}
+
+	private static Refinement max(Refinement best, Optional<Refinement> r) {
+
+		if (r.isPresent() && (best == null || r.get().compareTo(best) > 0)) {
+			return r.get();
+		}
+		return best;
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * Logs the accumulated timings of all iterations
+	 */
+	synchronized void logSummary() {
+
+		logger.info("Tested operations in {} iterations with {} threads: splits took {} ms, merges took another {} ms, {} merges were cancelled", iterations,
+				pool.getParallelism(), toMillis(splitNanos), toMillis(mergeNanos), cancelledMerges);
+	}
+
+	/**
+	 * Stops the threads of the executor
+	 */
+	void shutdown() {
+		pool.shutdown();
+	}
+
+}
@@ -12,9 +12,7 @@ package sadl.modellearner.rtiplus;
 
 import java.nio.file.Path;
 import java.util.List;
-import java.util.NavigableSet;
-
-import com.google.common.collect.TreeMultimap;
+import java.util.Optional;
 
 import sadl.input.TimedInput;
 import sadl.interfaces.ProbabilisticModel;
@@ -43,6 +41,9 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 	private final int maxOperationsToSearch;
 	private final boolean searchParallel;
 	private final SearchMeasure measure;
+	private int beamWidth;
+	private int lookaheadDepth = 1;
+	private long timeBudget = 0;
 
 	/**
 	 * Creates a searching RTI+ learner as it was implemented by Verwer
@@ -96,6 +97,7 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 		this.maxOperationsToSearch = maxOperationsToSearch;
 		this.searchParallel = searchParallel;
 		this.measure = searchMeasure;
+		this.beamWidth = Math.max(1, 2 * maxOperationsToSearch);
 	}
 
 	@Override
@@ -117,8 +119,14 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 		final StateColoring sc = new StateColoring(a);
 		sc.setRed(a.getRoot());
 		tester.setColoring(sc);
+		tester.setTransactional(!isTestingParallel());
 		mainModel = a;
-		search(a, sc);
+		startExecutor();
+		try {
+			search(a, sc);
+		} finally {
+			stopExecutor();
+		}
 
 		if (intervalDistriAnalysis != null && !performIDAActively) {
 			logger.info("Running IDA passively after training");
@@ -136,7 +144,66 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 		return a;
 	}
 
-	// TODO Try to reduce duplicated code regarding SimplePDRTALearner.complete(...)
+	/**
+	 * Configures the beam search. By default, the best operations of each step are scored by completing them greedily without lookahead and without time
+	 * limit.
+	 * 
+	 * @param width
+	 *            The maximum number of automata that are kept in the beam
+	 * @param lookahead
+	 *            The number of operations that are searched ahead before scoring
+	 * @param timeBudget
+	 *            The time in milliseconds after that the learner stops searching and completes the automaton greedily or {@code 0} for no limit; this is a
+	 *            soft limit because the greedy completions that have already started are finished
+	 */
+	public void setBeamSearch(int width, int lookahead, long timeBudget) {
+
+		if (width <= 0) {
+			throw new IllegalArgumentException("The beam width must be positive");
+		}
+		if (lookahead <= 0) {
+			throw new IllegalArgumentException("The lookahead depth must be positive");
+		}
+		if (timeBudget < 0) {
+			throw new IllegalArgumentException("The time budget must not be negative");
+		}
+		this.beamWidth = width;
+		this.lookaheadDepth = lookahead;
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * Performs the steps of RTI+ that do not need a decision (IDA and coloring states red without testing)
+	 * 
+	 * @return The next blue transition to decide on or {@code null} if the automaton is complete
+	 */
+	@SuppressWarnings("boxing")
+	Transition nextDecision(PDRTA a, StateColoring sc) {
+
+		final boolean preExit = (bOp[2] instanceof OrOperator) && (intervalDistriAnalysis == null);
+		Transition t;
+		while ((t = getMostVisitedTrans(a, sc)) != null && !(preExit && t.in.getTails().size() < PDRTA.getMinData())) {
+			if (intervalDistriAnalysis != null && performIDAActively) {
+				final List<Interval> idaIns = perfomIDA(t.source, t.symAlphIdx, t.in.getEnd(), sc);
+				if (idaIns.size() > 0) {
+					if (mainModel == a) {
+						logger.debug("DO: Split interval due to IDA into {} intervals", idaIns.size());
+					}
+					continue;
+				} else if (bOp[2] instanceof OrOperator && t.in.getTails().size() < PDRTA.getMinData()) {
+					// Shortcut for skipping merges and splits when OR is selected
+					if (mainModel == a) {
+						logger.debug("DO: Color state {} red", t.target.getIndex());
+					}
+					sc.setRed(t.target);
+					continue;
+				}
+			}
+			return t;
+		}
+		return null;
+	}
+
 	@SuppressWarnings("boxing")
 	private void search(PDRTA a, StateColoring sc) {
 
@@ -145,9 +212,15 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 			logger.info("Pre-Exiting algorithm when number of tails falls below minData");
 		}
 
+		final BeamSearch beam = new BeamSearch(this, maxOperationsToSearch, beamWidth, lookaheadDepth, measure, searchParallel, timeBudget);
 		int counter = 0;
 		Transition t;
-		while ((t = getMostVisitedTrans(a, sc)) != null && !(preExit && t.in.getTails().size() >= PDRTA.getMinData())) {
+		while ((t = nextDecision(a, sc)) != null) {
+			if (beam.isExpired()) {
+				logger.info("Time budget for searching exceeded after {} steps, completing the automaton greedily", counter);
+				complete(a, sc);
+				return;
+			}
 			if (directory != null) {
 				draw(a, sc, true, directory, counter);
 			}
@@ -157,101 +230,11 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 			}
 			counter++;
 
-			if (intervalDistriAnalysis != null) {
-				logger.debug("Checking data distribution");
-				final List<Interval> idaIns = perfomIDA(t.source, t.symAlphIdx, t.in.getEnd(), sc);
-				if (idaIns.size() > 0) {
-					logger.debug("#{} DO: Split interval due to IDA into {} intervals", counter, idaIns.size());
-					if (logger.isTraceEnabled()) {
-						final StringBuilder sb = new StringBuilder();
-						for (final Interval in : idaIns) {
-							sb.append("  ");
-							sb.append(in.toString());
-						}
-						logger.trace("Resulting intervals are:{}", sb.toString());
-					}
-					continue;
-				} else {
-					logger.debug("No splits because of data distributuion were perfomed in:  {}", t.in.toString());
-					if (bOp[2] instanceof OrOperator && t.in.getTails().size() < PDRTA.getMinData()) {
-						// Shortcut for skipping merges and splits when OR is selected
-						if (mainModel == a) {
-							logger.debug("#{} DO: Color state {} red", counter, t.target.getIndex());
-						}
-						sc.setRed(t.target);
-						continue;
-					}
-				}
-			}
-
-			logger.debug("Testing splits");
-			final NavigableSet<Refinement> splits = getSplitRefs(t, sc).descendingSet();
-			logger.debug("Found {} possible splits", splits.size());
-			logger.debug("Testing merges");
-			final NavigableSet<Refinement> merges = getMergeRefs(t, sc).descendingSet();
-			logger.debug("Found {} possible merges", merges.size());
-			logger.debug("Calculating sizes for splits");
-
-			final TreeMultimap<Double, Refinement> all = TreeMultimap.create();
-			int c = 0;
-			for (final Refinement r : splits) {
-				if (c >= maxOperationsToSearch) {
-					break;
-				}
-				final PDRTA copy = new PDRTA(a);
-				final StateColoring cColoring = new StateColoring(sc, copy);
-				final Refinement cR = new Refinement(copy, r, cColoring);
-				cR.refine();
-				complete(copy, cColoring);
-				double modelScore;
-				switch (measure) {
-					case AIC:
-						modelScore = calcAIC(copy);
-						break;
-					case SIZE:
-						modelScore = copy.getSize();
-						break;
-					default:
-						modelScore = copy.getSize();
-						break;
-				}
-				all.put(modelScore, r);
-				c++;
-			}
-
-			logger.debug("Calculating sizes for merges");
-			c = 0;
-			for (final Refinement r : merges) {
-				if (c >= maxOperationsToSearch) {
-					break;
-				}
-				final PDRTA copy = new PDRTA(a);
-				final StateColoring cColoring = new StateColoring(sc, copy);
-				final Refinement cR = new Refinement(copy, r, cColoring);
-				cR.refine();
-				complete(copy, cColoring);
-				double modelScore;
-				switch (measure) {
-					case AIC:
-						modelScore = calcAIC(copy);
-						break;
-					case SIZE:
-						modelScore = copy.getSize();
-						break;
-					default:
-						modelScore = copy.getSize();
-						break;
-				}
-				all.put(modelScore, r);
-				c++;
-			}
-
-			assert (all.size() <= (2 * maxOperationsToSearch));
-			if (!all.isEmpty()) {
-				final double minSize = all.keySet().first();
-				final Refinement r = all.get(minSize).last();
-				logger.debug("#{} DO: {}  quality={}", counter, r.toString(), minSize);
-				r.refine();
+			final long start = System.currentTimeMillis();
+			final Optional<Refinement> r = beam.select(a, sc, t);
+			if (r.isPresent()) {
+				logger.debug("#{} DO: {}  (searched for {})", counter, r.get().toString(), getDuration(start, System.currentTimeMillis()));
+				r.get().refine();
 			} else {
 				logger.debug("#{} DO: Color state {} red", counter, t.target.getIndex());
 				sc.setRed(t.target);
@@ -262,7 +245,11 @@ public class SearchingPDRTALearner extends SimplePDRTALearner {
 		}
 
 		a.checkConsistency();
-		assert (a.getStateCount() == sc.getNumRedStates());
+		if (preExit) {
+			assert (a.getStateCount() >= sc.getNumRedStates());
+		} else {
+			assert (a.getStateCount() == sc.getNumRedStates());
+		}
 		if (directory != null) {
 			draw(a, sc, true, directory, counter);
 		}
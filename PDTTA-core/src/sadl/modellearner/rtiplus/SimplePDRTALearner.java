@@ -22,16 +22,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -88,6 +85,8 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 	final SplitPosition splitPos;
 	final boolean doNotMergeWithRoot;
 	final boolean testParallel;
+	int parallelism = 0;
+	RefinementExecutor executor;
 
 	final DistributionAnalysis intervalDistriAnalysis;
 	final boolean removeBorderGapsOnly;
@@ -166,6 +165,41 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 		}
 	}
 
+	/**
+	 * Sets the number of threads of a dedicated {@link java.util.concurrent.ForkJoinPool} that tests all splits and merges of a blue transition
+	 * concurrently. Pending merge tests are cancelled as soon as a split passes.
+	 * 
+	 * @param threads
+	 *            The number of threads or {@code 0} to test the operations without a dedicated pool
+	 */
+	public void setParallelism(int threads) {
+
+		if (threads < 0) {
+			throw new IllegalArgumentException("The number of threads must not be negative");
+		}
+		this.parallelism = threads;
+	}
+
+	boolean isTestingParallel() {
+		return testParallel || parallelism > 0;
+	}
+
+	void startExecutor() {
+
+		if (parallelism > 0) {
+			executor = new RefinementExecutor(parallelism);
+		}
+	}
+
+	void stopExecutor() {
+
+		if (executor != null) {
+			executor.logSummary();
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
 	private Path initStepsDir(Path dir) throws IOException {
 
 		if (dir != null) {
@@ -241,8 +275,14 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 		final StateColoring sc = new StateColoring(a);
 		sc.setRed(a.getRoot());
 		tester.setColoring(sc);
+		tester.setTransactional(!isTestingParallel());
 		mainModel = a;
-		complete(a, sc);
+		startExecutor();
+		try {
+			complete(a, sc);
+		} finally {
+			stopExecutor();
+		}
 
 		if (intervalDistriAnalysis != null && !performIDAActively) {
 			logger.info("Running IDA passively after training");
@@ -309,22 +349,28 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 	}
 
 	@SuppressWarnings("boxing")
-	protected NavigableSet<Refinement> getMergeRefs(Transition t, StateColoring sc) {
+	Optional<Refinement> testMerge(Transition t, PDRTAState red, StateColoring sc) {
 
-		final Function<PDRTAState, Optional<Refinement>> testMerge = red -> {
-			if (!doNotMergeWithRoot || !red.equals(red.getPDRTA().getRoot())) {
-				double score = tester.testMerge(red, t.target);
-				if (mainModel == t.ta) {
-					logger.trace("Score: {} (MERGE {} with {})", score, red.getIndex(), t.target.getIndex());
-				}
-				if (score > significance && score <= 1.0) {
-					score = (score - significance) / (1.0 - significance);
-					final Refinement ref = new Refinement(red, t.target, score, sc);
-					return Optional.of(ref);
-				}
+		if (!doNotMergeWithRoot || !red.equals(red.getPDRTA().getRoot())) {
+			double score = tester.testMerge(red, t.target, sc);
+			if (mainModel == t.ta) {
+				logger.trace("Score: {} (MERGE {} with {})", score, red.getIndex(), t.target.getIndex());
 			}
-			return Optional.empty();
-		};
+			if (score > significance && score <= 1.0) {
+				score = (score - significance) / (1.0 - significance);
+				final Refinement ref = new Refinement(red, t.target, score, sc);
+				return Optional.of(ref);
+			}
+		}
+		return Optional.empty();
+	}
+
+	protected NavigableSet<Refinement> getMergeRefs(Transition t, StateColoring sc) {
+
+		final Function<PDRTAState, Optional<Refinement>> testMerge = red -> testMerge(t, red, sc);
+		if (executor != null) {
+			return executor.testAll(sc.getRedStates(), testMerge);
+		}
 
 		Stream<PDRTAState> stream;
 		if (testParallel) {
@@ -337,15 +383,15 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 	}
 
 	@SuppressWarnings("boxing")
-	protected NavigableSet<Refinement> getSplitRefs(Transition t, StateColoring sc) {
+	Set<Integer> getSplitTimes(Transition t) {
 
 		final Set<Integer> splitTimes = new HashSet<>();
 
-		final Iterator<Integer> it = t.in.getTails().keySet().iterator();
-		if (it.hasNext()) {
-			int last = it.next().intValue();
-			while (it.hasNext()) {
-				final int cur = it.next().intValue();
+		final TIntList delays = t.in.getTimeDelayDistribution().getLeft();
+		if (!delays.isEmpty()) {
+			int last = delays.get(0);
+			for (int i = 1; i < delays.size(); i++) {
+				final int cur = delays.get(i);
 				int splitTime = -1;
 				switch (splitPos) {
 					case LEFT:
@@ -365,19 +411,32 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 				last = cur;
 			}
 		}
+		return splitTimes;
+	}
 
-		final Function<Integer, Optional<Refinement>> testSplit = splitTime -> {
-			double score = tester.testSplit(t.source, t.symAlphIdx, splitTime);
-			if (mainModel == t.ta) {
-				logger.trace("Score: {} (SPLIT {} @ ({},{}))", score, t.source.getIndex(), t.ta.getSymbol(t.symAlphIdx), splitTime);
-			}
-			if (score < significance && score >= 0) {
-				score = (significance - score) / significance;
-				final Refinement ref = new Refinement(t.source, t.symAlphIdx, splitTime, score, sc);
-				return Optional.of(ref);
-			}
-			return Optional.empty();
-		};
+	@SuppressWarnings("boxing")
+	Optional<Refinement> testSplit(Transition t, int splitTime, StateColoring sc) {
+
+		double score = tester.testSplit(t.source, t.symAlphIdx, splitTime, sc);
+		if (mainModel == t.ta) {
+			logger.trace("Score: {} (SPLIT {} @ ({},{}))", score, t.source.getIndex(), t.ta.getSymbol(t.symAlphIdx), splitTime);
+		}
+		if (score < significance && score >= 0) {
+			score = (significance - score) / significance;
+			final Refinement ref = new Refinement(t.source, t.symAlphIdx, splitTime, score, sc);
+			return Optional.of(ref);
+		}
+		return Optional.empty();
+	}
+
+	@SuppressWarnings("boxing")
+	protected NavigableSet<Refinement> getSplitRefs(Transition t, StateColoring sc) {
+
+		final Set<Integer> splitTimes = getSplitTimes(t);
+		final Function<Integer, Optional<Refinement>> testSplit = splitTime -> testSplit(t, splitTime, sc);
+		if (executor != null) {
+			return executor.testAll(splitTimes, testSplit);
+		}
 
 		Stream<Integer> stream;
 		if (testParallel) {
@@ -444,6 +503,27 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 				}
 			}
 
+			if (executor != null) {
+				final Transition blue = t;
+				final Optional<Refinement> r = executor.selectRefinement(counter, getSplitTimes(blue), splitTime -> testSplit(blue, splitTime, sc),
+						sc.getRedStates(), red -> testMerge(blue, red, sc));
+				if (r.isPresent()) {
+					if (mainModel == a) {
+						logger.debug("#{} DO: {}", counter, r.get().toString());
+					}
+					r.get().refine();
+				} else {
+					if (mainModel == a) {
+						logger.debug("#{} DO: Color state {} red", counter, t.target.getIndex());
+					}
+					sc.setRed(t.target);
+				}
+				if (Settings.isDebug()) {
+					a.checkConsistency();
+				}
+				continue;
+			}
+
 			if (mainModel == a) {
 				logger.debug("Testing splits");
 			}
@@ -552,11 +632,7 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 
 		assert (!in.isEmpty());
 
-		final SortedMap<Integer, Integer> tails = in.getTails().asMap().entrySet().stream()
-				.collect(Collectors.toMap(e -> e.getKey(), e -> new Integer(e.getValue().size()), (e1, e2) -> {
-					throw new RuntimeException();
-				}, TreeMap::new));
-		final Pair<TIntList, TIntList> timeDistr = OperationUtil.distributionsMapToLists(tails);
+		final Pair<TIntList, TIntList> timeDistr = in.getTimeDelayDistribution();
 		final TIntList splits = intervalDistriAnalysis.performAnalysis(timeDistr.getLeft(), timeDistr.getRight(), in.getBegin(), in.getEnd());
 
 		// Interval cIn = new Interval(in);
@@ -570,8 +646,8 @@ public class SimplePDRTALearner implements ProbabilisticModelLearner {
 			return Collections.emptyList();
 		}
 
-		final int minTime = tails.firstKey().intValue();
-		final int maxTime = tails.lastKey().intValue();
+		final int minTime = timeDistr.getLeft().get(0);
+		final int maxTime = timeDistr.getLeft().get(timeDistr.getLeft().size() - 1);
 		final List<Interval> resultingIns = new ArrayList<>(removeBorderGapsOnly ? 3 : (splits.size() + 1));
 		Pair<Optional<Interval>, Optional<Interval>> splittedIns = null;
 		for (int i = 0; i < splits.size(); i++) {
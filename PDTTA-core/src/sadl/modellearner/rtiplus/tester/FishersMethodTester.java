@@ -10,6 +10,7 @@
  */
 package sadl.modellearner.rtiplus.tester;
 
+import sadl.modellearner.rtiplus.StateColoring;
 import sadl.models.pdrta.PDRTAState;
 import sadl.models.pdrta.StateStatistic;
 
@@ -28,16 +29,16 @@ public class FishersMethodTester extends LikelihoodRatioTester {
 	}
 
 	@Override
-	public double testSplit(PDRTAState red, int symAlphIdx, int time) {
+	public double testSplit(PDRTAState red, int symAlphIdx, int time, StateColoring sc) {
 
-		final LikelihoodValue lv = intTestSplit(red, symAlphIdx, time, StateStatistic::calcFMRatio);
+		final LikelihoodValue lv = intTestSplit(red, symAlphIdx, time, sc, StateStatistic::calcFMRatio);
 		return applyFM(lv);
 	}
 
 	@Override
-	public double testMerge(PDRTAState red, PDRTAState blue) {
+	public double testMerge(PDRTAState red, PDRTAState blue, StateColoring sc) {
 
-		final LikelihoodValue lv = intTestMerge(red, blue, StateStatistic::calcFMRatio);
+		final LikelihoodValue lv = intTestMerge(red, blue, sc, StateStatistic::calcFMRatio);
 		return applyFM(lv);
 	}
 
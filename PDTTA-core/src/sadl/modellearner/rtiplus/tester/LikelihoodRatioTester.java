@@ -10,25 +10,24 @@
  */
 package sadl.modellearner.rtiplus.tester;
 
-import java.util.Collection;
-import java.util.Map.Entry;
+import java.util.Arrays;
 import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.Set;
-
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 import jsat.distributions.ChiSquared;
 import sadl.modellearner.rtiplus.OperationUtil;
 import sadl.modellearner.rtiplus.SimplePDRTALearner;
 import sadl.modellearner.rtiplus.StateColoring;
 import sadl.models.pdrta.Interval;
+import sadl.models.pdrta.LikelihoodRatioKernel;
 import sadl.models.pdrta.PDRTA;
+import sadl.models.pdrta.PDRTAInput;
 import sadl.models.pdrta.PDRTAState;
 import sadl.models.pdrta.StateStatistic;
 import sadl.models.pdrta.StateStatistic.CalcRatio;
-import sadl.models.pdrta.TimedTail;
+import sadl.models.pdrta.UndoLog;
 
 /**
  * 
@@ -37,8 +36,14 @@ import sadl.models.pdrta.TimedTail;
  */
 public class LikelihoodRatioTester implements OperationTester {
 
+	/**
+	 * Chi-squared distributions indexed by their degrees of freedom, shared by all testers
+	 */
+	private static volatile ChiSquared[] chiSquared = new ChiSquared[0];
+
 	private StateColoring stateColoring;
 	private final boolean advancedPooling;
+	private boolean transactional = true;
 
 	public LikelihoodRatioTester(boolean advancedPooling) {
 		this.advancedPooling = advancedPooling;
@@ -46,21 +51,26 @@ public class LikelihoodRatioTester implements OperationTester {
 
 	@Override
 	public double testSplit(PDRTAState s, int symAlphIdx, int time) {
+		return testSplit(s, symAlphIdx, time, stateColoring);
+	}
 
-		final LikelihoodValue lv = intTestSplit(s, symAlphIdx, time, StateStatistic::calcLRTRatio);
+	@Override
+	public double testSplit(PDRTAState s, int symAlphIdx, int time, StateColoring sc) {
+
+		final LikelihoodValue lv = intTestSplit(s, symAlphIdx, time, sc, LikelihoodRatioKernel.INSTANCE);
 		return compareToChiSquared(lv);
 	}
 
-	LikelihoodValue intTestSplit(PDRTAState s, int symAlphIdx, int time, CalcRatio cr) {
+	LikelihoodValue intTestSplit(PDRTAState s, int symAlphIdx, int time, StateColoring sc, CalcRatio cr) {
 
 		final Optional<PDRTAState> t = s.getTarget(symAlphIdx, time);
 		if (!t.isPresent()) {
 			throw new IllegalArgumentException("Transition has no target state");
 		}
 
-		if (!stateColoring.isRed(s)) {
+		if (!sc.isRed(s)) {
 			throw new IllegalArgumentException("s must be red!");
-		} else if (!stateColoring.isBlue(t.get())) {
+		} else if (!sc.isBlue(t.get())) {
 			throw new IllegalArgumentException("Target must be blue!");
 		}
 
@@ -69,22 +79,27 @@ public class LikelihoodRatioTester implements OperationTester {
 			return new LikelihoodValue();
 		}
 
-		final Multimap<Integer, TimedTail> mHist = HashMultimap.create();
-		final Multimap<Integer, TimedTail> mSym = HashMultimap.create();
-		final Optional<Set<Entry<Integer, TimedTail>>> tails = s.getInterval(symAlphIdx, time).map(in -> in.getTails().entries());
+		final Optional<TIntList> tails = s.getInterval(symAlphIdx, time).map(in -> in.getTails());
 		if (!tails.isPresent()) {
 			throw new IllegalArgumentException("Transition does not contain sequences");
 		}
 
-		for (final Entry<Integer, TimedTail> eT : tails.get()) {
-			if (eT.getKey().intValue() <= time && eT.getValue().getNextTail() != null) {
-				mHist.put(new Integer(eT.getValue().getNextTail().getHistBarIndex()), eT.getValue().getNextTail());
-				mSym.put(new Integer(eT.getValue().getNextTail().getSymbolAlphIndex()), eT.getValue().getNextTail());
+		final PDRTAInput input = s.getPDRTA().getInput();
+		final TIntList next = new TIntArrayList();
+		// Tails are sorted by time delay
+		for (int i = 0; i < tails.get().size(); i++) {
+			final int tail = tails.get().get(i);
+			if (input.getTimeDelay(tail) > time) {
+				break;
+			}
+			final int nt = input.getNextTail(tail);
+			if (nt >= 0) {
+				next.add(nt);
 			}
 		}
 
 		final LikelihoodValue lv = new LikelihoodValue();
-		lv.add(recTestSplit(t.get(), mHist, mSym, cr));
+		lv.add(recTestSplit(t.get(), next, cr));
 
 		// TODO delete. only for debug
 		// System.out.println("p=" + (-2.0 * lv.ratio) + " , df="
@@ -93,12 +108,35 @@ public class LikelihoodRatioTester implements OperationTester {
 		return lv;
 	}
 
+	/**
+	 * Returns the cached chi-squared distribution for the given degrees of freedom
+	 * 
+	 * @param dof
+	 *            The positive degrees of freedom
+	 * @return The chi-squared distribution
+	 */
+	static ChiSquared getChiSquared(int dof) {
+
+		ChiSquared[] cached = chiSquared;
+		if (dof >= cached.length || cached[dof] == null) {
+			synchronized (LikelihoodRatioTester.class) {
+				// Copy on write, so that readers never see a partially constructed distribution
+				cached = chiSquared;
+				if (dof >= cached.length || cached[dof] == null) {
+					cached = Arrays.copyOf(cached, Math.max(dof + 1, cached.length));
+					cached[dof] = new ChiSquared(dof);
+					chiSquared = cached;
+				}
+			}
+		}
+		return cached[dof];
+	}
+
 	double compareToChiSquared(LikelihoodValue lv) {
 
 		final int param = lv.getParam();
 		if (param > 0) {
-			final ChiSquared c = new ChiSquared(param);
-			return 1.0 - c.cdf(-2.0 * lv.getRatio());
+			return 1.0 - getChiSquared(param).cdf(-2.0 * lv.getRatio());
 		} else {
 			return -1.0;
 		}
@@ -106,16 +144,21 @@ public class LikelihoodRatioTester implements OperationTester {
 
 	@Override
 	public double testMerge(PDRTAState red, PDRTAState blue) {
+		return testMerge(red, blue, stateColoring);
+	}
+
+	@Override
+	public double testMerge(PDRTAState red, PDRTAState blue, StateColoring sc) {
 
-		final LikelihoodValue lv = intTestMerge(red, blue, StateStatistic::calcLRTRatio);
+		final LikelihoodValue lv = intTestMerge(red, blue, sc, LikelihoodRatioKernel.INSTANCE);
 		return compareToChiSquared(lv);
 	}
 
-	LikelihoodValue intTestMerge(PDRTAState red, PDRTAState blue, CalcRatio cr) {
+	LikelihoodValue intTestMerge(PDRTAState red, PDRTAState blue, StateColoring sc, CalcRatio cr) {
 
-		if (!stateColoring.isRed(red)) {
+		if (!sc.isRed(red)) {
 			throw new IllegalArgumentException("First state must be red!");
-		} else if (!stateColoring.isBlue(blue)) {
+		} else if (!sc.isBlue(blue)) {
 			throw new IllegalArgumentException("Second state must be blue!");
 		}
 
@@ -127,13 +170,25 @@ public class LikelihoodRatioTester implements OperationTester {
 		// return -1.0;
 		// }
 
-		final PDRTA cA = new PDRTA(a);
-		final PDRTAState cR = cA.getState(red.getIndex());
-		final PDRTAState cB = cA.getState(blue.getIndex());
+		final LikelihoodValue lv;
+		if (transactional) {
+			// Merge in place and roll back instead of copying the whole automaton
+			final StateColoring cColoring = new StateColoring(sc, a);
+			final UndoLog log = new UndoLog();
+			try {
+				lv = OperationUtil.merge(red, blue, cColoring, true, advancedPooling, cr, log);
+			} finally {
+				log.rollback();
+			}
+		} else {
+			final PDRTA cA = new PDRTA(a);
+			final PDRTAState cR = cA.getState(red.getIndex());
+			final PDRTAState cB = cA.getState(blue.getIndex());
 
-		final StateColoring cColoring = new StateColoring(stateColoring, cA);
+			final StateColoring cColoring = new StateColoring(sc, cA);
 
-		final LikelihoodValue lv = OperationUtil.merge(cR, cB, cColoring, true, advancedPooling, cr);
+			lv = OperationUtil.merge(cR, cB, cColoring, true, advancedPooling, cr);
+		}
 
 		// TODO delete. only for debug
 		// System.out.println("p=" + (-2.0 * lv.ratio) + " , df="
@@ -142,19 +197,29 @@ public class LikelihoodRatioTester implements OperationTester {
 		return lv;
 	}
 
-	private LikelihoodValue recTestSplit(PDRTAState s, Multimap<Integer, TimedTail> mHist, Multimap<Integer, TimedTail> mSym, CalcRatio cr) {
+	private LikelihoodValue recTestSplit(PDRTAState s, TIntList tails, CalcRatio cr) {
 
 		final PDRTA a = s.getPDRTA();
+		final PDRTAInput input = a.getInput();
 		final int minData = PDRTA.getMinData();
 
 		final LikelihoodValue lv = new LikelihoodValue();
-		lv.add(StateStatistic.getLikelihoodRatioSym(s, mSym, advancedPooling, cr));
-		lv.add(StateStatistic.getLikelihoodRatioTime(s, mHist, advancedPooling, cr));
+		lv.add(StateStatistic.getLikelihoodRatioSym(s, tails, advancedPooling, cr));
+		lv.add(StateStatistic.getLikelihoodRatioTime(s, tails, advancedPooling, cr));
+
+		// Group the tails by symbol
+		final TIntList[] bySym = new TIntList[a.getAlphSize()];
+		for (int j = 0; j < tails.size(); j++) {
+			final int symAlphIdx = input.getSymbolAlphIndex(tails.get(j));
+			if (bySym[symAlphIdx] == null) {
+				bySym[symAlphIdx] = new TIntArrayList();
+			}
+			bySym[symAlphIdx].add(tails.get(j));
+		}
 
 		Interval in;
-		TimedTail nt;
-		Multimap<Integer, TimedTail> mNextHist, mNextSym;
-		Collection<TimedTail> m;
+		int nt;
+		TIntList next, m;
 		for (int i = 0; i < a.getAlphSize(); i++) {
 			final Optional<NavigableMap<Integer, Interval>> ins = s.getIntervals(i);
 			if (ins.isPresent()) {
@@ -164,21 +229,21 @@ public class LikelihoodRatioTester implements OperationTester {
 				in = s.getIntervals(i).get().firstEntry().getValue();
 				if (in.getTails().size() > 0) {
 					assert (in.getTarget() != null);
-					mNextHist = HashMultimap.create();
-					mNextSym = HashMultimap.create();
-					m = mSym.get(new Integer(i));
-					for (final TimedTail tail : m) {
-						assert (in.containsTail(tail));
-						nt = tail.getNextTail();
-						if (nt != null) {
-							mNextHist.put(new Integer(nt.getHistBarIndex()), nt);
-							mNextSym.put(new Integer(nt.getSymbolAlphIndex()), nt);
+					next = new TIntArrayList();
+					m = bySym[i];
+					if (m != null) {
+						for (int j = 0; j < m.size(); j++) {
+							assert (in.containsTail(m.get(j)));
+							nt = input.getNextTail(m.get(j));
+							if (nt >= 0) {
+								next.add(nt);
+							}
 						}
 					}
 					// LRT_FIX : Operator for calculation interruption (thesis: AND, impl: OR, own: AND) => stop recursion
-					// In case of AND => if((in.getTails().size() < 2 * minData) before calculating new maps!
-					if (!SimplePDRTALearner.bOp[2].eval((in.getTails().size() - mNextHist.size()) < minData, mNextHist.size() < minData)) {
-						lv.add(recTestSplit(in.getTarget(), mNextHist, mNextSym, cr));
+					// In case of AND => if((in.getTails().size() < 2 * minData) before calculating new lists!
+					if (!SimplePDRTALearner.bOp[2].eval((in.getTails().size() - next.size()) < minData, next.size() < minData)) {
+						lv.add(recTestSplit(in.getTarget(), next, cr));
 					}
 				}
 			}
@@ -191,4 +256,9 @@ public class LikelihoodRatioTester implements OperationTester {
 		stateColoring = sc;
 	}
 
+	@Override
+	public void setTransactional(boolean transactional) {
+		this.transactional = transactional;
+	}
+
 }
@@ -12,12 +12,12 @@ package sadl.modellearner.rtiplus.tester;
 
 import java.util.Optional;
 
-import jsat.distributions.ChiSquared;
 import sadl.modellearner.rtiplus.OperationUtil;
 import sadl.modellearner.rtiplus.StateColoring;
 import sadl.models.pdrta.PDRTA;
 import sadl.models.pdrta.PDRTAState;
 import sadl.models.pdrta.StateStatistic;
+import sadl.models.pdrta.UndoLog;
 
 /**
  * 
@@ -27,26 +27,44 @@ import sadl.models.pdrta.StateStatistic;
 public class NaiveLikelihoodRatioTester implements OperationTester {
 
 	private StateColoring stateColoring;
+	private boolean transactional = true;
 
 	@Override
 	public double testSplit(PDRTAState red, int symAlphIdx, int time) {
+		return testSplit(red, symAlphIdx, time, stateColoring);
+	}
+
+	@Override
+	public double testSplit(PDRTAState red, int symAlphIdx, int time, StateColoring sc) {
 
 		final Optional<PDRTAState> t = red.getTarget(symAlphIdx, time);
 		if (!t.isPresent()) {
 			throw new IllegalArgumentException("Transition has no target state");
 		}
 
-		if (!stateColoring.isRed(red)) {
+		if (!sc.isRed(red)) {
 			throw new IllegalArgumentException("Source must be red!");
-		} else if (!stateColoring.isBlue(t.get())) {
+		} else if (!sc.isBlue(t.get())) {
 			throw new IllegalArgumentException("Target must be blue!");
 		}
 
 		final PDRTA a = red.getPDRTA();
 
+		if (transactional) {
+			final LikelihoodValue lvGeneral = calcLikelihood(a);
+			final StateColoring cColoring = new StateColoring(sc, a);
+			final UndoLog log = new UndoLog();
+			try {
+				OperationUtil.split(red, symAlphIdx, time, cColoring, log);
+				return makeTest(lvGeneral, calcLikelihood(a));
+			} finally {
+				log.rollback();
+			}
+		}
+
 		final PDRTA cA = new PDRTA(a);
 		final PDRTAState cRed = cA.getState(red.getIndex());
-		final StateColoring cColoring = new StateColoring(stateColoring, cA);
+		final StateColoring cColoring = new StateColoring(sc, cA);
 
 		OperationUtil.split(cRed, symAlphIdx, time, cColoring);
 
@@ -55,20 +73,37 @@ public class NaiveLikelihoodRatioTester implements OperationTester {
 
 	@Override
 	public double testMerge(PDRTAState red, PDRTAState blue) {
+		return testMerge(red, blue, stateColoring);
+	}
 
-		if (!stateColoring.isRed(red)) {
+	@Override
+	public double testMerge(PDRTAState red, PDRTAState blue, StateColoring sc) {
+
+		if (!sc.isRed(red)) {
 			throw new IllegalArgumentException("First state must be red!");
-		} else if (!stateColoring.isBlue(blue)) {
+		} else if (!sc.isBlue(blue)) {
 			throw new IllegalArgumentException("Second state must be blue!");
 		}
 
 		final PDRTA a = red.getPDRTA();
 		assert (a == blue.getPDRTA());
 
+		if (transactional) {
+			final LikelihoodValue lvSpecific = calcLikelihood(a);
+			final StateColoring cColoring = new StateColoring(sc, a);
+			final UndoLog log = new UndoLog();
+			try {
+				OperationUtil.merge(red, blue, cColoring, false, false, null, log);
+				return makeTest(calcLikelihood(a), lvSpecific);
+			} finally {
+				log.rollback();
+			}
+		}
+
 		final PDRTA cA = new PDRTA(a);
 		final PDRTAState cRed = cA.getState(red.getIndex());
 		final PDRTAState cBlue = cA.getState(blue.getIndex());
-		final StateColoring cColoring = new StateColoring(stateColoring, cA);
+		final StateColoring cColoring = new StateColoring(sc, cA);
 
 		OperationUtil.merge(cRed, cBlue, cColoring, false, false, null);
 
@@ -80,6 +115,11 @@ public class NaiveLikelihoodRatioTester implements OperationTester {
 		stateColoring = sc;
 	}
 
+	@Override
+	public void setTransactional(boolean transactional) {
+		this.transactional = transactional;
+	}
+
 	public static LikelihoodValue calcLikelihood(PDRTA a) {
 
 		final LikelihoodValue lv = new LikelihoodValue();
@@ -96,8 +136,7 @@ public class NaiveLikelihoodRatioTester implements OperationTester {
 		final int dof = lvSpecific.getParam() - lvGeneral.getParam();
 
 		if (dof > 0) {
-			final ChiSquared c = new ChiSquared(dof);
-			return 1.0 - c.cdf(-2.0 * ratio);
+			return 1.0 - LikelihoodRatioTester.getChiSquared(dof).cdf(-2.0 * ratio);
 		} else {
 			return -1.0;
 		}
@@ -26,4 +26,44 @@ public interface OperationTester {
 
 	double testMerge(PDRTAState red, PDRTAState blue);
 
+	/**
+	 * Tests a split like {@link #testSplit(PDRTAState, int, int)} with the given coloring instead of the one set with
+	 * {@link #setColoring(StateColoring)}. This is needed for testing operations on copies of the automaton that were refined independently.
+	 * 
+	 * @param red
+	 *            The red state
+	 * @param symAlphIdx
+	 *            The symbol of the transition to split
+	 * @param time
+	 *            The time delay to split the transition at
+	 * @param sc
+	 *            The coloring of the automaton that contains the red state
+	 * @return The p-value of the split
+	 */
+	double testSplit(PDRTAState red, int symAlphIdx, int time, StateColoring sc);
+
+	/**
+	 * Tests a merge like {@link #testMerge(PDRTAState, PDRTAState)} with the given coloring instead of the one set with
+	 * {@link #setColoring(StateColoring)}.
+	 * 
+	 * @param red
+	 *            The red state
+	 * @param blue
+	 *            The blue state
+	 * @param sc
+	 *            The coloring of the automaton that contains both states
+	 * @return The p-value of the merge
+	 */
+	double testMerge(PDRTAState red, PDRTAState blue, StateColoring sc);
+
+	/**
+	 * Sets whether the tester may apply the tested operation to the automaton itself and roll it back afterwards instead of applying it to a copy. This must
+	 * be disabled if operations are tested in parallel on the same automaton.
+	 * 
+	 * @param transactional
+	 *            {@code true} for testing on the automaton itself, {@code false} for testing on a copy
+	 */
+	default void setTransactional(boolean transactional) {
+	}
+
 }
@@ -0,0 +1,490 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.util.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import jsat.distributions.ContinuousDistribution;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.interfaces.TauEstimator;
+import sadl.structure.Transition;
+import sadl.utils.Settings;
+
+/**
+ * Flat, array-backed representation of an immutable {@link PDFA} that is used for scoring. States are renumbered densely (the start state is always 0),
+ * symbols are mapped to int ids (the ids of the {@link TimedInput} alphabet if there is one) and transitions are stored state by state with their symbol ids
+ * sorted, so that a (state, symbol) lookup is a binary search over the few outgoing transitions of the state.
+ */
+final class CompiledPDFA {
+
+	private static Logger logger = LoggerFactory.getLogger(CompiledPDFA.class);
+
+	/**
+	 * Reusable arrays for the batched time likelihoods of each thread
+	 */
+	private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	private static class Scratch {
+
+		ContinuousDistribution[] ds = new ContinuousDistribution[0];
+		double[][] tables = new double[0][];
+		double[] timeValues = new double[0];
+		double[] taus = new double[0];
+
+		void ensure(int length) {
+
+			if (ds.length < length) {
+				ds = new ContinuousDistribution[length];
+				tables = new double[length][];
+				timeValues = new double[length];
+				taus = new double[length];
+			}
+		}
+	}
+
+	static final int NO_TRANSITION = -1;
+
+	private final TimedInput alphabet;
+	private final TObjectIntMap<String> symbolIds;
+	private final String[] symbols;
+	private final TIntIntMap stateIds;
+	private final int[] stateNames;
+
+	// transitions of state s are stored in [transitionOffsets[s], transitionOffsets[s+1])
+	private final int[] transitionOffsets;
+	private final int[] transitionSymbols;
+	private final int[] nextState;
+	private final double[] prob;
+	private final ContinuousDistribution[] timeDistributions;
+	// lookup tables of the tau estimator, stored with the time distributions
+	private final TauEstimator tauEstimator;
+	private final double[][] tauTables;
+	private final Transition[] transitions;
+	private final double[] finalProb;
+
+	/**
+	 * Compiles the given automaton.
+	 *
+	 * @param pdfa
+	 *            the automaton to compile
+	 * @param timeDistributions
+	 *            the function that returns the time distribution for a transition or {@code null} if the automaton is untimed
+	 */
+	CompiledPDFA(PDFA pdfa, Function<Transition, ContinuousDistribution> timeDistributions) {
+		this(pdfa, timeDistributions, null);
+	}
+
+	/**
+	 * Compiles the given timed automaton and precomputes the tables of the given {@link TauEstimator} for all time distributions.
+	 *
+	 * @param pdfa
+	 *            the automaton to compile
+	 * @param timeDistributions
+	 *            the function that returns the time distribution for a transition or {@code null} if the automaton is untimed
+	 * @param tauEstimator
+	 *            the estimator used for the time likelihoods or {@code null} if the automaton is untimed
+	 */
+	CompiledPDFA(PDFA pdfa, Function<Transition, ContinuousDistribution> timeDistributions, TauEstimator tauEstimator) {
+		symbolIds = new TObjectIntHashMap<>(11, 0.5f, NO_TRANSITION);
+		alphabet = pdfa.getAlphabet();
+		if (alphabet != null) {
+			for (int i = 0; i < alphabet.getAlphSize(); i++) {
+				symbolIds.put(alphabet.getSymbol(i), i);
+			}
+		}
+		int[] states = pdfa.getStates();
+		Arrays.sort(states);
+		if (Arrays.binarySearch(states, PDFA.START_STATE) < 0) {
+			states = Arrays.copyOf(states, states.length + 1);
+			states[states.length - 1] = PDFA.START_STATE;
+		}
+		stateIds = new TIntIntHashMap(states.length * 2, 0.5f, -1, NO_TRANSITION);
+		stateNames = new int[states.length];
+		// the start state always gets id 0
+		int stateCount = 0;
+		stateIds.put(PDFA.START_STATE, stateCount);
+		stateNames[stateCount++] = PDFA.START_STATE;
+		for (final int state : states) {
+			if (state != PDFA.START_STATE) {
+				stateIds.put(state, stateCount);
+				stateNames[stateCount++] = state;
+			}
+		}
+
+		finalProb = new double[states.length];
+		transitionOffsets = new int[states.length + 1];
+		final TIntObjectMap<Transition>[] stateTransitions = newStateTransitions(states.length);
+		int transitionCount = 0;
+		for (int s = 0; s < stateNames.length; s++) {
+			finalProb[s] = pdfa.getFinalStateProbability(stateNames[s]);
+			final TIntObjectMap<Transition> bySymbol = new TIntObjectHashMap<>();
+			final List<Transition> out = pdfa.getOutTransitions(stateNames[s], false);
+			for (final Transition t : out) {
+				if (!stateIds.containsKey(t.getToState())) {
+					logger.warn("Transition {} leads to a state that is not part of the automaton and will be ignored", t);
+					continue;
+				}
+				int symbolId = symbolIds.get(t.getSymbol());
+				if (symbolId == NO_TRANSITION) {
+					symbolId = symbolIds.size();
+					symbolIds.put(t.getSymbol(), symbolId);
+				}
+				if (!bySymbol.containsKey(symbolId)) {
+					// use the same transition as PDFA.getTransition does if the automaton is not deterministic
+					bySymbol.put(symbolId, pdfa.getTransition(stateNames[s], t.getSymbol()));
+				}
+			}
+			stateTransitions[s] = bySymbol;
+			transitionCount += bySymbol.size();
+		}
+
+		symbols = new String[symbolIds.size()];
+		symbolIds.forEachEntry((symbol, id) -> {
+			symbols[id] = symbol;
+			return true;
+		});
+		transitionSymbols = new int[transitionCount];
+		nextState = new int[transitionCount];
+		prob = new double[transitionCount];
+		transitions = new Transition[transitionCount];
+		this.timeDistributions = timeDistributions == null ? null : new ContinuousDistribution[transitionCount];
+		this.tauEstimator = tauEstimator;
+		tauTables = timeDistributions == null ? null : new double[transitionCount][];
+		int id = 0;
+		for (int s = 0; s < stateNames.length; s++) {
+			transitionOffsets[s] = id;
+			final int[] stateSymbols = stateTransitions[s].keys();
+			Arrays.sort(stateSymbols);
+			for (final int symbolId : stateSymbols) {
+				final Transition t = stateTransitions[s].get(symbolId);
+				transitionSymbols[id] = symbolId;
+				nextState[id] = stateIds.get(t.getToState());
+				prob[id] = t.getProbability();
+				transitions[id] = t;
+				if (timeDistributions != null) {
+					final ContinuousDistribution d = timeDistributions.apply(t);
+					this.timeDistributions[id] = d;
+					if (d != null && tauEstimator != null) {
+						tauTables[id] = tauEstimator.createTable(d);
+					}
+				}
+				id++;
+			}
+		}
+		transitionOffsets[stateNames.length] = id;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static TIntObjectMap<Transition>[] newStateTransitions(int size) {
+		return new TIntObjectMap[size];
+	}
+
+	/**
+	 * @return the id of the given symbol or {@link #NO_TRANSITION} if no transition of the automaton is labeled with it
+	 */
+	int getSymbolId(String symbol) {
+		return symbolIds.get(symbol);
+	}
+
+	String getSymbol(int symbolId) {
+		return symbols[symbolId];
+	}
+
+	/**
+	 * @return the id of the symbol at the given index of the word; uses the symbol ids of the word if it was parsed with the alphabet of the automaton
+	 */
+	int getSymbolId(TimedWord w, int i) {
+		if (alphabet != null && w.isEncodedWith(alphabet)) {
+			return w.getSymbolId(i);
+		}
+		return symbolIds.get(w.getSymbol(i));
+	}
+
+	int getSymbolCount() {
+		return symbols.length;
+	}
+
+	int getStartState() {
+		return 0;
+	}
+
+	int getStateCount() {
+		return stateNames.length;
+	}
+
+	/**
+	 * @return the (dense) id of the given state of the original automaton or {@link #NO_TRANSITION}
+	 */
+	int getStateId(int state) {
+		return stateIds.get(state);
+	}
+
+	/**
+	 * @return the state of the original automaton for the given dense id
+	 */
+	int getStateName(int stateId) {
+		return stateNames[stateId];
+	}
+
+	int getTransitionCount() {
+		return nextState.length;
+	}
+
+	/**
+	 * Returns the transition id for the given state and symbol id.
+	 *
+	 * @return the transition id or {@link #NO_TRANSITION} if there is none
+	 */
+	int getTransition(int state, int symbolId) {
+		if (symbolId < 0) {
+			return NO_TRANSITION;
+		}
+		int low = transitionOffsets[state];
+		int high = transitionOffsets[state + 1] - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int midSymbol = transitionSymbols[mid];
+			if (midSymbol < symbolId) {
+				low = mid + 1;
+			} else if (midSymbol > symbolId) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return NO_TRANSITION;
+	}
+
+	int getOutTransitionsStart(int state) {
+		return transitionOffsets[state];
+	}
+
+	int getOutTransitionsEnd(int state) {
+		return transitionOffsets[state + 1];
+	}
+
+	int getTransitionSymbol(int transition) {
+		return transitionSymbols[transition];
+	}
+
+	int getNextState(int transition) {
+		return nextState[transition];
+	}
+
+	double getProbability(int transition) {
+		return prob[transition];
+	}
+
+	/**
+	 * @return the original transition object for the given id; only meant for logging and interoperability
+	 */
+	Transition toTransition(int transition) {
+		return transitions[transition];
+	}
+
+	ContinuousDistribution getTimeDistribution(int transition) {
+		return timeDistributions == null ? null : timeDistributions[transition];
+	}
+
+	double getFinalProbability(int state) {
+		return finalProb[state];
+	}
+
+	/**
+	 * Follows the word through the automaton and writes the traversed transitions into the given array.
+	 *
+	 * @return the number of traversed transitions; smaller than the length of the word iff the next event has no transition
+	 */
+	int traverse(TimedWord s, int[] traversedTransitions) {
+		int currentState = getStartState();
+		for (int i = 0; i < s.length(); i++) {
+			final int t = getTransition(currentState, getSymbolId(s, i));
+			if (t == NO_TRANSITION) {
+				return i;
+			}
+			traversedTransitions[i] = t;
+			currentState = nextState[t];
+		}
+		return s.length();
+	}
+
+	/**
+	 * Same as {@link PDFA#computeEventLikelihoods(TimedWord)} but on the compiled automaton.
+	 */
+	TDoubleList computeEventLikelihoods(TimedWord s) {
+		final int[] traversedTransitions = new int[s.length()];
+		return computeEventLikelihoods(s, traversedTransitions, traverse(s, traversedTransitions));
+	}
+
+	private TDoubleList computeEventLikelihoods(TimedWord s, int[] traversedTransitions, int traversedCount) {
+		final double[] result = new double[traversedCount + 1];
+		for (int i = 0; i < traversedCount; i++) {
+			result[i] = prob[traversedTransitions[i]];
+		}
+		if (traversedCount < s.length()) {
+			result[traversedCount] = 0;
+		} else {
+			result[traversedCount] = finalProb[traversedCount == 0 ? getStartState() : nextState[traversedTransitions[traversedCount - 1]]];
+		}
+		return new TDoubleArrayList(result);
+	}
+
+	/**
+	 * Same as {@link PDTTA#calculateProbabilities(TimedWord)} but on the compiled automaton, which is traversed only once for both likelihoods.
+	 */
+	Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord ts) {
+		final int[] traversedTransitions = new int[ts.length()];
+		final int traversedCount = traverse(ts, traversedTransitions);
+		// the event likelihoods first, because the time likelihoods reuse the array
+		final TDoubleList eventLikelihoods = computeEventLikelihoods(ts, traversedTransitions, traversedCount);
+		return Pair.create(eventLikelihoods, computeTimeLikelihoods(ts, traversedTransitions, traversedCount));
+	}
+
+	/**
+	 * Computes the sum of the logs of the event likelihoods of the word, i.e. the same as
+	 * {@link sadl.detectors.AnomalyDetector#aggregate(TDoubleList, sadl.constants.ProbabilityAggregationMethod)} with
+	 * {@link sadl.constants.ProbabilityAggregationMethod#MULTIPLY} for {@link #computeEventLikelihoods(TimedWord)}. With a prefix cache only the suffix after
+	 * the cached prefix is traversed and its prefixes are added to the cache.
+	 *
+	 * @param cache
+	 *            the prefix cache to resume from or {@code null}
+	 */
+	double computeEventLogLikelihood(TimedWord s, PrefixCache cache) {
+		if (cache == null) {
+			double result = 0;
+			int currentState = getStartState();
+			for (int i = 0; i < s.length(); i++) {
+				final int t = getTransition(currentState, getSymbolId(s, i));
+				if (t == NO_TRANSITION) {
+					return result + Math.log(0);
+				}
+				result += Math.log(prob[t]);
+				currentState = nextState[t];
+			}
+			return result + Math.log(finalProb[currentState]);
+		}
+		final int[] symbolIds = new int[s.length()];
+		final long[] prefixHashes = new long[s.length()];
+		long prefixHash = 0;
+		for (int i = 0; i < s.length(); i++) {
+			symbolIds[i] = getSymbolId(s, i);
+			prefixHash = PrefixCache.hash(prefixHash, symbolIds[i]);
+			prefixHashes[i] = prefixHash;
+		}
+		final PrefixCache.Entry entry = new PrefixCache.Entry();
+		entry.state = getStartState();
+		entry.logLikelihood = 0;
+		final int cached = cache.find(prefixHashes, s.length(), entry);
+		double result = entry.logLikelihood;
+		int currentState = entry.state;
+		for (int i = cached; i < s.length(); i++) {
+			final int t = getTransition(currentState, symbolIds[i]);
+			if (t == NO_TRANSITION) {
+				return result + Math.log(0);
+			}
+			result += Math.log(prob[t]);
+			currentState = nextState[t];
+			cache.put(prefixHashes[i], i + 1, currentState, result);
+		}
+		return result + Math.log(finalProb[currentState]);
+	}
+
+	/**
+	 * Same as {@link PDTTA#computeTimeLikelihoods(TimedWord)} but on the compiled automaton.
+	 */
+	TDoubleList computeTimeLikelihoods(TimedWord ts) {
+		final int[] traversedTransitions = new int[ts.length()];
+		return computeTimeLikelihoods(ts, traversedTransitions, traverse(ts, traversedTransitions));
+	}
+
+	/**
+	 * Computes the time likelihoods of the traversed transitions; overwrites the array of the traversed transitions.
+	 */
+	private TDoubleList computeTimeLikelihoods(TimedWord ts, int[] traversedTransitions, int traversedCount) {
+		if (Settings.isParallel()) {
+			final double[] result = new double[traversedCount];
+			final IntConsumer f = i -> result[i] = computeTimeLikelihood(traversedTransitions[i], ts.getTimeValue(i));
+			IntStream.range(0, traversedCount).parallel().forEach(f);
+			return new TDoubleArrayList(result);
+		}
+		// look up all time values of the word in one batch
+		final Scratch s = scratch.get();
+		s.ensure(traversedCount);
+		int count = 0;
+		for (int i = 0; i < traversedCount; i++) {
+			final int t = traversedTransitions[i];
+			final ContinuousDistribution d = getTimeDistribution(t);
+			if (d == null) {
+				logger.warn("Found no time distribution for Transition " + transitions[t]);
+			} else {
+				// positions without distribution are left out; traversedTransitions is reused to map the entries back to their positions
+				traversedTransitions[count] = i;
+				s.ds[count] = d;
+				s.tables[count] = tauTables[t];
+				s.timeValues[count] = ts.getTimeValue(i);
+				count++;
+			}
+		}
+		tauEstimator.estimateTau(s.ds, s.tables, s.timeValues, s.taus, count);
+		// do not keep the distributions of this automaton reachable from the thread
+		Arrays.fill(s.ds, 0, count, null);
+		Arrays.fill(s.tables, 0, count, null);
+		final TDoubleArrayList result = new TDoubleArrayList(traversedCount);
+		result.fill(0, traversedCount, 0);
+		for (int j = 0; j < count; j++) {
+			result.set(traversedTransitions[j], checkTimeLikelihood(s.taus[j]));
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the time likelihood of a single time value for the given transition.
+	 *
+	 * @return the time likelihood or 0 if the transition has no time distribution
+	 */
+	double computeTimeLikelihood(int transition, double timeValue) {
+		final ContinuousDistribution d = getTimeDistribution(transition);
+		if (d == null) {
+			logger.warn("Found no time distribution for Transition " + transitions[transition]);
+			return 0;
+		}
+		return checkTimeLikelihood(tauEstimator.estimateTau(d, tauTables[transition], timeValue));
+	}
+
+	boolean isTimed() {
+		return timeDistributions != null;
+	}
+
+	private static double checkTimeLikelihood(double timeLikelihood) {
+		if (timeLikelihood < 0) {
+			throw new IllegalStateException("Time likelihood must not be negative");
+		}
+		return timeLikelihood;
+	}
+
+}
@@ -0,0 +1,51 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models;
+
+import sadl.detectors.SequenceScorer;
+
+/**
+ * {@link SequenceScorer} that traverses a {@link CompiledPDFA}. Computes the same likelihoods as {@link PDFA#calculateProbabilities(sadl.input.TimedWord)}
+ * and, for timed automata, {@link PDTTA#calculateProbabilities(sadl.input.TimedWord)}.
+ */
+final class CompiledPDFAScorer extends SequenceScorer {
+
+	private final CompiledPDFA compiled;
+	private final boolean timed;
+	private int currentState;
+
+	CompiledPDFAScorer(CompiledPDFA compiled) {
+		this.compiled = compiled;
+		this.timed = compiled.isTimed();
+		this.currentState = compiled.getStartState();
+	}
+
+	@Override
+	protected void step(String symbol, int timeDelay) {
+		final int t = compiled.getTransition(currentState, compiled.getSymbolId(symbol));
+		if (t == CompiledPDFA.NO_TRANSITION) {
+			addEventLikelihood(0);
+			stop();
+			return;
+		}
+		addEventLikelihood(compiled.getProbability(t));
+		if (timed) {
+			addTimeLikelihood(compiled.computeTimeLikelihood(t, timeDelay));
+		}
+		currentState = compiled.getNextState(t);
+	}
+
+	@Override
+	protected void end() {
+		addEventLikelihood(compiled.getFinalProbability(currentState));
+	}
+
+}
@@ -24,9 +24,11 @@ import org.slf4j.LoggerFactory;
 
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
@@ -42,11 +44,25 @@ public class FTA {
 	TIntIntMap finalStateCount = new TIntIntHashMap(11, 0.75f, -1, -1);
 	private final TimedInput input;
 	private final Set<ZeroProbTransition> transitions = new LinkedHashSet<>();
+	// the lists of the index keep the order of the transitions set
+	private final TransitionIndex<ZeroProbTransition> transitionIndex = new TransitionIndex<>();
+	// sorted symbols of the input
+	private final String[] symbols;
+	// ids of the symbols for the per (state, symbol) counts; the same as the alphabet indices of the input
+	private final TObjectIntMap<String> symbolIds = new TObjectIntHashMap<>(11, 0.5f, -1);
+	// sum of the transition counts of all outgoing transitions per state
+	private final TIntIntMap outCount = new TIntIntHashMap();
+	// sum of the transition counts of all outgoing transitions per (state, symbol)
+	private final TLongIntMap symbolCount = new TLongIntHashMap();
 	private final Logger logger = LoggerFactory.getLogger(FTA.class);
 	int nextStateIndex = PDFA.START_STATE + 1;
 	TIntStack determinizeStack = new TIntArrayStack();
 	public FTA(TimedInput input) {
 		this.input = input;
+		this.symbols = input.getSymbols();
+		for (int i = 0; i < input.getAlphSize(); i++) {
+			symbolIds.put(input.getSymbol(i), i);
+		}
 		finalStateCount.put(PDFA.START_STATE, 0);
 		for (final TimedWord word : input) {
 			this.add(word);
@@ -58,13 +74,12 @@ public class FTA {
 		if (event.equals(Transition.STOP_TRAVERSING_SYMBOL)) {
 			result = getFinalTransition(currentState);
 		} else {
-			for (final Transition t : transitions) {
-				if (t.getFromState() == currentState && t.getSymbol().equals(event)) {
-					if (result != null) {
-						logger.error("Found more than one transition for state " + currentState + " and event " + event);
-					}
-					result = t;
-				}
+			final List<ZeroProbTransition> candidates = transitionIndex.get(currentState, event);
+			if (candidates.size() > 1) {
+				logger.error("Found more than one transition for state " + currentState + " and event " + event);
+			}
+			if (!candidates.isEmpty()) {
+				result = candidates.get(candidates.size() - 1);
 			}
 		}
 		return result;
@@ -80,7 +95,7 @@ public class FTA {
 				t = addTransition(currentState, nextStateIndex, symbol, 0);
 				nextStateIndex++;
 			}
-			transitionCount.adjustOrPutValue(t.toZeroProbTransition(), 1, 1);
+			adjustTransitionCount(t, 1);
 			currentState = t.getToState();
 		}
 		if (!finalStateCount.adjustValue(currentState, 1)) {
@@ -90,7 +105,7 @@ public class FTA {
 
 	public Transition addTransition(int fromState, int toState, String symbol, double probability) {
 		final Transition t = new Transition(fromState, toState, symbol, probability);
-		transitions.add(t.toZeroProbTransition());
+		addTransition(t);
 		return t;
 	}
 
@@ -141,7 +156,7 @@ public class FTA {
 			// if (outTransitionsJ.contains(t)) {
 			// outTransitionsJ.remove(t);
 			// }
-			final int jCount = transitionCount.remove(t.toZeroProbTransition());
+			final int jCount = removeTransitionCount(t);
 			final Transition newTrans;
 			if (t.getFromState() == j && t.getToState() == j) {
 				// transition goes from j into j
@@ -155,17 +170,17 @@ public class FTA {
 				newTrans = new Transition(t.getFromState(), i, t.getSymbol(), 0);
 			}
 			addTransition(newTrans);
-			transitionCount.adjustOrPutValue(newTrans.toZeroProbTransition(), jCount, jCount);
+			adjustTransitionCount(newTrans, jCount);
 		}
 		// outputs from j will be outputs from i
 		for (final Transition t : outTransitionsJ) {
 			if (t.getToState() != j) {
 				removeTransition(t);
 			}
-			final int jCount = transitionCount.remove(t.toZeroProbTransition());
+			final int jCount = removeTransitionCount(t);
 			final Transition newTrans = new Transition(i, t.getToState(), t.getSymbol(), 0);
 			addTransition(newTrans);
-			transitionCount.adjustOrPutValue(newTrans.toZeroProbTransition(), jCount, jCount);
+			adjustTransitionCount(newTrans, jCount);
 		}
 
 		final int stopCount = finalStateCount.remove(j);
@@ -177,18 +192,43 @@ public class FTA {
 		determinizeStack.push(i);
 	}
 
-	private void addTransition(Transition newTrans) {
-		transitions.add(newTrans.toZeroProbTransition());
+	private void adjustTransitionCount(Transition t, int delta) {
+		transitionCount.adjustOrPutValue(t.toZeroProbTransition(), delta, delta);
+		outCount.adjustOrPutValue(t.getFromState(), delta, delta);
+		symbolCount.adjustOrPutValue(symbolKey(t.getFromState(), getSymbolId(t.getSymbol())), delta, delta);
+	}
+
+	private int removeTransitionCount(Transition t) {
+		final int count = transitionCount.remove(t.toZeroProbTransition());
+		outCount.adjustValue(t.getFromState(), -count);
+		symbolCount.adjustValue(symbolKey(t.getFromState(), getSymbolId(t.getSymbol())), -count);
+		return count;
+	}
+
+	private int getSymbolId(String symbol) {
+		int id = symbolIds.get(symbol);
+		if (id < 0) {
+			id = symbolIds.size();
+			symbolIds.put(symbol, id);
+		}
+		return id;
+	}
 
+	private static long symbolKey(int state, int symbolId) {
+		return ((long) state << 32) | (symbolId & 0xFFFFFFFFL);
+	}
+
+	private void addTransition(Transition newTrans) {
+		final ZeroProbTransition t = newTrans.toZeroProbTransition();
+		if (transitions.add(t)) {
+			transitionIndex.add(t);
+		}
 	}
 
 	private void removeState(int j) {
 		// also remove all transitions from and to state j (at this point there should be no more such transitions)
-		for (final String symbol : getAlphabet().getSymbols()) {
-			final List<Transition> transList = getTransitions(j, symbol);
-			if (!transList.isEmpty()) {
-				logger.error("Transition list not empty for state {} and symbol {}", j, symbol);
-			}
+		for (final Transition t : transitionIndex.getOut(j)) {
+			logger.error("Transition list not empty for state {} and symbol {}", j, t.getSymbol());
 		}
 	}
 
@@ -196,6 +236,8 @@ public class FTA {
 		final boolean wasRemoved = transitions.remove(t);
 		if (!wasRemoved) {
 			logger.warn("Tried to remove a non existing transition={}", t);
+		} else {
+			transitionIndex.remove(t);
 		}
 		return wasRemoved;
 	}
@@ -206,7 +248,7 @@ public class FTA {
 			final int state = determinizeStack.pop();
 			if (containsState(state)) {
 				logger.trace("Determinizing state {}.", state);
-				for (final String event : getAlphabet().getSymbols()) {
+				for (final String event : symbols) {
 					final List<Transition> nonDetTransitions = getTransitions(state, event);
 					Collections.sort(nonDetTransitions);
 					if (nonDetTransitions.size() >= 2) {
@@ -239,23 +281,10 @@ public class FTA {
 	 * @return the outgoing transitions
 	 */
 	public Pair<List<Transition>, List<Transition>> getInOutTransitions(int currentState, boolean includeStoppingTransition) {
-		final List<Transition> outTransitions = new ArrayList<>();
-		final List<Transition> inTransitions = new ArrayList<>();
-
-		for (final Transition t : transitions) {
-			if (t.getFromState() == currentState) {
-				outTransitions.add(t);
-			}
-			if (t.getToState() == currentState) {
-				inTransitions.add(t);
-			}
-		}
-		if (includeStoppingTransition) {
-			for (final int state : finalStateCount.keys()) {
-				if (state == currentState) {
-					outTransitions.add(getFinalTransition(state));
-				}
-			}
+		final List<Transition> outTransitions = new ArrayList<>(transitionIndex.getOut(currentState));
+		final List<Transition> inTransitions = new ArrayList<>(transitionIndex.getIn(currentState));
+		if (includeStoppingTransition && finalStateCount.containsKey(currentState)) {
+			outTransitions.add(getFinalTransition(currentState));
 		}
 		return Pair.create(inTransitions, outTransitions);
 	}
@@ -269,11 +298,7 @@ public class FTA {
 		if (event.equals(Transition.STOP_TRAVERSING_SYMBOL)) {
 			result.add(getFinalTransition(state));
 		} else {
-			for (final Transition t : transitions) {
-				if (t.getFromState() == state && t.getSymbol().equals(event)) {
-					result.add(t);
-				}
-			}
+			result.addAll(transitionIndex.get(state, event));
 		}
 		return result;
 	}
@@ -319,7 +344,7 @@ public class FTA {
 			final int currentState = stateStack.pop();
 			logger.trace("Processing state {}.", currentState);
 			reachableStates.add(currentState);
-			for (final String event : getAlphabet().getSymbols()) {
+			for (final String event : symbols) {
 				final Transition t = getTransition(currentState, event);
 				if (t != null && getTransitionCount(t) > 0 && t.getToState() != currentState && !reachableStates.contains(t.getToState())) {
 					stateStack.push(t.getToState());
@@ -370,6 +395,30 @@ public class FTA {
 		return finalStateCount.get(qu);
 	}
 
+	/**
+	 * Returns how often the given state was visited, i.e., the sum of the counts of its outgoing transitions and its final state count.
+	 * 
+	 * @param state
+	 *            the state
+	 * @return the frequency of the state
+	 */
+	public int getStateFrequency(int state) {
+		return outCount.get(state) + finalStateCount.get(state);
+	}
+
+	/**
+	 * Returns the sum of the counts of the transitions that leave the given state with the given symbol.
+	 * 
+	 * @param state
+	 *            the state
+	 * @param symbolIndex
+	 *            the index of the symbol in the alphabet (see {@link #getAlphabet()})
+	 * @return the frequency of the symbol in the state
+	 */
+	public int getSymbolFrequency(int state, int symbolIndex) {
+		return symbolCount.get(symbolKey(state, symbolIndex));
+	}
+
 	public TObjectIntMap<Transition> getTransitionCount() {
 		return transitionCount;
 	}
@@ -391,7 +440,7 @@ public class FTA {
 
 	public void checkDeterminism(){
 		for(final int state : finalStateCount.keys()){
-			for(final String event : getAlphabet().getSymbols()){
+			for(final String event : symbols){
 				if(getTransitions(state, event).size()>1){
 					throw new IllegalStateException("PTA is not deterministic because more than one transition was found for state=" + state + " and event="
 							+ event + " (" + getTransitions(state, event) + ")");
@@ -20,6 +20,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -37,14 +38,19 @@ import gnu.trove.list.TDoubleList;
 import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import gnu.trove.stack.TIntStack;
 import gnu.trove.stack.array.TIntArrayStack;
 import sadl.constants.AnomalyInsertionType;
 import sadl.constants.ClassLabel;
+import sadl.constants.ProbabilityAggregationMethod;
+import sadl.detectors.AnomalyDetector;
+import sadl.detectors.SequenceScorer;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
 import sadl.interfaces.AutomatonModel;
@@ -67,13 +73,24 @@ public class PDFA implements AutomatonModel, Serializable {
 	public static final int START_STATE = 0;
 
 	transient private static Logger logger = LoggerFactory.getLogger(PDFA.class);
-	// TODO maybe change Set<Transition> transitions to Map<State,Set<Transition>>
 	protected Random r = MasterSeed.nextRandom();
 
 	public static final double NO_TRANSITION_PROBABILITY = 0;
 
 	protected TimedInput alphabet;
 	protected Set<Transition> transitions = new HashSet<>();
+	/**
+	 * Index over {@link #transitions} for (state, symbol) lookups. It is not serialized and rebuilt on demand.
+	 */
+	private transient volatile TransitionIndex<Transition> transitionIndex;
+	/**
+	 * Array-backed form of this automaton that is used for scoring once it is immutable. It is not serialized and compiled on demand.
+	 */
+	private transient volatile CompiledPDFA compiled;
+	/**
+	 * Optional cache of the traversals of word prefixes, only used once the automaton is immutable. It is not serialized.
+	 */
+	private transient volatile PrefixCache prefixCache;
 	protected TIntDoubleMap finalStateProbabilities = new TIntDoubleHashMap(11, 0.5f, -1, -1d);
 	protected TIntSet abnormalFinalStates = new TIntHashSet();
 	protected TIntIntMap stateOcurrenceCount = new TIntIntHashMap(11, 0.5f, -1, -1);
@@ -82,10 +99,65 @@ public class PDFA implements AutomatonModel, Serializable {
 
 	protected void makeMutable() {
 		immutable = false;
+		compiled = null;
+		clearPrefixCache();
 	}
 
+	/**
+	 * Marks this automaton as immutable and compiles it into a flat representation that is used by {@link #calculateProbabilities(TimedWord)}.
+	 */
 	public void makeImmutable() {
 		immutable = true;
+		compiled = compile();
+		clearPrefixCache();
+	}
+
+	/**
+	 * Enables a bounded cache of the event log-likelihoods of the untimed prefixes of scored words, so that {@link #computeEventLogLikelihood(TimedWord)}
+	 * only traverses the part of a word after a cached prefix. The cache is only used once the automaton is immutable; the event and time likelihood lists
+	 * are always computed without it.
+	 * 
+	 * @param maximumSize
+	 *            the maximum number of cached prefixes; 0 disables the cache
+	 */
+	public void setPrefixCacheSize(int maximumSize) {
+		prefixCache = maximumSize > 0 ? new PrefixCache(maximumSize) : null;
+	}
+
+	/**
+	 * @return the prefix cache with its hit and miss counters or {@code null} if it is disabled
+	 */
+	public PrefixCache getPrefixCache() {
+		return prefixCache;
+	}
+
+	private void clearPrefixCache() {
+		final PrefixCache cache = prefixCache;
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the compiled form of this automaton.
+	 * 
+	 * @return the compiled automaton or {@code null} if this automaton is still mutable
+	 */
+	CompiledPDFA getCompiled() {
+		if (!immutable) {
+			return null;
+		}
+		CompiledPDFA result = compiled;
+		if (result == null) {
+			// e.g. after deserialization
+			result = compile();
+			compiled = result;
+		}
+		return result;
+	}
+
+	CompiledPDFA compile() {
+		return new CompiledPDFA(this, null);
 	}
 
 	public boolean isImmutable() {
@@ -109,37 +181,77 @@ public class PDFA implements AutomatonModel, Serializable {
 	}
 
 	protected boolean isConsistent() {
-		final boolean probabilities = finalStateProbabilities.keySet().forEach(state -> checkProbability(state));
+		final TIntObjectMap<List<Transition>> outgoingTransitions = groupOutTransitionsInSetOrder();
+		final boolean probabilities = finalStateProbabilities.keySet().forEach(state -> checkProbability(state, outgoingTransitions.get(state)));
 		return probabilities;
 	}
 
 	protected boolean checkProbability(int state) {
-		final List<Transition> outgoingTransitions = getOutTransitions(state, true);
-		final double sum = outgoingTransitions.stream().mapToDouble(t -> t.getProbability()).sum();
+		return checkProbability(state, getOutTransitionsInSetOrder(state, false));
+	}
+
+	private boolean checkProbability(int state, List<Transition> outgoingTransitions) {
+		final double sum = probabilitySum(state, outgoingTransitions);
 		final boolean compareResult = Precision.equals(sum, 1);
 		logger.trace("Probability sum for state {}: {} (== 1? {})", state, sum, compareResult);
 		return compareResult;
 	}
 
 	protected boolean fixProbabilities() {
-		final boolean fixedProbs = finalStateProbabilities.keySet().forEach(state -> fixProbability(state));
+		final TIntObjectMap<List<Transition>> outgoingTransitions = groupOutTransitionsInSetOrder();
+		// fixProbability only changes the transitions of the given state, so the sums of the other states stay the same
+		final boolean fixedProbs = finalStateProbabilities.keySet().forEach(state -> {
+			if (Precision.equals(probabilitySum(state, outgoingTransitions.get(state)), 1)) {
+				return true;
+			}
+			return fixProbability(state);
+		});
 		if (fixedProbs) {
 			logger.info("Probabilities were corrected.");
 		}
 		return fixedProbs;
 	}
 
+	/**
+	 * Sums up the probabilities of the given outgoing transitions and the final state probability in the same order as
+	 * {@link #getOutTransitionsInSetOrder(int, boolean)} returns them.
+	 */
+	private double probabilitySum(int state, List<Transition> outgoingTransitions) {
+		final List<Transition> allTransitions = outgoingTransitions == null ? new ArrayList<>(1) : new ArrayList<>(outgoingTransitions);
+		if (finalStateProbabilities.containsKey(state)) {
+			allTransitions.add(getFinalTransition(state));
+		}
+		return allTransitions.stream().mapToDouble(t -> t.getProbability()).sum();
+	}
+
+	/**
+	 * Groups all transitions by their source state in one pass over the transition set. The lists contain the transitions in the same order as
+	 * {@link #getOutTransitionsInSetOrder(int, boolean)} would return them (without the stopping transition).
+	 */
+	private TIntObjectMap<List<Transition>> groupOutTransitionsInSetOrder() {
+		final TIntObjectMap<List<Transition>> result = new TIntObjectHashMap<>();
+		for (final Transition t : transitions) {
+			List<Transition> stateTransitions = result.get(t.getFromState());
+			if (stateTransitions == null) {
+				stateTransitions = new ArrayList<>();
+				result.put(t.getFromState(), stateTransitions);
+			}
+			stateTransitions.add(t);
+		}
+		return result;
+	}
+
 	protected boolean fixProbability(int state) {
-		List<Transition> outgoingTransitions = getOutTransitions(state, true);
+		List<Transition> outgoingTransitions = getOutTransitionsInSetOrder(state, true);
 		final double sum = outgoingTransitions.stream().mapToDouble(t -> t.getProbability()).sum();
 		// divide every probability by the sum of probabilities s.t. they sum up to 1
 		if (!Precision.equals(sum, 1)) {
 			logger.debug("Sum of transition probabilities for state {} is {}", state, sum);
-			outgoingTransitions = getOutTransitions(state, true);
+			outgoingTransitions = getOutTransitionsInSetOrder(state, true);
 			logger.debug("# outgoing transitions={}", outgoingTransitions.size());
 			logger.trace("outgoing transitions={}", outgoingTransitions);
 			outgoingTransitions.forEach(t -> changeTransitionProbability(t, t.getProbability() / sum));
-			outgoingTransitions = getOutTransitions(state, true);
+			outgoingTransitions = getOutTransitionsInSetOrder(state, true);
 			final double newSum = outgoingTransitions.stream().mapToDouble(t -> t.getProbability()).sum();
 			logger.debug("Corrected sum of transition probabilities is {}", newSum);
 			if (!Precision.equals(newSum, 1.0)) {
@@ -161,7 +273,7 @@ public class PDFA implements AutomatonModel, Serializable {
 					changeTransitionProbability(outgoingTransitions.get(i), probabilities.get(i).divide(fracSum).doubleValue());
 					// outgoingTransitions.get(i).setProbability(probabilities.get(i).divide(fracSum).doubleValue());
 				}
-				final double tempSum = getOutTransitions(state, true).stream().mapToDouble(t -> t.getProbability()).sum();
+				final double tempSum = getOutTransitionsInSetOrder(state, true).stream().mapToDouble(t -> t.getProbability()).sum();
 				if (!Precision.equals(tempSum, 1.0)) {
 					BigFraction preciseSum = BigFraction.ZERO;
 					for (final BigFraction f : probabilities) {
@@ -193,6 +305,15 @@ public class PDFA implements AutomatonModel, Serializable {
 		}
 	}
 
+	TransitionIndex<Transition> getTransitionIndex() {
+		TransitionIndex<Transition> index = transitionIndex;
+		if (index == null) {
+			index = new TransitionIndex<>(transitions);
+			transitionIndex = index;
+		}
+		return index;
+	}
+
 	protected void checkImmutable() {
 		if (isImmutable()) {
 			throw new IllegalStateException(this.getClass() + " is immutable and cannot be changed anymore");
@@ -235,9 +356,47 @@ public class PDFA implements AutomatonModel, Serializable {
 		this(trebaPath, null);
 	}
 
+	/**
+	 * Creates a PDFA from the transition and final state tables of an automaton learned by treba. Entry {@code i} of the tables corresponds to the
+	 * {@code i}-th line of the file that {@link #PDFA(Path, TimedInput)} reads, so both constructors result in the same automaton.
+	 *
+	 * @param trainingSequences
+	 *            the input used for mapping the symbol indices to symbols or {@code null} if the indices are the symbols
+	 * @param fromStates
+	 *            the source state of each transition
+	 * @param toStates
+	 *            the target state of each transition
+	 * @param symbols
+	 *            the symbol index of each transition
+	 * @param probabilities
+	 *            the probability of each transition
+	 * @param finalStates
+	 *            the states with a final state probability
+	 * @param finalProbabilities
+	 *            the final state probability of each of the final states
+	 */
+	public PDFA(TimedInput trainingSequences, int[] fromStates, int[] toStates, int[] symbols, double[] probabilities, int[] finalStates,
+			double[] finalProbabilities) {
+		this.alphabet = trainingSequences;
+		for (int i = 0; i < fromStates.length; i++) {
+			final String symbol;
+			if (alphabet == null) {
+				symbol = Integer.toString(symbols[i]);
+			} else {
+				symbol = trainingSequences.getSymbol(symbols[i]);
+			}
+			addTransition(fromStates[i], toStates[i], symbol, probabilities[i]);
+		}
+		for (int i = 0; i < finalStates.length; i++) {
+			addFinalState(finalStates[i], finalProbabilities[i]);
+		}
+	}
+
 	protected PDFA(PDFA pdfa) {
 		this.alphabet = pdfa.alphabet;
 		this.transitions = pdfa.transitions;
+		// both automata share the same transition set, so they also have to share the index
+		this.transitionIndex = pdfa.getTransitionIndex();
 		this.finalStateProbabilities = pdfa.finalStateProbabilities;
 		this.abnormalFinalStates = pdfa.abnormalFinalStates;
 		this.stateOcurrenceCount = pdfa.stateOcurrenceCount;
@@ -254,7 +413,8 @@ public class PDFA implements AutomatonModel, Serializable {
 	public PDFA(TimedInput alphabet, Set<Transition> transitions, TIntDoubleMap finalStateProbabilities, TIntSet abnormalFinalStates,
 			TIntIntMap stateOccCount) {
 		this.alphabet = alphabet;
-		this.transitions = transitions;
+		// the transitions are indexed, so the automaton must not share its set with the caller; the copy keeps the iteration order of the given set
+		this.transitions = new LinkedHashSet<>(transitions);
 		this.finalStateProbabilities = finalStateProbabilities;
 		if (abnormalFinalStates == null) {
 			this.abnormalFinalStates = new TIntHashSet();
@@ -270,21 +430,25 @@ public class PDFA implements AutomatonModel, Serializable {
 	}
 
 	public Transition addTransition(int fromState, int toState, String symbol, double probability) {
+		return addTransition(new Transition(fromState, toState, symbol, probability));
+	}
+
+	protected Transition addTransition(Transition t) {
 		checkImmutable();
-		addState(fromState);
-		addState(toState);
-		final Transition t = new Transition(fromState, toState, symbol, probability);
-		transitions.add(t);
+		addState(t.getFromState());
+		addState(t.getToState());
+		if (transitions.add(t)) {
+			// an index that was not built yet is built from the changed set when it is first needed
+			final TransitionIndex<Transition> index = transitionIndex;
+			if (index != null) {
+				index.add(t);
+			}
+		}
 		return t;
 	}
 
 	protected Transition addAbnormalTransition(int fromState, int toState, String symbol, double probability, AnomalyInsertionType anomalyType) {
-		checkImmutable();
-		addState(fromState);
-		addState(toState);
-		final Transition t = new AbnormalTransition(fromState, toState, symbol, probability, anomalyType);
-		transitions.add(t);
-		return t;
+		return addTransition(new AbnormalTransition(fromState, toState, symbol, probability, anomalyType));
 	}
 
 	protected Transition addAbnormalTransition(Transition t, AnomalyInsertionType anomalyType) {
@@ -440,8 +604,8 @@ public class PDFA implements AutomatonModel, Serializable {
 	}
 
 	public double getTransitionProbability(int fromState, int toState, String symbol) {
-		for (final Transition t : transitions) {
-			if (t.getFromState() == fromState && t.getToState() == toState && t.getSymbol().equals(symbol)) {
+		for (final Transition t : getTransitionIndex().get(fromState, symbol)) {
+			if (t.getToState() == toState) {
 				return t.getProbability();
 			}
 		}
@@ -453,13 +617,12 @@ public class PDFA implements AutomatonModel, Serializable {
 		if (event.equals(Transition.STOP_TRAVERSING_SYMBOL)) {
 			result = getFinalTransition(currentState);
 		} else {
-			for (final Transition t : transitions) {
-				if (t.getFromState() == currentState && t.getSymbol().equals(event)) {
-					if (result != null) {
-						logger.error("Found more than one transition for state " + currentState + " and event " + event);
-					}
-					result = t;
-				}
+			final List<Transition> candidates = getTransitionIndex().get(currentState, event);
+			if (candidates.size() > 1) {
+				logger.error("Found more than one transition for state " + currentState + " and event " + event);
+			}
+			if (!candidates.isEmpty()) {
+				result = candidates.get(candidates.size() - 1);
 			}
 		}
 		return result;
@@ -470,11 +633,7 @@ public class PDFA implements AutomatonModel, Serializable {
 		if (event.equals(Transition.STOP_TRAVERSING_SYMBOL)) {
 			result.add(getFinalTransition(state));
 		} else {
-			for (final Transition t : transitions) {
-				if (t.getFromState() == state && t.getSymbol().equals(event)) {
-					result.add(t);
-				}
-			}
+			result.addAll(getTransitionIndex().get(state, event));
 		}
 		return result;
 	}
@@ -489,18 +648,29 @@ public class PDFA implements AutomatonModel, Serializable {
 	 * @return the outgoing transitions
 	 */
 	public List<Transition> getOutTransitions(int currentState, boolean includeStoppingTransition) {
-		final List<Transition> result = new ArrayList<>();
-		for (final Transition t : transitions) {
-			if (t.getFromState() == currentState) {
-				result.add(t);
-			}
+		final List<Transition> result = getTransitionIndex().getOut(currentState);
+		if (includeStoppingTransition && finalStateProbabilities.containsKey(currentState)) {
+			result.add(getFinalTransition(currentState));
 		}
-		if (includeStoppingTransition) {
-			for (final int state : finalStateProbabilities.keys()) {
-				if (state == currentState) {
-					result.add(getFinalTransition(state));
-				}
-			}
+		return result;
+	}
+
+	/**
+	 * Returns all outgoing transitions for a given state in the iteration order of the transition set. In contrast to
+	 * {@link #getOutTransitions(int, boolean)} the transitions of all states are grouped in one pass over the transition set after each change of the
+	 * automaton. It is only meant for the places where the order changes the result, i.e. when summing up probabilities or when ties are broken while
+	 * sampling.
+	 * 
+	 * @param currentState
+	 *            the given state
+	 * @param includeStoppingTransition
+	 *            whether to include final transition probabilities
+	 * @return the outgoing transitions
+	 */
+	public List<Transition> getOutTransitionsInSetOrder(int currentState, boolean includeStoppingTransition) {
+		final List<Transition> result = getTransitionIndex().getOutInSetOrder(transitions, currentState);
+		if (includeStoppingTransition && finalStateProbabilities.containsKey(currentState)) {
+			result.add(getFinalTransition(currentState));
 		}
 		return result;
 	}
@@ -508,7 +678,12 @@ public class PDFA implements AutomatonModel, Serializable {
 	public boolean removeTransition(Transition t) {
 		checkImmutable();
 		final boolean wasRemoved = transitions.remove(t);
-		if (!wasRemoved) {
+		if (wasRemoved) {
+			final TransitionIndex<Transition> index = transitionIndex;
+			if (index != null) {
+				index.remove(t);
+			}
+		} else {
 			logger.warn("Tried to remove a non existing transition={}", t);
 		}
 		return wasRemoved;
@@ -536,7 +711,7 @@ public class PDFA implements AutomatonModel, Serializable {
 	}
 
 	protected Transition chooseNextTransition(int currentState) {
-		final List<Transition> possibleTransitions = getOutTransitions(currentState, true);
+		final List<Transition> possibleTransitions = getOutTransitionsInSetOrder(currentState, true);
 		Collections.sort(possibleTransitions, (t1, t2) -> -Double.compare(t2.getProbability(), t1.getProbability()));
 		final double random = r.nextDouble();
 		double summedProbs = 0;
@@ -563,24 +738,8 @@ public class PDFA implements AutomatonModel, Serializable {
 	 * @return the outgoing transitions
 	 */
 	public Pair<List<Transition>, List<Transition>> getInOutTransitions(int currentState, boolean includeStoppingTransition) {
-		final List<Transition> outTransitions = new ArrayList<>();
-		final List<Transition> inTransitions = new ArrayList<>();
-
-		for (final Transition t : transitions) {
-			if (t.getFromState() == currentState) {
-				outTransitions.add(t);
-			}
-			if (t.getToState() == currentState) {
-				inTransitions.add(t);
-			}
-		}
-		if (includeStoppingTransition) {
-			for (final int state : finalStateProbabilities.keys()) {
-				if (state == currentState) {
-					outTransitions.add(getFinalTransition(state));
-				}
-			}
-		}
+		final List<Transition> outTransitions = getOutTransitions(currentState, includeStoppingTransition);
+		final List<Transition> inTransitions = getTransitionIndex().getIn(currentState);
 		return Pair.create(inTransitions, outTransitions);
 	}
 
@@ -805,7 +964,10 @@ public class PDFA implements AutomatonModel, Serializable {
 	 * @return the list up to the last probability that exists. list may be shorter than the events list, iff there is an event which has no transition
 	 */
 	protected TDoubleList computeEventLikelihoods(TimedWord s) {
-
+		final CompiledPDFA c = getCompiled();
+		if (c != null) {
+			return c.computeEventLikelihoods(s);
+		}
 		final TDoubleList list = new TDoubleArrayList();
 		int currentState = START_STATE;
 		for (int i = 0; i < s.length(); i++) {
@@ -823,11 +985,47 @@ public class PDFA implements AutomatonModel, Serializable {
 		return list;
 	}
 
+	/**
+	 * Computes the sum of the logs of the event likelihoods of the word, i.e. the same as aggregating {@link #computeEventLikelihoods(TimedWord)} with
+	 * {@link ProbabilityAggregationMethod#MULTIPLY}. If the automaton is immutable and has a prefix cache, only the suffix after a cached prefix of the word
+	 * is traversed.
+	 * 
+	 * @param s
+	 *            the word
+	 * @return the event log-likelihood of the word
+	 */
+	public double computeEventLogLikelihood(TimedWord s) {
+		final CompiledPDFA c = getCompiled();
+		if (c != null) {
+			return c.computeEventLogLikelihood(s, prefixCache);
+		}
+		return AnomalyDetector.aggregate(computeEventLikelihoods(s), ProbabilityAggregationMethod.MULTIPLY);
+	}
+
+	/**
+	 * @return whether {@link #calculateProbabilities(TimedWord)} returns time likelihoods; if not, the event likelihoods alone describe a word
+	 */
+	public boolean hasTimeLikelihoods() {
+		return false;
+	}
+
 	@Override
 	public Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord s) {
 		return Pair.create(computeEventLikelihoods(s), new TDoubleArrayList());
 	}
 
+	/**
+	 * Creates a scorer that traverses the compiled automaton event by event. Mutable automata fall back to scoring the buffered word when it is finished.
+	 */
+	@Override
+	public SequenceScorer newScorer() {
+		final CompiledPDFA c = getCompiled();
+		if (c == null) {
+			return AutomatonModel.super.newScorer();
+		}
+		return new CompiledPDFAScorer(c);
+	}
+
 	// public boolean isConnected2() {
 	// final TIntStack openList = new TIntArrayStack();
 	// final TIntSet closedList = new TIntHashSet();
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.apache.commons.math3.util.Pair;
@@ -79,8 +80,17 @@ public class PDTTA extends PDFA {
 		}
 	}
 
+	@Override
+	public boolean hasTimeLikelihoods() {
+		return true;
+	}
+
 	@Override
 	public Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord s) {
+		final CompiledPDFA c = getCompiled();
+		if (c != null) {
+			return c.calculateProbabilities(s);
+		}
 		return Pair.create(computeEventLikelihoods(s), computeTimeLikelihoods(s));
 	}
 
@@ -104,8 +114,7 @@ public class PDTTA extends PDFA {
 		} else {
 			ContinuousDistribution d = null;
 			d = removeTimedTransition(transition, bindTimeInformation);
-			final Transition t = new Transition(transition.getFromState(), transition.getToState(), transition.getSymbol(), newProbability);
-			transitions.add(t);
+			final Transition t = addTransition(new Transition(transition.getFromState(), transition.getToState(), transition.getSymbol(), newProbability));
 			if (bindTimeInformation) {
 				bindTransitionDistribution(t, d);
 			}
@@ -115,7 +124,16 @@ public class PDTTA extends PDFA {
 		}
 	}
 
+	@Override
+	CompiledPDFA compile() {
+		return new CompiledPDFA(this, t -> transitionDistributions == null ? null : transitionDistributions.get(t.toZeroProbTransition()), tauEstimator);
+	}
+
 	protected TDoubleList computeTimeLikelihoods(TimedWord ts) {
+		final CompiledPDFA c = getCompiled();
+		if (c != null) {
+			return c.computeTimeLikelihoods(ts);
+		}
 		final TDoubleList list = new TDoubleArrayList(ts.length());
 		int currentState = START_STATE;
 		//sequential
@@ -180,7 +198,12 @@ public class PDTTA extends PDFA {
 	private boolean deleteIrrelevantTransitions() {
 		logger.debug("There are {} many transitions before removing irrelevant ones", getTransitionCount());
 		// there may be more transitions than transitionDistributions
-		final boolean removedTransitions = transitions.removeIf(t -> !transitionDistributions.containsKey(t.toZeroProbTransition()));
+		final List<Transition> irrelevantTransitions = transitions.stream().filter(t -> !transitionDistributions.containsKey(t.toZeroProbTransition()))
+				.collect(Collectors.toList());
+		for (final Transition t : irrelevantTransitions) {
+			super.removeTransition(t);
+		}
+		final boolean removedTransitions = !irrelevantTransitions.isEmpty();
 		if (removedTransitions) {
 			logger.info("Removed some unnecessary transitions");
 		}
@@ -0,0 +1,215 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * Bounded cache of the event log-likelihoods of the untimed prefixes of words scored by an immutable {@link PDFA} (see
+ * {@link PDFA#computeEventLogLikelihood(sadl.input.TimedWord)}). A prefix is keyed by a rolling 64 bit hash of its symbol ids and maps to the reached state and the
+ * accumulated log-likelihood, so a word is only traversed after the cached prefix. Entries do not depend on the entries of shorter prefixes, so evicting a
+ * short prefix does not make the longer ones unusable. Two prefixes of the same length whose hashes collide are not told apart.
+ *
+ * The cache is split into stripes by hash, each with its own lock and a CLOCK eviction over a fixed number of slots, so that parallel scoring threads rarely
+ * wait for each other and the memory is bounded by the maximum size.
+ *
+ * Enable it with {@link PDFA#setPrefixCacheSize(int)} and use {@link #getHits()} and {@link #getMisses()} to tune its size.
+ */
+public final class PrefixCache {
+
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final int maximumSize;
+	private final Stripe[] stripes;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * The state and log-likelihood of a found prefix.
+	 */
+	static final class Entry {
+		int state;
+		double logLikelihood;
+	}
+
+	/**
+	 * A part of the cache with a fixed number of slots that are reused in CLOCK order.
+	 */
+	private static final class Stripe {
+		private final TLongIntMap index;
+		private final long[] keys;
+		private final int[] lengths;
+		private final int[] states;
+		private final double[] logLikelihoods;
+		private final boolean[] referenced;
+		private int size = 0;
+		private int hand = 0;
+
+		Stripe(int capacity) {
+			index = new TLongIntHashMap(capacity, 0.5f, 0, -1);
+			keys = new long[capacity];
+			lengths = new int[capacity];
+			states = new int[capacity];
+			logLikelihoods = new double[capacity];
+			referenced = new boolean[capacity];
+		}
+
+		synchronized boolean get(long key, int length, Entry entry) {
+			final int slot = index.get(key);
+			if (slot < 0 || lengths[slot] != length) {
+				return false;
+			}
+			referenced[slot] = true;
+			entry.state = states[slot];
+			entry.logLikelihood = logLikelihoods[slot];
+			return true;
+		}
+
+		synchronized void put(long key, int length, int state, double logLikelihood) {
+			int slot = index.get(key);
+			if (slot < 0) {
+				if (size < keys.length) {
+					slot = size++;
+				} else {
+					// give every referenced slot a second chance
+					while (referenced[hand]) {
+						referenced[hand] = false;
+						hand = (hand + 1) % keys.length;
+					}
+					slot = hand;
+					hand = (hand + 1) % keys.length;
+					index.remove(keys[slot]);
+				}
+				index.put(key, slot);
+				keys[slot] = key;
+				referenced[slot] = false;
+			}
+			lengths[slot] = length;
+			states[slot] = state;
+			logLikelihoods[slot] = logLikelihood;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized void clear() {
+			index.clear();
+			Arrays.fill(referenced, false);
+			size = 0;
+			hand = 0;
+		}
+	}
+
+	PrefixCache(int maximumSize) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("The maximum size must be positive, but was " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		// a power of two, so that a stripe is selected by the bits of the hash, and at least one slot per stripe
+		final int stripeCount = Math.min(Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1, Integer.highestOneBit(maximumSize));
+		stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe(maximumSize / stripeCount + (i < maximumSize % stripeCount ? 1 : 0));
+		}
+	}
+
+	/**
+	 * @return the hash of the prefix that is extended by the symbol
+	 */
+	static long hash(long prefixHash, int symbolId) {
+		return (prefixHash + symbolId + 1) * HASH_MULTIPLIER;
+	}
+
+	private Stripe stripe(long key) {
+		// the upper bits are mixed best by the multiplication
+		return stripes[(int) (key >>> 40) & (stripes.length - 1)];
+	}
+
+	/**
+	 * Finds a cached prefix of a word by binary search over the lengths, assuming that the shorter prefixes of a cached prefix are cached, too (as they are
+	 * inserted together). If that does not hold after evictions, a shorter prefix than the longest cached one may be found, which is still correct.
+	 *
+	 * @param prefixHashes
+	 *            the hashes of the prefixes of the word; the one at index i is the hash of the prefix of length i + 1
+	 * @param entry
+	 *            receives the state and log-likelihood of the found prefix
+	 * @return the length of the found prefix or 0 if none was found (then the entry is unchanged)
+	 */
+	int find(long[] prefixHashes, int length, Entry entry) {
+		int found = 0;
+		int high = length;
+		while (found < high) {
+			final int mid = (found + high + 1) >>> 1;
+			final long key = prefixHashes[mid - 1];
+			if (stripe(key).get(key, mid, entry)) {
+				found = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		hits.add(found);
+		return found;
+	}
+
+	/**
+	 * Caches a traversed prefix.
+	 */
+	void put(long prefixHash, int length, int state, double logLikelihood) {
+		misses.increment();
+		stripe(prefixHash).put(prefixHash, length, state, logLikelihood);
+	}
+
+	/**
+	 * @return the number of events whose traversal was found in the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of events that were traversed in the automaton and added to the cache
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of cached prefixes
+	 */
+	public int size() {
+		int size = 0;
+		for (final Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Removes all prefixes and resets the counters.
+	 */
+	public void clear() {
+		for (final Stripe stripe : stripes) {
+			stripe.clear();
+		}
+		hits.reset();
+		misses.reset();
+	}
+
+}
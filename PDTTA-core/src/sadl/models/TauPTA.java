@@ -50,6 +50,7 @@ import jsat.linear.DenseVector;
 import jsat.linear.Vec;
 import sadl.constants.AnomalyInsertionType;
 import sadl.constants.ClassLabel;
+import sadl.constants.KdeEvaluation;
 import sadl.detectors.AnomalyDetector;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
@@ -163,6 +164,20 @@ public class TauPTA extends PDTTA {
 	 */
 	@Deprecated
 	public TauPTA(TimedInput trainingSequences) {
+		this(trainingSequences, KdeEvaluation.EXACT, 0);
+	}
+
+	/**
+	 * WARNING: The input is changed (transformed to TimedIntWords)
+	 * 
+	 * @param trainingSequences
+	 * @param kdeEvaluation
+	 *            how the fitted kernel density estimates are evaluated
+	 * @param kdeGridError
+	 *            the maximum interpolation error relative to the maximum density if the estimates are evaluated on a grid
+	 */
+	@Deprecated
+	public TauPTA(TimedInput trainingSequences, KdeEvaluation kdeEvaluation, double kdeGridError) {
 		super();
 		trainingSequences = SerializationUtils.clone(trainingSequences);
 		final TauPTA initialPta = new TauPTA();
@@ -244,7 +259,7 @@ public class TauPTA extends PDTTA {
 		}
 		logger.info("OmmitedSequenceCount={} out of {} sequences at a threshold of less than {} absolute occurences.", ommitedSequenceCount,
 				trainingSequences.size(), SEQUENCE_OMMIT_THRESHOLD * trainingSequences.size());
-		final Map<ZeroProbTransition, ContinuousDistribution> distributions = fit(timeValueBuckets);
+		final Map<ZeroProbTransition, ContinuousDistribution> distributions = fit(timeValueBuckets, kdeEvaluation, kdeGridError);
 		setTransitionDistributions(distributions);
 		if (distributions.size() != getTransitionCount()) {
 			final List<Transition> missingDistributions = new ArrayList<>();
@@ -273,16 +288,17 @@ public class TauPTA extends PDTTA {
 		}
 	}
 
-	private Map<ZeroProbTransition, ContinuousDistribution> fit(Map<ZeroProbTransition, TDoubleList> timeValueBuckets) {
+	private Map<ZeroProbTransition, ContinuousDistribution> fit(Map<ZeroProbTransition, TDoubleList> timeValueBuckets, KdeEvaluation kdeEvaluation,
+			double kdeGridError) {
 		final Map<ZeroProbTransition, ContinuousDistribution> result = new HashMap<>();
 		logger.debug("timevalueBuckets.size={}", timeValueBuckets.size());
 		for (final ZeroProbTransition t : timeValueBuckets.keySet()) {
-			result.put(t, fitDistribution(timeValueBuckets.get(t)));
+			result.put(t, fitDistribution(timeValueBuckets.get(t), kdeEvaluation, kdeGridError));
 		}
 		return result;
 	}
 
-	private ContinuousDistribution fitDistribution(TDoubleList transitionTimes) {
+	private ContinuousDistribution fitDistribution(TDoubleList transitionTimes, KdeEvaluation kdeEvaluation, double kdeGridError) {
 		final Vec v = new DenseVector(transitionTimes.toArray());
 		final jsat.utils.Pair<Boolean, Double> sameValues = MyDistributionSearch.checkForDifferentValues(v);
 		if (sameValues.getFirstItem().booleanValue()) {
@@ -290,6 +306,9 @@ public class TauPTA extends PDTTA {
 			return d;
 		} else {
 			final MyKernelDensityEstimator kde = new MyKernelDensityEstimator(v);
+			if (kdeEvaluation == KdeEvaluation.GRID && !kde.precomputeGrid(kdeGridError)) {
+				logger.debug("Grid for {} does not reach the error bound {}, evaluating it exactly", kde, kdeGridError);
+			}
 			return kde;
 		}
 	}
@@ -343,7 +362,7 @@ public class TauPTA extends PDTTA {
 					this.anomalyType, anomalyType);
 			return;
 		}
-		immutable = false;
+		makeMutable();
 		setAnomalyType(newAnomalyType);
 		if (anomalyType == AnomalyInsertionType.TYPE_ONE) {
 			logger.debug("TransitionCount before inserting {} anomalies={}", anomalyType, getTransitionCount());
@@ -368,7 +387,7 @@ public class TauPTA extends PDTTA {
 		}
 		checkForAbnormalTransitions();
 		this.checkAndRestoreConsistency();
-		immutable = true;
+		makeImmutable();
 	}
 
 	private void checkForAbnormalTransitions() {
@@ -659,7 +678,7 @@ public class TauPTA extends PDTTA {
 		AnomalyInsertionType anomalyType = AnomalyInsertionType.NONE;
 		int timedAnomalyCounter = 0;
 		while (!choseFinalState) {
-			List<Transition> possibleTransitions = getOutTransitions(currentState, true);
+			List<Transition> possibleTransitions = getOutTransitionsInSetOrder(currentState, true);
 			double random = r.nextDouble();
 			double newProbSum = -1;
 			if (getAnomalyType() == AnomalyInsertionType.TYPE_TWO || getAnomalyType() == AnomalyInsertionType.TYPE_FOUR) {
@@ -0,0 +1,204 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import sadl.structure.Transition;
+
+/**
+ * Per state index over the transitions of an automaton. Outgoing transitions are indexed by (state, symbol id) and incoming transitions by target state, so
+ * that lookups do not have to scan the whole transition set. Symbols are interned to int ids when they are first added. The per state transitions are kept
+ * in linked sets, so they stay in the order in which they were added and a transition is removed in constant time even if a state has many transitions
+ * (e.g. a red state that many merged transitions were redirected to). The index does not own the transitions; the automaton has to call
+ * {@link #add(Transition)} and {@link #remove(Transition)} whenever its transition set changes.
+ */
+class TransitionIndex<T extends Transition> {
+
+	static final int NO_SYMBOL = -1;
+
+	private final TObjectIntMap<String> symbolIds = new TObjectIntHashMap<>(11, 0.5f, NO_SYMBOL);
+	private final TLongObjectMap<List<T>> outgoing = new TLongObjectHashMap<>();
+	private final TIntObjectMap<Set<T>> outgoingInOrder = new TIntObjectHashMap<>();
+	private final TIntObjectMap<Set<T>> incoming = new TIntObjectHashMap<>();
+	/**
+	 * The outgoing transitions of every state in the iteration order of the automaton's transition set. It is grouped in one pass over the set when it is
+	 * first needed and dropped whenever a transition is added or removed.
+	 */
+	private volatile TIntObjectMap<List<T>> outgoingInSetOrder;
+
+	TransitionIndex() {
+	}
+
+	TransitionIndex(Collection<? extends T> transitions) {
+		for (final T t : transitions) {
+			add(t);
+		}
+	}
+
+	/**
+	 * @return the id of the symbol or {@link #NO_SYMBOL} if no transition with the symbol was added
+	 */
+	int getSymbolId(String symbol) {
+		return symbolIds.get(symbol);
+	}
+
+	private static long key(int state, int symbolId) {
+		return ((long) state << 32) | (symbolId & 0xFFFFFFFFL);
+	}
+
+	void add(T t) {
+		int symbolId = symbolIds.get(t.getSymbol());
+		if (symbolId == NO_SYMBOL) {
+			symbolId = symbolIds.size();
+			symbolIds.put(t.getSymbol(), symbolId);
+		}
+		final long key = key(t.getFromState(), symbolId);
+		List<T> symbolTransitions = outgoing.get(key);
+		if (symbolTransitions == null) {
+			// almost all automata are deterministic, so there is usually only one transition per (state, symbol)
+			symbolTransitions = new ArrayList<>(1);
+			outgoing.put(key, symbolTransitions);
+		}
+		symbolTransitions.add(t);
+		outgoingInSetOrder = null;
+		addToSet(outgoingInOrder, t.getFromState(), t);
+		addToSet(incoming, t.getToState(), t);
+	}
+
+	private static <T> void addToSet(TIntObjectMap<Set<T>> sets, int state, T t) {
+		Set<T> set = sets.get(state);
+		if (set == null) {
+			set = new LinkedHashSet<>();
+			sets.put(state, set);
+		}
+		set.add(t);
+	}
+
+	private static void removeFromSet(TIntObjectMap<? extends Set<?>> sets, int state, Object t) {
+		final Set<?> set = sets.get(state);
+		if (set != null) {
+			set.remove(t);
+			if (set.isEmpty()) {
+				sets.remove(state);
+			}
+		}
+	}
+
+	boolean remove(Transition t) {
+		final int symbolId = symbolIds.get(t.getSymbol());
+		if (symbolId == NO_SYMBOL) {
+			return false;
+		}
+		final long key = key(t.getFromState(), symbolId);
+		final List<T> symbolTransitions = outgoing.get(key);
+		if (symbolTransitions == null || !symbolTransitions.remove(t)) {
+			return false;
+		}
+		if (symbolTransitions.isEmpty()) {
+			outgoing.remove(key);
+		}
+		outgoingInSetOrder = null;
+		removeFromSet(outgoingInOrder, t.getFromState(), t);
+		removeFromSet(incoming, t.getToState(), t);
+		return true;
+	}
+
+	/**
+	 * Returns the transitions leaving the given state with the given symbol.
+	 *
+	 * @return the transitions or an empty list (which must not be modified)
+	 */
+	List<T> get(int state, String symbol) {
+		return get(state, symbolIds.get(symbol));
+	}
+
+	/**
+	 * Returns the transitions leaving the given state with the symbol with the given id (see {@link #getSymbolId(String)}).
+	 *
+	 * @return the transitions or an empty list (which must not be modified)
+	 */
+	List<T> get(int state, int symbolId) {
+		if (symbolId == NO_SYMBOL) {
+			return Collections.emptyList();
+		}
+		final List<T> symbolTransitions = outgoing.get(key(state, symbolId));
+		if (symbolTransitions == null) {
+			return Collections.emptyList();
+		}
+		return symbolTransitions;
+	}
+
+	/**
+	 * Returns all transitions leaving the given state.
+	 *
+	 * @return a new list containing the outgoing transitions
+	 */
+	List<T> getOut(int state) {
+		final Set<T> outTransitions = outgoingInOrder.get(state);
+		if (outTransitions == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(outTransitions);
+	}
+
+	/**
+	 * Returns all transitions leaving the given state in the iteration order of the given transition set, which has to be the set that the index is kept
+	 * in sync with. Only the first call after a change of the set iterates over it.
+	 *
+	 * @return a new list containing the outgoing transitions
+	 */
+	List<T> getOutInSetOrder(Collection<? extends T> transitions, int state) {
+		TIntObjectMap<List<T>> grouped = outgoingInSetOrder;
+		if (grouped == null) {
+			grouped = new TIntObjectHashMap<>();
+			for (final T t : transitions) {
+				List<T> stateTransitions = grouped.get(t.getFromState());
+				if (stateTransitions == null) {
+					stateTransitions = new ArrayList<>();
+					grouped.put(t.getFromState(), stateTransitions);
+				}
+				stateTransitions.add(t);
+			}
+			outgoingInSetOrder = grouped;
+		}
+		final List<T> outTransitions = grouped.get(state);
+		if (outTransitions == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(outTransitions);
+	}
+
+	/**
+	 * Returns all transitions entering the given state.
+	 *
+	 * @return a new list containing the incoming transitions
+	 */
+	List<T> getIn(int state) {
+		final Set<T> inTransitions = incoming.get(state);
+		if (inTransitions == null) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(inTransitions);
+	}
+
+}
@@ -0,0 +1,266 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Optional;
+
+import org.apache.commons.math3.util.Pair;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import sadl.input.TimedWord;
+
+/**
+ * Flat, array-backed representation of a trained {@link PDRTA} that is used for scoring. States are numbered densely (the root is always 0). For every state
+ * and symbol the intervals are stored as a sorted array of their upper bounds with parallel arrays for the target states and the transition probabilities,
+ * so that finding the interval of a time delay is a binary search. The histogram bin of a time delay is found with a binary search over the histogram
+ * borders.
+ */
+final class CompiledPDRTA {
+
+	static final int NO_TRANSITION = -1;
+
+	private final PDRTAInput input;
+	private final int alphSize;
+	private final int histBarCount;
+	private final int minTimeDelay;
+	private final int maxTimeDelay;
+	private final int[] histoBorders;
+
+	// indexed by state * alphSize + symbol or state * histBarCount + histogram bin
+	private final double[] symbolProbs;
+	private final double[] timeProbs;
+	private final double[] tailEndProbs;
+
+	// the intervals of state s and symbol a are stored in [intervalOffsets[s * alphSize + a], intervalOffsets[s * alphSize + a + 1])
+	private final int[] intervalOffsets;
+	private final int[] intervalEnds;
+	private final int[] intervalTargets;
+	private final double[] intervalProbs;
+
+	/**
+	 * Compiles the given automaton, which must not be in train mode anymore.
+	 *
+	 * @param automaton
+	 *            the automaton to compile
+	 */
+	CompiledPDRTA(PDRTA automaton) {
+		input = automaton.getInput();
+		alphSize = input.getAlphSize();
+		histBarCount = input.getNumHistogramBars();
+		minTimeDelay = input.getMinTimeDelay();
+		maxTimeDelay = input.getMaxTimeDelay();
+		histoBorders = input.getHistBorders().clone();
+
+		// number the states reachable from the root in breadth-first order
+		final Map<PDRTAState, Integer> stateIds = new IdentityHashMap<>();
+		final List<PDRTAState> states = new ArrayList<>();
+		stateIds.put(automaton.getRoot(), Integer.valueOf(0));
+		states.add(automaton.getRoot());
+		int intervalCount = 0;
+		for (int s = 0; s < states.size(); s++) {
+			for (int a = 0; a < alphSize; a++) {
+				final Optional<NavigableMap<Integer, Interval>> ins = states.get(s).getIntervals(a);
+				if (ins.isPresent()) {
+					intervalCount += ins.get().size();
+					for (final Interval in : ins.get().values()) {
+						if (in != null && !stateIds.containsKey(in.getTarget())) {
+							stateIds.put(in.getTarget(), Integer.valueOf(states.size()));
+							states.add(in.getTarget());
+						}
+					}
+				}
+			}
+		}
+
+		symbolProbs = new double[states.size() * alphSize];
+		timeProbs = new double[states.size() * histBarCount];
+		tailEndProbs = new double[states.size()];
+		intervalOffsets = new int[states.size() * alphSize + 1];
+		intervalEnds = new int[intervalCount];
+		intervalTargets = new int[intervalCount];
+		intervalProbs = new double[intervalCount];
+		int id = 0;
+		for (int s = 0; s < states.size(); s++) {
+			final PDRTAState state = states.get(s);
+			final StateStatistic stat = state.getStat();
+			if (stat.isTrainMode()) {
+				throw new IllegalStateException("Only trained automata can be compiled");
+			}
+			// use the same computations as for the uncompiled automaton to get exactly the same probabilities
+			for (int a = 0; a < alphSize; a++) {
+				symbolProbs[s * alphSize + a] = stat.getHistProb(a, 0)[0];
+			}
+			for (int b = 0; b < histBarCount; b++) {
+				timeProbs[s * histBarCount + b] = stat.getHistProb(0, b)[1];
+			}
+			tailEndProbs[s] = stat.getTailEndProb();
+			for (int a = 0; a < alphSize; a++) {
+				intervalOffsets[s * alphSize + a] = id;
+				final Optional<NavigableMap<Integer, Interval>> ins = state.getIntervals(a);
+				if (ins.isPresent()) {
+					// the keys are the upper bounds of the intervals in ascending order; null values are gaps without transition
+					for (final Entry<Integer, Interval> e : ins.get().entrySet()) {
+						final Interval in = e.getValue();
+						intervalEnds[id] = e.getKey().intValue();
+						if (in == null) {
+							intervalTargets[id] = NO_TRANSITION;
+						} else {
+							intervalTargets[id] = stateIds.get(in.getTarget()).intValue();
+							intervalProbs[id] = stat.getTransProb(a, in);
+						}
+						id++;
+					}
+				}
+			}
+		}
+		intervalOffsets[states.size() * alphSize] = id;
+	}
+
+	/**
+	 * @return the index of the symbol at the given position of the word or -1 if it is not part of the alphabet
+	 */
+	int getAlphIndex(TimedWord w, int i) {
+		return input.getAlphIndex(w, i);
+	}
+
+	int getAlphIndex(String symbol) {
+		return input.getAlphIndex(symbol);
+	}
+
+	/**
+	 * Same as {@link PDRTAInput#getHistBarIdx(int)} with a binary search over the histogram borders.
+	 *
+	 * @return the index of the histogram bin of the time delay or -1 if it is out of range
+	 */
+	int getHistBarIdx(int timeDelay) {
+		if (timeDelay < minTimeDelay || timeDelay > maxTimeDelay) {
+			return -1;
+		}
+		return lowerBound(histoBorders, 0, histoBorders.length, timeDelay);
+	}
+
+	/**
+	 * @return the first index in [from, to) whose value is greater than or equal to the key or {@code to} if there is none
+	 */
+	private static int lowerBound(int[] values, int from, int to, int key) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (values[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	int getRoot() {
+		return 0;
+	}
+
+	double getSymbolProb(int state, int symAlphIdx) {
+		return symbolProbs[state * alphSize + symAlphIdx];
+	}
+
+	double getTimeProb(int state, int histBarIdx) {
+		return timeProbs[state * histBarCount + histBarIdx];
+	}
+
+	double getTailEndProb(int state) {
+		return tailEndProbs[state];
+	}
+
+	/**
+	 * Returns the interval of the given state and symbol that contains the time delay, like {@link PDRTAState#getInterval(int, int)}.
+	 *
+	 * @return the id of the interval or {@link #NO_TRANSITION} if there is none
+	 */
+	int getInterval(int state, int symAlphIdx, int timeDelay) {
+		final int from = intervalOffsets[state * alphSize + symAlphIdx];
+		final int to = intervalOffsets[state * alphSize + symAlphIdx + 1];
+		final int idx = lowerBound(intervalEnds, from, to, timeDelay);
+		if (idx == to) {
+			return NO_TRANSITION;
+		}
+		return intervalTargets[idx] == NO_TRANSITION ? NO_TRANSITION : idx;
+	}
+
+	int getTarget(int interval) {
+		return intervalTargets[interval];
+	}
+
+	double getTransProb(int interval) {
+		return intervalProbs[interval];
+	}
+
+	/**
+	 * Same as {@link PDRTA#calculateProbabilities(TimedWord)} on the compiled automaton.
+	 */
+	Pair<TDoubleList, TDoubleList> testSeqHisto(TimedWord word) {
+		final double[] symP = new double[word.length() + 1];
+		final double[] timeP = new double[word.length()];
+		int s = getRoot();
+		for (int i = 0; i < word.length(); i++) {
+			final int symAlphIdx = getAlphIndex(word, i);
+			final int timeDelay = word.getTimeValue(i);
+			final int histBarIdx = getHistBarIdx(timeDelay);
+			if (symAlphIdx < 0 || histBarIdx < 0) {
+				return rejected();
+			}
+			symP[i] = getSymbolProb(s, symAlphIdx);
+			timeP[i] = getTimeProb(s, histBarIdx);
+			final int in = getInterval(s, symAlphIdx, timeDelay);
+			if (in == NO_TRANSITION) {
+				return rejected();
+			}
+			s = getTarget(in);
+		}
+		symP[word.length()] = getTailEndProb(s);
+		return Pair.create(new TDoubleArrayList(symP), new TDoubleArrayList(timeP));
+	}
+
+	/**
+	 * Same as {@link PDRTA#calculateProbsTrans(TimedWord)} on the compiled automaton.
+	 */
+	TDoubleList testSeqTrans(TimedWord word) {
+		final double[] transP = new double[word.length() + 1];
+		int s = getRoot();
+		for (int i = 0; i < word.length(); i++) {
+			final int symAlphIdx = getAlphIndex(word, i);
+			final int timeDelay = word.getTimeValue(i);
+			if (symAlphIdx < 0 || getHistBarIdx(timeDelay) < 0) {
+				return new TDoubleArrayList(new double[] { 0.0 });
+			}
+			final int in = getInterval(s, symAlphIdx, timeDelay);
+			if (in == NO_TRANSITION) {
+				return new TDoubleArrayList(new double[] { 0.0 });
+			}
+			transP[i] = getTransProb(in);
+			s = getTarget(in);
+		}
+		transP[word.length()] = getTailEndProb(s);
+		return new TDoubleArrayList(transP);
+	}
+
+	private static Pair<TDoubleList, TDoubleList> rejected() {
+		return Pair.create(new TDoubleArrayList(new double[] { 0.0 }), new TDoubleArrayList(0));
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import sadl.detectors.SequenceScorer;
+
+/**
+ * {@link SequenceScorer} that traverses a {@link CompiledPDRTA} with the histogram probabilities. Computes the same likelihoods as
+ * {@link PDRTAScorer} without creating objects for the events.
+ */
+class CompiledPDRTAScorer extends SequenceScorer {
+
+	private final CompiledPDRTA automaton;
+	private int currentState;
+
+	CompiledPDRTAScorer(CompiledPDRTA automaton) {
+		this.automaton = automaton;
+		this.currentState = automaton.getRoot();
+	}
+
+	@Override
+	protected void step(String symbol, int timeDelay) {
+
+		final int symAlphIdx = automaton.getAlphIndex(symbol);
+		final int histBarIdx = automaton.getHistBarIdx(timeDelay);
+		if (symAlphIdx < 0 || histBarIdx < 0) {
+			reject();
+			return;
+		}
+		addEventLikelihood(automaton.getSymbolProb(currentState, symAlphIdx));
+		addTimeLikelihood(automaton.getTimeProb(currentState, histBarIdx));
+		final int in = automaton.getInterval(currentState, symAlphIdx, timeDelay);
+		if (in == CompiledPDRTA.NO_TRANSITION) {
+			reject();
+		} else {
+			currentState = automaton.getTarget(in);
+		}
+	}
+
+	/**
+	 * Like {@link PDRTA#calculateProbabilities(sadl.input.TimedWord)}, a word that cannot be processed only gets a single event likelihood of zero
+	 */
+	private void reject() {
+
+		clearLikelihoods();
+		addEventLikelihood(0.0);
+		stop();
+	}
+
+	@Override
+	protected void end() {
+
+		addEventLikelihood(automaton.getTailEndProb(currentState));
+	}
+
+}
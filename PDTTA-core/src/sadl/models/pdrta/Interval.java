@@ -12,17 +12,21 @@ package sadl.models.pdrta;
 
 import java.io.Serializable;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 
-import com.google.common.collect.TreeMultimap;
+import org.apache.commons.lang3.tuple.Pair;
+
+import gnu.trove.TCollections;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 
 /**
  * This class defines a delay guard for a transition inside a {@link PDRTA}. Moreover it contains the target {@link PDRTAState} the transition is pointing to
- * and, while training, the {@link TimedTail}s using the transition. Therefore an {@link Interval} itself can also be described as a transition without a
+ * and, while training, the tails of the {@link PDRTAInput} using the transition. Therefore an {@link Interval} itself can also be described as a transition without a
  * symbol.
  * 
  * @author Fabian Witter
@@ -46,9 +50,15 @@ public class Interval implements Serializable {
 	private int end;
 
 	/**
-	 * Contains the {@link TimedTail}s using the transition while training
+	 * Contains the tails using the transition while training in ascending order. Because the tails of the {@link PDRTAInput} are numbered by time delay, they
+	 * are also sorted by time delay. Splitting and merging replace the list instead of changing it, so copies of the interval can share it.
+	 */
+	private TIntArrayList tails;
+
+	/**
+	 * The {@link PDRTAInput} containing the tails
 	 */
-	private final TreeMultimap<Integer, TimedTail> tails;
+	private final PDRTAInput input;
 
 	/**
 	 * The {@link PDRTAState} the transition is pointing to
@@ -74,22 +84,43 @@ public class Interval implements Serializable {
 	}
 
 	/**
-	 * States whether this transition contains {@link TimedTail}s
+	 * States whether this transition contains tails
 	 * 
-	 * @return Returns {@code true} if the transition contains no {@link TimedTail}s. Returns {@code false} if there are {@link TimedTail}s that use this
-	 *         transition.
+	 * @return Returns {@code true} if the transition contains no tails. Returns {@code false} if there are tails that use this transition.
 	 */
 	public boolean isEmpty() {
 		return tails.isEmpty();
 	}
 
 	/**
-	 * Returns the {@link TreeMultimap} containing the {@link TimedTail}s using this transition
+	 * Returns the tails using this transition. The tails can be resolved with the {@link PDRTAInput} of the {@link PDRTA}.
+	 * 
+	 * @return An unmodifiable list containing the tails in ascending order of their time delays
+	 */
+	public TIntList getTails() {
+		return TCollections.unmodifiableList(tails);
+	}
+
+	/**
+	 * Returns the distribution of the time delays of the tails using this transition
 	 * 
-	 * @return A {@link TreeMultimap} containing {@link TimedTail}s
+	 * @return A {@link Pair} containing the time delays in ascending order and their frequencies
 	 */
-	public TreeMultimap<Integer, TimedTail> getTails() {
-		return tails;
+	public Pair<TIntList, TIntList> getTimeDelayDistribution() {
+
+		final TIntList values = new TIntArrayList();
+		final TIntList frequencies = new TIntArrayList();
+		for (int i = 0; i < tails.size(); i++) {
+			final int timeDelay = input.getTimeDelay(tails.get(i));
+			final int last = values.size() - 1;
+			if (last >= 0 && values.get(last) == timeDelay) {
+				frequencies.set(last, frequencies.get(last) + 1);
+			} else {
+				values.add(timeDelay);
+				frequencies.add(1);
+			}
+		}
+		return Pair.of(values, frequencies);
 	}
 
 	/**
@@ -102,7 +133,7 @@ public class Interval implements Serializable {
 	}
 
 	/**
-	 * Returns a visual representation of this interval with the slots occupied by {@link TimedTail}s marked. If the interval range is large it will be scaled
+	 * Returns a visual representation of this interval with the slots occupied by tails marked. If the interval range is large it will be scaled
 	 * down.
 	 * 
 	 * @return A visual representation of this interval
@@ -111,6 +142,10 @@ public class Interval implements Serializable {
 	public String toString() {
 
 		final int maxLen = 30;
+		final TIntSet timeDelays = new TIntHashSet();
+		for (int i = 0; i < tails.size(); i++) {
+			timeDelays.add(input.getTimeDelay(tails.get(i)));
+		}
 		final Set<Integer> compl = new HashSet<>();
 		final Set<Integer> part = new HashSet<>();
 		int endIn;
@@ -123,7 +158,7 @@ public class Interval implements Serializable {
 				boolean full = true;
 				boolean empty = true;
 				for (int j = s; j <= e; j++) {
-					if (tails.containsKey(new Integer(begin + j))) {
+					if (timeDelays.contains(begin + j)) {
 						empty = false;
 					} else {
 						full = false;
@@ -139,7 +174,9 @@ public class Interval implements Serializable {
 			assert (Math.rint(pos + 1.0) == (end - begin + 1));
 			endIn = maxLen - 1;
 		} else {
-			compl.addAll(tails.keySet());
+			for (final int timeDelay : timeDelays.toArray()) {
+				compl.add(new Integer(timeDelay));
+			}
 			endIn = end - begin;
 		}
 		final StringBuilder sb = new StringBuilder();
@@ -166,18 +203,20 @@ public class Interval implements Serializable {
 	 *            The inclusive begin of the interval
 	 * @param maxTimeDelay
 	 *            The inclusive end of the interval
+	 * @param input
+	 *            The {@link PDRTAInput} containing the tails
 	 * @return Map containing only one {@link Interval}
 	 */
-	protected static NavigableMap<Integer, Interval> createInitialIntervalMap(int minTimeDelay, int maxTimeDelay) {
+	protected static NavigableMap<Integer, Interval> createInitialIntervalMap(int minTimeDelay, int maxTimeDelay, PDRTAInput input) {
 
 		final NavigableMap<Integer, Interval> map = new TreeMap<>();
-		final Interval in = new Interval(minTimeDelay, maxTimeDelay);
+		final Interval in = new Interval(minTimeDelay, maxTimeDelay, input);
 		map.put(new Integer(in.getEnd()), in);
 		return map;
 	}
 
 	/**
-	 * Creates a deep copy of the given interval. It does not copy the {@link TimedTail}s from the {@link PDRTAInput}.
+	 * Creates a copy of the given interval. The list of tails is shared because it is never changed after the interval was filled.
 	 * 
 	 * @param in
 	 *            Interval to be copied
@@ -186,7 +225,8 @@ public class Interval implements Serializable {
 
 		begin = in.begin;
 		end = in.end;
-		tails = TreeMultimap.create(in.tails);
+		tails = in.tails;
+		input = in.input;
 		target = in.target;
 	}
 
@@ -200,28 +240,52 @@ public class Interval implements Serializable {
 	 *         also has no target {@link PDRTAState}.
 	 */
 	public Interval split(int time) {
+		return split(time, null);
+	}
+
+	/**
+	 * Splits this {@link Interval} like {@link Interval#split(int)} and records the change in the given {@link UndoLog}
+	 * 
+	 * @param time
+	 *            The time value where the interval will be split after
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 * @return The newly created interval from the lower part of the old interval
+	 */
+	public Interval split(int time, UndoLog log) {
 
 		if (!contains(time) || end == time) {
 			throw new IllegalArgumentException("Time value not suitable -> split [" + begin + "," + end + "] @ " + time);
 		}
-		final Interval newIn = new Interval(begin, time);
-		// TODO Check whether a TreeMultiMap for tails is necessary
-		final Iterator<Entry<Integer, TimedTail>> itTails = tails.entries().iterator();
-		while (itTails.hasNext()) {
-			final Entry<Integer, TimedTail> eT = itTails.next();
-			if (eT.getKey().intValue() <= time) {
-				newIn.tails.put(eT.getKey(), eT.getValue());
-				itTails.remove();
-				assert (!tails.containsEntry(eT.getKey(), eT.getValue()));
+		final Interval newIn = new Interval(begin, time, input);
+		// Tails are sorted by time delay, so the lower part is a prefix of the list
+		int low = 0;
+		int high = tails.size();
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (input.getTimeDelay(tails.get(mid)) <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
 			}
 		}
+		newIn.tails = copyOfRange(tails, 0, low);
+		if (log != null) {
+			final int oldBegin = begin;
+			final TIntArrayList oldTails = tails;
+			log.add(() -> {
+				begin = oldBegin;
+				tails = oldTails;
+			});
+		}
+		tails = copyOfRange(tails, low, tails.size());
 		begin = time + 1;
 		return newIn;
 	}
 
 	/**
 	 * Merges this {@link Interval} with a given neighbored interval. This operation is the counterpart of the {@link Interval#split(int)} operation. After this
-	 * operation the delay guards of this interval will be extended and {@link TimedTail}s will be added from the given interval. The target {@link PDRTAState}
+	 * operation the delay guards of this interval will be extended and tails will be added from the given interval. The target {@link PDRTAState}
 	 * will not be affected.
 	 * 
 	 * @param in
@@ -229,27 +293,104 @@ public class Interval implements Serializable {
 	 *            interval begins directly after this interval ends. The given object will not be changed.
 	 */
 	public void merge(Interval in) {
+		merge(in, null);
+	}
+
+	/**
+	 * Merges this {@link Interval} with a given neighbored interval like {@link Interval#merge(Interval)} and records the change in the given {@link UndoLog}
+	 * 
+	 * @param in
+	 *            A neighbored interval that will be merged
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void merge(Interval in, UndoLog log) {
 
 		if ((begin - 1 == in.end || end + 1 == in.begin) && target == in.target) {
+			if (log != null) {
+				final int oldBegin = begin;
+				final int oldEnd = end;
+				log.add(() -> {
+					begin = oldBegin;
+					end = oldEnd;
+				});
+			}
 			if (begin - 1 == in.end) {
 				begin = in.begin;
 			} else {
 				end = in.end;
 			}
-			tails.putAll(in.tails);
+			addTails(in, log);
 		} else {
 			throw new IllegalArgumentException("Intervals not neighbored -> merge [" + begin + "," + end + "] >-< [" + in.begin + "," + in.end + "]");
 		}
 	}
 
 	/**
-	 * Adds the given {@link TimedTail} to this transition
+	 * Adds all tails of the given {@link Interval} to this transition and records the change in the given {@link UndoLog}
+	 * 
+	 * @param in
+	 *            The {@link Interval} containing the tails to be added. The given object will not be changed.
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void addTails(Interval in, UndoLog log) {
+
+		final TIntArrayList merged = new TIntArrayList(tails.size() + in.tails.size());
+		int i = 0;
+		int j = 0;
+		while (i < tails.size() && j < in.tails.size()) {
+			final int t1 = tails.get(i);
+			final int t2 = in.tails.get(j);
+			if (t1 < t2) {
+				merged.add(t1);
+				i++;
+			} else if (t1 > t2) {
+				merged.add(t2);
+				j++;
+			} else {
+				merged.add(t1);
+				i++;
+				j++;
+			}
+		}
+		for (; i < tails.size(); i++) {
+			merged.add(tails.get(i));
+		}
+		for (; j < in.tails.size(); j++) {
+			merged.add(in.tails.get(j));
+		}
+		if (log != null) {
+			final TIntArrayList oldTails = tails;
+			log.add(() -> tails = oldTails);
+		}
+		tails = merged;
+	}
+
+	/**
+	 * Adds the given tail to this transition. The tails have to be sorted with {@link Interval#sortTails()} after adding.
 	 * 
 	 * @param tail
-	 *            The {@link TimedTail} using this transition while training a {@link PDRTA}
+	 *            The tail using this transition while training a {@link PDRTA}
 	 */
-	protected void addTail(TimedTail tail) {
-		tails.put(new Integer(tail.getTimeDelay()), tail);
+	protected void addTail(int tail) {
+		tails.add(tail);
+	}
+
+	/**
+	 * Sorts the tails after they were added with {@link Interval#addTail(int)}
+	 */
+	void sortTails() {
+		tails.sort();
+	}
+
+	private static TIntArrayList copyOfRange(TIntArrayList list, int from, int to) {
+
+		final TIntArrayList result = new TIntArrayList(Math.max(to - from, 1));
+		for (int i = from; i < to; i++) {
+			result.add(list.get(i));
+		}
+		return result;
 	}
 
 	/**
@@ -259,26 +400,38 @@ public class Interval implements Serializable {
 	 *            The target to be set
 	 */
 	public void setTarget(PDRTAState state) {
+		setTarget(state, null);
+	}
+
+	/**
+	 * Sets the given {@link PDRTAState} as target for this transition and records the change in the given {@link UndoLog}
+	 * 
+	 * @param state
+	 *            The target to be set
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void setTarget(PDRTAState state, UndoLog log) {
 
 		if (state == null) {
 			throw new IllegalArgumentException("The target state of an interval must not be null");
 		}
+		if (log != null) {
+			final PDRTAState oldTarget = target;
+			log.add(() -> target = oldTarget);
+		}
 		target = state;
 	}
 
 	/**
-	 * Checks whether this transition contains the given {@link TimedTail}
+	 * Checks whether this transition contains the given tail
 	 * 
 	 * @param tail
-	 *            The {@link TimedTail} to be checked
+	 *            The tail to be checked
 	 * @return Returns {@code true} if the given tail uses this transition. Returns {@code false} otherwise.
 	 */
-	public boolean containsTail(TimedTail tail) {
-		if (tail != null) {
-			return tails.containsEntry(new Integer(tail.getTimeDelay()), tail);
-		} else {
-			return false;
-		}
+	public boolean containsTail(int tail) {
+		return tails.binarySearch(tail) >= 0;
 	}
 
 	/**
@@ -298,14 +451,16 @@ public class Interval implements Serializable {
 	}
 
 	/**
-	 * Creates an {@link Interval} with specified begin and end. It has no target {@link PDRTAState} and contains no {@link TimedTail}s.
+	 * Creates an {@link Interval} with specified begin and end. It has no target {@link PDRTAState} and contains no tails.
 	 * 
 	 * @param b
 	 *            The inclusive begin of the interval
 	 * @param e
 	 *            The inclusive end of the interval
+	 * @param input
+	 *            The {@link PDRTAInput} containing the tails
 	 */
-	Interval(int b, int e) {
+	Interval(int b, int e, PDRTAInput input) {
 
 		if (b <= e) {
 			begin = b;
@@ -314,7 +469,8 @@ public class Interval implements Serializable {
 			begin = e;
 			end = b;
 		}
-		tails = TreeMultimap.create();
+		tails = new TIntArrayList();
+		this.input = input;
 		target = null;
 	}
 
@@ -361,7 +517,7 @@ public class Interval implements Serializable {
 	}
 
 	void cleanUp() {
-		tails.clear();
+		tails = new TIntArrayList(0);
 	}
 
 }
@@ -0,0 +1,62 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import sadl.models.pdrta.StateStatistic.CalcRatio;
+
+/**
+ * {@link CalcRatio} for the Likelihood Ratio Test that calculates the ratio of all pooled counts at once. It rounds exactly like the sum of
+ * {@link StateStatistic#calcLRTRatio(int, int, int, int)} over all bins, because the tests of RTI+ compare the ratios with a significance level and a
+ * different rounding flips borderline decisions. It only saves the work that does not change the result: the logarithm of the pooled probability is
+ * computed once per bin, and the terms of zero counts, which are exactly zero, are skipped.
+ */
+public final class LikelihoodRatioKernel implements CalcRatio {
+
+	public static final LikelihoodRatioKernel INSTANCE = new LikelihoodRatioKernel();
+
+	private LikelihoodRatioKernel() {
+	}
+
+	@Override
+	public double calc(int v1, int t1, int v2, int t2) {
+		return StateStatistic.calcLRTRatio(v1, t1, v2, t2);
+	}
+
+	@Override
+	public double calcAll(int[] v1, int[] v2, int size, int t1, int t2) {
+
+		final double total1 = t1;
+		final double total2 = t2;
+		final double total = t1 + t2;
+		double ratio = 0.0;
+		for (int i = 0; i < size; i++) {
+			final int c1 = v1[i];
+			final int c2 = v2[i];
+			if (c1 == 0 && c2 == 0) {
+				continue;
+			}
+			// Same order of operations as calcLRTRatio
+			final double logBoth = Math.log((c1 + c2) / total);
+			double binRatio = 0.0;
+			if (c1 > 0) {
+				binRatio += c1 * logBoth;
+				binRatio -= c1 * Math.log(c1 / total1);
+			}
+			if (c2 > 0) {
+				binRatio += c2 * logBoth;
+				binRatio -= c2 * Math.log(c2 / total2);
+			}
+			ratio += binRatio;
+		}
+		return ratio;
+	}
+
+}
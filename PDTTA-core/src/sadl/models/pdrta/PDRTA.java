@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
-import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -37,12 +36,15 @@ import org.apache.commons.math3.util.Pair;
 import com.google.common.collect.TreeMultimap;
 
 import gnu.trove.list.TDoubleList;
+import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.list.linked.TIntLinkedList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
+import sadl.detectors.SequenceScorer;
 import sadl.input.TimedWord;
 import sadl.interfaces.AutomatonModel;
 import sadl.modellearner.rtiplus.StateColoring;
@@ -64,6 +66,7 @@ public class PDRTA implements AutomatonModel, Serializable {
 	private final TIntLinkedList recycledStatesQueue;
 	private final PDRTAState root;
 	private final PDRTAInput input;
+	private transient volatile CompiledPDRTA compiled;
 
 	public static PDRTA parse(File file) throws IOException {
 
@@ -139,29 +142,30 @@ public class PDRTA implements AutomatonModel, Serializable {
 
 	}
 
-	private Pair<TDoubleList, TDoubleList> testSeqHisto(TimedTail tail) {
+	Pair<TDoubleList, TDoubleList> testSeqHisto(TimedWord word) {
 
 		final TDoubleList symP = new TDoubleArrayList();
 		final TDoubleList timeP = new TDoubleArrayList();
 		double[] p;
-		TimedTail t = tail.getNextTail();
 		PDRTAState s = root;
-		while (t != null) {
-			if (t.getSymbolAlphIndex() < 0) {
+		for (int i = 0; i < word.length(); i++) {
+			final int symAlphIdx = input.getAlphIndex(word, i);
+			final int timeDelay = word.getTimeValue(i);
+			final int histBarIdx = input.getHistBarIdx(timeDelay);
+			if (symAlphIdx < 0) {
 				// return Pair.create(new TDoubleArrayList(new double[] { -1.0 }), new TDoubleArrayList(0));
 				return Pair.create(new TDoubleArrayList(new double[] { 0.0 }), new TDoubleArrayList(0));
 			}
-			if (t.getHistBarIndex() < 0) {
+			if (histBarIdx < 0) {
 				// return Pair.create(new TDoubleArrayList(new double[] { -2.0 }), new TDoubleArrayList(0));
 				return Pair.create(new TDoubleArrayList(new double[] { 0.0 }), new TDoubleArrayList(0));
 			}
-			p = s.getStat().getHistProb(t);
+			p = s.getStat().getHistProb(symAlphIdx, histBarIdx);
 			symP.add(p[0]);
 			timeP.add(p[1]);
-			final Optional<Interval> in = s.getInterval(t.getSymbolAlphIndex(), t.getTimeDelay());
+			final Optional<Interval> in = s.getInterval(symAlphIdx, timeDelay);
 			if (in.isPresent()) {
 				s = in.get().getTarget();
-				t = t.getNextTail();
 			} else {
 				// return Pair.create(new TDoubleArrayList(0), new TDoubleArrayList(new double[] { -3.0 }));
 				return Pair.create(new TDoubleArrayList(new double[] { 0.0 }), new TDoubleArrayList(0));
@@ -172,25 +176,25 @@ public class PDRTA implements AutomatonModel, Serializable {
 		return Pair.create(symP, timeP);
 	}
 
-	private TDoubleList testSeqTrans(TimedTail tail) {
+	TDoubleList testSeqTrans(TimedWord word) {
 
 		final TDoubleList transP = new TDoubleArrayList();
-		TimedTail t = tail.getNextTail();
 		PDRTAState s = root;
-		while (t != null) {
-			if (t.getSymbolAlphIndex() < 0) {
+		for (int i = 0; i < word.length(); i++) {
+			final int symAlphIdx = input.getAlphIndex(word, i);
+			final int timeDelay = word.getTimeValue(i);
+			if (symAlphIdx < 0) {
 				// return new TDoubleArrayList(new double[] { -1.0 });
 				return new TDoubleArrayList(new double[] { 0.0 });
 			}
-			if (t.getHistBarIndex() < 0) {
+			if (input.getHistBarIdx(timeDelay) < 0) {
 				// return new TDoubleArrayList(new double[] { -2.0 });
 				return new TDoubleArrayList(new double[] { 0.0 });
 			}
-			final Optional<Interval> in = s.getInterval(t.getSymbolAlphIndex(), t.getTimeDelay());
-			transP.add(s.getStat().getTransProb(t.getSymbolAlphIndex(), in));
+			final Optional<Interval> in = s.getInterval(symAlphIdx, timeDelay);
+			transP.add(s.getStat().getTransProb(symAlphIdx, in));
 			if (in.isPresent()) {
 				s = in.get().getTarget();
-				t = t.getNextTail();
 			} else {
 				// return new TDoubleArrayList(new double[] { -3.0 });
 				return new TDoubleArrayList(new double[] { 0.0 });
@@ -211,28 +215,29 @@ public class PDRTA implements AutomatonModel, Serializable {
 
 		// Checking that a path for each sequence exists
 		// Get all tails that are leaving root
-		final List<TimedTail> rootTails = root.getIntervals().stream().filter(m -> m != null).flatMap(m -> m.values().stream()).filter(in -> in != null)
-				.flatMap(in -> in.getTails().entries().stream()).map(e -> e.getValue()).collect(Collectors.toList());
+		final TIntList rootTails = new TIntArrayList();
+		root.getIntervals().stream().filter(m -> m != null).flatMap(m -> m.values().stream()).filter(in -> in != null)
+		.forEach(in -> rootTails.addAll(in.getTails()));
 
 		if (rootTails.size() < input.size()) {
 			throw new IllegalStateException("Sequences are missing in the root state");
 		}
 
-		for (TimedTail t : rootTails) {
+		for (int i = 0; i < rootTails.size(); i++) {
+			int t = rootTails.get(i);
 			PDRTAState source = root;
-			while (t != null) {
-				final Optional<Interval> in = source.getInterval(t.getSymbolAlphIndex(), t.getTimeDelay());
+			while (t >= 0) {
+				final Optional<Interval> in = source.getInterval(input.getSymbolAlphIndex(t), input.getTimeDelay(t));
 				if (in.isPresent()) {
-					final NavigableSet<TimedTail> inTails = in.get().getTails().get(new Integer(t.getTimeDelay()));
-					if (inTails == null || !inTails.contains(t)) {
-						throw new IllegalStateException("The tail (" + input.getSymbol(t.getSymbolAlphIndex()) + "," + t.getTimeDelay()
-						+ ") was not found in transition ((" + source.getIndex() + "))--" + input.getSymbol(t.getSymbolAlphIndex()) + "-["
+					if (!in.get().containsTail(t)) {
+						throw new IllegalStateException("The tail (" + input.getSymbol(input.getSymbolAlphIndex(t)) + "," + input.getTimeDelay(t)
+						+ ") was not found in transition ((" + source.getIndex() + "))--" + input.getSymbol(input.getSymbolAlphIndex(t)) + "-["
 						+ in.get().getBegin() + "," + in.get().getEnd() + "]-->((" + in.get().getTarget().getIndex() + "))");
 					}
 					source = in.get().getTarget();
-					t = t.getNextTail();
+					t = input.getNextTail(t);
 				} else {
-					throw new IllegalStateException("The tail (" + input.getSymbol(t.getSymbolAlphIndex()) + "," + t.getTimeDelay()
+					throw new IllegalStateException("The tail (" + input.getSymbol(input.getSymbolAlphIndex(t)) + "," + input.getTimeDelay(t)
 					+ ") has no transition from state ((" + source.getIndex() + "))!");
 				}
 			}
@@ -440,7 +445,7 @@ public class PDRTA implements AutomatonModel, Serializable {
 		return input.getHistSizes();
 	}
 
-	protected PDRTAInput getInput() {
+	public PDRTAInput getInput() {
 		return input;
 	}
 
@@ -498,7 +503,7 @@ public class PDRTA implements AutomatonModel, Serializable {
 				s.getIntervals().set(input.getAlphIndex(sym), ins.get());
 			}
 			assert (ins.get().ceilingEntry(new Integer(end)).getValue() == null);
-			final Interval newIn = new Interval(begin, end);
+			final Interval newIn = new Interval(begin, end, input);
 			ins.get().put(new Integer(end), newIn);
 			if (!ins.get().containsKey(new Integer(begin - 1)) && begin > input.getMinTimeDelay()) {
 				// Put empty dummy below new interval
@@ -515,7 +520,7 @@ public class PDRTA implements AutomatonModel, Serializable {
 	private void createTAPTA() {
 
 		for (int i = 0; i < input.size(); i++) {
-			root.addTail(input.getTailChain(i));
+			root.addTail(input.getFirstTail(i));
 		}
 		createSubTAPTA(root);
 	}
@@ -529,67 +534,117 @@ public class PDRTA implements AutomatonModel, Serializable {
 
 		for (final Interval in : ins) {
 			assert (in.getTarget() == null);
-			final Set<Entry<Integer, TimedTail>> tails = in.getTails().entries();
+			final TIntList tails = in.getTails();
 			if (!tails.isEmpty()) {
 				final PDRTAState target = acquireState();
 				in.setTarget(target);
-				for (final Entry<Integer, TimedTail> e : tails) {
-					target.addTail(e.getValue());
+				for (int i = 0; i < tails.size(); i++) {
+					target.addTail(input.getNextTail(tails.get(i)));
 				}
+				target.sortTails();
 				createSubTAPTA_rec_new(target);
 			}
 		}
 	}
 
 	public void createSubTAPTA(PDRTAState s) {
+		createSubTAPTA(s, null);
+	}
+
+	/**
+	 * Creates a sub timed augmented prefix tree acceptor for the given {@link PDRTAState} and records the acquired {@link PDRTAState}s in the given
+	 * {@link UndoLog}. The given state has to be acquired with the same log before. The tails of all involved {@link PDRTAState}s are sorted afterwards.
+	 * 
+	 * @param s
+	 *            The root of the sub tree
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void createSubTAPTA(PDRTAState s, UndoLog log) {
 
 		// Get all present intervals of s
 		final List<Interval> ins = s.getIntervals().stream().filter(m -> m != null).flatMap(m -> m.values().stream()).filter(in -> in != null)
 				.collect(Collectors.toList());
 
+		// The tails have to be processed in sorted order to acquire the states in a deterministic order
+		s.sortTails();
+		final List<PDRTAState> acquired = new ArrayList<>();
 		for (final Interval interval : ins) {
-			final Set<Entry<Integer, TimedTail>> tails = interval.getTails().entries();
+			final TIntList tails = interval.getTails();
 			assert (interval.getTarget() == null);
 			if (!tails.isEmpty()) {
-				interval.setTarget(acquireState());
+				interval.setTarget(acquireState(log));
+				acquired.add(interval.getTarget());
 			}
-			for (final Entry<Integer, TimedTail> e : tails) {
-				TimedTail tail = e.getValue();
+			for (int i = 0; i < tails.size(); i++) {
 				PDRTAState ts = interval.getTarget();
-				Interval in = interval;
-				while (tail.getNextTail() != null) {
+				int tail = input.getNextTail(tails.get(i));
+				while (tail >= 0) {
 					ts.addTail(tail);
-					assert (in.containsTail(tail));
-					tail = tail.getNextTail();
 					// Interval has to be present, was created within the addTail method
-					in = ts.getInterval(tail.getSymbolAlphIndex(), tail.getTimeDelay()).get();
+					final Interval in = ts.getInterval(input.getSymbolAlphIndex(tail), input.getTimeDelay(tail)).get();
 					if (in.getTarget() == null) {
-						in.setTarget(acquireState());
+						in.setTarget(acquireState(log));
+						acquired.add(in.getTarget());
 					}
 					ts = in.getTarget();
+					tail = input.getNextTail(tail);
 				}
-				ts.addTail(tail);
+				ts.addTail(-1);
 			}
 
 		}
+		for (final PDRTAState t : acquired) {
+			t.sortTails();
+		}
 	}
 
 	public PDRTAState acquireState() {
+		return acquireState(null);
+	}
+
+	/**
+	 * Acquires a recycled or new {@link PDRTAState} and records the change in the given {@link UndoLog}. Rolling back the log recycles the state again.
+	 * 
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 * @return The acquired {@link PDRTAState}
+	 */
+	public PDRTAState acquireState(UndoLog log) {
 
 		if (!recycledStatesQueue.isEmpty()) {
-			return states.get(recycledStatesQueue.removeAt(0));
+			final PDRTAState s = states.get(recycledStatesQueue.removeAt(0));
+			if (log != null) {
+				log.add(() -> {
+					s.recycle();
+					// TIntLinkedList.insert fails for lists that became empty
+					if (recycledStatesQueue.isEmpty()) {
+						recycledStatesQueue.add(s.getIndex());
+					} else {
+						recycledStatesQueue.insert(0, s.getIndex());
+					}
+				});
+			}
+			return s;
 		}
 		final PDRTAState s = new PDRTAState(states.size(), this);
 		states.put(states.size(), s);
+		if (log != null) {
+			log.add(() -> states.remove(s.getIndex()));
+		}
 		return s;
 	}
 
 	public void recycleSubAPTA(PDRTAState s, StateColoring sc) {
+		recycleSubAPTA(s, sc, null);
+	}
+
+	public void recycleSubAPTA(PDRTAState s, StateColoring sc, UndoLog log) {
 
 		for (final PDRTAState t : s.getTargets()) {
-			recycleSubAPTA(t, sc);
+			recycleSubAPTA(t, sc, log);
 		}
-		recycleState(s, sc);
+		recycleState(s, sc, log);
 	}
 
 	public static int getMinData() {
@@ -597,10 +652,27 @@ public class PDRTA implements AutomatonModel, Serializable {
 	}
 
 	public void recycleState(PDRTAState s, StateColoring sc) {
+		recycleState(s, sc, null);
+	}
+
+	/**
+	 * Recycles the given {@link PDRTAState} and records the change in the given {@link UndoLog}. Changes of the {@link StateColoring} are not recorded.
+	 * 
+	 * @param s
+	 *            The {@link PDRTAState} to be recycled
+	 * @param sc
+	 *            The {@link StateColoring} the state is removed from
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void recycleState(PDRTAState s, StateColoring sc, UndoLog log) {
 
 		if (states.containsKey(s.getIndex()) && states.get(s.getIndex()) == s) {
 			recycledStatesQueue.add(s.getIndex());
-			s.recycle();
+			if (log != null) {
+				log.add(() -> recycledStatesQueue.removeAt(recycledStatesQueue.size() - 1));
+			}
+			s.recycle(log);
 			if (sc.isBlue(s)) {
 				sc.remove(s);
 			}
@@ -653,17 +725,53 @@ public class PDRTA implements AutomatonModel, Serializable {
 		}
 	}
 
+	/**
+	 * Returns the array-backed representation of the {@link PDRTA} that is used for scoring. It is created on first use after the training is finished.
+	 * 
+	 * @return The compiled {@link PDRTA} or {@code null} if the {@link PDRTA} is still in train mode
+	 */
+	CompiledPDRTA getCompiled() {
+
+		CompiledPDRTA c = compiled;
+		if (c == null && !root.getStat().isTrainMode()) {
+			synchronized (this) {
+				c = compiled;
+				if (c == null) {
+					c = new CompiledPDRTA(this);
+					compiled = c;
+				}
+			}
+		}
+		return c;
+	}
+
 	@Override
 	public Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord seq) {
 
-		final TimedTail t = input.toTestTailChain(seq);
-		return testSeqHisto(t);
+		final CompiledPDRTA c = getCompiled();
+		if (c != null) {
+			return c.testSeqHisto(seq);
+		}
+		return testSeqHisto(seq);
 	}
 
 	public Pair<TDoubleList, TDoubleList> calculateProbsTrans(TimedWord seq) {
 
-		final TimedTail t = input.toTestTailChain(seq);
-		return Pair.create(testSeqTrans(t), new TDoubleArrayList(0));
+		final CompiledPDRTA c = getCompiled();
+		if (c != null) {
+			return Pair.create(c.testSeqTrans(seq), new TDoubleArrayList(0));
+		}
+		return Pair.create(testSeqTrans(seq), new TDoubleArrayList(0));
+	}
+
+	@Override
+	public SequenceScorer newScorer() {
+
+		final CompiledPDRTA c = getCompiled();
+		if (c != null) {
+			return new CompiledPDRTAScorer(c);
+		}
+		return new PDRTAScorer(this);
 	}
 
 	@Override
@@ -733,6 +841,7 @@ public class PDRTA implements AutomatonModel, Serializable {
 		for (final PDRTAState s : states.valueCollection()) {
 			s.cleanUp();
 		}
+		compiled = null;
 	}
 
 	@Override
@@ -11,7 +11,6 @@
 package sadl.models.pdrta;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.SortedMap;
@@ -21,7 +20,9 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import gnu.trove.list.TIntList;
 import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
 import sadl.modellearner.rtiplus.OperationUtil;
@@ -42,7 +43,21 @@ public class PDRTAInput implements Serializable {
 	private int[] histoBorders;
 	private int[] histoSizes;
 
-	private List<TimedTail> tails;
+	/**
+	 * The tails of all timed sequences stored column-wise. A tail is an event of a timed sequence and is identified by its index in these arrays. The tails
+	 * are numbered ascending by time delay, symbol index, sequence index and position within the sequence, so that sorting tail indices is the same as sorting
+	 * the tails by time delay.
+	 */
+	private int[] tailSymbols;
+	private int[] tailDelays;
+	private int[] tailHistBars;
+	private int[] tailWords;
+	private int[] nextTails;
+
+	/**
+	 * Contains the first tail of each timed sequence or {@code -1} if a sequence is empty
+	 */
+	private int[] firstTails;
 
 	private final TimedInput inp;
 
@@ -70,14 +85,68 @@ public class PDRTAInput implements Serializable {
 
 		checkBorders();
 		calcHistSizes();
-		tails = new ArrayList<>(inp.size());
-		for (int i = 0; i < inp.size(); i++) {
-			tails.add(createTailChain(i, inp.get(i)));
-		}
+		createTails();
 		// TODO Decide what to do about TimedWords in memory
 		// inp.clearWords();
 	}
 
+	private void createTails() {
+
+		int numTails = 0;
+		for (int i = 0; i < inp.size(); i++) {
+			numTails += inp.getWordLength(i);
+		}
+
+		// Sort key of each event in sequence order: time delay in the upper and symbol index in the lower bits
+		final long[] keys = new long[numTails];
+		final TLongIntMap keyCounts = new TLongIntHashMap();
+		int pos = 0;
+		for (int i = 0; i < inp.size(); i++) {
+			for (int j = 0; j < inp.getWordLength(i); j++) {
+				keys[pos] = ((long) inp.getTimeValue(i, j) << 32) | (inp.getSymbolId(i, j) & 0xFFFFFFFFL);
+				keyCounts.adjustOrPutValue(keys[pos], 1, 1);
+				pos++;
+			}
+		}
+
+		// Counting sort that keeps the sequence order for equal keys
+		final long[] distinctKeys = keyCounts.keys();
+		Arrays.sort(distinctKeys);
+		final TLongIntMap offsets = new TLongIntHashMap(distinctKeys.length);
+		int offset = 0;
+		for (final long key : distinctKeys) {
+			offsets.put(key, offset);
+			offset += keyCounts.get(key);
+		}
+
+		tailSymbols = new int[numTails];
+		tailDelays = new int[numTails];
+		tailHistBars = new int[numTails];
+		tailWords = new int[numTails];
+		nextTails = new int[numTails];
+		firstTails = new int[inp.size()];
+		pos = 0;
+		for (int i = 0; i < inp.size(); i++) {
+			int prev = -1;
+			firstTails[i] = -1;
+			for (int j = 0; j < inp.getWordLength(i); j++) {
+				final int tail = offsets.adjustOrPutValue(keys[pos], 1, 1) - 1;
+				tailSymbols[tail] = inp.getSymbolId(i, j);
+				tailDelays[tail] = inp.getTimeValue(i, j);
+				tailHistBars[tail] = getHistBarIdx(tailDelays[tail]);
+				tailWords[tail] = i;
+				nextTails[tail] = -1;
+				if (prev < 0) {
+					firstTails[i] = tail;
+				} else {
+					nextTails[prev] = tail;
+				}
+				prev = tail;
+				pos++;
+			}
+		}
+	}
+
 	private void expand(double expansionRate) {
 
 		if (expansionRate > 0.0) {
@@ -117,29 +186,86 @@ public class PDRTAInput implements Serializable {
 	 * @return {@code true} if and only if the {@link TimedInput} contains at least one timed sequence
 	 */
 	boolean isEmpty() {
-		return tails.isEmpty();
+		return firstTails.length == 0;
 	}
 
 	/**
-	 * Removes all {@link TimedTail}s from the {@link PDRTAInput} to reduce memory consumption.
+	 * Removes all tails from the {@link PDRTAInput} to reduce memory consumption.
 	 */
 	public void clear() {
-		tails.clear();
+
+		tailSymbols = new int[0];
+		tailDelays = new int[0];
+		tailHistBars = new int[0];
+		tailWords = new int[0];
+		nextTails = new int[0];
+		firstTails = new int[0];
 	}
 
 	/**
-	 * Returns the {@link TimedTail} chain at the given index.
+	 * Returns the first tail of the timed sequence at the given index.
 	 * 
 	 * @param i
-	 *            The index to get the {@link TimedTail} chain for
-	 * @return The {@link TimedTail} chain at the given index or {@code null} if the index does not exist
+	 *            The index of the timed sequence
+	 * @return The first tail of the timed sequence or {@code -1} if the sequence is empty
 	 */
-	TimedTail getTailChain(int i) {
+	int getFirstTail(int i) {
+		return firstTails[i];
+	}
 
-		if (i >= 0 && i < tails.size()) {
-			return tails.get(i);
-		}
-		return null;
+	/**
+	 * Returns the symbol index of the given tail.
+	 * 
+	 * @param tail
+	 *            The tail
+	 * @return The symbol index of the tail
+	 */
+	public int getSymbolAlphIndex(int tail) {
+		return tailSymbols[tail];
+	}
+
+	/**
+	 * Returns the time delay of the given tail.
+	 * 
+	 * @param tail
+	 *            The tail
+	 * @return The time delay of the tail
+	 */
+	public int getTimeDelay(int tail) {
+		return tailDelays[tail];
+	}
+
+	/**
+	 * Returns the histogram bin index of the given tail.
+	 * 
+	 * @param tail
+	 *            The tail
+	 * @return The histogram bin index of the tail
+	 */
+	public int getHistBarIndex(int tail) {
+		return tailHistBars[tail];
+	}
+
+	/**
+	 * Returns the index of the timed sequence the given tail belongs to.
+	 * 
+	 * @param tail
+	 *            The tail
+	 * @return The index of the timed sequence
+	 */
+	public int getWordIndex(int tail) {
+		return tailWords[tail];
+	}
+
+	/**
+	 * Returns the tail following the given tail in its timed sequence.
+	 * 
+	 * @param tail
+	 *            The tail
+	 * @return The next tail or {@code -1} if the given tail is the last one of its sequence
+	 */
+	public int getNextTail(int tail) {
+		return nextTails[tail];
 	}
 
 	/**
@@ -148,7 +274,7 @@ public class PDRTAInput implements Serializable {
 	 * @return The number of timed sequences
 	 */
 	public int size() {
-		return tails.size();
+		return firstTails.length;
 	}
 
 	/**
@@ -182,6 +308,19 @@ public class PDRTAInput implements Serializable {
 		return inp.getAlphIndex(s);
 	}
 
+	/**
+	 * Returns the index of the symbol at the given index of a {@link TimedWord} in the {@link PDRTAInput} (see {@link TimedInput#getAlphIndex(TimedWord, int)}).
+	 * 
+	 * @param w
+	 *            The word that contains the symbol
+	 * @param i
+	 *            The index of the symbol in the word
+	 * @return The index for the symbol or {@code -1} if the symbol is not contained in the {@link PDRTAInput}
+	 */
+	public int getAlphIndex(TimedWord w, int i) {
+		return inp.getAlphIndex(w, i);
+	}
+
 	private void calcHistSizes() {
 
 		histoSizes = new int[histoBorders.length + 1];
@@ -258,32 +397,7 @@ public class PDRTAInput implements Serializable {
 		return histoBorders;
 	}
 
-	private TimedTail createTailChain(int idxWord, TimedWord word) {
-
-		// TODO Try to reuse this param check. Error when testing with trained tester, input not empty
-		// if (inp.isEmpty() || inp.get(idxWord).equals(word)) {
-
-		String s = "startTail";
-		int sIdx = Integer.MIN_VALUE;
-		int tDel = sIdx;
-		int tDelIdx = sIdx;
-		final TimedTail startTail = new TimedTail(s, sIdx, tDel, tDelIdx, idxWord, Integer.MIN_VALUE, null);
-
-		TimedTail prevTail = startTail;
-		for (int i = 0; i < word.length(); i++) {
-			s = word.getSymbol(i);
-			sIdx = getAlphIndex(s);
-			tDel = word.getTimeValue(i);
-			tDelIdx = getHistBarIdx(tDel);
-			prevTail = new TimedTail(s, sIdx, tDel, tDelIdx, idxWord, i, prevTail);
-		}
-		return startTail;
-		// } else {
-		// throw new IllegalArgumentException("The given TimedWord must be part of the TimedInput");
-		// }
-	}
-
-	private int getHistBarIdx(int time) {
+	int getHistBarIdx(int time) {
 
 		if (time < minTimeDelay || time > maxTimeDelay) {
 			return -1;
@@ -297,10 +411,6 @@ public class PDRTAInput implements Serializable {
 		}
 	}
 
-	TimedTail toTestTailChain(TimedWord word) {
-		return createTailChain(-1, word);
-	}
-
 	static PDRTAInput parse(List<String> data) {
 
 		if (data.size() != 4) {
@@ -365,7 +475,12 @@ public class PDRTAInput implements Serializable {
 		result = prime * result + ((inp == null) ? 0 : inp.hashCode());
 		result = prime * result + maxTimeDelay;
 		result = prime * result + minTimeDelay;
-		result = prime * result + ((tails == null) ? 0 : tails.hashCode());
+		result = prime * result + Arrays.hashCode(tailSymbols);
+		result = prime * result + Arrays.hashCode(tailDelays);
+		result = prime * result + Arrays.hashCode(tailHistBars);
+		result = prime * result + Arrays.hashCode(tailWords);
+		result = prime * result + Arrays.hashCode(nextTails);
+		result = prime * result + Arrays.hashCode(firstTails);
 		return result;
 	}
 
@@ -401,11 +516,22 @@ public class PDRTAInput implements Serializable {
 		if (minTimeDelay != other.minTimeDelay) {
 			return false;
 		}
-		if (tails == null) {
-			if (other.tails != null) {
-				return false;
-			}
-		} else if (!tails.equals(other.tails)) {
+		if (!Arrays.equals(tailSymbols, other.tailSymbols)) {
+			return false;
+		}
+		if (!Arrays.equals(tailDelays, other.tailDelays)) {
+			return false;
+		}
+		if (!Arrays.equals(tailHistBars, other.tailHistBars)) {
+			return false;
+		}
+		if (!Arrays.equals(tailWords, other.tailWords)) {
+			return false;
+		}
+		if (!Arrays.equals(nextTails, other.nextTails)) {
+			return false;
+		}
+		if (!Arrays.equals(firstTails, other.firstTails)) {
 			return false;
 		}
 		return true;
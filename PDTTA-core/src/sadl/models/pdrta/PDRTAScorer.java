@@ -0,0 +1,67 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import java.util.Optional;
+
+import sadl.detectors.SequenceScorer;
+
+/**
+ * {@link SequenceScorer} that traverses a {@link PDRTA} with the histogram probabilities. Computes the same likelihoods as
+ * {@link PDRTA#calculateProbabilities(sadl.input.TimedWord)}.
+ */
+class PDRTAScorer extends SequenceScorer {
+
+	private final PDRTAInput input;
+	private PDRTAState currentState;
+
+	PDRTAScorer(PDRTA automaton) {
+		this.input = automaton.getInput();
+		this.currentState = automaton.getRoot();
+	}
+
+	@Override
+	protected void step(String symbol, int timeDelay) {
+
+		final int symAlphIdx = input.getAlphIndex(symbol);
+		final int histBarIdx = input.getHistBarIdx(timeDelay);
+		if (symAlphIdx < 0 || histBarIdx < 0) {
+			reject();
+			return;
+		}
+		final double[] p = currentState.getStat().getHistProb(symAlphIdx, histBarIdx);
+		addEventLikelihood(p[0]);
+		addTimeLikelihood(p[1]);
+		final Optional<Interval> in = currentState.getInterval(symAlphIdx, timeDelay);
+		if (in.isPresent()) {
+			currentState = in.get().getTarget();
+		} else {
+			reject();
+		}
+	}
+
+	/**
+	 * Like {@link PDRTA#calculateProbabilities(sadl.input.TimedWord)}, a word that cannot be processed only gets a single event likelihood of zero
+	 */
+	private void reject() {
+
+		clearLikelihoods();
+		addEventLikelihood(0.0);
+		stop();
+	}
+
+	@Override
+	protected void end() {
+
+		addEventLikelihood(currentState.getStat().getTailEndProb());
+	}
+
+}
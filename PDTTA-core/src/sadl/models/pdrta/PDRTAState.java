@@ -83,51 +83,48 @@ public class PDRTAState implements Serializable {
 	}
 
 	/**
-	 * Add incoming Tail
+	 * Add incoming Tail. The tails of the intervals have to be sorted with {@link PDRTAState#sortTails()} after adding.
 	 * 
-	 * @param tail
+	 * @param next
+	 *            The tail following the incoming tail, i.e. the tail leaving this state, or {@code -1} if the sequence ends in this state
 	 */
-	public void addTail(TimedTail tail) {
+	public void addTail(int next) {
 
 		if (automaton.hasInput()) {
-			if (tail != null) {
-				stat.addToStats(tail);
-				final TimedTail t = tail.getNextTail();
-				if (t != null) {
-					Optional<NavigableMap<Integer, Interval>> inMap = getIntervals(t.getSymbolAlphIndex());
-					if (!inMap.isPresent()) {
-						inMap = Optional.of(Interval.createInitialIntervalMap(automaton.getMinTimeDelay(), automaton.getMaxTimeDelay()));
-						intervals.set(t.getSymbolAlphIndex(), inMap.get());
-					}
-					assert (inMap.get().size() == 1);
-					// Always contains existing initial interval
-					inMap.get().firstEntry().getValue().addTail(t);
+			final PDRTAInput input = automaton.getInput();
+			stat.addToStats(input, next);
+			if (next >= 0) {
+				final int symAlphIdx = input.getSymbolAlphIndex(next);
+				Optional<NavigableMap<Integer, Interval>> inMap = getIntervals(symAlphIdx);
+				if (!inMap.isPresent()) {
+					inMap = Optional.of(Interval.createInitialIntervalMap(automaton.getMinTimeDelay(), automaton.getMaxTimeDelay(), input));
+					intervals.set(symAlphIdx, inMap.get());
 				}
-			} else {
-				throw new IllegalArgumentException("The given TimedTail must not be null!");
+				assert (inMap.get().size() == 1);
+				// Always contains existing initial interval
+				inMap.get().firstEntry().getValue().addTail(next);
 			}
 		} else {
 			throw new IllegalStateException("This operation is only allowed in training phase!");
 		}
 	}
 
+	/**
+	 * Sorts the tails of all intervals after adding tails with {@link PDRTAState#addTail(int)}
+	 */
+	void sortTails() {
+		intervals.stream().filter(m -> m != null).flatMap(m -> m.values().stream()).filter(in -> in != null).forEach(in -> in.sortTails());
+	}
+
 	public Collection<PDRTAState> getTargets() {
 		return intervals.stream().filter(m -> m != null).flatMap(m -> m.values().stream()).filter(in -> in != null).map(in -> in.getTarget())
 				.collect(Collectors.toSet());
 	}
 
-	public Optional<PDRTAState> getTarget(TimedTail tail) {
-		return getTarget(tail.getSymbolAlphIndex(), tail.getTimeDelay());
-	}
-
 	public Optional<PDRTAState> getTarget(int symAlphIdx, int timeDel) {
 		return getInterval(symAlphIdx, timeDel).map(in -> in.getTarget());
 	}
 
-	public double getProbabilityTrans(TimedTail tail) {
-		return getProbabilityTrans(tail.getSymbolAlphIndex(), tail.getTimeDelay());
-	}
-
 	public double getProbabilityTrans(int symAplhIdx, int timeDel) {
 
 		final Optional<Interval> in = getInterval(symAplhIdx, timeDel);
@@ -238,4 +235,19 @@ public class PDRTAState implements Serializable {
 		Collections.fill(intervals, null);
 	}
 
+	void recycle(UndoLog log) {
+
+		if (log != null) {
+			final List<NavigableMap<Integer, Interval>> oldIntervals = new ArrayList<>(intervals);
+			final StateStatistic oldStat = new StateStatistic(stat);
+			log.add(() -> {
+				stat.restore(oldStat);
+				for (int i = 0; i < oldIntervals.size(); i++) {
+					intervals.set(i, oldIntervals.get(i));
+				}
+			});
+		}
+		recycle();
+	}
+
 }
@@ -13,14 +13,11 @@ package sadl.models.pdrta;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.function.Function;
 
-import com.google.common.collect.Multimap;
-
-import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.TIntList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
 import sadl.modellearner.rtiplus.SimplePDRTALearner;
@@ -40,28 +37,61 @@ public class StateStatistic implements Serializable {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Reusable count arrays for the Likelihood Ratio calculations of each thread
+	 */
+	private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	private static class Scratch {
+
+		int[] part1 = new int[0];
+		int[] part2 = new int[0];
+		int[] pooled1 = new int[0];
+		int[] pooled2 = new int[0];
+		// number of pools and sums of the pooled counts after the last call of poolStats
+		int pools;
+		int total1;
+		int total2;
+
+		void ensureParts(int length) {
+
+			if (part1.length < length) {
+				part1 = new int[length];
+				part2 = new int[length];
+			}
+		}
+
+		void ensurePools(int length) {
+
+			if (pooled1.length < length) {
+				pooled1 = new int[length];
+				pooled2 = new int[length];
+			}
+		}
+	}
+
 	/**
 	 * Contains the sizes (width) of the histogram bins
 	 */
 	private int[] histBarSizes;
 
 	/**
-	 * Contains the number of outgoing {@link TimedTail}s for each histogram bin while training
+	 * Contains the number of outgoing tails for each histogram bin while training
 	 */
 	private int[] timeCount;
 
 	/**
-	 * Contains the number of outgoing {@link TimedTail}s for each symbol while training
+	 * Contains the number of outgoing tails for each symbol while training
 	 */
 	private int[] symbolCount;
 
 	/**
-	 * Contains the total number of outgoing {@link TimedTail}s while training
+	 * Contains the total number of outgoing tails while training
 	 */
 	private int totalOutCount;
 
 	/**
-	 * Contains the number of incoming {@link TimedTail}s while training
+	 * Contains the number of incoming tails while training
 	 */
 	private int totalInCount;
 
@@ -71,22 +101,22 @@ public class StateStatistic implements Serializable {
 	private boolean trainMode;
 
 	/**
-	 * Contains the probabilities for outgoing {@link TimedTail}s for each histogram bin during anomaly detection
+	 * Contains the probabilities for outgoing tails for each histogram bin during anomaly detection
 	 */
 	private double[] timeProbs;
 
 	/**
-	 * Contains the probabilities for outgoing {@link TimedTail}s for each symbol during anomaly detection
+	 * Contains the probabilities for outgoing tails for each symbol during anomaly detection
 	 */
 	private double[] symbolProbs;
 
 	/**
-	 * Contains the probability for incoming {@link TimedTail}s to end in the {@link PDRTAState} during anomaly detection
+	 * Contains the probability for incoming tails to end in the {@link PDRTAState} during anomaly detection
 	 */
 	private double tailEndProb;
 
 	/**
-	 * Contains the probabilities for transitions to be used by {@link TimedTail}s during anomaly detection
+	 * Contains the probabilities for transitions to be used by tails during anomaly detection
 	 */
 	private TIntObjectHashMap<TObjectDoubleHashMap<Interval>> intervalProbs;
 
@@ -189,7 +219,7 @@ public class StateStatistic implements Serializable {
 		if (SimplePDRTALearner.bOp[2].eval(st1.totalOutCount < minData, st2.totalOutCount < minData)) {
 			return new LikelihoodValue();
 		} else {
-			return calcInterimLRT(a, st1.symbolCount, st2.symbolCount, advancedPooling, cr);
+			return calcInterimLRT(a, st1.symbolCount, st2.symbolCount, st1.symbolCount.length, advancedPooling, cr);
 		}
 	}
 
@@ -217,21 +247,21 @@ public class StateStatistic implements Serializable {
 		if (SimplePDRTALearner.bOp[2].eval(st1.totalOutCount < minData, st2.totalOutCount < minData)) {
 			return new LikelihoodValue();
 		} else {
-			return calcInterimLRT(a, st1.timeCount, st2.timeCount, advancedPooling, cr);
+			return calcInterimLRT(a, st1.timeCount, st2.timeCount, st1.timeCount.length, advancedPooling, cr);
 		}
 	}
 
 	/**
-	 * Calculates the {@link LikelihoodValue} of the symbol distributions for splitting a transition. This done by splitting the set of {@link TimedTail}s in a
+	 * Calculates the {@link LikelihoodValue} of the symbol distributions for splitting a transition. This done by splitting the set of tails in a
 	 * {@link PDRTAState}
 	 * 
 	 * @param s
 	 *            The {@link PDRTAState} for splitting
-	 * @param mSym
-	 *            The Set of {@link TimedTail}s to be split apart clustered by symbol index
+	 * @param tails
+	 *            The tails leaving the {@link PDRTAState} to be split apart
 	 * @return The {@link LikelihoodValue} of the symbol distributions for splitting a transition
 	 */
-	public static LikelihoodValue getLikelihoodRatioSym(PDRTAState s, Multimap<Integer, TimedTail> mSym, boolean advancedPooling, CalcRatio cr) {
+	public static LikelihoodValue getLikelihoodRatioSym(PDRTAState s, TIntList tails, boolean advancedPooling, CalcRatio cr) {
 
 		final StateStatistic st = s.getStat();
 		final PDRTA a = s.getPDRTA();
@@ -242,31 +272,38 @@ public class StateStatistic implements Serializable {
 		}
 
 		// LRT_FIX : Operator for calculation interruption (thesis: AND, impl: OR, own: AND)
-		if (SimplePDRTALearner.bOp[2].eval((st.totalOutCount - mSym.size()) < minData, mSym.size() < minData)) {
+		if (SimplePDRTALearner.bOp[2].eval((st.totalOutCount - tails.size()) < minData, tails.size() < minData)) {
 			return new LikelihoodValue();
 		}
 
-		final int[] part1SymCount = Arrays.copyOf(st.symbolCount, st.symbolCount.length);
-		final int[] part2SymCount = new int[st.symbolCount.length];
-		for (final Entry<Integer, Collection<TimedTail>> eCol : mSym.asMap().entrySet()) {
-			part1SymCount[eCol.getKey().intValue()] -= eCol.getValue().size();
-			part2SymCount[eCol.getKey().intValue()] += eCol.getValue().size();
+		final PDRTAInput input = a.getInput();
+		final int length = st.symbolCount.length;
+		final Scratch buffers = scratch.get();
+		buffers.ensureParts(length);
+		final int[] part1SymCount = buffers.part1;
+		final int[] part2SymCount = buffers.part2;
+		System.arraycopy(st.symbolCount, 0, part1SymCount, 0, length);
+		Arrays.fill(part2SymCount, 0, length, 0);
+		for (int i = 0; i < tails.size(); i++) {
+			final int symAlphIdx = input.getSymbolAlphIndex(tails.get(i));
+			part1SymCount[symAlphIdx]--;
+			part2SymCount[symAlphIdx]++;
 		}
 
-		return calcInterimLRT(a, part1SymCount, part2SymCount, advancedPooling, cr);
+		return calcInterimLRT(a, part1SymCount, part2SymCount, length, advancedPooling, cr);
 	}
 
 	/**
-	 * Calculates the {@link LikelihoodValue} of the histogram bin distributions for splitting a transition. This done by splitting the set of {@link TimedTail}
-	 * s in a {@link PDRTAState}
+	 * Calculates the {@link LikelihoodValue} of the histogram bin distributions for splitting a transition. This done by splitting the set of tails in a
+	 * {@link PDRTAState}
 	 * 
 	 * @param s
 	 *            The {@link PDRTAState} for splitting
-	 * @param mHist
-	 *            The Set of {@link TimedTail}s to be split apart clustered by histogram index
+	 * @param tails
+	 *            The tails leaving the {@link PDRTAState} to be split apart
 	 * @return The {@link LikelihoodValue} of the histogram bin distributions for splitting a transition
 	 */
-	public static LikelihoodValue getLikelihoodRatioTime(PDRTAState s, Multimap<Integer, TimedTail> mHist, boolean advancedPooling, CalcRatio cr) {
+	public static LikelihoodValue getLikelihoodRatioTime(PDRTAState s, TIntList tails, boolean advancedPooling, CalcRatio cr) {
 
 		final StateStatistic st = s.getStat();
 		final PDRTA a = s.getPDRTA();
@@ -277,18 +314,25 @@ public class StateStatistic implements Serializable {
 		}
 
 		// LRT_FIX : Operator for calculation interruption (thesis: AND, impl: OR, own: AND)
-		if (SimplePDRTALearner.bOp[2].eval((st.totalOutCount - mHist.size()) < minData, mHist.size() < minData)) {
+		if (SimplePDRTALearner.bOp[2].eval((st.totalOutCount - tails.size()) < minData, tails.size() < minData)) {
 			return new LikelihoodValue();
 		}
 
-		final int[] part1TimeCount = Arrays.copyOf(st.timeCount, st.timeCount.length);
-		final int[] part2TimeCount = new int[st.timeCount.length];
-		for (final Entry<Integer, Collection<TimedTail>> eCol : mHist.asMap().entrySet()) {
-			part1TimeCount[eCol.getKey().intValue()] -= eCol.getValue().size();
-			part2TimeCount[eCol.getKey().intValue()] += eCol.getValue().size();
+		final PDRTAInput input = a.getInput();
+		final int length = st.timeCount.length;
+		final Scratch buffers = scratch.get();
+		buffers.ensureParts(length);
+		final int[] part1TimeCount = buffers.part1;
+		final int[] part2TimeCount = buffers.part2;
+		System.arraycopy(st.timeCount, 0, part1TimeCount, 0, length);
+		Arrays.fill(part2TimeCount, 0, length, 0);
+		for (int i = 0; i < tails.size(); i++) {
+			final int histBarIdx = input.getHistBarIndex(tails.get(i));
+			part1TimeCount[histBarIdx]--;
+			part2TimeCount[histBarIdx]++;
 		}
 
-		return calcInterimLRT(a, part1TimeCount, part2TimeCount, advancedPooling, cr);
+		return calcInterimLRT(a, part1TimeCount, part2TimeCount, length, advancedPooling, cr);
 	}
 
 	public static LikelihoodValue getLikelihoodTime(PDRTAState s) {
@@ -358,20 +402,21 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Adds an incoming {@link TimedTail} to the statistics while training
+	 * Adds an incoming tail to the statistics while training
 	 * 
-	 * @param t
-	 *            The incoming {@link TimedTail} to be added
+	 * @param input
+	 *            The {@link PDRTAInput} containing the tails
+	 * @param next
+	 *            The tail following the incoming tail or {@code -1} if the sequence ends
 	 */
-	protected void addToStats(TimedTail t) {
+	protected void addToStats(PDRTAInput input, int next) {
 
-		if (trainMode && t != null) {
+		if (trainMode) {
 			totalInCount++;
-			t = t.getNextTail();
-			if (t != null) {
+			if (next >= 0) {
 				totalOutCount++;
-				symbolCount[t.getSymbolAlphIndex()]++;
-				timeCount[t.getHistBarIndex()]++;
+				symbolCount[input.getSymbolAlphIndex(next)]++;
+				timeCount[input.getHistBarIndex(next)]++;
 			}
 		} else {
 			throw new IllegalArgumentException();
@@ -402,7 +447,34 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Adds the probability for a transition to be used by a {@link TimedTail} when reconstructing the {@link StateStatistic} from an already trained and
+	 * Merges another {@link StateStatistic} into this statistic like {@link StateStatistic#merge(StateStatistic)} and records the change in the given
+	 * {@link UndoLog}. The change is reverted by subtracting the counts of the given statistic, so it must have the same counts again when the log is rolled
+	 * back.
+	 * 
+	 * @param st
+	 *            The {@link StateStatistic} to be merged
+	 * @param log
+	 *            The {@link UndoLog} for recording the change or {@code null}
+	 */
+	public void merge(StateStatistic st, UndoLog log) {
+
+		merge(st);
+		if (log != null) {
+			log.add(() -> {
+				for (int i = 0; i < timeCount.length; i++) {
+					timeCount[i] -= st.timeCount[i];
+				}
+				for (int i = 0; i < symbolCount.length; i++) {
+					symbolCount[i] -= st.symbolCount[i];
+				}
+				totalOutCount -= st.totalOutCount;
+				totalInCount -= st.totalInCount;
+			});
+		}
+	}
+
+	/**
+	 * Adds the probability for a transition to be used by a tail when reconstructing the {@link StateStatistic} from an already trained and
 	 * persisted {@link PDRTA}
 	 * 
 	 * @param in
@@ -431,9 +503,9 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Returns the probability for incoming {@link TimedTail}s to end in the {@link PDRTAState}
+	 * Returns the probability for incoming tails to end in the {@link PDRTAState}
 	 * 
-	 * @return The probability for incoming {@link TimedTail}s to end in the {@link PDRTAState}
+	 * @return The probability for incoming tails to end in the {@link PDRTAState}
 	 */
 	protected double getTailEndProb() {
 
@@ -450,11 +522,11 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Returns the probability for a given transition to be used by {@link TimedTail}s
+	 * Returns the probability for a given transition to be used by tails
 	 * 
 	 * @param in
 	 *            The transition to get the probability for
-	 * @return The probability the transition to be used by {@link TimedTail}s
+	 * @return The probability the transition to be used by tails
 	 */
 	protected double getTransProb(int symIdx, Optional<Interval> in) {
 
@@ -475,15 +547,17 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Returns the probability for a given {@link TimedTail} according to the independent symbol and histogram bin probabilities
+	 * Returns the probability for a given event according to the independent symbol and histogram bin probabilities
 	 * 
-	 * @param t
-	 *            The {@link TimedTail} to get the probability for
-	 * @return The probability for a given {@link TimedTail} according to the independent symbol and histogram bin probabilities
+	 * @param symAlphIdx
+	 *            The symbol index of the event
+	 * @param histBarIdx
+	 *            The histogram bin index of the event's time delay
+	 * @return The probability for a given event according to the independent symbol and histogram bin probabilities
 	 */
-	protected double[] getHistProb(TimedTail t) {
+	protected double[] getHistProb(int symAlphIdx, int histBarIdx) {
 
-		if (t.getHistBarIndex() < 0 || t.getSymbolAlphIndex() < 0) {
+		if (histBarIdx < 0 || symAlphIdx < 0) {
 			return new double[] { 0.0, 0.0 };
 		}
 
@@ -491,24 +565,24 @@ public class StateStatistic implements Serializable {
 			final double timeP;
 			final double symP;
 			if (totalOutCount > 0) {
-				timeP = (double) timeCount[t.getHistBarIndex()] / (double) totalOutCount;
-				symP = (double) symbolCount[t.getSymbolAlphIndex()] / (double) totalOutCount;
+				timeP = (double) timeCount[histBarIdx] / (double) totalOutCount;
+				symP = (double) symbolCount[symAlphIdx] / (double) totalOutCount;
 			} else {
 				timeP = 0.0;
 				symP = 0.0;
 			}
-			return new double[] { symP, (timeP / histBarSizes[t.getHistBarIndex()]) };
+			return new double[] { symP, (timeP / histBarSizes[histBarIdx]) };
 		} else {
-			final double timeP = (timeProbs[t.getHistBarIndex()] / histBarSizes[t.getHistBarIndex()]);
-			final double symP = symbolProbs[t.getSymbolAlphIndex()];
+			final double timeP = (timeProbs[histBarIdx] / histBarSizes[histBarIdx]);
+			final double symP = symbolProbs[symAlphIdx];
 			return new double[] { symP, timeP };
 		}
 	}
 
 	/**
-	 * Returns the number of outgoing {@link TimedTail}s while training
+	 * Returns the number of outgoing tails while training
 	 * 
-	 * @return The number of outgoing {@link TimedTail}s
+	 * @return The number of outgoing tails
 	 */
 	public int getTotalOutEvents() {
 
@@ -603,11 +677,11 @@ public class StateStatistic implements Serializable {
 	 * @param histoBarSizes
 	 *            The sizes of the histogram bins
 	 * @param timeProbs
-	 *            The probabilities for outgoing {@link TimedTail}s for each histogram bin
+	 *            The probabilities for outgoing tails for each histogram bin
 	 * @param symbolProbs
-	 *            The probabilities for outgoing {@link TimedTail}s for each symbol
+	 *            The probabilities for outgoing tails for each symbol
 	 * @param tailEndProb
-	 *            The probability for incoming {@link TimedTail}s to end in the {@link PDRTAState}
+	 *            The probability for incoming tails to end in the {@link PDRTAState}
 	 */
 	private StateStatistic(int[] histoBarSizes, double[] timeProbs, double[] symbolProbs, double tailEndProb) {
 
@@ -620,47 +694,38 @@ public class StateStatistic implements Serializable {
 	}
 
 	/**
-	 * Calculates the {@link LikelihoodValue} for two given sets of {@link TimedTail} counts in a {@link PDRTA}
+	 * Calculates the {@link LikelihoodValue} for two given sets of tail counts in a {@link PDRTA}
 	 * 
 	 * @param a
 	 *            The {@link PDRTA}
 	 * @param v1
-	 *            The first set of {@link TimedTail} counts
+	 *            The first set of tail counts
 	 * @param v2
-	 *            The second set of {@link TimedTail} counts
-	 * @return The {@link LikelihoodValue} for two given sets of {@link TimedTail} counts
+	 *            The second set of tail counts
+	 * @param length
+	 *            The number of counts in both sets
+	 * @return The {@link LikelihoodValue} for two given sets of tail counts
 	 */
-	private static LikelihoodValue calcInterimLRT(PDRTA a, int[] v1, int[] v2, boolean advancedPooling, CalcRatio cr) {
+	private static LikelihoodValue calcInterimLRT(PDRTA a, int[] v1, int[] v2, int length, boolean advancedPooling, CalcRatio cr) {
 
-		double ratio = 0.0;
-		int parameters = 0;
 		final int minData = PDRTA.getMinData();
 
-		assert (v1.length == v2.length);
-
-		final TIntArrayList[] pooled = poolStats(v1, v2, minData, advancedPooling);
-		final int total1 = pooled[0].get(pooled[0].size() - 1);
-		final int total2 = pooled[1].get(pooled[1].size() - 1);
+		final Scratch buffers = scratch.get();
+		buffers.ensurePools(length + 1);
+		poolStats(v1, v2, length, minData, advancedPooling, buffers);
+		final int parameters = buffers.pools;
 
 		// Calculating ratio and parameters
-		for (int i = 0; i < (pooled[0].size() - 1); i++) {
-			ratio += cr.calc(pooled[0].get(i), total1, pooled[1].get(i), total2);
-		}
-		// Minus 1 because sum of values is last item (not counting as parameter)
-		parameters = pooled[0].size() - 1;
+		final double ratio = cr.calcAll(buffers.pooled1, buffers.pooled2, parameters, buffers.total1, buffers.total2);
 
 		// LRT_FIX : Thesis: parameters -1 only explained without pooling, Impl: parameters
 		// parameters--;
 
-		if (parameters >= 0) {
-			return new LikelihoodValue(ratio, parameters);
-		} else {
-			return new LikelihoodValue();
-		}
+		return new LikelihoodValue(ratio, parameters);
 	}
 
 	/**
-	 * Calculates the Likelihood Ratio for two given {@link TimedTail} counts
+	 * Calculates the Likelihood Ratio for two given tail counts
 	 * 
 	 * @param v1
 	 *            The first specific counts
@@ -670,7 +735,7 @@ public class StateStatistic implements Serializable {
 	 *            The second specific counts
 	 * @param v2Total
 	 *            The second total counts
-	 * @return The Likelihood Ratio for two given {@link TimedTail} counts
+	 * @return The Likelihood Ratio for two given tail counts
 	 */
 	public static double calcLRTRatio(int v1, int v1Total, int v2, int v2Total) {
 
@@ -732,60 +797,60 @@ public class StateStatistic implements Serializable {
 		return ((top1 * top1) / expected1) + ((top2 * top2) / expected2);
 	}
 
-	private static TIntArrayList[] poolStats(int[] stat1, int[] stat2, int minData, boolean advanced) {
-
-		assert (stat1.length == stat2.length);
-
-		final TIntArrayList pooled1 = new TIntArrayList(stat1.length + 1);
-		final TIntArrayList pooled2 = new TIntArrayList(stat1.length + 1);
+	/**
+	 * Pools the counts of the bins that contain less than minData tails into the pool arrays of the given buffers and stores the number of pools and the
+	 * sums of the pooled counts there
+	 */
+	private static void poolStats(int[] stat1, int[] stat2, int length, int minData, boolean advanced, Scratch buffers) {
 
+		final int[] pooled1 = buffers.pooled1;
+		final int[] pooled2 = buffers.pooled2;
+		int size = 1;
 		int iPool = 0;
-		pooled1.add(0);
-		pooled2.add(0);
+		pooled1[0] = 0;
+		pooled2[0] = 0;
 
 		int sum1 = 0;
 		int sum2 = 0;
 
-		for (int i = 0; i < stat1.length; i++) {
+		for (int i = 0; i < length; i++) {
 			sum1 += stat1[i];
 			sum2 += stat2[i];
 			// POOL_FIX : Operator for pooling (thesis: AND, impl: AND, own: AND)
 			if (SimplePDRTALearner.bOp[0].eval(stat1[i] < minData, stat2[i] < minData)) {
 				// Number of sequences is less than minData
-				if (advanced && !SimplePDRTALearner.bOp[0].eval(pooled1.get(iPool) < minData, pooled2.get(iPool) < minData)) {
+				if (advanced && !SimplePDRTALearner.bOp[0].eval(pooled1[iPool] < minData, pooled2[iPool] < minData)) {
 					// Close full pool and open new pool
-					iPool = pooled1.size();
-					pooled1.add(stat1[i]);
-					pooled2.add(stat2[i]);
+					iPool = size;
+					pooled1[size] = stat1[i];
+					pooled2[size] = stat2[i];
+					size++;
 				} else {
 					// Add to existing pool
-					pooled1.set(iPool, pooled1.get(iPool) + stat1[i]);
-					pooled2.set(iPool, pooled2.get(iPool) + stat2[i]);
+					pooled1[iPool] += stat1[i];
+					pooled2[iPool] += stat2[i];
 				}
 			} else {
 				// Number of sequences is more or equal minData
-				pooled1.add(stat1[i]);
-				pooled2.add(stat2[i]);
+				pooled1[size] = stat1[i];
+				pooled2[size] = stat2[i];
+				size++;
 			}
 		}
 
 		// Discard small pools
 		// POOL_FIX : Operator for pool discarding (thesis: missing, impl: [LRT: OR, FM: AND], own: AND)
-		if (SimplePDRTALearner.bOp[1].eval(pooled1.get(iPool) < minData, pooled2.get(iPool) < minData)) {
-			sum1 -= pooled1.removeAt(iPool);
-			sum2 -= pooled2.removeAt(iPool);
+		if (SimplePDRTALearner.bOp[1].eval(pooled1[iPool] < minData, pooled2[iPool] < minData)) {
+			sum1 -= pooled1[iPool];
+			sum2 -= pooled2[iPool];
+			System.arraycopy(pooled1, iPool + 1, pooled1, iPool, size - iPool - 1);
+			System.arraycopy(pooled2, iPool + 1, pooled2, iPool, size - iPool - 1);
+			size--;
 		}
 
-		// Append sum of values
-		pooled1.add(sum1);
-		pooled2.add(sum2);
-
-		assert (pooled1.size() == pooled2.size());
-
-		final TIntArrayList[] pools = new TIntArrayList[2];
-		pools[0] = pooled1;
-		pools[1] = pooled2;
-		return pools;
+		buffers.pools = size;
+		buffers.total1 = sum1;
+		buffers.total2 = sum2;
 	}
 
 	@Override
@@ -858,6 +923,15 @@ public class StateStatistic implements Serializable {
 		return true;
 	}
 
+	/**
+	 * Returns whether the {@link StateStatistic} still counts tails or already holds the final probabilities
+	 * 
+	 * @return {@code true} if and only if the {@link StateStatistic} is in train mode
+	 */
+	boolean isTrainMode() {
+		return trainMode;
+	}
+
 	void cleanUp(PDRTAState s) {
 
 		if (s.getStat() != this) {
@@ -908,9 +982,36 @@ public class StateStatistic implements Serializable {
 		totalInCount = 0;
 	}
 
+	/**
+	 * Resets the counts of this statistic to the counts of the given copy while training
+	 * 
+	 * @param st
+	 *            A copy of this statistic created before the counts were changed
+	 */
+	void restore(StateStatistic st) {
+
+		assert (trainMode && st.trainMode);
+		System.arraycopy(st.timeCount, 0, timeCount, 0, timeCount.length);
+		System.arraycopy(st.symbolCount, 0, symbolCount, 0, symbolCount.length);
+		totalOutCount = st.totalOutCount;
+		totalInCount = st.totalInCount;
+	}
+
 	@FunctionalInterface
 	public interface CalcRatio {
 		double calc(int v1, int t1, int v2, int t2);
+
+		/**
+		 * Sums up the ratios of the first {@code size} pooled counts
+		 */
+		default double calcAll(int[] v1, int[] v2, int size, int t1, int t2) {
+
+			double ratio = 0.0;
+			for (int i = 0; i < size; i++) {
+				ratio += calc(v1[i], t1, v2[i], t2);
+			}
+			return ratio;
+		}
 	}
 
 }
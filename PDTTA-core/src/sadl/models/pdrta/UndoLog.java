@@ -0,0 +1,52 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Records the changes made to a {@link PDRTA} while training, so that they can be rolled back. This allows testing a merge or a split on the automaton
+ * itself instead of on a deep copy of it.
+ */
+public class UndoLog {
+
+	private final Deque<Runnable> actions = new ArrayDeque<>();
+
+	/**
+	 * Adds an action that reverts a change that has just been made
+	 *
+	 * @param undo
+	 *            The action reverting the change
+	 */
+	public void add(Runnable undo) {
+		actions.push(undo);
+	}
+
+	/**
+	 * Reverts all recorded changes in reverse order and clears the log
+	 */
+	public void rollback() {
+
+		while (!actions.isEmpty()) {
+			actions.pop().run();
+		}
+	}
+
+	public boolean isEmpty() {
+		return actions.isEmpty();
+	}
+
+	public int size() {
+		return actions.size();
+	}
+
+}
@@ -0,0 +1,221 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdta;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.models.pta.SubEvent;
+
+/**
+ * Flat, array-backed representation of a {@link PDTA} that is used for scoring. States are numbered densely (the root is always 0) and symbols are mapped to
+ * int ids. For every state and symbol the transitions are stored ordered by the lower bounds of their intervals with parallel arrays for the upper bounds,
+ * the target states, the probabilities and the sub events, so that finding the transition for a time value is a binary search over primitive doubles.
+ *
+ * Words that were parsed with a {@link TimedInput} are translated with a table from the ids of its alphabet to the ids of the automaton, so that scoring
+ * them needs no string hashing.
+ */
+final class CompiledPDTA {
+
+	static final int NO_TRANSITION = -1;
+
+	private final TObjectIntMap<String> symbolIds;
+	private final int symbolCount;
+	private final double[] endProbs;
+
+	// the transitions of state s and symbol a are stored in [transitionOffsets[s * symbolCount + a], transitionOffsets[s * symbolCount + a + 1])
+	private final int[] transitionOffsets;
+	private final double[] lowerBounds;
+	private final double[] upperBounds;
+	private final int[] targets;
+	private final double[] probs;
+	private final SubEvent[] events;
+
+	/**
+	 * The last alphabet that words were encoded with and the translation of its ids
+	 */
+	private volatile AlphabetTranslation translation;
+
+	private static final class AlphabetTranslation {
+		final TimedInput alphabet;
+		final int[] symbolIds;
+
+		AlphabetTranslation(TimedInput alphabet, int[] symbolIds) {
+			this.alphabet = alphabet;
+			this.symbolIds = symbolIds;
+		}
+	}
+
+	CompiledPDTA(PDTA pdta) {
+		// number the states reachable from the root in breadth-first order
+		symbolIds = new TObjectIntHashMap<>(11, 0.5f, NO_TRANSITION);
+		final Map<PDTAState, Integer> stateIds = new IdentityHashMap<>();
+		final List<PDTAState> states = new ArrayList<>();
+		stateIds.put(pdta.getRoot(), Integer.valueOf(0));
+		states.add(pdta.getRoot());
+		int transitionCount = 0;
+		for (int s = 0; s < states.size(); s++) {
+			for (final Entry<String, TreeMap<Double, PDTATransition>> e : states.get(s).getTransitions().entrySet()) {
+				if (!symbolIds.containsKey(e.getKey())) {
+					symbolIds.put(e.getKey(), symbolIds.size());
+				}
+				transitionCount += e.getValue().size();
+				for (final PDTATransition t : e.getValue().values()) {
+					if (!stateIds.containsKey(t.getTarget())) {
+						stateIds.put(t.getTarget(), Integer.valueOf(states.size()));
+						states.add(t.getTarget());
+					}
+				}
+			}
+		}
+
+		symbolCount = symbolIds.size();
+		endProbs = new double[states.size()];
+		transitionOffsets = new int[states.size() * symbolCount + 1];
+		lowerBounds = new double[transitionCount];
+		upperBounds = new double[transitionCount];
+		targets = new int[transitionCount];
+		probs = new double[transitionCount];
+		events = new SubEvent[transitionCount];
+		final String[] symbols = new String[symbolCount];
+		symbolIds.forEachEntry((symbol, id) -> {
+			symbols[id] = symbol;
+			return true;
+		});
+		int id = 0;
+		for (int s = 0; s < states.size(); s++) {
+			final PDTAState state = states.get(s);
+			endProbs[s] = state.getEndProbability();
+			for (int a = 0; a < symbolCount; a++) {
+				transitionOffsets[s * symbolCount + a] = id;
+				final TreeMap<Double, PDTATransition> ts = state.getTransitions().get(symbols[a]);
+				if (ts != null) {
+					// the keys are the lower bounds of the intervals in ascending order
+					for (final Entry<Double, PDTATransition> e : ts.entrySet()) {
+						final PDTATransition t = e.getValue();
+						lowerBounds[id] = e.getKey().doubleValue();
+						upperBounds[id] = t.getInterval().getMaximum();
+						targets[id] = stateIds.get(t.getTarget()).intValue();
+						probs[id] = t.getPropability();
+						events[id] = t.getEvent();
+						id++;
+					}
+				}
+			}
+		}
+		transitionOffsets[states.size() * symbolCount] = id;
+	}
+
+	/**
+	 * @return the id of the symbol or {@link #NO_TRANSITION} if no transition of the automaton is labeled with it
+	 */
+	int getSymbolId(String symbol) {
+		return symbolIds.get(symbol);
+	}
+
+	/**
+	 * @return the id of the symbol at the given index of the word or {@link #NO_TRANSITION} if no transition of the automaton is labeled with it
+	 */
+	int getSymbolId(TimedWord w, int i) {
+		final int alphIdx = w.getSymbolId(i);
+		if (alphIdx < 0) {
+			return symbolIds.get(w.getSymbol(i));
+		}
+		AlphabetTranslation t = translation;
+		if (t == null || !w.isEncodedWith(t.alphabet)) {
+			t = translate(w.getAlphabet());
+			translation = t;
+		}
+		return t.symbolIds[alphIdx];
+	}
+
+	private AlphabetTranslation translate(TimedInput alphabet) {
+		final int[] ids = new int[alphabet.getAlphSize()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = symbolIds.get(alphabet.getSymbol(i));
+		}
+		return new AlphabetTranslation(alphabet, ids);
+	}
+
+	int getRoot() {
+		return 0;
+	}
+
+	double getEndProb(int state) {
+		return endProbs[state];
+	}
+
+	/**
+	 * Same as {@link PDTAState#getTransition(String, double)}: finds the transition with the greatest lower bound that is not greater than the time and
+	 * checks that the time is less than its upper bound.
+	 *
+	 * @return the id of the transition or {@link #NO_TRANSITION} if there is none
+	 */
+	int getTransition(int state, int symbolId, double time) {
+		if (symbolId == NO_TRANSITION) {
+			return NO_TRANSITION;
+		}
+		final int from = transitionOffsets[state * symbolCount + symbolId];
+		final int to = transitionOffsets[state * symbolCount + symbolId + 1];
+		// the index of the first lower bound that is greater than the time
+		int low = from;
+		int high = to;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (lowerBounds[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		final int idx = low - 1;
+		if (idx < from || !(time < upperBounds[idx])) {
+			return NO_TRANSITION;
+		}
+		return idx;
+	}
+
+	int getTarget(int transition) {
+		return targets[transition];
+	}
+
+	double getProb(int transition) {
+		return probs[transition];
+	}
+
+	double getTimeProb(int transition, double time) {
+		return events[transition].calculateProbability(time);
+	}
+
+	/**
+	 * Same as {@link PDTA#hasAnomaly(TimedWord)} on the compiled automaton.
+	 */
+	boolean hasAnomaly(TimedWord word) {
+		int s = getRoot();
+		for (int i = 0; i < word.length(); i++) {
+			final int t = getTransition(s, getSymbolId(word, i), word.getTimeValue(i));
+			if (t == NO_TRANSITION) {
+				return true;
+			}
+			s = getTarget(t);
+		}
+		return !(endProbs[s] > 0.0d);
+	}
+
+}
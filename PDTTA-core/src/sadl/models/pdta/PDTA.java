@@ -27,6 +27,7 @@ import gnu.trove.list.array.TDoubleArrayList;
 import gnu.trove.list.linked.TIntLinkedList;
 import gnu.trove.map.TIntObjectMap;
 import sadl.constants.ClassLabel;
+import sadl.detectors.SequenceScorer;
 import sadl.input.TimedInput;
 import sadl.input.TimedWord;
 import sadl.interfaces.AutomatonModel;
@@ -40,40 +41,79 @@ public class PDTA implements AutomatonModel {
 	PDTAState root;
 	TIntObjectMap<PDTAState> states;
 	Map<String, Event> events;
+	/**
+	 * Array-backed form of this automaton that is used for scoring. It is compiled on demand and dropped when a transition is added.
+	 */
+	private volatile CompiledPDTA compiled;
 
 	@Override
 	public Pair<TDoubleList, TDoubleList> calculateProbabilities(TimedWord s) {
 
+		final CompiledPDTA c = getCompiled();
 		final TDoubleList probabilities1 = new TDoubleArrayList(s.length());
 		final TDoubleList probabilities2 = new TDoubleArrayList(s.length());
 
-		PDTAState currentState = root;
+		int currentState = c.getRoot();
 
 		for (int i = 0; i < s.length(); i++) {
-			final String eventSymbol = s.getSymbol(i);
 			final double time = s.getTimeValue(i);
 
-			final PDTATransition currentTransition = currentState.getTransition(eventSymbol, time);
+			final int currentTransition = c.getTransition(currentState, c.getSymbolId(s, i), time);
 
-			if (currentTransition == null) {
+			if (currentTransition == CompiledPDTA.NO_TRANSITION) {
 				probabilities1.add(0.0);
 				probabilities2.add(0.0);
 				return new Pair<>(probabilities1, probabilities2);
 			}
 
-			probabilities1.add(currentTransition.getPropability());
-			probabilities2.add(currentTransition.getEvent().calculateProbability(time));
-			currentState = currentTransition.getTarget();
+			probabilities1.add(c.getProb(currentTransition));
+			probabilities2.add(c.getTimeProb(currentTransition, time));
+			currentState = c.getTarget(currentTransition);
 		}
 
-		probabilities1.add(currentState.getEndProbability());
+		probabilities1.add(c.getEndProb(currentState));
 		return new Pair<>(probabilities1, probabilities2);
 	}
 
+	/**
+	 * Returns the compiled form of this automaton and compiles it if necessary.
+	 * 
+	 * @return the compiled automaton
+	 */
+	CompiledPDTA getCompiled() {
+
+		CompiledPDTA result = compiled;
+		if (result == null) {
+			synchronized (this) {
+				result = compiled;
+				if (result == null) {
+					result = new CompiledPDTA(this);
+					compiled = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	void clearCompiled() {
+
+		compiled = null;
+	}
+
+	@Override
+	public SequenceScorer newScorer() {
+
+		return new PDTAScorer(this);
+	}
+
 	public PDTA(PDTAState root, TIntObjectMap<PDTAState> states, Map<String, Event> events) {
 		this.root = root;
 		this.states = states;
 		this.events = events;
+		states.forEachValue(s -> {
+			s.pdta = this;
+			return true;
+		});
 	}
 
 	public PDTAState getRoot() {
@@ -194,40 +234,17 @@ public class PDTA implements AutomatonModel {
 		}
 	}
 
+	/**
+	 * Checks whether the word cannot be processed by this automaton, i.e. whether there is no transition for one of its events or it ends in a state that
+	 * is not final.
+	 * 
+	 * @param word
+	 *            the word to check
+	 * @return {@code true} if the word is an anomaly
+	 */
 	public boolean hasAnomaly(TimedWord word) {
 
-		PDTAState currentState = root;
-
-		for (int i = 0; i < word.length(); i++) {
-			final String eventSymbol = word.getSymbol(i);
-			final double time = word.getTimeValue(i);
-
-			final PDTATransition transition = currentState.getTransition(eventSymbol, time);
-
-			if (transition == null) {
-				// System.out.println("ERROR: (" + currentState.getId() + ")");
-				return true;
-			}
-
-			final SubEvent event = transition.getEvent();
-
-			if (event.hasWarning(time)) {
-				// System.out.println("WARNING: time in warning arrea. (" + currentState.getId() + ")");
-			}
-
-			if (event.isInCriticalArea(time)) {
-				// System.out.println("WARNING: time in critical area. Wrong decision possible. (" + currentState.getId() + ")");
-			}
-
-			currentState = transition.getTarget();
-		}
-
-		if (!currentState.isFinalState()) {
-			// System.out.println("ERROR: ended not in final state. (" + currentState.getId() + ")");
-			return true;
-		}
-
-		return false;
+		return getCompiled().hasAnomaly(word);
 	}
 
 	public void toGraphvizFile(Path resultPath) throws IOException {
@@ -0,0 +1,53 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdta;
+
+import sadl.detectors.SequenceScorer;
+
+/**
+ * {@link SequenceScorer} that traverses the compiled form of a {@link PDTA}. Computes the same likelihoods as
+ * {@link PDTA#calculateProbabilities(sadl.input.TimedWord)}.
+ */
+class PDTAScorer extends SequenceScorer {
+
+	private final CompiledPDTA compiled;
+	private int currentState;
+
+	PDTAScorer(PDTA pdta) {
+		this.compiled = pdta.getCompiled();
+		this.currentState = compiled.getRoot();
+	}
+
+	@Override
+	protected void step(String symbol, int timeDelay) {
+
+		final double time = timeDelay;
+		final int currentTransition = compiled.getTransition(currentState, compiled.getSymbolId(symbol), time);
+
+		if (currentTransition == CompiledPDTA.NO_TRANSITION) {
+			addEventLikelihood(0.0);
+			addTimeLikelihood(0.0);
+			stop();
+			return;
+		}
+
+		addEventLikelihood(compiled.getProb(currentTransition));
+		addTimeLikelihood(compiled.getTimeProb(currentTransition, time));
+		currentState = compiled.getTarget(currentTransition);
+	}
+
+	@Override
+	protected void end() {
+
+		addEventLikelihood(compiled.getEndProb(currentState));
+	}
+
+}
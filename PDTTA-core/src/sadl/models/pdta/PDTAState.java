@@ -28,6 +28,10 @@ public class PDTAState {
 
 	protected double sumProbabilities = 0.0d;
 	Random rand;
+	/**
+	 * The automaton that contains this state or {@code null} if it was not created yet
+	 */
+	PDTA pdta;
 
 	public PDTAState(int id, double endProbability) {
 		rand = MasterSeed.nextRandom();
@@ -153,6 +157,9 @@ public class PDTAState {
 		eventTransitions.put(new Double(interval.getMinimum()), transition);
 		transitionsProbability.put(new Double(sumProbabilities), transition);
 		sumProbabilities += probability;
+		if (pdta != null) {
+			pdta.clearCompiled();
+		}
 
 		if (sumProbabilities > 1.0001d) {
 			throw new IllegalStateException("Sum of probabilities > 1.0");
@@ -26,7 +26,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import sadl.constants.IntervalCreationStrategy;
 import sadl.constants.PTAOrdering;
 import sadl.input.TimedInput;
@@ -47,6 +51,20 @@ public class PTA {
 
 	protected boolean statesMerged = false;
 
+	/**
+	 * Ids of the sub event symbols, assigned in the order the symbols are used by transitions
+	 */
+	protected TObjectIntMap<String> symbolIds = new TObjectIntHashMap<>(11, 0.5f, -1);
+	/**
+	 * Pairs of states that are known to be incompatible, mapped to the epoch in which they were marked
+	 */
+	protected TLongIntMap incompatiblePairs = new TLongIntHashMap();
+	/**
+	 * Incremented by the first change after a pair was marked as incompatible, so that the marks of the changed states can be told apart
+	 */
+	protected int epoch = 0;
+	protected boolean epochMarked = false;
+
 	public PTA(Map<String, Event> events) {
 		this.events = events;
 		this.root = new PTAState("", null, this);
@@ -91,6 +109,93 @@ public class PTA {
 		return depth;
 	}
 
+	/**
+	 * Returns the id of the given sub event symbol and assigns a new id if the symbol was not used before.
+	 * 
+	 * @param symbol
+	 *            the sub event symbol
+	 * @return the id of the symbol
+	 */
+	public int getSymbolId(String symbol) {
+
+		int id = symbolIds.get(symbol);
+		if (id < 0) {
+			id = symbolIds.size();
+			symbolIds.put(symbol, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Stamps the given state and all its predecessors with the current epoch, because the compatibility of a state depends on all its successors. Must be
+	 * called whenever a transition of the state is added, removed or its count changes.
+	 */
+	void changed(PTAState state) {
+
+		if (epochMarked) {
+			epoch++;
+			epochMarked = false;
+		}
+		if (state.changedEpoch == epoch) {
+			// The predecessors were stamped together with the state
+			return;
+		}
+
+		final List<PTAState> stack = new ArrayList<>();
+		state.changedEpoch = epoch;
+		stack.add(state);
+		while (!stack.isEmpty()) {
+			final PTAState current = stack.remove(stack.size() - 1);
+			for (final TIntObjectMap<PTATransition> transitions : current.inTransitions.values()) {
+				for (final PTATransition transition : transitions.valueCollection()) {
+					final PTAState source = transition.getSource();
+					if (source.changedEpoch != epoch) {
+						source.changedEpoch = epoch;
+						stack.add(source);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a key for the unordered pair of the two states
+	 */
+	public static long getPairKey(PTAState firstState, PTAState secondState) {
+
+		final int first = Math.min(firstState.getId(), secondState.getId());
+		final int second = Math.max(firstState.getId(), secondState.getId());
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Checks whether the two states were marked as incompatible and neither of them nor one of their successors changed since then.
+	 * 
+	 * @return {@code true} if the states are known to be incompatible
+	 */
+	public boolean isMarkedIncompatible(PTAState firstState, PTAState secondState) {
+
+		final long key = getPairKey(firstState, secondState);
+		if (!incompatiblePairs.containsKey(key)) {
+			return false;
+		}
+		final int markedEpoch = incompatiblePairs.get(key);
+		if (firstState.changedEpoch > markedEpoch || secondState.changedEpoch > markedEpoch) {
+			incompatiblePairs.remove(key);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Marks the two states as incompatible until one of them or one of their successors changes.
+	 */
+	public void markIncompatible(PTAState firstState, PTAState secondState) {
+
+		incompatiblePairs.put(getPairKey(firstState, secondState), epoch);
+		epochMarked = true;
+	}
+
 	public void addSequences(TimedInput timedSequences) {
 
 		if (timedSequences == null) {
@@ -11,11 +11,12 @@
 package sadl.models.pta;
 
 import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 import jsat.utils.Pair;
@@ -33,7 +34,20 @@ public class PTAState implements Cloneable {
 	protected PTAState mergedWith;
 	protected boolean marked = false;
 
-	protected TIntObjectMap<PTAState> compatibilityCheckingStates = new TIntObjectHashMap<>();
+	/**
+	 * The epoch (see {@link PTA#changed(PTAState)}) of the last change of this state or one of its successors
+	 */
+	protected int changedEpoch = 0;
+
+	// Transitions by symbol id (see PTA#getSymbolId(String)), kept up to date by PTATransition. The symbol ids of the first symbolSlots slots are sorted
+	// ascending; a slot stays when all transitions with its symbol are removed.
+	protected int symbolSlots = 0;
+	protected int[] slotSymbolIds = new int[2];
+	protected int[] slotInCounts = new int[2];
+	protected int[] slotInTransitions = new int[2];
+	protected PTATransition[] slotOutTransitions = new PTATransition[2];
+	protected int inTransitionsCount = 0;
+	protected int outTransitionsCount = 0;
 
 	private static int idCounter = 0;
 
@@ -61,7 +75,17 @@ public class PTAState implements Cloneable {
 		}
 
 		if (!mergedWith.exists()) {
-			mergedWith = mergedWith.isMergedWith();
+			PTAState state = mergedWith;
+			while (!state.exists()) {
+				state = state.mergedWith;
+			}
+			// Compress the path without recursing over chains of merged states
+			PTAState compressed = this;
+			while (compressed.mergedWith != state) {
+				final PTAState next = compressed.mergedWith;
+				compressed.mergedWith = state;
+				compressed = next;
+			}
 		}
 
 		return mergedWith;
@@ -115,14 +139,7 @@ public class PTAState implements Cloneable {
 
 	public int getInTransitionsCount() {
 
-		int sum = 0;
-		for (final TIntObjectMap<PTATransition> transitionsByEvent : inTransitions.values()) {
-			for (final PTATransition transition : transitionsByEvent.valueCollection()) {
-				sum += transition.getCount();
-			}
-		}
-
-		return sum;
+		return inTransitionsCount;
 	}
 
 	public int getInTransitionsCount(String eventSymbol) {
@@ -143,12 +160,7 @@ public class PTAState implements Cloneable {
 
 	public int getOutTransitionsCount() {
 
-		int sum = 0;
-		for (final PTATransition transition : outTransitions.values()) {
-			sum += transition.getCount();
-		}
-
-		return sum;
+		return outTransitionsCount;
 	}
 
 	public int getOutTransitionsCount(String eventSymbol) {
@@ -162,6 +174,112 @@ public class PTAState implements Cloneable {
 		}
 	}
 
+	/**
+	 * @return the number of symbol slots; use the slot methods with indices from 0 to this number (excluded) to iterate over the transitions by symbol id
+	 *         in ascending order
+	 */
+	public int getSymbolSlots() {
+
+		return symbolSlots;
+	}
+
+	public int getSlotSymbolId(int slot) {
+
+		return slotSymbolIds[slot];
+	}
+
+	/**
+	 * @return the sum of the counts of the incoming transitions with the symbol of the slot
+	 */
+	public int getSlotInTransitionsCount(int slot) {
+
+		return slotInCounts[slot];
+	}
+
+	/**
+	 * @return whether there is an incoming transition with the symbol of the slot
+	 */
+	public boolean hasSlotInTransitions(int slot) {
+
+		return slotInTransitions[slot] > 0;
+	}
+
+	/**
+	 * @return the outgoing transition with the symbol of the slot or {@code null}
+	 */
+	public PTATransition getSlotOutTransition(int slot) {
+
+		return slotOutTransitions[slot];
+	}
+
+	private int getSlot(int symbolId) {
+
+		int slot = Arrays.binarySearch(slotSymbolIds, 0, symbolSlots, symbolId);
+		if (slot < 0) {
+			slot = -slot - 1;
+			if (symbolSlots == slotSymbolIds.length) {
+				final int length = 2 * symbolSlots;
+				slotSymbolIds = Arrays.copyOf(slotSymbolIds, length);
+				slotInCounts = Arrays.copyOf(slotInCounts, length);
+				slotInTransitions = Arrays.copyOf(slotInTransitions, length);
+				slotOutTransitions = Arrays.copyOf(slotOutTransitions, length);
+			}
+			final int moved = symbolSlots - slot;
+			System.arraycopy(slotSymbolIds, slot, slotSymbolIds, slot + 1, moved);
+			System.arraycopy(slotInCounts, slot, slotInCounts, slot + 1, moved);
+			System.arraycopy(slotInTransitions, slot, slotInTransitions, slot + 1, moved);
+			System.arraycopy(slotOutTransitions, slot, slotOutTransitions, slot + 1, moved);
+			slotSymbolIds[slot] = symbolId;
+			slotInCounts[slot] = 0;
+			slotInTransitions[slot] = 0;
+			slotOutTransitions[slot] = null;
+			symbolSlots++;
+		}
+		return slot;
+	}
+
+	void addInTransition(PTATransition transition) {
+
+		final int slot = getSlot(transition.getSymbolId());
+		slotInCounts[slot] += transition.getCount();
+		slotInTransitions[slot]++;
+		inTransitionsCount += transition.getCount();
+	}
+
+	void removeInTransition(PTATransition transition) {
+
+		final int slot = getSlot(transition.getSymbolId());
+		slotInCounts[slot] -= transition.getCount();
+		slotInTransitions[slot]--;
+		inTransitionsCount -= transition.getCount();
+	}
+
+	void incrementInCount(int symbolId, int addCount) {
+
+		final int slot = getSlot(symbolId);
+		slotInCounts[slot] += addCount;
+		inTransitionsCount += addCount;
+	}
+
+	void addOutTransition(PTATransition transition) {
+
+		final int slot = getSlot(transition.getSymbolId());
+		slotOutTransitions[slot] = transition;
+		outTransitionsCount += transition.getCount();
+	}
+
+	void removeOutTransition(PTATransition transition) {
+
+		final int slot = getSlot(transition.getSymbolId());
+		slotOutTransitions[slot] = null;
+		outTransitionsCount -= transition.getCount();
+	}
+
+	void incrementOutCount(int addCount) {
+
+		outTransitionsCount += addCount;
+	}
+
 	public int getEndCount() {
 
 		final int inTransitionsCount = getInTransitionsCount();
@@ -215,8 +333,63 @@ public class PTAState implements Cloneable {
 		marked = false;
 	}
 
+	/**
+	 * A merge on the explicit stack of {@link #merge(PTAState, PTAState, EventsCreationStrategy)}: the pairs of successor states to merge next and the state
+	 * to remove critical transitions from after they were merged (or {@code null}).
+	 */
+	private static class MergeStep {
+
+		final List<Pair<PTAState, PTAState>> statesToMerge;
+		final PTAState criticalTransitionsState;
+		int next = 0;
+
+		MergeStep(List<Pair<PTAState, PTAState>> statesToMerge, PTAState criticalTransitionsState) {
+			this.statesToMerge = statesToMerge;
+			this.criticalTransitionsState = criticalTransitionsState;
+		}
+	}
+
 	public static void merge(PTAState firstState, PTAState secondState, EventsCreationStrategy strategy) {
 
+		// The merges of the successor states are done depth-first with an explicit stack in the order of a recursive merge, so deep PTAs do not overflow
+		// the call stack.
+		final List<MergeStep> stack = new ArrayList<>();
+		MergeStep step = mergeStates(firstState, secondState, strategy);
+
+		if (step != null) {
+			stack.add(step);
+		}
+
+		while (!stack.isEmpty()) {
+			step = stack.get(stack.size() - 1);
+
+			if (step.next < step.statesToMerge.size()) {
+				final Pair<PTAState, PTAState> statePair = step.statesToMerge.get(step.next++);
+				final MergeStep nextStep = mergeStates(statePair.getFirstItem(), statePair.getSecondItem(), strategy);
+				if (nextStep != null) {
+					stack.add(nextStep);
+				}
+				continue;
+			}
+
+			stack.remove(stack.size() - 1);
+
+			if (step.criticalTransitionsState != null) {
+				final List<Pair<PTAState, PTAState>> statesToMerge = step.criticalTransitionsState.removeCriticalTransitionsOnly();
+				if (!statesToMerge.isEmpty()) {
+					stack.add(new MergeStep(statesToMerge, null));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Merges the second state into the first one without merging their successors.
+	 * 
+	 * @return the successors to merge or {@code null} if the states are already merged
+	 */
+	private static MergeStep mergeStates(PTAState firstState, PTAState secondState, EventsCreationStrategy strategy) {
+
 		if (!firstState.exists()) {
 			firstState = firstState.isMergedWith();
 		}
@@ -226,7 +399,7 @@ public class PTAState implements Cloneable {
 		}
 
 		if (firstState == secondState) {
-			return;
+			return null;
 		}
 
 		ArrayList<PTATransition> transitionsToAdd = new ArrayList<>();
@@ -267,15 +440,22 @@ public class PTAState implements Cloneable {
 		PTATransition.remove(transitionsToRemove);
 		PTATransition.add(transitionsToAdd);
 		secondState.setMergedWith(firstState);
-		PTAState.merge(statesToMerge, strategy);
 
-		if (strategy == EventsCreationStrategy.IsolateCriticalAreasMergeInProcess) {
-			firstState.removeCriticalTransitions();
-		}
+		return new MergeStep(statesToMerge, strategy == EventsCreationStrategy.IsolateCriticalAreasMergeInProcess ? firstState : null);
 	}
 
 	public void removeCriticalTransitions(){
 
+		PTAState.merge(removeCriticalTransitionsOnly(), EventsCreationStrategy.IsolateCriticalAreasMergeInProcess);
+	}
+
+	/**
+	 * Removes the critical transitions like {@link #removeCriticalTransitions()} without merging their targets.
+	 * 
+	 * @return the states to merge
+	 */
+	private List<Pair<PTAState, PTAState>> removeCriticalTransitionsOnly() {
+
 		final ArrayList<PTATransition> transitionsToRemove = new ArrayList<>();
 		final ArrayList<Pair<PTAState,PTAState>> statesToMerge = new ArrayList<>();
 
@@ -304,10 +484,8 @@ public class PTAState implements Cloneable {
 
 		}
 
-		if (!transitionsToRemove.isEmpty()) {
-			PTATransition.remove(transitionsToRemove);
-			PTAState.merge(statesToMerge, EventsCreationStrategy.IsolateCriticalAreasMergeInProcess);
-		}
+		PTATransition.remove(transitionsToRemove);
+		return statesToMerge;
 	}
 
 	public static void merge(Collection<Pair<PTAState, PTAState>> statesToMerge, EventsCreationStrategy strategy) {
@@ -316,34 +494,6 @@ public class PTAState implements Cloneable {
 		}
 	}
 
-	public static void setCompatibilityChecking(PTAState firstState, PTAState secondState) {
-		if (firstState.getId() < secondState.getId() ) {
-			firstState.compatibilityCheckingStates.put(secondState.getId(), secondState);
-		} else if (secondState.getId() < firstState.getId() ) {
-			secondState.compatibilityCheckingStates.put(firstState.getId(), firstState);
-		}
-
-	}
-
-	public static void unsetCompatibilityChecking(PTAState firstState, PTAState secondState) {
-		if (firstState.getId() < secondState.getId()) {
-			firstState.compatibilityCheckingStates.remove(secondState.getId());
-		} else if (secondState.getId() < firstState.getId()) {
-			secondState.compatibilityCheckingStates.remove(firstState.getId());
-		}
-
-	}
-
-	public static boolean compatibilityIsChecking(PTAState firstState, PTAState secondState) {
-
-		if (firstState.getId() < secondState.getId() && firstState.compatibilityCheckingStates.containsKey(secondState.getId())) {
-			return true;
-		} else if (secondState.getId() < firstState.getId() && secondState.compatibilityCheckingStates.containsKey(firstState.getId())) {
-			return true;
-		}
-
-		return false;
-	}
 
 	@Override
 	public String toString(){
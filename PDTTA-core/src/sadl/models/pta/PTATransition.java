@@ -22,8 +22,13 @@ public class PTATransition {
 	protected PTAState source;
 	protected PTAState target;
 	protected int count;
+	protected final int symbolId;
 
 	protected boolean removed = false;
+	/**
+	 * Whether the transition is part of the maps (and counts) of its states
+	 */
+	protected boolean linked = false;
 
 	private static int idCounter = 0;
 
@@ -38,6 +43,7 @@ public class PTATransition {
 		this.target = target;
 		this.event = event;
 		this.count = count;
+		this.symbolId = source.pta.getSymbolId(event.getSymbol());
 	}
 
 	public void add() {
@@ -59,6 +65,12 @@ public class PTATransition {
 		if (redundantOutTransition != null || redundantInTransition != null) {
 			throw new IllegalArgumentException("Transition already exists.");
 		}
+
+		source.addOutTransition(this);
+		target.addInTransition(this);
+		linked = true;
+		source.pta.changed(source);
+		source.pta.changed(target);
 	}
 
 	public void remove() {
@@ -75,6 +87,14 @@ public class PTATransition {
 			target.inTransitions.remove(eventSymbol);
 		}
 		removed = true;
+
+		if (linked) {
+			source.removeOutTransition(this);
+			target.removeInTransition(this);
+			linked = false;
+			source.pta.changed(source);
+			source.pta.changed(target);
+		}
 	}
 
 	public PTAState getSource() {
@@ -92,6 +112,14 @@ public class PTATransition {
 		return event;
 	}
 
+	/**
+	 * @return the id of the symbol of the sub event in the {@link PTA}
+	 */
+	public int getSymbolId() {
+
+		return symbolId;
+	}
+
 	public int getCount() {
 
 		return count;
@@ -105,6 +133,13 @@ public class PTATransition {
 	public void incrementCount(int addCount) {
 
 		this.count += addCount;
+
+		if (linked) {
+			source.incrementOutCount(addCount);
+			target.incrementInCount(symbolId, addCount);
+			source.pta.changed(source);
+			source.pta.changed(target);
+		}
 	}
 
 	@Override
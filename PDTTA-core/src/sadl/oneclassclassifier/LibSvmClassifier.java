@@ -11,6 +11,7 @@
 package sadl.oneclassclassifier;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.apache.commons.math3.util.Precision;
 
@@ -20,6 +21,7 @@ import libsvm.svm_node;
 import libsvm.svm_parameter;
 import libsvm.svm_problem;
 import sadl.constants.ScalingMethod;
+import sadl.utils.Settings;
 
 /**
  * 
@@ -30,6 +32,18 @@ public class LibSvmClassifier extends NumericClassifier {
 	// private static Logger logger = LoggerFactory.getLogger(LibSvmClassifier.class);
 	svm_model model;
 	svm_parameter param;
+	/**
+	 * Node buffer for every thread that is reused for each test sample; libsvm does not keep the nodes of test samples
+	 */
+	private final ThreadLocal<svm_node[]> nodeBuffer = ThreadLocal.withInitial(() -> new svm_node[0]);
+	/**
+	 * Dense support vectors of a one-class RBF model, one after the other, or null if the decision function of libsvm has to be used
+	 */
+	private double[] supportVectors;
+	private double[] coefficients;
+	private int dimension;
+	private double rho;
+	private double gamma;
 
 	public LibSvmClassifier(int useProbability, double gamma, double nu, int kernelType, double eps, int degree, ScalingMethod scalingMethod) {
 		super(scalingMethod);
@@ -74,31 +88,108 @@ public class LibSvmClassifier extends NumericClassifier {
 	}
 
 	public double evaluate(final double[] features, @SuppressWarnings("hiding") final svm_model model) {
-		final svm_node[] nodes = new svm_node[features.length - 1];
+		svm_node[] nodes = nodeBuffer.get();
+		if (nodes.length != features.length - 1) {
+			nodes = new svm_node[features.length - 1];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = new svm_node();
+			}
+			nodeBuffer.set(nodes);
+		}
 		for (int i = 1; i < features.length; i++) {
-			final svm_node node = new svm_node();
+			final svm_node node = nodes[i - 1];
 			node.index = i;
 			node.value = features[i];
+		}
+		return svm.svm_predict(model, nodes);
+	}
 
-			nodes[i - 1] = node;
+	/**
+	 * Predicts the labels of many samples at once (in parallel if enabled). For a one-class model with an RBF kernel the decision function is evaluated
+	 * directly on the precomputed support vectors, which gives exactly the same results as libsvm.
+	 * 
+	 * @param samples
+	 *            one scaled sample per row
+	 * @return the predicted label (+1 or -1) of every row
+	 */
+	public double[] predict(double[][] samples) {
+		final double[] result = new double[samples.length];
+		IntStream range = IntStream.range(0, samples.length);
+		if (Settings.isParallel()) {
+			range = range.parallel();
 		}
+		range.forEach(i -> result[i] = predict(samples[i]));
+		return result;
+	}
 
-		final int totalClasses = 2;
-		final int[] labels = new int[totalClasses];
-		svm.svm_get_labels(model, labels);
-		return svm.svm_predict(model, nodes);
+	private double predict(double[] features) {
+		if (supportVectors == null || features.length - 1 != dimension) {
+			return evaluate(features, model);
+		}
+		// same order of operations as svm_predict_values and k_function of libsvm
+		double sum = 0;
+		for (int i = 0; i < coefficients.length; i++) {
+			final int offset = i * dimension;
+			double squaredDistance = 0;
+			for (int j = 0; j < dimension; j++) {
+				final double d = features[j + 1] - supportVectors[offset + j];
+				squaredDistance += d * d;
+			}
+			sum += coefficients[i] * Math.exp(-gamma * squaredDistance);
+		}
+		sum -= rho;
+		return sum > 0 ? 1 : -1;
 	}
 
+	/**
+	 * Copies the support vectors of a one-class RBF model into one contiguous array if they are all dense, i.e. have the indices 1 to n.
+	 */
+	private void precomputeDecisionFunction() {
+		supportVectors = null;
+		coefficients = null;
+		if (model.param.svm_type != svm_parameter.ONE_CLASS || model.param.kernel_type != svm_parameter.RBF || model.l == 0) {
+			return;
+		}
+		final int dim = model.SV[0].length;
+		final double[] vectors = new double[model.l * dim];
+		for (int i = 0; i < model.l; i++) {
+			final svm_node[] sv = model.SV[i];
+			if (sv.length != dim) {
+				return;
+			}
+			for (int j = 0; j < dim; j++) {
+				if (sv[j].index != j + 1) {
+					return;
+				}
+				vectors[i * dim + j] = sv[j].value;
+			}
+		}
+		dimension = dim;
+		gamma = model.param.gamma;
+		rho = model.rho[0];
+		coefficients = model.sv_coef[0].clone();
+		supportVectors = vectors;
+	}
 
 	@Override
 	public boolean isOutlierScaled(double[] testSample) {
-		return evaluate(testSample, model) == -1;
+		return predict(testSample) == -1;
+	}
+
+	@Override
+	protected boolean[] areOutliersScaled(double[][] scaledTestSamples) {
+		final double[] labels = predict(scaledTestSamples);
+		final boolean[] result = new boolean[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			result[i] = labels[i] == -1;
+		}
+		return result;
 	}
 
 	@Override
 	public void trainModelScaled(List<double[]> trainSamples) {
 		model = svmTrain(trainSamples);
-
+		precomputeDecisionFunction();
 	}
 
 }
@@ -14,8 +14,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,14 +103,53 @@ public abstract class NumericClassifier implements OneClassClassifier {
 	public final boolean isOutlier(double[] testSample, boolean alreadyScaled) {
 		double[] toEvaluate = testSample;
 		if (!alreadyScaled && filter != null) {
-			List<double[]> temp = new ArrayList<>();
-			temp.add(testSample);
-			temp = scale(temp, false);
-			toEvaluate = temp.get(0);
+			toEvaluate = new double[testSample.length];
+			filter.scale(testSample, toEvaluate);
 		}
 		return isOutlierScaled(toEvaluate);
 	}
 
+	/**
+	 * Scales the rows of the matrix in place and classifies them with {@link #areOutliersScaled(double[][])}.
+	 */
+	@Override
+	public final boolean[] areOutliers(double[][] testSamples) {
+		if (Settings.isDebug()) {
+			try {
+				for (final double[] testSample : testSamples) {
+					IoUtils.writeToFile(testSample, classificationTestFile);
+				}
+			} catch (final IOException e) {
+				logger.error("Unexpected exception", e);
+			}
+		}
+		if (filter != null) {
+			IntStream range = IntStream.range(0, testSamples.length);
+			if (Settings.isParallel()) {
+				range = range.parallel();
+			}
+			range.forEach(i -> filter.scale(testSamples[i], testSamples[i]));
+		}
+		return areOutliersScaled(testSamples);
+	}
+
+	/**
+	 * Checks for every row of the matrix whether it is an outlier (in parallel if {@link Settings#isParallel()}). The rows are already scaled. Classifiers
+	 * that can evaluate many samples faster than one by one should override this.
+	 * 
+	 * @param scaledTestSamples
+	 * @return for every row whether it is an outlier
+	 */
+	protected boolean[] areOutliersScaled(double[][] scaledTestSamples) {
+		final boolean[] result = new boolean[scaledTestSamples.length];
+		IntStream range = IntStream.range(0, scaledTestSamples.length);
+		if (Settings.isParallel()) {
+			range = range.parallel();
+		}
+		range.forEach(i -> result[i] = isOutlierScaled(scaledTestSamples[i]));
+		return result;
+	}
+
 	/**
 	 * Checks whether the provided test sample is an outlier. The test sample are already scaled.
 	 * 
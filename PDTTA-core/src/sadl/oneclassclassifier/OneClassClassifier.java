@@ -11,6 +11,9 @@
 package sadl.oneclassclassifier;
 
 import java.util.List;
+import java.util.stream.IntStream;
+
+import sadl.utils.Settings;
 
 /**
  * 
@@ -22,4 +25,21 @@ public interface OneClassClassifier {
 
 	boolean isOutlier(double[] testSample);
 
+	/**
+	 * Classifies many test samples at once (in parallel if {@link Settings#isParallel()}). The rows of the matrix may be modified, e.g. scaled in place.
+	 * 
+	 * @param testSamples
+	 *            one test sample per row
+	 * @return for every row whether it is an outlier
+	 */
+	default boolean[] areOutliers(double[][] testSamples) {
+		final boolean[] result = new boolean[testSamples.length];
+		IntStream range = IntStream.range(0, testSamples.length);
+		if (Settings.isParallel()) {
+			range = range.parallel();
+		}
+		range.forEach(i -> result[i] = isOutlier(testSamples[i]));
+		return result;
+	}
+
 }
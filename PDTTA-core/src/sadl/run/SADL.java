@@ -31,6 +31,7 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 
 import sadl.experiments.ExperimentResult;
+import sadl.run.commands.ConvertRun;
 import sadl.run.commands.SmacRun;
 import sadl.run.commands.TestRun;
 import sadl.run.commands.TrainRun;
@@ -48,6 +49,7 @@ public class SADL {
 	private static final String test = "test";
 	private static final String train = "train";
 	private static final String smac = "smac";
+	private static final String convert = "convert";
 
 	@Parameter
 	private final List<String> mainParams = new ArrayList<>();
@@ -85,10 +87,12 @@ public class SADL {
 		final TestRun testRun = new TestRun();
 		final TrainRun trainRun = new TrainRun();
 		final SmacRun smacRun = new SmacRun();
+		final ConvertRun convertRun = new ConvertRun();
 
 		jc.addCommand(test, testRun);
 		jc.addCommand(train, trainRun);
 		jc.addCommand(smac, smacRun);
+		jc.addCommand(convert, convertRun);
 
 		jc.parse(args);
 
@@ -103,6 +107,9 @@ public class SADL {
 			case train:
 				trainRun.run(jc.getCommands().get(train));
 				break;
+			case convert:
+				convertRun.run(jc.getCommands().get(convert));
+				break;
 			case smac:
 				logger.info("Starting SMAC with params=" + Arrays.toString(args));
 				boolean fileExisted = true;
@@ -0,0 +1,83 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.run.commands;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+import sadl.input.TimedInput;
+import sadl.utils.IoUtils;
+
+/**
+ * Converts timed sequences from the text formats into the binary format (see {@link TimedInput#toBinary(Path)}), so that they do not have to be parsed
+ * again for every experiment.
+ */
+@Parameters(commandDescription = "Converts timed sequences into the binary format")
+public class ConvertRun {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConvertRun.class);
+
+	@Parameter(names = "-in", arity = 1, required = true, description = "the file with the timed sequences in the default or alternative format")
+	private Path in;
+
+	@Parameter(names = "-out", arity = 1, required = true, description = "the binary file (the train set if -testOut is set)")
+	private Path out;
+
+	@Parameter(names = "-testOut", arity = 1, description = "if set, the input is a train-test file and the test set is written to this file")
+	private Path testOut;
+
+	@Parameter(names = "-skipFirstElement", arity = 1)
+	boolean skipFirstElement = false;
+
+	public ConvertRun() {
+	}
+
+	public void run(JCommander jc) throws IOException {
+		if (testOut != null) {
+			final Pair<TimedInput, TimedInput> trainTest = IoUtils.readTrainTestFile(in, skipFirstElement);
+			if (trainTest == null) {
+				throw new IOException("Error when reading train-test file " + in);
+			}
+			write(trainTest.getLeft(), out);
+			write(trainTest.getRight(), testOut);
+		} else {
+			final TimedInput input;
+			if (skipFirstElement) {
+				try (Reader reader = Files.newBufferedReader(in)) {
+					input = TimedInput.parse(reader, true);
+				}
+			} else {
+				input = TimedInput.tryParse(in);
+			}
+			write(input, out);
+		}
+	}
+
+	private static void write(TimedInput input, Path file) throws IOException {
+		final Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		input.toBinary(file);
+		logger.info("Wrote {} sequences with {} symbols to {}", input.size(), input.getAlphSize(), file);
+	}
+
+}
@@ -13,6 +13,7 @@ package sadl.run.factories.learn;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 
+import sadl.constants.KdeEvaluation;
 import sadl.constants.KdeKernelFunction;
 import sadl.constants.MergeMethod;
 import sadl.constants.TauEstimation;
@@ -31,6 +32,12 @@ public class PdttaFactory implements PdfaDefaultFactory, TptaDefaultFactory {
 	@Parameter(names = "-kdeKernelFunction")
 	KdeKernelFunction kdeKernelFunctionQualifier = KdeKernelFunction.ESTIMATE;
 
+	@Parameter(names = "-kdeEvaluation")
+	KdeEvaluation kdeEvaluation = KdeEvaluation.EXACT;
+
+	@Parameter(names = "-kdeGridError")
+	double kdeGridError = 0.001;
+
 	@Parameter(names = "-mcNumberOfSteps")
 	int mcNumberOfSteps = 1000;
 
@@ -69,6 +76,16 @@ public class PdttaFactory implements PdfaDefaultFactory, TptaDefaultFactory {
 		return kdeKernelFunctionQualifier;
 	}
 
+	@Override
+	public KdeEvaluation getKdeEvaluation() {
+		return kdeEvaluation;
+	}
+
+	@Override
+	public double getKdeGridError() {
+		return kdeGridError;
+	}
+
 	@Override
 	public int getMcNumberOfSteps() {
 		return mcNumberOfSteps;
@@ -109,7 +126,8 @@ public class PdttaFactory implements PdfaDefaultFactory, TptaDefaultFactory {
 	@Override
 	public PdttaLearner create() {
 		final PdfaLearner pdfaLearner = new AlergiaRedBlue(getMergeAlpha(), isRecursiveMergeTest(), getMergeMethod(), getMergeT0());
-		final PdttaLearner learner = new PdttaLearner(pdfaLearner, getKernelFunction(), getBandwidth(), getTauEstimator());
+		final PdttaLearner learner = new PdttaLearner(pdfaLearner, getKernelFunction(), getBandwidth(), getTauEstimator(), getKdeEvaluation(),
+				getKdeGridError());
 		return learner;
 	}
 }
@@ -107,6 +107,8 @@ public class RTIFactory implements LearnerFactory {
 	String boolOps = "AAA";
 	@Parameter(names = "-testPara", arity = 1)
 	boolean testParallel = false;
+	@Parameter(names = "-testThreads", arity = 1)
+	int testThreads = 0;
 
 	@Parameter(names = "-ida", arity = 1)
 	DistributionAnalysisType ida = DistributionAnalysisType.DISABLED;
@@ -129,6 +131,12 @@ public class RTIFactory implements LearnerFactory {
 	SearchMeasure measure = SearchMeasure.SIZE;
 	@Parameter(names = "-searchPara", arity = 1)
 	boolean searchParallel = false;
+	@Parameter(names = "-beamWidth", arity = 1)
+	int beamWidth = 0;
+	@Parameter(names = "-lookahead", arity = 1)
+	int lookahead = 1;
+	@Parameter(names = "-searchTimeBudget", arity = 1)
+	long searchTimeBudget = 0;
 
 	@Parameter(names = "-steps", arity = 1)
 	String stepsDir = null;
@@ -141,12 +149,13 @@ public class RTIFactory implements LearnerFactory {
 
 		final PDRTALearnerBuilder b = new PDRTALearnerBuilder(sig, histoBinAna);
 		b.setOperationTester(tester != null ? tester.getTester() : null, splitPos, doNotMergeWithRoot, boolOps, testParallel);
+		b.setParallelism(testThreads);
 
 		if (intervalAna != null) {
 			b.activateIDA(intervalAna, removeBorderGapsOnly, performIDAActively, intervalExpRate);
 		}
 		if (searching) {
-			b.useSearchingWrapper(maxOperationsToSearch, measure, searchParallel);
+			b.useSearchingWrapper(maxOperationsToSearch, measure, searchParallel, beamWidth, lookahead, searchTimeBudget);
 		}
 		if (stepsDir != null) {
 			b.drawPDRTAStepwise(Paths.get(stepsDir));
@@ -16,6 +16,7 @@ import jsat.distributions.empirical.kernelfunc.GaussKF;
 import jsat.distributions.empirical.kernelfunc.KernelFunction;
 import jsat.distributions.empirical.kernelfunc.TriweightKF;
 import jsat.distributions.empirical.kernelfunc.UniformKF;
+import sadl.constants.KdeEvaluation;
 import sadl.constants.KdeKernelFunction;
 import sadl.constants.TauEstimation;
 import sadl.interfaces.ProbabilisticModelLearner;
@@ -51,6 +52,10 @@ public interface TptaDefaultFactory extends LearnerFactory {
 
 	boolean getKdeBandwidthEstimateValue();
 
+	KdeEvaluation getKdeEvaluation();
+
+	double getKdeGridError();
+
 	int getMcNumberOfSteps();
 
 	int getMcPointsToStore();
@@ -78,7 +83,7 @@ public interface TptaDefaultFactory extends LearnerFactory {
 
 	@Override
 	default public ProbabilisticModelLearner create() {
-		return new TauPtaLearner(getKernelFunction(), getBandwidth(), getTauEstimator());
+		return new TauPtaLearner(getKernelFunction(), getBandwidth(), getTauEstimator(), getKdeEvaluation(), getKdeGridError());
 	}
 
 }
@@ -12,6 +12,7 @@ package sadl.run.factories.learn;
 
 import com.beust.jcommander.Parameter;
 
+import sadl.constants.KdeEvaluation;
 import sadl.constants.KdeKernelFunction;
 import sadl.constants.TauEstimation;
 
@@ -25,6 +26,12 @@ public class TptaFactory implements TptaDefaultFactory {
 	@Parameter(names = "-kdeKernelFunction")
 	KdeKernelFunction kdeKernelFunctionQualifier = KdeKernelFunction.ESTIMATE;
 
+	@Parameter(names = "-kdeEvaluation")
+	KdeEvaluation kdeEvaluation = KdeEvaluation.EXACT;
+
+	@Parameter(names = "-kdeGridError")
+	double kdeGridError = 0.001;
+
 	@Parameter(names = "-mcNumberOfSteps")
 	int mcNumberOfSteps = 1000;
 
@@ -49,6 +56,16 @@ public class TptaFactory implements TptaDefaultFactory {
 		return kdeKernelFunctionQualifier;
 	}
 
+	@Override
+	public KdeEvaluation getKdeEvaluation() {
+		return kdeEvaluation;
+	}
+
+	@Override
+	public double getKdeGridError() {
+		return kdeGridError;
+	}
+
 	@Override
 	public int getMcNumberOfSteps() {
 		return mcNumberOfSteps;
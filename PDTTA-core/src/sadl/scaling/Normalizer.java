@@ -75,16 +75,24 @@ public class Normalizer implements Scaling {
 		final List<double[]> result = new ArrayList<>(input.size());
 		for (final double[] ds : input) {
 			final double[] temp = new double[ds.length];
-			for (int i = 0; i < ds.length; i++) {
-				if (Precision.equals(scalingFactors[i], 0)) {
-					temp[i] = 1;
-				} else {
-					temp[i] = (ds[i] - mins[i]) / scalingFactors[i];
-				}
-			}
+			scale(ds, temp);
 			result.add(temp);
 		}
 		return result;
 	}
 
+	@Override
+	public void scale(double[] input, double[] output) {
+		if (!trained) {
+			throw new IllegalStateException("Scaler must be trained first before scaling");
+		}
+		for (int i = 0; i < input.length; i++) {
+			if (Precision.equals(scalingFactors[i], 0)) {
+				output[i] = 1;
+			} else {
+				output[i] = (input[i] - mins[i]) / scalingFactors[i];
+			}
+		}
+	}
+
 }
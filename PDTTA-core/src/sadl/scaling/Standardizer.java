@@ -59,16 +59,24 @@ public class Standardizer implements Scaling {
 		final List<double[]> result = new ArrayList<>(input.size());
 		for (final double[] ds : input) {
 			final double[] temp = new double[ds.length];
-			for (int i = 0; i < ds.length; i++) {
-				if (Precision.equals(ABNORMAL_STANDARD_DEVIATION, sigmas[i])) {
-					temp[i] = mus[i];
-				} else {
-					temp[i] = (ds[i] - mus[i]) / sigmas[i];
-				}
-			}
+			scale(ds, temp);
 			result.add(temp);
 		}
 		return result;
 	}
 
+	@Override
+	public void scale(double[] input, double[] output) {
+		if (!trained) {
+			throw new IllegalStateException("Scaler must be trained first before scaling");
+		}
+		for (int i = 0; i < input.length; i++) {
+			if (Precision.equals(ABNORMAL_STANDARD_DEVIATION, sigmas[i])) {
+				output[i] = mus[i];
+			} else {
+				output[i] = (input[i] - mus[i]) / sigmas[i];
+			}
+		}
+	}
+
 }
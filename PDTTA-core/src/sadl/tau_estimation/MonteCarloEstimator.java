@@ -45,6 +45,23 @@ public class MonteCarloEstimator implements TauEstimator, Serializable {
 		return result;
 	}
 
+	@Override
+	public double[] createTable(ContinuousDistribution d) {
+		final MonteCarloIntegration mc = mcs.get(d);
+		if (mc == null || !mc.isPreprocessed()) {
+			return null;
+		}
+		return mc.getSortedPdfValues();
+	}
+
+	@Override
+	public double estimateTau(ContinuousDistribution d, double[] table, double timeValue) {
+		if (table == null) {
+			return estimateTau(d, timeValue);
+		}
+		return MonteCarloIntegration.integrate(table, d.pdf(timeValue));
+	}
+
 	@Override
 	public void preprocess(Collection<ContinuousDistribution> values) {
 		for (final ContinuousDistribution d : values) {
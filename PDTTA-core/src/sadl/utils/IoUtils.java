@@ -182,6 +182,25 @@ public class IoUtils {
 	}
 
 	public static Pair<TimedInput, TimedInput> readTrainTestFile(Path trainTestFile, boolean skipFirstElement) {
+		if (Files.exists(trainTestFile)) {
+			try {
+				return TimedInput.parseTrainTest(trainTestFile, SmacDataGenerator.TRAIN_TEST_SEP, skipFirstElement);
+			} catch (final IllegalArgumentException e) {
+				// parse the file again in a sequential way to report the malformed line
+				final Pair<TimedInput, TimedInput> result = readTrainTestFileSequentially(trainTestFile, skipFirstElement);
+				if (result != null) {
+					logger.warn("Parsing the mapped train-test file {} failed, but parsing it sequentially succeeded", trainTestFile, e);
+				}
+				return result;
+			} catch (final IOException e) {
+				logger.error("Unexpected exception!", e);
+				return null;
+			}
+		}
+		return readTrainTestFileSequentially(trainTestFile, skipFirstElement);
+	}
+
+	private static Pair<TimedInput, TimedInput> readTrainTestFileSequentially(Path trainTestFile, boolean skipFirstElement) {
 		return readTrainTestFile(trainTestFile, (reader) -> {
 			try {
 				return TimedInput.parse(reader, skipFirstElement);
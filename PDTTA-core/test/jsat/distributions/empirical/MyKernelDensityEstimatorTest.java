@@ -0,0 +1,92 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package jsat.distributions.empirical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import jsat.distributions.empirical.kernelfunc.EpanechnikovKF;
+import jsat.distributions.empirical.kernelfunc.GaussKF;
+import jsat.distributions.empirical.kernelfunc.KernelFunction;
+import jsat.distributions.empirical.kernelfunc.UniformKF;
+import jsat.linear.DenseVector;
+import jsat.linear.Vec;
+
+public class MyKernelDensityEstimatorTest {
+
+	private static Vec sample() {
+		final Random r = new Random(1234);
+		final double[] values = new double[500];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i % 2 == 0 ? 100 + 10 * r.nextGaussian() : 200 + 30 * r.nextGaussian();
+		}
+		return new DenseVector(values);
+	}
+
+	private static void checkGrid(KernelFunction k) {
+		final double maxError = 0.001;
+		final MyKernelDensityEstimator exact = new MyKernelDensityEstimator(sample(), k);
+		final MyKernelDensityEstimator grid = exact.clone();
+		assertTrue(grid.precomputeGrid(maxError));
+		double maxPdf = 0;
+		for (double x = exact.min() - 100; x < exact.max() + 100; x += 0.1) {
+			maxPdf = Math.max(maxPdf, exact.pdf(x));
+		}
+		for (double x = exact.min() - 100; x < exact.max() + 100; x += 0.1) {
+			assertEquals("pdf(" + x + ")", exact.pdf(x), grid.pdf(x), 2 * maxError * maxPdf);
+			assertEquals("cdf(" + x + ")", exact.cdf(x), grid.cdf(x), 0.001);
+		}
+	}
+
+	@Test
+	public void testGridGauss() {
+		checkGrid(GaussKF.getInstance());
+	}
+
+	@Test
+	public void testGridEpanechnikov() {
+		checkGrid(EpanechnikovKF.getInstance());
+	}
+
+	@Test
+	public void testGridSerialization() {
+		final MyKernelDensityEstimator exact = new MyKernelDensityEstimator(sample(), GaussKF.getInstance());
+		final MyKernelDensityEstimator grid = exact.clone();
+		assertTrue(grid.precomputeGrid(0.001));
+		// only the maximum error is serialized, not the grid
+		assertEquals(SerializationUtils.serialize(exact).length, SerializationUtils.serialize(grid).length);
+		final MyKernelDensityEstimator deserialized = SerializationUtils.clone(grid);
+		assertTrue(deserialized.isGridEvaluated());
+		for (double x = exact.min() - 100; x < exact.max() + 100; x += 0.1) {
+			assertEquals("pdf(" + x + ")", grid.pdf(x), deserialized.pdf(x), 0);
+			assertEquals("cdf(" + x + ")", grid.cdf(x), deserialized.cdf(x), 0);
+		}
+		assertFalse(SerializationUtils.clone(exact).isGridEvaluated());
+	}
+
+	@Test
+	public void testNoGrid() {
+		final MyKernelDensityEstimator uniform = new MyKernelDensityEstimator(sample(), UniformKF.getInstance());
+		assertFalse(uniform.precomputeGrid(0.001));
+		assertFalse(uniform.isGridEvaluated());
+		final MyKernelDensityEstimator gauss = new MyKernelDensityEstimator(sample(), GaussKF.getInstance());
+		assertTrue(gauss.precomputeGrid(0.001));
+		gauss.setBandwith(1);
+		assertFalse(gauss.isGridEvaluated());
+	}
+
+}
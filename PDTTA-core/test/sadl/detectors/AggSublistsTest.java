@@ -10,12 +10,16 @@
  */
 package sadl.detectors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.After;
@@ -24,12 +28,18 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
 import sadl.anomalydetecion.AnomalyDetection;
 import sadl.constants.ProbabilityAggregationMethod;
 import sadl.constants.ScalingMethod;
+import sadl.detectors.featureCreators.AggregatedSingleFeatureCreator;
+import sadl.detectors.featureCreators.FeatureCreator;
+import sadl.detectors.featureCreators.FullFeatureCreator;
 import sadl.detectors.featureCreators.MinimalFeatureCreator;
 import sadl.detectors.featureCreators.SmallFeatureCreator;
 import sadl.detectors.featureCreators.UberFeatureCreator;
+import sadl.detectors.threshold.AggregatedThresholdDetector;
 import sadl.experiments.ExperimentResult;
 import sadl.input.TimedInput;
 import sadl.modellearner.AlergiaRedBlue;
@@ -109,4 +119,71 @@ public class AggSublistsTest {
 		// System.out.println(actual4);
 		assertEquals(expected4, actual4);
 	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void prefixFeaturesTest() {
+		final Random r = MasterSeed.nextRandom();
+		final FeatureCreator[] featureCreators = { new MinimalFeatureCreator(), new SmallFeatureCreator(), new FullFeatureCreator(),
+				new UberFeatureCreator(), new AggregatedSingleFeatureCreator() };
+		for (int length = 0; length < 30; length++) {
+			final TDoubleList timeLikelihoods = new TDoubleArrayList();
+			final TDoubleList eventLikelihoods = new TDoubleArrayList();
+			for (int i = 0; i < length; i++) {
+				eventLikelihoods.add(i == 20 ? 0 : r.nextDouble());
+				timeLikelihoods.add(i % 3 == 0 ? 1 : r.nextDouble());
+			}
+			eventLikelihoods.add(r.nextDouble());
+			for (final ProbabilityAggregationMethod aggType : ProbabilityAggregationMethod.values()) {
+				for (final FeatureCreator fc : featureCreators) {
+					final List<double[]> prefixFeatures = new ArrayList<>();
+					fc.createPrefixFeatures(eventLikelihoods, timeLikelihoods, aggType, vector -> prefixFeatures.add(vector.clone()));
+					assertEquals(length, prefixFeatures.size());
+					for (int i = 1; i <= length; i++) {
+						assertArrayEquals(fc.createFeatures(eventLikelihoods.subList(0, i), timeLikelihoods.subList(0, i), aggType),
+								prefixFeatures.get(i - 1), 0);
+					}
+				}
+				final AggregatedThresholdDetector detector = new AggregatedThresholdDetector(aggType, 0, 0, true);
+				final org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList> trend = detector.computeAggregatedTrendLikelihood(eventLikelihoods,
+						timeLikelihoods);
+				for (int i = 1; i <= length; i++) {
+					assertEquals(AnomalyDetector.aggregate(eventLikelihoods.subList(0, i), aggType), trend.getKey().get(i - 1), 0);
+					assertEquals(AnomalyDetector.aggregate(timeLikelihoods.subList(0, i), aggType), trend.getValue().get(i - 1), 0);
+				}
+				assertEquals(length + 1, trend.getKey().size());
+			}
+		}
+	}
+
+	@Test
+	public void batchFeaturesTest() {
+		final Random r = MasterSeed.nextRandom();
+		final FeatureCreator[] featureCreators = { new MinimalFeatureCreator(), new SmallFeatureCreator(), new FullFeatureCreator(),
+				new UberFeatureCreator(), new AggregatedSingleFeatureCreator() };
+		final List<org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList>> likelihoods = new ArrayList<>();
+		for (int length = 0; length < 30; length++) {
+			final TDoubleList timeLikelihoods = new TDoubleArrayList();
+			final TDoubleList eventLikelihoods = new TDoubleArrayList();
+			for (int i = 0; i < length; i++) {
+				eventLikelihoods.add(i == 20 ? 0 : r.nextDouble());
+				timeLikelihoods.add(i % 3 == 0 ? 1 : r.nextDouble());
+			}
+			eventLikelihoods.add(r.nextDouble());
+			likelihoods.add(org.apache.commons.math3.util.Pair.create(eventLikelihoods, timeLikelihoods));
+		}
+		for (final ProbabilityAggregationMethod aggType : ProbabilityAggregationMethod.values()) {
+			for (final FeatureCreator fc : featureCreators) {
+				final double[][] features = new double[likelihoods.size()][];
+				// the second batch overwrites the rows of the first one
+				for (int batch = 0; batch < 2; batch++) {
+					fc.createFeatures(likelihoods, aggType, features);
+					for (int i = 0; i < likelihoods.size(); i++) {
+						final org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList> p = likelihoods.get(i);
+						assertArrayEquals(fc.createFeatures(p.getKey(), p.getValue(), aggType), features[i], 0);
+					}
+				}
+			}
+		}
+	}
 }
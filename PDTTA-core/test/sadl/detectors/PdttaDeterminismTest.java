@@ -10,11 +10,16 @@
  */
 package sadl.detectors;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.Precision;
@@ -24,6 +29,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import gnu.trove.list.TDoubleList;
 import sadl.anomalydetecion.AnomalyDetection;
 import sadl.constants.ProbabilityAggregationMethod;
 import sadl.constants.ScalingMethod;
@@ -31,8 +37,10 @@ import sadl.detectors.featureCreators.SmallFeatureCreator;
 import sadl.detectors.featureCreators.UberFeatureCreator;
 import sadl.experiments.ExperimentResult;
 import sadl.input.TimedInput;
+import sadl.input.TimedWord;
 import sadl.modellearner.AlergiaRedBlue;
 import sadl.modellearner.PdttaLearner;
+import sadl.models.PDTTA;
 import sadl.oneclassclassifier.LibSvmClassifier;
 import sadl.oneclassclassifier.ThresholdClassifier;
 import sadl.utils.IoUtils;
@@ -85,6 +93,46 @@ public class PdttaDeterminismTest {
 		}
 	}
 
+	@Test
+	public void prefixCacheTest() throws IOException, URISyntaxException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils
+				.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final PDTTA pdtta = new PdttaLearner(new AlergiaRedBlue(0.05, true)).train(trainTest.getKey());
+		final List<org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList>> expected = new ArrayList<>();
+		for (final TimedWord w : trainTest.getValue()) {
+			expected.add(pdtta.calculateProbabilities(w));
+		}
+		pdtta.setPrefixCacheSize(1000);
+		final TimedInput test = trainTest.getValue();
+		// in parallel, so that the stripes of the cache are used concurrently
+		final double[] logLikelihoods = new double[test.size()];
+		IntStream.range(0, test.size()).parallel().forEach(i -> logLikelihoods[i] = pdtta.computeEventLogLikelihood(test.get(i)));
+		for (int i = 0; i < test.size(); i++) {
+			assertEquals(expected.get(i), pdtta.calculateProbabilities(test.get(i)));
+			assertEquals(AnomalyDetector.aggregate(expected.get(i).getKey(), ProbabilityAggregationMethod.MULTIPLY), logLikelihoods[i], 0);
+		}
+		assertTrue(pdtta.getPrefixCache().getHits() > 0);
+		assertTrue(pdtta.getPrefixCache().size() <= 1000);
+	}
+
+	@Test
+	public void parallelTrainingTest() throws IOException, URISyntaxException {
+		final TimedInput train = IoUtils.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI())).getKey();
+		final boolean parallel = Settings.isParallel();
+		try {
+			Settings.setParallel(false);
+			MasterSeed.reset();
+			final PDTTA sequential = new PdttaLearner(new AlergiaRedBlue(0.05, true)).train(train);
+			Settings.setParallel(true);
+			MasterSeed.reset();
+			final PDTTA concurrent = new PdttaLearner(new AlergiaRedBlue(0.05, true)).train(train);
+			assertEquals(sequential.getTransitions(), concurrent.getTransitions());
+			assertEquals(sequential.getTransitionDistributions(), concurrent.getTransitionDistributions());
+		} finally {
+			Settings.setParallel(parallel);
+		}
+	}
+
 	@Test
 	public void thresholdDeterminismTest() throws IOException, URISyntaxException {
 		double fMeasure = -1;
@@ -0,0 +1,172 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.detectors;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import sadl.constants.ClassLabel;
+import sadl.constants.EventsCreationStrategy;
+import sadl.constants.IntervalCreationStrategy;
+import sadl.constants.KDEFormelVariant;
+import sadl.constants.PTAOrdering;
+import sadl.constants.ProbabilityAggregationMethod;
+import sadl.constants.TransitionsType;
+import sadl.detectors.threshold.AggregatedThresholdDetector;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.interfaces.ProbabilisticModel;
+import sadl.modellearner.AlergiaRedBlue;
+import sadl.modellearner.ButlaPdtaLearner;
+import sadl.modellearner.PdttaLearner;
+import sadl.modellearner.rtiplus.SimplePDRTALearner;
+import sadl.utils.IoUtils;
+import sadl.utils.MasterSeed;
+
+@SuppressWarnings("deprecation")
+public class SequenceScorerTest {
+
+	@Before
+	public void setUp() throws Exception {
+		MasterSeed.reset();
+	}
+
+	@Test
+	public void testAggregator() {
+		final Random r = MasterSeed.nextRandom();
+		final ProbabilityAggregator aggregator = new ProbabilityAggregator();
+		final TDoubleList probabilities = new TDoubleArrayList();
+		for (final ProbabilityAggregationMethod aggType : ProbabilityAggregationMethod.values()) {
+			assertEquals(AnomalyDetector.aggregate(probabilities, aggType), aggregator.get(aggType), 0);
+		}
+		for (int i = 0; i < 200; i++) {
+			final double p = i % 50 == 49 ? 0 : r.nextDouble();
+			probabilities.add(p);
+			aggregator.add(p);
+			for (final ProbabilityAggregationMethod aggType : ProbabilityAggregationMethod.values()) {
+				assertEquals(AnomalyDetector.aggregate(probabilities, aggType), aggregator.get(aggType), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testPdtta() throws IOException, URISyntaxException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils
+				.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final ProbabilisticModel pdfa = new AlergiaRedBlue(0.05, true).train(trainTest.getKey());
+		checkScorer(pdfa, trainTest.getValue());
+		final ProbabilisticModel pdtta = new PdttaLearner(new AlergiaRedBlue(0.05, true)).train(trainTest.getKey());
+		checkScorer(pdtta, trainTest.getValue());
+		checkThresholdDetector(pdtta, trainTest.getValue());
+	}
+
+	@Test
+	public void testPdrta() throws IOException, URISyntaxException {
+		final TimedInput input = TimedInput.parse(Paths.get(this.getClass().getResource("/pdrta/test_1.inp").toURI()));
+		final ProbabilisticModel pdrta = new SimplePDRTALearner(0.05, 4, false, false, null).train(input);
+		checkScorer(pdrta, input);
+		checkScorer(pdrta, shuffled(input));
+	}
+
+	@Test
+	public void testPdta() throws IOException, URISyntaxException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils
+				.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final TimedInput trainSet = trainTest.getKey();
+		trainSet.decreaseSamples(0.1);
+		final ProbabilisticModel pdta = new ButlaPdtaLearner(10000, 0.9, TransitionsType.Incoming, 0.000001, 0.3, PTAOrdering.BottomUp,
+				EventsCreationStrategy.NotTimedEvents, KDEFormelVariant.OriginalButlaVariableBandwidth, IntervalCreationStrategy.extendInterval)
+				.train(trainSet);
+		checkScorer(pdta, trainTest.getValue());
+		final AnodaDetector anoda = new AnodaDetector();
+		anoda.setModel(pdta);
+		for (final TimedWord w : trainTest.getValue()) {
+			assertEquals(anoda.isAnomaly(w), anoda.isAnomaly(feed(anoda.newScorer(), w)));
+		}
+	}
+
+	private void checkScorer(ProbabilisticModel model, TimedInput words) {
+		for (final TimedWord w : words) {
+			final org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList> expected = model.calculateProbabilities(w);
+			final SequenceScorer scorer = feed(model.newScorer(), w);
+			assertEquals(expected.getKey(), scorer.getEventLikelihoods());
+			assertEquals(expected.getValue(), scorer.getTimeLikelihoods());
+			assertEquals(w.length(), scorer.length());
+			for (final ProbabilityAggregationMethod aggType : ProbabilityAggregationMethod.values()) {
+				assertEquals(AnomalyDetector.aggregate(expected.getKey(), aggType), scorer.getAggregatedEventLikelihood(aggType), 0);
+				assertEquals(AnomalyDetector.aggregate(expected.getValue(), aggType), scorer.getAggregatedTimeLikelihood(aggType), 0);
+			}
+			assertEquals(expected.getKey().contains(0), scorer.hasZeroProbability());
+		}
+	}
+
+	private void checkThresholdDetector(ProbabilisticModel model, TimedInput words) {
+		final AggregatedThresholdDetector detector = new AggregatedThresholdDetector(ProbabilityAggregationMethod.NORMALIZED_MULTIPLY, 0.1, 0.01, true);
+		detector.setModel(model);
+		for (final TimedWord w : words) {
+			final SequenceScorer scorer = detector.newScorer();
+			for (int i = 0; i < w.length(); i++) {
+				scorer.accept(w.getSymbol(i), w.getTimeValue(i));
+			}
+			final boolean flagged = scorer.finish();
+			final boolean anomaly = detector.isAnomaly(w);
+			assertEquals(anomaly, detector.isAnomaly(scorer));
+			// a zero likelihood breaches the threshold as well, so the scorer flags exactly the anomalies of the detector
+			assertEquals(anomaly, flagged);
+		}
+	}
+
+	private static SequenceScorer feed(SequenceScorer scorer, TimedWord w) {
+		for (int i = 0; i < w.length(); i++) {
+			scorer.accept(w.getSymbol(i), w.getTimeValue(i));
+		}
+		scorer.finish();
+		return scorer;
+	}
+
+	/**
+	 * @return the words with their events in random order, so that many of them cannot be processed by the model
+	 */
+	private static TimedInput shuffled(TimedInput input) {
+		final Random r = MasterSeed.nextRandom();
+		final List<TimedWord> words = new ArrayList<>();
+		for (final TimedWord w : input) {
+			final List<Integer> order = new ArrayList<>();
+			for (int i = 0; i < w.length(); i++) {
+				order.add(i);
+			}
+			Collections.shuffle(order, r);
+			final List<String> symbols = new ArrayList<>();
+			final TIntArrayList timeValues = new TIntArrayList();
+			for (final int i : order) {
+				symbols.add(w.getSymbol(i));
+				timeValues.add(w.getTimeValue(i));
+			}
+			words.add(new TimedWord(symbols, timeValues, ClassLabel.NORMAL));
+		}
+		return new TimedInput(words);
+	}
+
+}
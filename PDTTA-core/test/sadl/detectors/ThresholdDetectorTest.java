@@ -10,13 +10,16 @@
  */
 package sadl.detectors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -33,10 +36,13 @@ import sadl.detectors.featureCreators.AggregatedSingleFeatureCreator;
 import sadl.detectors.featureCreators.MinimalFeatureCreator;
 import sadl.detectors.threshold.AggregatedThresholdDetector;
 import sadl.experiments.ExperimentResult;
+import sadl.input.TimedInput;
 import sadl.modellearner.AlergiaRedBlue;
 import sadl.modellearner.ButlaPdtaLearner;
 import sadl.modellearner.PdttaLearner;
+import sadl.models.PDFA;
 import sadl.oneclassclassifier.ThresholdClassifier;
+import sadl.utils.IoUtils;
 import sadl.utils.MasterSeed;
 
 @SuppressWarnings("deprecation")
@@ -105,6 +111,19 @@ public class ThresholdDetectorTest {
 
 	}
 
+	@Test
+	public void testPrefixCacheDetector() throws IOException, URISyntaxException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils
+				.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final PDFA pdfa = new AlergiaRedBlue(0.05, true).train(trainTest.getKey());
+		pdfa.makeImmutable();
+		final AggregatedThresholdDetector detector = new AggregatedThresholdDetector(ProbabilityAggregationMethod.MULTIPLY, -15, -1, false);
+		final boolean[] expected = detector.areAnomalies(pdfa, trainTest.getValue());
+		pdfa.setPrefixCacheSize(1000);
+		assertArrayEquals(expected, detector.areAnomalies(pdfa, trainTest.getValue()));
+		assertTrue(pdfa.getPrefixCache().getHits() > 0);
+	}
+
 	@Test
 	public void testSingleThresholdDetectorPdtta() throws IOException, URISyntaxException {
 		logger.info("Starting testSingleThresholdDetectorPdtta...");
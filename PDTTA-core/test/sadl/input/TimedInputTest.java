@@ -0,0 +1,353 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import sadl.constants.ClassLabel;
+import sadl.run.datagenerators.SmacDataGenerator;
+import sadl.utils.IoUtils;
+
+public class TimedInputTest {
+
+	private static final String[] SYMBOLS = { "a", "b", "c12", "event_4", "X" };
+	private static final long[] CHUNK_SIZES = { 1, 16, 100, Long.MAX_VALUE };
+
+	@Test
+	public void testBinaryFormat() throws URISyntaxException, IOException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final TimedInput test = trainTest.getRight();
+		final Path binary = Files.createTempFile("sadl", ".bin");
+		try {
+			test.toBinary(binary);
+			final TimedInput read = TimedInput.fromBinary(binary);
+			assertEquals(test.size(), read.size());
+			for (int i = 0; i < test.size(); i++) {
+				final TimedWord w = test.getWord(i);
+				assertEquals(w.length(), read.getWordLength(i));
+				assertEquals(w.getLabel(), read.getLabel(i));
+				for (int j = 0; j < w.length(); j++) {
+					assertEquals(test.getAlphIndex(w, j), read.getSymbolId(i, j));
+					assertEquals(w.getTimeValue(j), read.getTimeValue(i, j));
+				}
+			}
+			assertEquals(test, read);
+			assertEquals(test, TimedInput.tryParse(binary));
+			assertEquals(test, SerializationUtils.clone(read));
+
+			read.getWord(0).setLabel(ClassLabel.ANOMALY);
+			assertEquals(ClassLabel.ANOMALY, read.getLabel(0));
+		} finally {
+			Files.delete(binary);
+		}
+	}
+
+	@Test
+	public void testForeignSymbols() throws URISyntaxException, IOException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final TimedInput test = trainTest.getRight();
+		final TimedWord w = test.getWord(0);
+		assertTrue(w.isEncodedWith(test));
+		final String known = w.getSymbol(0);
+		final List<String> original = new ArrayList<>(w.symbols);
+		final List<String> expected = new ArrayList<>(original);
+
+		// Symbols that are not part of the alphabet are kept as strings
+		w.symbols.set(0, "foreign");
+		w.symbols.add("foreign");
+		expected.set(0, "foreign");
+		expected.add("foreign");
+		assertEquals(expected, w.symbols);
+		assertEquals("foreign", w.getSymbol(0));
+		assertEquals(-1, w.getSymbolId(0));
+		assertEquals(-1, test.getAlphIndex(w, w.length() - 1));
+		assertEquals(expected, SerializationUtils.clone(w).symbols);
+
+		// The ids follow the alphabet when it grows
+		final int id = test.addSymbol("foreign");
+		assertEquals(id, w.getSymbolId(0));
+		assertEquals(id, test.getAlphIndex(w, w.length() - 1));
+
+		w.symbols.set(0, known);
+		assertEquals(test.getAlphIndex(known), w.getSymbolId(0));
+		w.symbols.remove(w.length() - 1);
+		assertEquals(original, w.symbols);
+	}
+
+	@Test
+	public void testTokenizerDefaultFormat() {
+		final String[] wellFormed = { "(a,1) (b,2)", "(a,1) (b,2):1", "(a,1) (b,2) : 0", "  (a,1)   (b,2)  :1", "(a,1)\t(b,2)", "(a , 1) (b,\t2)",
+				"(event_4,-5) (X,+7)", "()", ":1", "(a,1):", "(a,1):x", "(a,1):11", "(c12,2147483647) (a,-2147483648)" };
+		final String[] malformed = { "( a , 1 )", "(a-b,1) (b,2)", "(a;1)", "(a,1)(b,2)", "(a,1.5)", "(a,99999999999)", "a,1", "(a,1) b,2)", "(,1)" };
+		for (final boolean skipFirstElement : new boolean[] { false, true }) {
+			for (final String line : wellFormed) {
+				assertTokenizedLikeRegex(line, false, skipFirstElement, true);
+			}
+			for (final String line : malformed) {
+				// skipping the first pair may skip the malformed part, too
+				assertTokenizedLikeRegex(line, false, skipFirstElement, skipFirstElement ? null : Boolean.FALSE);
+			}
+		}
+	}
+
+	@Test
+	public void testTokenizerAlternativeFormat() {
+		final String[] wellFormed = { "2 a 1  b 2", "2 a 1  b 2 : 1", "1 a 1:0", "3 a 1  event_4 2  c12 3", "2 a 1\t\tb 2", "2 a -1  b +2", "  1 X 5  ",
+				"1 a 1:", "1 a 1 :x" };
+		final String[] malformed = { "2 a 1 b 2", "2 a  1  b 2", "2  a 1", "a 1", "1 a 1.5", "1 a-b 1", "1 a 99999999999", "2 a 1   b 2" };
+		for (final boolean skipFirstElement : new boolean[] { false, true }) {
+			for (final String line : wellFormed) {
+				assertTokenizedLikeRegex(line, true, skipFirstElement, true);
+			}
+			for (final String line : malformed) {
+				// skipping the first pair may skip the malformed part, too
+				assertTokenizedLikeRegex(line, true, skipFirstElement, skipFirstElement ? null : Boolean.FALSE);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the tokenizer accepts the line (unless {@code wellFormed} is {@code null}) and that appending the line gives the same word (or the same
+	 * error) as the regular expressions.
+	 */
+	private static void assertTokenizedLikeRegex(String line, boolean alternativeFormat, boolean skipFirstElement, Boolean wellFormed) {
+		final String message = "line \"" + line + "\" (skipFirstElement=" + skipFirstElement + ")";
+		final TimedInput regex = new TimedInput(new ArrayList<>());
+		IllegalArgumentException regexError = null;
+		try {
+			// without a tokenizer the line is parsed with the regular expressions
+			regex.appendLine(line, 0, null, alternativeFormat, skipFirstElement, new TIntArrayList(), new TIntArrayList());
+		} catch (final IllegalArgumentException e) {
+			regexError = e;
+		}
+
+		final TimedInput tokenized = new TimedInput(new ArrayList<>());
+		final TIntList symbolIds = new TIntArrayList();
+		final TIntList timeDelays = new TIntArrayList();
+		final TimedWordTokenizer tokenizer = new TimedWordTokenizer(tokenized, alternativeFormat, skipFirstElement, symbolIds, timeDelays);
+		final boolean accepted = tokenizer.tokenize(line);
+		if (wellFormed != null) {
+			assertEquals(message, wellFormed.booleanValue(), accepted);
+		}
+		try {
+			tokenized.appendLine(line, 0, tokenizer, alternativeFormat, skipFirstElement, symbolIds, timeDelays);
+		} catch (final IllegalArgumentException e) {
+			assertNotNull(message, regexError);
+			assertEquals(message, regexError.getMessage(), e.getMessage());
+			return;
+		}
+		assertNull(message, regexError);
+		assertEquals(message, regex, tokenized);
+	}
+
+	@Test
+	public void testMappedDefaultFormat() throws IOException {
+		final Path file = Files.createTempFile("sadl", ".txt");
+		try {
+			for (int seed = 0; seed < 3; seed++) {
+				writeLines(file, randomLines(new Random(seed), false), 0);
+				for (final long chunkSize : CHUNK_SIZES) {
+					for (final boolean skipFirstElement : new boolean[] { false, true }) {
+						final TimedInput expected = TimedInput.parse(new StringReader(read(file)), skipFirstElement);
+						assertSameInput(expected, MappedTimedInputLoader.parse(file, 0, false, skipFirstElement, chunkSize));
+					}
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMappedAlternativeFormat() throws IOException {
+		final Path file = Files.createTempFile("sadl", ".txt");
+		try {
+			for (int seed = 0; seed < 3; seed++) {
+				final List<String> lines = randomLines(new Random(seed), true);
+				// the header line is skipped by the line offset
+				writeLines(file, lines, 1);
+				for (final long chunkSize : CHUNK_SIZES) {
+					final TimedInput expected = TimedInput.parseAlt(new StringReader(read(file)));
+					assertSameInput(expected, MappedTimedInputLoader.parse(file, 1, true, false, chunkSize));
+				}
+				assertSameInput(TimedInput.parseAlt(new StringReader(read(file))), TimedInput.parseAlt(file));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMappedLineOffset() throws IOException {
+		final Path file = Files.createTempFile("sadl", ".txt");
+		try {
+			final List<String> lines = randomLines(new Random(0), false);
+			writeLines(file, lines, 0);
+			for (final int lineOffset : new int[] { 0, 1, 5, lines.size() - 1, lines.size() + 3 }) {
+				final TimedInput expected = TimedInput.parseCustom(new StringReader(read(file)), lineOffset, "^\\(", "\\)$", "\\)\\s+\\(",
+						"\\s*,\\s*", "\\s*:\\s*");
+				for (final long chunkSize : CHUNK_SIZES) {
+					assertSameInput(expected, MappedTimedInputLoader.parse(file, lineOffset, false, false, chunkSize));
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMappedTrainTest() throws IOException {
+		final Path file = Files.createTempFile("sadl", ".txt");
+		try {
+			final Random random = new Random(0);
+			final List<String> lines = randomLines(random, false);
+			lines.add(lines.size() / 3, SmacDataGenerator.TRAIN_TEST_SEP);
+			writeLines(file, lines, 0);
+			for (final boolean skipFirstElement : new boolean[] { false, true }) {
+				final Pair<TimedInput, TimedInput> expected = IoUtils.readTrainTestFile(file, reader -> {
+					try {
+						return TimedInput.parse(reader, skipFirstElement);
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				for (final long chunkSize : CHUNK_SIZES) {
+					final Pair<TimedInput, TimedInput> actual = MappedTimedInputLoader.parseTrainTest(file, SmacDataGenerator.TRAIN_TEST_SEP,
+							skipFirstElement, chunkSize);
+					assertSameInput(expected.getLeft(), actual.getLeft());
+					assertSameInput(expected.getRight(), actual.getRight());
+				}
+				final Pair<TimedInput, TimedInput> actual = IoUtils.readTrainTestFile(file, skipFirstElement);
+				assertSameInput(expected.getLeft(), actual.getLeft());
+				assertSameInput(expected.getRight(), actual.getRight());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Checks the alphabets and the symbol ids, time delays and labels of all words.
+	 */
+	private static void assertSameInput(TimedInput expected, TimedInput actual) {
+		assertEquals(expected.getAlphSize(), actual.getAlphSize());
+		for (int i = 0; i < expected.getAlphSize(); i++) {
+			assertEquals(expected.getSymbol(i), actual.getSymbol(i));
+		}
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			final TimedWord e = expected.getWord(i);
+			final TimedWord a = actual.getWord(i);
+			assertEquals(e.length(), a.length());
+			assertEquals(e.getLabel(), a.getLabel());
+			for (int j = 0; j < e.length(); j++) {
+				assertEquals(expected.getAlphIndex(e, j), actual.getAlphIndex(a, j));
+				assertEquals(e.getTimeValue(j), a.getTimeValue(j));
+			}
+		}
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * @return lines of random words with and without labels, unusual whitespace and empty lines
+	 */
+	private static List<String> randomLines(Random random, boolean alternativeFormat) {
+		final List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			if (random.nextInt(20) == 0) {
+				lines.add("");
+				continue;
+			}
+			final int length = (alternativeFormat ? 1 : 0) + random.nextInt(8);
+			final StringBuilder sb = new StringBuilder();
+			if (alternativeFormat) {
+				sb.append(length).append(' ');
+			} else {
+				sb.append(random.nextInt(10) == 0 ? " (" : "(");
+			}
+			for (int j = 0; j < length; j++) {
+				final String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+				final int delay = random.nextInt(1000);
+				if (alternativeFormat) {
+					if (j > 0) {
+						sb.append("  ");
+					}
+					sb.append(symbol).append(' ').append(delay);
+				} else {
+					if (j > 0) {
+						sb.append(random.nextInt(10) == 0 ? ")  \t(" : ") (");
+					}
+					sb.append(symbol).append(random.nextInt(10) == 0 ? " , " : ",").append(delay);
+				}
+			}
+			if (!alternativeFormat) {
+				sb.append(')');
+			}
+			switch (random.nextInt(4)) {
+				case 0:
+					sb.append(":1");
+					break;
+				case 1:
+					sb.append(" : 0");
+					break;
+				case 2:
+					sb.append(":1 ");
+					break;
+				default:
+					break;
+			}
+			lines.add(sb.toString());
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the lines with mixed line terminators, preceded by the given number of header lines.
+	 */
+	private static void writeLines(Path file, List<String> lines, int headerLines) throws IOException {
+		try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < headerLines; i++) {
+				bw.write(lines.size() + " " + SYMBOLS.length + "\n");
+			}
+			for (int i = 0; i < lines.size(); i++) {
+				bw.write(lines.get(i));
+				bw.write(i % 7 == 0 ? "\r\n" : "\n");
+			}
+		}
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+}
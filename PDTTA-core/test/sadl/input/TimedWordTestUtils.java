@@ -0,0 +1,55 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+import sadl.constants.ClassLabel;
+
+/**
+ * Words for the tests that compare a compiled automaton with the automaton it was compiled from.
+ */
+public class TimedWordTestUtils {
+
+	private TimedWordTestUtils() {
+	}
+
+	/**
+	 * @return the words of the input, which are encoded with its alphabet, and the reversed words and the words with all time delays shifted by one in both
+	 *         directions, which are not encoded, so that many interval and histogram borders are hit and many words cannot be processed
+	 */
+	public static List<TimedWord> variants(TimedInput input) {
+		final List<TimedWord> words = new ArrayList<>();
+		for (final TimedWord w : input) {
+			words.add(w);
+			final List<String> reversedSymbols = new ArrayList<>();
+			final TIntArrayList reversedTimes = new TIntArrayList();
+			for (int i = w.length() - 1; i >= 0; i--) {
+				reversedSymbols.add(w.getSymbol(i));
+				reversedTimes.add(w.getTimeValue(i));
+			}
+			words.add(new TimedWord(reversedSymbols, reversedTimes, ClassLabel.NORMAL));
+			for (final int shift : new int[] { -1, 1 }) {
+				final List<String> symbols = new ArrayList<>();
+				final TIntArrayList times = new TIntArrayList();
+				for (int i = 0; i < w.length(); i++) {
+					symbols.add(w.getSymbol(i));
+					times.add(w.getTimeValue(i) + shift);
+				}
+				words.add(new TimedWord(symbols, times, ClassLabel.NORMAL));
+			}
+		}
+		return words;
+	}
+
+}
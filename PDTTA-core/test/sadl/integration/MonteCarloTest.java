@@ -12,14 +12,18 @@ package sadl.integration;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.junit.Test;
 
+import jsat.distributions.Beta;
 import jsat.distributions.ContinuousDistribution;
 import jsat.distributions.Normal;
 import jsat.distributions.SingleValueDistribution;
 import jsat.distributions.Uniform;
+import sadl.tau_estimation.MonteCarloEstimator;
 
 public class MonteCarloTest {
 
@@ -76,6 +80,24 @@ public class MonteCarloTest {
 		System.out.println("Single value integration took " + DurationFormatUtils.formatDurationHMS(sw.getTime()));
 	}
 
+	@Test
+	public void testTableLookup() {
+		final ContinuousDistribution beta = new Beta(2, 5);
+		final ContinuousDistribution sv = new SingleValueDistribution(0.5);
+		final MonteCarloEstimator mc = new MonteCarloEstimator(1000, 10000);
+		mc.preprocess(Arrays.asList(beta, sv));
+		final double[] betaTable = mc.createTable(beta);
+		final double[] svTable = mc.createTable(sv);
+		final double[] timeValues = new double[] { 0.1, 0.2, 0.4, 0.5, 0.5, 0.7, 0.9 };
+		final double[] result = new double[timeValues.length];
+		final ContinuousDistribution[] ds = new ContinuousDistribution[] { beta, beta, beta, sv, sv, sv, beta };
+		final double[][] tables = new double[][] { betaTable, betaTable, betaTable, svTable, svTable, svTable, null };
+		mc.estimateTau(ds, tables, timeValues, result, timeValues.length);
+		for (int i = 0; i < timeValues.length; i++) {
+			assertEquals("Error while comparing for t=" + timeValues[i], mc.estimateTau(ds[i], timeValues[i]), result[i], 0);
+		}
+	}
+
 	@Test
 	public void testUniform() {
 		final StopWatch sw = new StopWatch();
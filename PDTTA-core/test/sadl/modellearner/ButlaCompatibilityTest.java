@@ -0,0 +1,293 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.modellearner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import sadl.constants.ClassLabel;
+import sadl.constants.EventsCreationStrategy;
+import sadl.constants.IntervalCreationStrategy;
+import sadl.constants.KDEFormelVariant;
+import sadl.constants.PTAOrdering;
+import sadl.constants.TransitionsType;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.models.pdta.PDTA;
+import sadl.models.pta.Event;
+import sadl.models.pta.PTA;
+import sadl.models.pta.PTAState;
+import sadl.models.pta.PTATransition;
+import sadl.utils.MasterSeed;
+
+public class ButlaCompatibilityTest {
+
+	private static final double A = 0.9;
+	private static final String[] SYMBOLS = { "a", "b", "c" };
+
+	@Before
+	public void setUp() throws Exception {
+		MasterSeed.reset();
+	}
+
+	@Test
+	public void testRandomPtas() {
+		int compatible = 0;
+		int incompatible = 0;
+		for (final TransitionsType transitionsType : TransitionsType.values()) {
+			for (final PTAOrdering ordering : PTAOrdering.values()) {
+				for (int seed = 0; seed < 5; seed++) {
+					final Random random = new Random(seed);
+					final ButlaPdtaLearner learner = learner(transitionsType, ordering);
+					final TimedInput input = randomInput(random);
+					final Map<String, Event> events = learner.generateSubEvents(learner.mapEventsToTimes(input));
+					final PTA pta = new PTA(events, input);
+
+					// Merge random compatible pairs, so that the PTA gets cycles and the marks of incompatible pairs have to be invalidated
+					for (int merges = 0; merges < 10; merges++) {
+						final List<PTAState> states = existingStates(pta);
+						final List<PTAState[]> compatiblePairs = new ArrayList<>();
+						for (int i = 0; i < states.size(); i++) {
+							for (int j = i + 1; j < states.size(); j++) {
+								final PTAState v = states.get(i);
+								final PTAState w = states.get(j);
+								assertCounts(v);
+								final boolean expected = referenceCompatible(learner, v, w, new HashSet<>());
+								assertEquals(expected, learner.compatible(v, w));
+								// again with the marks of the first check
+								assertEquals(expected, learner.compatible(w, v));
+								if (expected) {
+									compatible++;
+									compatiblePairs.add(new PTAState[] { v, w });
+								} else {
+									incompatible++;
+								}
+							}
+						}
+						if (compatiblePairs.isEmpty()) {
+							break;
+						}
+						final PTAState[] pair = compatiblePairs.get(random.nextInt(compatiblePairs.size()));
+						PTAState.merge(pair[0], pair[1], EventsCreationStrategy.NotTimedEvents);
+					}
+				}
+			}
+		}
+		assertTrue("No compatible states", compatible > 0);
+		assertTrue("No incompatible states", incompatible > 0);
+	}
+
+	@Test
+	public void testDeepPta() throws InterruptedException {
+		final List<TimedWord> words = new ArrayList<>();
+		words.add(word(100000, 0));
+		for (int i = 1; i < 20; i++) {
+			words.add(word(i, i));
+		}
+		final TimedInput input = new TimedInput(words);
+
+		for (final TransitionsType transitionsType : TransitionsType.values()) {
+			// The recursive check needs a call stack as deep as the PTA
+			final PDTA expected = trainInThread(referenceLearner(transitionsType, PTAOrdering.TopDown), input, 1L << 30);
+			final PDTA actual = trainInThread(learner(transitionsType, PTAOrdering.TopDown), input, 1L << 19);
+			assertNotNull(expected);
+			assertNotNull(actual);
+			assertEquals(expected.getStateCount(), actual.getStateCount());
+			assertEquals(expected.getTransitionCount(), actual.getTransitionCount());
+			for (final TimedWord w : input) {
+				assertEquals(expected.calculateProbabilities(w), actual.calculateProbabilities(w));
+			}
+		}
+	}
+
+	private static PDTA trainInThread(ButlaPdtaLearner learner, TimedInput input, long stackSize) throws InterruptedException {
+		final AtomicReference<PDTA> pdta = new AtomicReference<>();
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final Thread thread = new Thread(null, () -> {
+			try {
+				pdta.set(learner.train(input));
+			} catch (final Throwable e) {
+				error.set(e);
+			}
+		}, "butla", stackSize);
+		thread.start();
+		thread.join();
+		assertNull(error.get());
+		return pdta.get();
+	}
+
+	private static ButlaPdtaLearner learner(TransitionsType transitionsType, PTAOrdering ordering) {
+		return new ButlaPdtaLearner(10000, A, transitionsType, 0.000001, 0.3, ordering, EventsCreationStrategy.NotTimedEvents,
+				KDEFormelVariant.OriginalButlaVariableBandwidth, IntervalCreationStrategy.extendInterval);
+	}
+
+	private static ButlaPdtaLearner referenceLearner(TransitionsType transitionsType, PTAOrdering ordering) {
+		return new ButlaPdtaLearner(10000, A, transitionsType, 0.000001, 0.3, ordering, EventsCreationStrategy.NotTimedEvents,
+				KDEFormelVariant.OriginalButlaVariableBandwidth, IntervalCreationStrategy.extendInterval) {
+			@Override
+			public boolean compatible(PTAState stateV, PTAState stateW) {
+				return referenceCompatible(this, stateV, stateW, new HashSet<>());
+			}
+		};
+	}
+
+	/**
+	 * The recursive compatibility check that was used before {@link ButlaPdtaLearner#compatible(PTAState, PTAState)} became iterative. The pairs that are
+	 * being checked are assumed to be compatible, as the old check did for {@link PTAOrdering#BottomUp} (for {@link PTAOrdering#TopDown} it did not
+	 * terminate on PTAs with cycles).
+	 */
+	static boolean referenceCompatible(ButlaPdtaLearner learner, PTAState stateV, PTAState stateW, Set<Long> checking) {
+
+		if (stateV.getId() == stateW.getId()) {
+			return true;
+		}
+		if (!checking.add(PTA.getPairKey(stateV, stateW))) {
+			return true;
+		}
+		try {
+			final boolean checkIn = learner.transitionsToCheck == TransitionsType.Incoming || learner.transitionsToCheck == TransitionsType.Both;
+			final boolean checkOut = learner.transitionsToCheck == TransitionsType.Outgoing || learner.transitionsToCheck == TransitionsType.Both;
+			final int inTransitionCountV = inCount(stateV);
+			final int inTransitionCountW = inCount(stateW);
+
+			if (learner.fractionDifferent(inTransitionCountV, inTransitionCountV - outCount(stateV), inTransitionCountW, inTransitionCountW - outCount(stateW))) {
+				return false;
+			}
+
+			final Set<String> usedEvents = new HashSet<>();
+			if (checkIn) {
+				usedEvents.addAll(stateV.getEventSymbolsInTransitions());
+				usedEvents.addAll(stateW.getEventSymbolsInTransitions());
+			}
+			if (checkOut) {
+				usedEvents.addAll(stateV.getEventSymbolsOutTransitions());
+				usedEvents.addAll(stateW.getEventSymbolsOutTransitions());
+			}
+
+			for (final String eventSymbol : usedEvents) {
+				final PTAState nextV = stateV.getNextState(eventSymbol);
+				final PTAState nextW = stateW.getNextState(eventSymbol);
+
+				if (checkIn && learner.fractionDifferent(inTransitionCountV, stateV.getInTransitionsCount(eventSymbol), inTransitionCountW,
+						stateW.getInTransitionsCount(eventSymbol))) {
+					return false;
+				}
+				if (nextV == null && nextW == null) {
+					continue;
+				}
+				if (checkOut && learner.fractionDifferent(inTransitionCountV, stateV.getOutTransitionsCount(eventSymbol), inTransitionCountW,
+						stateW.getOutTransitionsCount(eventSymbol))) {
+					return false;
+				}
+				if (nextV == null || nextW == null) {
+					continue;
+				}
+				if (!referenceCompatible(learner, nextV, nextW, checking)) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			checking.remove(PTA.getPairKey(stateV, stateW));
+		}
+	}
+
+	/**
+	 * Checks the counts that the state keeps up to date against the sums over its transitions.
+	 */
+	private static void assertCounts(PTAState state) {
+		assertEquals(inCount(state), state.getInTransitionsCount());
+		assertEquals(outCount(state), state.getOutTransitionsCount());
+		for (int slot = 0; slot < state.getSymbolSlots(); slot++) {
+			final PTATransition transition = state.getSlotOutTransition(slot);
+			if (transition != null) {
+				assertEquals(state.getTransition(transition.getEvent().getSymbol()), transition);
+			}
+		}
+	}
+
+	private static int inCount(PTAState state) {
+		int sum = 0;
+		for (final TIntObjectMap<PTATransition> transitions : state.getInTransitions()) {
+			for (final PTATransition transition : transitions.valueCollection()) {
+				sum += transition.getCount();
+			}
+		}
+		return sum;
+	}
+
+	private static int outCount(PTAState state) {
+		int sum = 0;
+		for (final PTATransition transition : state.getOutTransitions()) {
+			sum += transition.getCount();
+		}
+		return sum;
+	}
+
+	private static List<PTAState> existingStates(PTA pta) {
+		final List<PTAState> states = new ArrayList<>();
+		for (final PTAState state : pta.getStates()) {
+			if (state.exists()) {
+				states.add(state);
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * @return words from a Markov chain whose end and successor probabilities depend on the last symbol, so that some states are incompatible
+	 */
+	private static TimedInput randomInput(Random random) {
+		final double[] endProbabilities = { 0.1, 0.4, 0.8 };
+		final List<TimedWord> words = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			final List<String> symbols = new ArrayList<>();
+			final TIntArrayList times = new TIntArrayList();
+			int symbol = random.nextInt(SYMBOLS.length);
+			while (symbols.size() < 8) {
+				symbols.add(SYMBOLS[symbol]);
+				times.add(1 + random.nextInt(10));
+				if (random.nextDouble() < endProbabilities[symbol]) {
+					break;
+				}
+				symbol = random.nextDouble() < 0.7 ? (symbol + 1) % SYMBOLS.length : random.nextInt(SYMBOLS.length);
+			}
+			words.add(new TimedWord(symbols, times, ClassLabel.NORMAL));
+		}
+		return new TimedInput(words);
+	}
+
+	private static TimedWord word(int length, int offset) {
+		final List<String> symbols = new ArrayList<>();
+		final TIntArrayList times = new TIntArrayList();
+		for (int i = 0; i < length; i++) {
+			symbols.add(SYMBOLS[(i + offset) % SYMBOLS.length]);
+			times.add(1 + (i % 10));
+		}
+		return new TimedWord(symbols, times, ClassLabel.NORMAL);
+	}
+
+}
@@ -11,6 +11,7 @@
 package sadl.modellearner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -28,13 +29,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sadl.input.TimedInput;
+import sadl.input.TimedWord;
 import sadl.interfaces.ProbabilisticModel;
+import sadl.modellearner.rtiplus.SearchingPDRTALearner;
+import sadl.modellearner.rtiplus.SearchingPDRTALearner.SearchMeasure;
 import sadl.modellearner.rtiplus.SimplePDRTALearner;
 import sadl.modellearner.rtiplus.SimplePDRTALearner.SplitPosition;
 import sadl.modellearner.rtiplus.analysis.FrequencyAnalysis;
 import sadl.modellearner.rtiplus.analysis.QuantileAnalysis;
 import sadl.modellearner.rtiplus.tester.LikelihoodRatioTester;
 import sadl.modellearner.rtiplus.tester.NaiveLikelihoodRatioTester;
+import sadl.models.pdrta.PDRTA;
 import sadl.utils.IoUtils;
 
 public class RtiPlusTest {
@@ -82,6 +87,71 @@ public class RtiPlusTest {
 		logger.info("Finished testDeterminism.");
 	}
 
+	@Test
+	public void testDeterminismThreads() throws URISyntaxException, IOException {
+		logger.info("Starting testDeterminismThreads...");
+
+		for (int i = 1; i <= 5; i++) {
+
+			final TimedInput ti1 = TimedInput.parse(Paths.get(this.getClass().getResource("/pdrta/test_" + i + ".inp").toURI()));
+			final TimedInput ti2 = SerializationUtils.clone(ti1);
+
+			final SimplePDRTALearner l1 = new SimplePDRTALearner(0.05, 4, false, false, null);
+			final ProbabilisticModel p1 = l1.train(ti1);
+
+			final SimplePDRTALearner l2 = new SimplePDRTALearner(0.05, 4, false, false, null);
+			l2.setParallelism(3);
+			final ProbabilisticModel p2 = l2.train(ti2);
+
+			assertEquals("PDRTAs for files " + i + " are not equal", p1, p2);
+		}
+		logger.info("Finished testDeterminismThreads.");
+	}
+
+	@Test
+	public void testDeterminismSearching() throws URISyntaxException, IOException {
+		logger.info("Starting testDeterminismSearching...");
+
+		for (int i = 1; i <= 4; i++) {
+
+			final TimedInput ti1 = TimedInput.parse(Paths.get(this.getClass().getResource("/pdrta/test_" + i + ".inp").toURI()));
+			final TimedInput ti2 = SerializationUtils.clone(ti1);
+
+			final SearchingPDRTALearner l1 = new SearchingPDRTALearner(0.05, 4, false, false, SearchMeasure.SIZE, false, null);
+			l1.setBeamSearch(4, 2, 0);
+			final ProbabilisticModel p1 = l1.train(ti1);
+
+			final SearchingPDRTALearner l2 = new SearchingPDRTALearner(0.05, 4, false, true, SearchMeasure.SIZE, true, null);
+			l2.setBeamSearch(4, 2, 0);
+			final ProbabilisticModel p2 = l2.train(ti2);
+
+			assertEquals("PDRTAs for files " + i + " are not equal", p1, p2);
+		}
+		logger.info("Finished testDeterminismSearching.");
+	}
+
+	@Test
+	public void testSearchingTimeBudget() throws URISyntaxException, IOException {
+		logger.info("Starting testSearchingTimeBudget...");
+
+		for (final long timeBudget : new long[] { 1, 50 }) {
+			for (int i = 1; i <= 4; i++) {
+				final TimedInput ti = TimedInput.parse(Paths.get(this.getClass().getResource("/pdrta/test_" + i + ".inp").toURI()));
+
+				final SearchingPDRTALearner l = new SearchingPDRTALearner(0.05, 4, false, false, SearchMeasure.SIZE, true, null);
+				l.setBeamSearch(4, 3, timeBudget);
+				final PDRTA p = (PDRTA) l.train(ti);
+
+				p.checkConsistency();
+				assertTrue("PDRTA for file " + i + " has no states", p.getStateCount() > 0);
+				for (final TimedWord w : ti) {
+					assertEquals(w.length(), p.calculateProbabilities(w).getKey().size() - 1);
+				}
+			}
+		}
+		logger.info("Finished testSearchingTimeBudget.");
+	}
+
 	@Test
 	public void testDeterminismBig() throws URISyntaxException, IOException {
 		final String travis = System.getenv("TRAVIS");
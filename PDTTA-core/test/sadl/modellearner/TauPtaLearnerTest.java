@@ -11,20 +11,27 @@
 package sadl.modellearner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import jsat.distributions.ContinuousDistribution;
+import jsat.distributions.empirical.MyKernelDensityEstimator;
+import sadl.constants.AnomalyInsertionType;
+import sadl.constants.KdeEvaluation;
 import sadl.input.TimedInput;
 import sadl.models.TauPTA;
 import sadl.models.TauPtaTestV1;
+import sadl.utils.MasterSeed;
 
 public class TauPtaLearnerTest {
 
@@ -55,4 +62,34 @@ public class TauPtaLearnerTest {
 
 	}
 
+	@Test
+	public void testGridEvaluation() throws IOException, URISyntaxException {
+		MasterSeed.reset();
+		final TimedInput train = TimedInput.parseAlt(Paths.get(TauPtaTestV1.class.getResource("/taupta/medium/rti_medium.txt").toURI()), 1);
+		final TauPtaLearner learner = new TauPtaLearner(null, -1, null, KdeEvaluation.GRID, 0.01);
+		final TauPTA normal = learner.train(train);
+		assertTrue(countGridEvaluated(normal) > 0);
+
+		// The abnormal models keep the distributions of the normal one
+		for (final AnomalyInsertionType type : new AnomalyInsertionType[] { AnomalyInsertionType.TYPE_THREE, AnomalyInsertionType.TYPE_FOUR }) {
+			final TauPTA abnormal = SerializationUtils.clone(normal);
+			abnormal.makeAbnormal(type);
+			assertEquals(countGridEvaluated(normal), countGridEvaluated(abnormal));
+		}
+
+		@SuppressWarnings("deprecation")
+		final TauPTA oldPta = new TauPTA(train, KdeEvaluation.GRID, 0.01);
+		assertTrue(countGridEvaluated(oldPta) > 0);
+	}
+
+	private static int countGridEvaluated(TauPTA pta) {
+		int count = 0;
+		for (final ContinuousDistribution d : pta.getTransitionDistributions().values()) {
+			if (d instanceof MyKernelDensityEstimator && ((MyKernelDensityEstimator) d).isGridEvaluated()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 }
@@ -0,0 +1,73 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.modellearner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import sadl.constants.MergeTest;
+import sadl.input.TimedInput;
+import sadl.models.PDFA;
+import sadl.utils.IoUtils;
+import sadl.utils.MasterSeed;
+import treba.treba;
+import utils.LibraryChecker;
+
+public class TrebaPdfaLearnerTest {
+
+	@Before
+	public void setUp() throws Exception {
+		MasterSeed.reset();
+	}
+
+	@Test
+	public void testInMemoryEqualsFiles() throws URISyntaxException, IOException {
+		assumeTrue("OS is not linux", System.getProperty("os.name").toLowerCase().contains("linux"));
+		assumeTrue("treba dependencies are not installed", LibraryChecker.trebaDepsInstalled());
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final TimedInput train = trainTest.getKey();
+		for (final MergeTest mergeTest : new MergeTest[] { MergeTest.ALERGIA, MergeTest.CHI_SQUARED, MergeTest.MDI }) {
+			final TrebaPdfaLearner learner = new TrebaPdfaLearner(0.05, true, mergeTest, 0.0, 0);
+			try {
+				treba.log1plus_init_wrapper();
+			} catch (final LinkageError e) {
+				assumeNoException("treba cannot be loaded", e);
+			}
+			try {
+				PDFA inMemory = null;
+				try {
+					inMemory = learner.trainInMemory(SerializationUtils.clone(train));
+				} catch (final UnsatisfiedLinkError e) {
+					// the library has to be rebuilt with trebaNative/swig/treba_jni.sh
+					assumeNoException("The loaded treba library does not support learning without temp files", e);
+				}
+				final PDFA withFiles = learner.trainWithFiles(SerializationUtils.clone(train));
+				inMemory.makeImmutable();
+				withFiles.makeImmutable();
+				assertEquals(mergeTest.toString(), withFiles.getStateCount(), inMemory.getStateCount());
+				assertEquals(mergeTest.toString(), withFiles, inMemory);
+			} finally {
+				treba.log1plus_free_wrapper();
+			}
+		}
+	}
+
+}
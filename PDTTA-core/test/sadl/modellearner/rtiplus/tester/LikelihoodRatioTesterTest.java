@@ -0,0 +1,79 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.modellearner.rtiplus.tester;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import sadl.input.TimedInput;
+import sadl.modellearner.rtiplus.SimplePDRTALearner;
+import sadl.modellearner.rtiplus.SimplePDRTALearner.SplitPosition;
+import sadl.modellearner.rtiplus.StateColoring;
+import sadl.modellearner.rtiplus.analysis.FrequencyAnalysis;
+import sadl.modellearner.rtiplus.analysis.QuantileAnalysis;
+import sadl.models.pdrta.PDRTA;
+import sadl.models.pdrta.PDRTAState;
+import sadl.models.pdrta.StateStatistic;
+import sadl.utils.IoUtils;
+
+public class LikelihoodRatioTesterTest {
+
+	/**
+	 * Tests with the ratio of each bin calculated on its own, as before the {@link sadl.models.pdrta.LikelihoodRatioKernel}
+	 */
+	private static class ReferenceTester extends LikelihoodRatioTester {
+
+		ReferenceTester() {
+			super(false);
+		}
+
+		@Override
+		public double testSplit(PDRTAState s, int symAlphIdx, int time, StateColoring sc) {
+			return compareToChiSquared(intTestSplit(s, symAlphIdx, time, sc, StateStatistic::calcLRTRatio));
+		}
+
+		@Override
+		public double testMerge(PDRTAState red, PDRTAState blue, StateColoring sc) {
+			return compareToChiSquared(intTestMerge(red, blue, sc, StateStatistic::calcLRTRatio));
+		}
+	}
+
+	@Test
+	public void testStateCounts() throws URISyntaxException, IOException {
+
+		for (int i = 1; i <= 5; i++) {
+			final Pair<TimedInput, TimedInput> traintestSet = IoUtils
+					.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type" + i + ".txt").toURI()));
+			final TimedInput ti1 = traintestSet.getKey();
+			ti1.decreaseSamples(0.01);
+			final TimedInput ti2 = SerializationUtils.clone(ti1);
+
+			final PDRTA expected = (PDRTA) learner(new ReferenceTester()).train(ti1);
+			final PDRTA actual = (PDRTA) learner(new LikelihoodRatioTester(false)).train(ti2);
+
+			assertEquals("Number of states for file " + i + " differs", expected.getStateCount(), actual.getStateCount());
+			assertEquals("PDRTAs for file " + i + " are not equal", expected, actual);
+		}
+	}
+
+	private static SimplePDRTALearner learner(LikelihoodRatioTester tester) {
+		return new SimplePDRTALearner(0.05, new QuantileAnalysis(4), tester, SplitPosition.MIDDLE, false, false, new FrequencyAnalysis(10, 0.2), false, true,
+				0.01, "AAO", null);
+	}
+
+}
@@ -0,0 +1,158 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import sadl.constants.ClassLabel;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.structure.Transition;
+import sadl.structure.ZeroProbTransition;
+
+public class FtaTest {
+
+	private static final String[] SYMBOLS = { "a", "b", "c", "d" };
+
+	@Test
+	public void testIndexAndFrequencies() {
+		for (int seed = 0; seed < 5; seed++) {
+			final Random random = new Random(seed);
+			final TimedInput input = randomInput(random);
+			final FTA fta = new FTA(input);
+			assertConsistent(fta);
+			// Merge random states, so that transitions are redirected and states get many incoming transitions
+			for (int merges = 0; merges < 20; merges++) {
+				final List<Integer> states = existingStates(fta);
+				if (states.size() < 2) {
+					break;
+				}
+				final int i = states.get(random.nextInt(states.size() - 1));
+				final int j = states.get(states.indexOf(i) + 1 + random.nextInt(states.size() - states.indexOf(i) - 1));
+				fta.merge(i, j);
+				fta.determinize();
+				fta.checkDeterminism();
+				assertConsistent(fta);
+			}
+		}
+	}
+
+	@Test
+	public void testIndexRemoval() {
+		final TransitionIndex<Transition> index = new TransitionIndex<>();
+		final List<Transition> transitions = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++) {
+			final Transition t = new Transition(i, 0, SYMBOLS[i % SYMBOLS.length], 0);
+			transitions.add(t);
+			index.add(t);
+		}
+		final Transition selfLoop = new Transition(0, 0, "a", 0);
+		index.add(selfLoop);
+		for (int i = 0; i < transitions.size(); i += 2) {
+			assertTrue(index.remove(transitions.get(i)));
+		}
+		assertTrue(!index.remove(transitions.get(0)));
+		assertTrue(!index.remove(new Transition(0, 0, "x", 0)));
+
+		final List<Transition> expected = new ArrayList<>();
+		for (int i = 1; i < transitions.size(); i += 2) {
+			expected.add(transitions.get(i));
+		}
+		expected.add(selfLoop);
+		// the incoming transitions stay in insertion order
+		assertEquals(expected, index.getIn(0));
+		assertEquals(1, index.getOut(0).size());
+		assertEquals(selfLoop, index.get(0, "a").get(0));
+		assertTrue(index.get(1, "b").isEmpty());
+		assertEquals(transitions.get(1), index.get(2, "c").get(0));
+		assertEquals(TransitionIndex.NO_SYMBOL, index.getSymbolId("x"));
+		assertTrue(index.get(0, "x").isEmpty());
+	}
+
+	/**
+	 * Checks the index and the counters of the FTA against scans over all its transitions.
+	 */
+	private static void assertConsistent(FTA fta) {
+		for (final int state : existingStates(fta)) {
+			final List<ZeroProbTransition> out = new ArrayList<>();
+			final List<ZeroProbTransition> in = new ArrayList<>();
+			int stateFrequency = fta.getFinalStateCount(state);
+			for (final ZeroProbTransition t : fta.getAllTransitions()) {
+				if (t.getFromState() == state) {
+					out.add(t);
+					stateFrequency += fta.getTransitionCount(t);
+				}
+				if (t.getToState() == state) {
+					in.add(t);
+				}
+			}
+			final Pair<List<Transition>, List<Transition>> inOut = fta.getInOutTransitions(state, false);
+			// the index keeps the order of the transition set
+			assertEquals(in, inOut.getKey());
+			assertEquals(out, inOut.getValue());
+			assertEquals(stateFrequency, fta.getStateFrequency(state));
+
+			for (int symbolIndex = 0; symbolIndex < fta.getAlphabet().getAlphSize(); symbolIndex++) {
+				final String symbol = fta.getAlphabet().getSymbol(symbolIndex);
+				Transition expected = null;
+				int symbolFrequency = 0;
+				for (final ZeroProbTransition t : out) {
+					if (t.getSymbol().equals(symbol)) {
+						expected = t;
+						symbolFrequency += fta.getTransitionCount(t);
+					}
+				}
+				if (expected == null) {
+					assertNull(fta.getTransition(state, symbol));
+				} else {
+					assertEquals(expected, fta.getTransition(state, symbol));
+				}
+				assertEquals(symbolFrequency, fta.getSymbolFrequency(state, symbolIndex));
+			}
+		}
+	}
+
+	private static List<Integer> existingStates(FTA fta) {
+		final List<Integer> states = new ArrayList<>();
+		for (int state = PDFA.START_STATE; state < fta.nextStateIndex; state++) {
+			if (fta.containsState(state)) {
+				states.add(state);
+			}
+		}
+		return states;
+	}
+
+	private static TimedInput randomInput(Random random) {
+		final List<TimedWord> words = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final List<String> symbols = new ArrayList<>();
+			final TIntArrayList times = new TIntArrayList();
+			final int length = 1 + random.nextInt(8);
+			for (int j = 0; j < length; j++) {
+				symbols.add(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+				times.add(1 + random.nextInt(10));
+			}
+			words.add(new TimedWord(symbols, times, ClassLabel.NORMAL));
+		}
+		return new TimedInput(words);
+	}
+
+}
@@ -10,10 +10,16 @@
  */
 package sadl.models;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.After;
@@ -22,9 +28,15 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
+import sadl.constants.ClassLabel;
+import sadl.constants.ProbabilityAggregationMethod;
+import sadl.detectors.AnomalyDetector;
 import sadl.input.TimedInput;
+import sadl.input.TimedWord;
 import sadl.structure.Transition;
 
 public class PdfaTest {
@@ -77,4 +89,133 @@ public class PdfaTest {
 
 	}
 
+	@Test
+	public void testExternalTransitionSet() {
+		final TimedInput alphabet = new TimedInput(new String[] { "a", "b", "c" });
+		final TIntDoubleMap finalStateProbabilities = new TIntDoubleHashMap();
+		finalStateProbabilities.put(2, 1);
+
+		final Set<Transition> transitions = new HashSet<>();
+		final Transition a = new Transition(0, 1, "a", 0.5);
+		transitions.add(a);
+		transitions.add(new Transition(0, 2, "b", 0.25));
+		transitions.add(new Transition(0, 0, "c", 0.25));
+		transitions.add(new Transition(1, 2, "a", 1));
+		final PDFA pdfa = new PDFA(alphabet, transitions, finalStateProbabilities);
+		final List<Transition> expected = new ArrayList<>(transitions);
+		assertEquals(expected, new ArrayList<>(pdfa.transitions));
+
+		// changing the given set afterwards does not change the automaton or its index
+		transitions.remove(a);
+		transitions.add(new Transition(1, 0, "b", 0.5));
+		assertEquals(4, pdfa.getTransitionCount());
+		assertEquals(a, pdfa.getTransition(0, "a"));
+		assertNull(pdfa.getTransition(1, "b"));
+		assertOutTransitionsInSetOrder(pdfa);
+
+		pdfa.removeTransition(a);
+		assertOutTransitionsInSetOrder(pdfa);
+		pdfa.addTransition(0, 1, "a", 0.5);
+		pdfa.addTransition(2, 0, "a", 0.5);
+		assertOutTransitionsInSetOrder(pdfa);
+		pdfa.changeTransitionProbability(pdfa.getTransition(0, "b"), 0.5);
+		assertOutTransitionsInSetOrder(pdfa);
+	}
+
+	@Test
+	public void testAddTransitionsBeforeIndex() {
+		final PDFA pdfa = new PDFA(null, new int[] { 0, 0, 1 }, new int[] { 1, 0, 0 }, new int[] { 0, 1, 0 }, new double[] { 0.5, 0.25, 1 },
+				new int[] { 0 }, new double[] { 0.25 });
+		// all transitions were added before the index was built, so none of them may be indexed twice
+		assertEquals(1, pdfa.getTransitions(0, "0").size());
+		assertEquals(1, pdfa.getTransitions(0, "1").size());
+		assertEquals(2, pdfa.getOutTransitions(0, false).size());
+		final Transition t = pdfa.getTransition(1, "0");
+		pdfa.removeTransition(t);
+		assertNull(pdfa.getTransition(1, "0"));
+		pdfa.addTransition(t.getFromState(), t.getToState(), t.getSymbol(), t.getProbability());
+		assertEquals(1, pdfa.getTransitions(1, "0").size());
+	}
+
+	private static void assertOutTransitionsInSetOrder(PDFA pdfa) {
+		for (int state = 0; state < 3; state++) {
+			final List<Transition> expected = new ArrayList<>();
+			for (final Transition t : pdfa.transitions) {
+				if (t.getFromState() == state) {
+					expected.add(t);
+				}
+			}
+			assertEquals(expected, pdfa.getOutTransitionsInSetOrder(state, false));
+		}
+	}
+
+	@Test
+	public void testCompiledLikelihoods() {
+		final TimedInput alphabet = new TimedInput(new String[] { "a", "b", "c" });
+		final TIntDoubleMap finalStateProbabilities = new TIntDoubleHashMap();
+		finalStateProbabilities.put(0, 0.1);
+		finalStateProbabilities.put(1, 0.2);
+		finalStateProbabilities.put(2, 1);
+
+		final Set<Transition> transitions = new HashSet<>();
+		transitions.add(new Transition(0, 1, "a", 0.6));
+		transitions.add(new Transition(0, 2, "b", 0.3));
+		transitions.add(new Transition(1, 1, "b", 0.5));
+		transitions.add(new Transition(1, 2, "a", 0.3));
+		final PDFA pdfa = new PDFA(alphabet, transitions, finalStateProbabilities);
+
+		final List<TimedWord> words = Arrays.asList(word(), word("a"), word("a", "b", "b", "a"), word("b", "a"), word("c"), word("a", "x"));
+		final TDoubleList[] expected = new TDoubleList[words.size()];
+		assertNull(pdfa.getCompiled());
+		for (int i = 0; i < words.size(); i++) {
+			expected[i] = pdfa.calculateProbabilities(words.get(i)).getKey();
+		}
+		pdfa.makeImmutable();
+		assertNotNull(pdfa.getCompiled());
+		for (int i = 0; i < words.size(); i++) {
+			assertEquals(expected[i], pdfa.calculateProbabilities(words.get(i)).getKey());
+		}
+	}
+
+	@Test
+	public void testPrefixCache() {
+		final TimedInput alphabet = new TimedInput(new String[] { "a", "b", "c" });
+		final TIntDoubleMap finalStateProbabilities = new TIntDoubleHashMap();
+		finalStateProbabilities.put(0, 0.1);
+		finalStateProbabilities.put(1, 0.2);
+		finalStateProbabilities.put(2, 1);
+
+		final Set<Transition> transitions = new HashSet<>();
+		transitions.add(new Transition(0, 1, "a", 0.6));
+		transitions.add(new Transition(0, 2, "b", 0.3));
+		transitions.add(new Transition(1, 1, "b", 0.5));
+		transitions.add(new Transition(1, 2, "a", 0.3));
+		final PDFA pdfa = new PDFA(alphabet, transitions, finalStateProbabilities);
+
+		final List<TimedWord> words = Arrays.asList(word(), word("a"), word("a", "b", "b", "a"), word("a", "b", "b"), word("b", "a"), word("c"),
+				word("a", "x"), word("a", "b", "b", "a"), word("a", "b", "b", "b", "b", "b", "b"), word("a", "b", "b", "b", "b", "b", "a"));
+		pdfa.makeImmutable();
+		final TDoubleList[] expected = new TDoubleList[words.size()];
+		for (int i = 0; i < words.size(); i++) {
+			expected[i] = pdfa.calculateProbabilities(words.get(i)).getKey();
+		}
+		// small enough to evict prefixes that are still needed
+		pdfa.setPrefixCacheSize(4);
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < words.size(); i++) {
+				assertEquals(expected[i], pdfa.calculateProbabilities(words.get(i)).getKey());
+				assertEquals(AnomalyDetector.aggregate(expected[i], ProbabilityAggregationMethod.MULTIPLY), pdfa.computeEventLogLikelihood(words.get(i)), 0);
+			}
+		}
+		final PrefixCache cache = pdfa.getPrefixCache();
+		assertTrue(cache.getHits() > 0);
+		assertTrue(cache.getMisses() > 0);
+		assertTrue(cache.size() <= 4);
+	}
+
+	private static TimedWord word(String... symbols) {
+		final int[] timeValues = new int[symbols.length];
+		return new TimedWord(Arrays.asList(symbols), new TIntArrayList(timeValues), ClassLabel.NORMAL);
+	}
+
 }
@@ -0,0 +1,55 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+import gnu.trove.list.TDoubleList;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.input.TimedWordTestUtils;
+import sadl.modellearner.rtiplus.SimplePDRTALearner;
+
+public class CompiledPdrtaTest {
+
+	@Test
+	public void testCompiledProbabilities() throws URISyntaxException, IOException {
+		for (int i = 1; i <= 5; i++) {
+			final TimedInput input = TimedInput.parse(Paths.get(this.getClass().getResource("/pdrta/test_" + i + ".inp").toURI()));
+			final PDRTA pdrta = (PDRTA) new SimplePDRTALearner(0.05, 4, false, false, null).train(input);
+			final CompiledPDRTA compiled = pdrta.getCompiled();
+			assertNotNull(compiled);
+			for (final TimedWord w : TimedWordTestUtils.variants(input)) {
+				final Pair<TDoubleList, TDoubleList> expected = pdrta.testSeqHisto(w);
+				final Pair<TDoubleList, TDoubleList> actual = compiled.testSeqHisto(w);
+				assertEquals(expected.getKey(), actual.getKey());
+				assertEquals(expected.getValue(), actual.getValue());
+				assertEquals(pdrta.testSeqTrans(w), compiled.testSeqTrans(w));
+				final CompiledPDRTAScorer scorer = new CompiledPDRTAScorer(compiled);
+				for (int j = 0; j < w.length(); j++) {
+					scorer.accept(w.getSymbol(j), w.getTimeValue(j));
+				}
+				scorer.finish();
+				assertEquals(expected.getKey(), scorer.getEventLikelihoods());
+				assertEquals(expected.getValue(), scorer.getTimeLikelihoods());
+			}
+		}
+	}
+
+}
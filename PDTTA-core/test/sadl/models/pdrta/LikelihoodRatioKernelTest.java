@@ -0,0 +1,55 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdrta;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sadl.utils.MasterSeed;
+
+public class LikelihoodRatioKernelTest {
+
+	@Before
+	public void setUp() {
+		MasterSeed.reset();
+	}
+
+	@Test
+	public void testCalcAll() {
+		final Random r = MasterSeed.nextRandom();
+		for (int n = 0; n < 1000; n++) {
+			final int size = 1 + r.nextInt(10);
+			// also use large and zero counts
+			final int bound = n % 2 == 0 ? 50 : 20000;
+			final int[] v1 = new int[size];
+			final int[] v2 = new int[size];
+			int t1 = 0;
+			int t2 = 0;
+			for (int i = 0; i < size; i++) {
+				v1[i] = r.nextInt(4) == 0 ? 0 : r.nextInt(bound);
+				v2[i] = r.nextInt(4) == 0 ? 0 : r.nextInt(bound);
+				t1 += v1[i];
+				t2 += v2[i];
+			}
+			double expected = 0.0;
+			for (int i = 0; i < size; i++) {
+				expected += StateStatistic.calcLRTRatio(v1[i], t1, v2[i], t2);
+			}
+			// The kernel must round exactly like the sum over the bins, so that RTI+ takes the same decisions
+			assertEquals(expected, LikelihoodRatioKernel.INSTANCE.calcAll(v1, v2, size, t1, t2), 0.0);
+		}
+	}
+
+}
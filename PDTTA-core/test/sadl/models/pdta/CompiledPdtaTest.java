@@ -0,0 +1,87 @@
+/**
+ * This file is part of SADL, a library for learning all sorts of (timed) automata and performing sequence-based anomaly detection.
+ * Copyright (C) 2013-2018  the original author or authors.
+ *
+ * SADL is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * SADL is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with SADL.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package sadl.models.pdta;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
+import sadl.constants.EventsCreationStrategy;
+import sadl.constants.IntervalCreationStrategy;
+import sadl.constants.KDEFormelVariant;
+import sadl.constants.PTAOrdering;
+import sadl.constants.TransitionsType;
+import sadl.input.TimedInput;
+import sadl.input.TimedWord;
+import sadl.input.TimedWordTestUtils;
+import sadl.modellearner.ButlaPdtaLearner;
+import sadl.utils.IoUtils;
+import sadl.utils.MasterSeed;
+
+public class CompiledPdtaTest {
+
+	@Before
+	public void setUp() throws Exception {
+		MasterSeed.reset();
+	}
+
+	@Test
+	public void testCompiledProbabilities() throws IOException, URISyntaxException {
+		final Pair<TimedInput, TimedInput> trainTest = IoUtils
+				.readTrainTestFile(Paths.get(this.getClass().getResource("/pdtta/smac_mix_type1.txt").toURI()));
+		final TimedInput trainSet = trainTest.getKey();
+		trainSet.decreaseSamples(0.1);
+		final PDTA pdta = (PDTA) new ButlaPdtaLearner(10000, 0.9, TransitionsType.Incoming, 0.000001, 0.3, PTAOrdering.BottomUp,
+				EventsCreationStrategy.NotTimedEvents, KDEFormelVariant.OriginalButlaVariableBandwidth, IntervalCreationStrategy.extendInterval)
+				.train(trainSet);
+		for (final TimedWord w : TimedWordTestUtils.variants(trainTest.getValue())) {
+			final org.apache.commons.math3.util.Pair<TDoubleList, TDoubleList> actual = pdta.calculateProbabilities(w);
+			final TDoubleList expectedEvents = new TDoubleArrayList();
+			final TDoubleList expectedTimes = new TDoubleArrayList();
+			final boolean anomaly = traverse(pdta, w, expectedEvents, expectedTimes);
+			assertEquals(expectedEvents, actual.getFirst());
+			assertEquals(expectedTimes, actual.getSecond());
+			assertEquals(anomaly, pdta.hasAnomaly(w));
+		}
+	}
+
+	/**
+	 * Traverses the automaton with {@link PDTAState#getTransition(String, double)} like the uncompiled automaton did.
+	 * 
+	 * @return whether the word is an anomaly
+	 */
+	private static boolean traverse(PDTA pdta, TimedWord w, TDoubleList events, TDoubleList times) {
+		PDTAState state = pdta.getRoot();
+		for (int i = 0; i < w.length(); i++) {
+			final double time = w.getTimeValue(i);
+			final PDTATransition t = state.getTransition(w.getSymbol(i), time);
+			if (t == null) {
+				events.add(0.0);
+				times.add(0.0);
+				return true;
+			}
+			events.add(t.getPropability());
+			times.add(t.getEvent().calculateProbability(time));
+			state = t.getTarget();
+		}
+		events.add(state.getEndProbability());
+		return !state.isFinalState();
+	}
+
+}
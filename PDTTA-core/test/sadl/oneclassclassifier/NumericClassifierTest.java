@@ -10,12 +10,16 @@
  */
 package sadl.oneclassclassifier;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.After;
@@ -79,6 +83,29 @@ public class NumericClassifierTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testLibSvmBatchPrediction() {
+		final Random r = MasterSeed.nextRandom();
+		final List<double[]> train = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			train.add(new double[] { r.nextDouble(), r.nextGaussian(), r.nextGaussian(), r.nextGaussian() });
+		}
+		final double[][] test = new double[500][];
+		for (int i = 0; i < test.length; i++) {
+			test[i] = new double[] { r.nextDouble(), 2 * r.nextGaussian(), 2 * r.nextGaussian(), 2 * r.nextGaussian() };
+		}
+		// RBF uses the precomputed decision function, polynomial the one of libsvm
+		for (final int kernelType : new int[] { 2, 1 }) {
+			final LibSvmClassifier classifier = new LibSvmClassifier(0, 0.2, 0.1, kernelType, 0.001, 3, ScalingMethod.NONE);
+			classifier.train(train);
+			final double[] expected = new double[test.length];
+			for (int i = 0; i < test.length; i++) {
+				expected[i] = classifier.evaluate(test[i], classifier.model);
+			}
+			assertArrayEquals(expected, classifier.predict(test), 0);
+		}
+	}
+
 	@Test
 	public void testDBScanClassifier() throws URISyntaxException, IOException {
 		final PdttaLearner learner = new PdttaLearner(new AlergiaRedBlue(0.05, true));
@@ -451,4 +451,25 @@ public class treba implements trebaConstants {
 		trebaJNI.setT0(t0);
 	}
 
+	public static observations observations_from_arrays(final int[] obsdata, final int[] obslengths, final int numobs) {
+		final long cPtr = trebaJNI.observations_from_arrays(obsdata, obslengths, numobs);
+		return (cPtr == 0) ? null : new observations(cPtr, false);
+	}
+
+	public static int wfsa_transition_count(final wfsa fsm) {
+		return trebaJNI.wfsa_transition_count(wfsa.getCPtr(fsm), fsm);
+	}
+
+	public static int wfsa_final_count(final wfsa fsm) {
+		return trebaJNI.wfsa_final_count(wfsa.getCPtr(fsm), fsm);
+	}
+
+	public static void wfsa_transitions_to_arrays(final wfsa fsm, final int[] sources, final int[] targets, final int[] symbols, final double[] probs) {
+		trebaJNI.wfsa_transitions_to_arrays(wfsa.getCPtr(fsm), fsm, sources, targets, symbols, probs);
+	}
+
+	public static void wfsa_finals_to_arrays(final wfsa fsm, final int[] states, final double[] finalprobs) {
+		trebaJNI.wfsa_finals_to_arrays(wfsa.getCPtr(fsm), fsm, states, finalprobs);
+	}
+
 }
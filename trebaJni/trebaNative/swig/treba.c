@@ -2420,3 +2420,92 @@ g_t0 = t0;
 void setPrior(PROB prior){
 g_merge_prior=prior;
 }
+
+/* Builds the same list as observations_read() from the concatenated symbols of all words */
+/* and the length of each word, so no training file has to be written */
+struct observations *observations_from_arrays(int *obsdata, int *obslengths, int numobs) {
+    struct observations *ohead, *o, *olast;
+    int i, offset;
+    ohead = olast = NULL;
+    for (i = 0, offset = 0; i < numobs; i++) {
+	o = malloc(sizeof(struct observations));
+	o->size = *(obslengths+i);
+	o->data = malloc(sizeof(int) * o->size);
+	memcpy(o->data, obsdata + offset, sizeof(int) * o->size);
+	o->occurrences = 1;
+	o->next = NULL;
+	offset += o->size;
+	if (olast == NULL) {
+	    ohead = olast = o;
+	} else {
+	    olast->next = o;
+	    olast = o;
+	}
+    }
+    return(ohead);
+}
+
+/* Whether wfsa_to_file() would write an entry with this probability */
+static int wfsa_prob_written(PROB thisprob) {
+    return(thisprob > SMRZERO_LOG && (g_output_format != FORMAT_REAL || output_convert(thisprob) > 0));
+}
+
+int wfsa_transition_count(struct wfsa *fsm) {
+    int i, j, k, count;
+    for (i = 0, count = 0; i < fsm->num_states; i++) {
+	for (j = 0; j < fsm->alphabet_size; j++) {
+	    for (k = 0; k < fsm->num_states; k++) {
+		if (wfsa_prob_written(*(TRANSITION(fsm,i,j,k)))) {
+		    count++;
+		}
+	    }
+	}
+    }
+    return(count);
+}
+
+int wfsa_final_count(struct wfsa *fsm) {
+    int i, count;
+    for (i = 0, count = 0; i < fsm->num_states; i++) {
+	if (wfsa_prob_written(*FINALPROB(fsm,i))) {
+	    count++;
+	}
+    }
+    return(count);
+}
+
+/* Writes the transitions in the same order and format as wfsa_to_file() */
+/* The arrays must have room for wfsa_transition_count() entries */
+void wfsa_transitions_to_arrays(struct wfsa *fsm, int *sources, int *targets, int *symbols, double *probs) {
+    int i, j, k, n;
+    PROB thisprob;
+    for (i = 0, n = 0; i < fsm->num_states; i++) {
+	for (j = 0; j < fsm->alphabet_size; j++) {
+	    for (k = 0; k < fsm->num_states; k++) {
+		thisprob = *(TRANSITION(fsm,i,j,k));
+		if (wfsa_prob_written(thisprob)) {
+		    *(sources+n) = i;
+		    *(targets+n) = k;
+		    *(symbols+n) = j;
+		    *(probs+n) = output_convert(thisprob);
+		    n++;
+		}
+	    }
+	}
+    }
+}
+
+/* Writes the final probabilities in the same order and format as wfsa_to_file() */
+/* The arrays must have room for wfsa_final_count() entries */
+void wfsa_finals_to_arrays(struct wfsa *fsm, int *states, double *finalprobs) {
+    int i, n;
+    PROB thisprob;
+    for (i = 0, n = 0; i < fsm->num_states; i++) {
+	thisprob = *FINALPROB(fsm,i);
+	if (wfsa_prob_written(thisprob)) {
+	    *(states+n) = i;
+	    *(finalprobs+n) = output_convert(thisprob);
+	    n++;
+	}
+    }
+}
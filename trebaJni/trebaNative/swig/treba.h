@@ -263,3 +263,9 @@ void log1plus_free_wrapper();
 
 void setPrior(PROB prior);
 void setT0(int t0);
+
+struct observations *observations_from_arrays(int *obsdata, int *obslengths, int numobs);
+int wfsa_transition_count(struct wfsa *fsm);
+int wfsa_final_count(struct wfsa *fsm);
+void wfsa_transitions_to_arrays(struct wfsa *fsm, int *sources, int *targets, int *symbols, double *probs);
+void wfsa_finals_to_arrays(struct wfsa *fsm, int *states, double *finalprobs);
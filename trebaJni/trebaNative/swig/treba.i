@@ -4,5 +4,10 @@
  #include "treba.h"
  %}
  
+ /* Pass the word and automaton tables of the java wrapper functions as java arrays */
+ %include "arrays_java.i"
+ %apply int[] { int *obsdata, int *obslengths, int *sources, int *targets, int *symbols, int *states };
+ %apply double[] { double *probs, double *finalprobs };
+
  /* Parse the header file to generate wrappers */
  %include "treba.h"
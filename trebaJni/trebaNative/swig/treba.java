@@ -443,4 +443,25 @@ public class treba implements trebaConstants {
     trebaJNI.setT0(t0);
   }
 
+  public static observations observations_from_arrays(int[] obsdata, int[] obslengths, int numobs) {
+    long cPtr = trebaJNI.observations_from_arrays(obsdata, obslengths, numobs);
+    return (cPtr == 0) ? null : new observations(cPtr, false);
+  }
+
+  public static int wfsa_transition_count(wfsa fsm) {
+    return trebaJNI.wfsa_transition_count(wfsa.getCPtr(fsm), fsm);
+  }
+
+  public static int wfsa_final_count(wfsa fsm) {
+    return trebaJNI.wfsa_final_count(wfsa.getCPtr(fsm), fsm);
+  }
+
+  public static void wfsa_transitions_to_arrays(wfsa fsm, int[] sources, int[] targets, int[] symbols, double[] probs) {
+    trebaJNI.wfsa_transitions_to_arrays(wfsa.getCPtr(fsm), fsm, sources, targets, symbols, probs);
+  }
+
+  public static void wfsa_finals_to_arrays(wfsa fsm, int[] states, double[] finalprobs) {
+    trebaJNI.wfsa_finals_to_arrays(wfsa.getCPtr(fsm), fsm, states, finalprobs);
+  }
+
 }
@@ -218,4 +218,9 @@ public class trebaJNI {
   public final static native void log1plus_free_wrapper();
   public final static native void setPrior(double jarg1);
   public final static native void setT0(int jarg1);
+  public final static native long observations_from_arrays(int[] jarg1, int[] jarg2, int jarg3);
+  public final static native int wfsa_transition_count(long jarg1, wfsa jarg1_);
+  public final static native int wfsa_final_count(long jarg1, wfsa jarg1_);
+  public final static native void wfsa_transitions_to_arrays(long jarg1, wfsa jarg1_, int[] jarg2, int[] jarg3, int[] jarg4, double[] jarg5);
+  public final static native void wfsa_finals_to_arrays(long jarg1, wfsa jarg1_, int[] jarg2, double[] jarg3);
 }
@@ -3177,6 +3177,102 @@ SWIGEXPORT void JNICALL Java_treba_trebaJNI_setT0(JNIEnv *jenv, jclass jcls, jin
 }
 
 
+SWIGEXPORT jlong JNICALL Java_treba_trebaJNI_observations_1from_1arrays(JNIEnv *jenv, jclass jcls, jintArray jarg1, jintArray jarg2, jint jarg3) {
+  jlong jresult = 0 ;
+  int *arg1 = (int *) 0 ;
+  int *arg2 = (int *) 0 ;
+  int arg3 ;
+  struct observations *result = 0 ;
+  
+  (void)jcls;
+  arg1 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg1, 0);
+  if (!arg1) return 0;
+  arg2 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg2, 0);
+  if (!arg2) {
+    (*jenv)->ReleaseIntArrayElements(jenv, jarg1, (jint *)arg1, JNI_ABORT);
+    return 0;
+  }
+  arg3 = (int)jarg3; 
+  result = (struct observations *)observations_from_arrays(arg1,arg2,arg3);
+  *(struct observations **)&jresult = result; 
+  (*jenv)->ReleaseIntArrayElements(jenv, jarg2, (jint *)arg2, JNI_ABORT);
+  (*jenv)->ReleaseIntArrayElements(jenv, jarg1, (jint *)arg1, JNI_ABORT);
+  return jresult;
+}
+
+
+SWIGEXPORT jint JNICALL Java_treba_trebaJNI_wfsa_1transition_1count(JNIEnv *jenv, jclass jcls, jlong jarg1, jobject jarg1_) {
+  jint jresult = 0 ;
+  struct wfsa *arg1 = (struct wfsa *) 0 ;
+  int result;
+  
+  (void)jenv;
+  (void)jcls;
+  (void)jarg1_;
+  arg1 = *(struct wfsa **)&jarg1; 
+  result = (int)wfsa_transition_count(arg1);
+  jresult = (jint)result; 
+  return jresult;
+}
+
+
+SWIGEXPORT jint JNICALL Java_treba_trebaJNI_wfsa_1final_1count(JNIEnv *jenv, jclass jcls, jlong jarg1, jobject jarg1_) {
+  jint jresult = 0 ;
+  struct wfsa *arg1 = (struct wfsa *) 0 ;
+  int result;
+  
+  (void)jenv;
+  (void)jcls;
+  (void)jarg1_;
+  arg1 = *(struct wfsa **)&jarg1; 
+  result = (int)wfsa_final_count(arg1);
+  jresult = (jint)result; 
+  return jresult;
+}
+
+
+SWIGEXPORT void JNICALL Java_treba_trebaJNI_wfsa_1transitions_1to_1arrays(JNIEnv *jenv, jclass jcls, jlong jarg1, jobject jarg1_, jintArray jarg2, jintArray jarg3, jintArray jarg4, jdoubleArray jarg5) {
+  struct wfsa *arg1 = (struct wfsa *) 0 ;
+  int *arg2 = (int *) 0 ;
+  int *arg3 = (int *) 0 ;
+  int *arg4 = (int *) 0 ;
+  double *arg5 = (double *) 0 ;
+  
+  (void)jcls;
+  (void)jarg1_;
+  arg1 = *(struct wfsa **)&jarg1; 
+  arg2 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg2, 0);
+  arg3 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg3, 0);
+  arg4 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg4, 0);
+  arg5 = (double *)(*jenv)->GetDoubleArrayElements(jenv, jarg5, 0);
+  if (arg2 && arg3 && arg4 && arg5) {
+    wfsa_transitions_to_arrays(arg1,arg2,arg3,arg4,arg5);
+  }
+  if (arg5) (*jenv)->ReleaseDoubleArrayElements(jenv, jarg5, (jdouble *)arg5, 0);
+  if (arg4) (*jenv)->ReleaseIntArrayElements(jenv, jarg4, (jint *)arg4, 0);
+  if (arg3) (*jenv)->ReleaseIntArrayElements(jenv, jarg3, (jint *)arg3, 0);
+  if (arg2) (*jenv)->ReleaseIntArrayElements(jenv, jarg2, (jint *)arg2, 0);
+}
+
+
+SWIGEXPORT void JNICALL Java_treba_trebaJNI_wfsa_1finals_1to_1arrays(JNIEnv *jenv, jclass jcls, jlong jarg1, jobject jarg1_, jintArray jarg2, jdoubleArray jarg3) {
+  struct wfsa *arg1 = (struct wfsa *) 0 ;
+  int *arg2 = (int *) 0 ;
+  double *arg3 = (double *) 0 ;
+  
+  (void)jcls;
+  (void)jarg1_;
+  arg1 = *(struct wfsa **)&jarg1; 
+  arg2 = (int *)(*jenv)->GetIntArrayElements(jenv, jarg2, 0);
+  arg3 = (double *)(*jenv)->GetDoubleArrayElements(jenv, jarg3, 0);
+  if (arg2 && arg3) {
+    wfsa_finals_to_arrays(arg1,arg2,arg3);
+  }
+  if (arg3) (*jenv)->ReleaseDoubleArrayElements(jenv, jarg3, (jdouble *)arg3, 0);
+  if (arg2) (*jenv)->ReleaseIntArrayElements(jenv, jarg2, (jint *)arg2, 0);
+}
+
+
 #ifdef __cplusplus
 }
 #endif